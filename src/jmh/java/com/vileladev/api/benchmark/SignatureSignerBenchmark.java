@@ -0,0 +1,223 @@
+package com.vileladev.api.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vileladev.api.cache.SignerMaterial;
+import com.vileladev.api.cache.SignerMaterialCache;
+import com.vileladev.api.crypto.KeyProvider;
+import com.vileladev.api.crypto.PrivateKeyLimiter;
+import com.vileladev.api.crypto.SignerKeyRegistry;
+import com.vileladev.api.digest.DigestService;
+import com.vileladev.api.digest.MultiDigest;
+import com.vileladev.api.metrics.SignatureMetrics;
+import com.vileladev.api.service.impl.SignatureSignerServiceImpl;
+import com.vileladev.api.service.record.SignatureOptions;
+import com.vileladev.api.service.record.SignerKey;
+import com.vileladev.api.storage.ScratchBuffer;
+import com.vileladev.api.storage.ScratchSpace;
+import com.vileladev.api.storage.SignatureStorage;
+import com.vileladev.api.timestamp.TimestampService;
+import com.vileladev.api.util.DigestUtil;
+import org.bouncycastle.util.encoders.Hex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Assinatura anexada em streaming e assinatura por hash, com keystore frio (cache vazio), quente ou registrado
+// no servidor (sem upload: a requisição só informa o id da chave)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class SignatureSignerBenchmark {
+
+    public enum KeystorePath { COLD, WARM, REGISTERED }
+
+    @State(Scope.Benchmark)
+    public static class SignerState {
+
+        @Param({"FIXTURE", "RSA_2048", "RSA_4096", "EC_P256", "EC_P384", "ED25519"})
+        SignerFixture.KeyType keyType;
+
+        @Param({"COLD", "WARM", "REGISTERED"})
+        KeystorePath keystore;
+
+        SignerFixture fixture;
+        SignerMaterialCache signerMaterialCache;
+        SignerKeyRegistry signerKeyRegistry;
+        SignatureSignerServiceImpl signerService;
+        ThreadPoolTaskExecutor executor;
+        Path scratchDir;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            SignerFixture.productionLogging();
+            fixture = SignerFixture.create(keyType);
+            executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(1);
+            executor.initialize();
+            scratchDir = Files.createTempDirectory("jmh-scratch-");
+            ScratchSpace scratchSpace = new ScratchSpace(scratchDir.toString(), 1024 * 1024, Long.MAX_VALUE);
+            scratchSpace.init();
+            signerMaterialCache = new SignerMaterialCache(16, Duration.ofHours(1));
+            signerKeyRegistry = new SignerKeyRegistry(List.of(new KeyProvider() {
+                @Override
+                public String name() {
+                    return "benchmark";
+                }
+
+                @Override
+                public Map<String, SignerMaterial> loadKeys() throws Exception {
+                    return Map.of("bench", SignerMaterial.load(fixture.keystoreBytes(),
+                            SignerFixture.PASSWORD.toCharArray(), fixture.alias()));
+                }
+            }));
+            signerKeyRegistry.init();
+            signerService = new SignatureSignerServiceImpl(signerMaterialCache, signerKeyRegistry, executor, new ObjectMapper(),
+                    scratchSpace, new SignatureStorage(scratchDir.toString(), false, executor), new PrivateKeyLimiter(0),
+                    TimestampService.disabled(), DigestService.sequential(), SignatureMetrics.noop());
+        }
+
+        // Cold: toda invocação paga o PBKDF do PKCS#12 e a montagem do material do assinante
+        @Setup(Level.Invocation)
+        public void resetKeystore() {
+            if (keystore == KeystorePath.COLD) {
+                signerMaterialCache.invalidateAll();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            executor.shutdown();
+            signerKeyRegistry.close();
+            fixture.close();
+            Files.deleteIfExists(scratchDir.resolve("uploads"));
+            Files.deleteIfExists(scratchDir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class DocumentState {
+
+        @Param({"1024", "1048576", "67108864", "1073741824"})
+        long documentSize;
+    }
+
+    @State(Scope.Benchmark)
+    public static class DigestState {
+
+        @Param({"SHA-256", "SHA-384", "SHA-512"})
+        String digestAlgorithm;
+
+        String hexDigest;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            hexDigest = Hex.toHexString(MessageDigest.getInstance(DigestUtil.normalize(digestAlgorithm))
+                    .digest("documento de benchmark".getBytes()));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class MultiDigestState {
+
+        @Param({"false", "true"})
+        boolean parallel;
+
+        ThreadPoolTaskExecutor executor;
+        DigestService digestService;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(2);
+            executor.initialize();
+            digestService = new DigestService(executor, List.of("SHA-256", "SHA-512"), 1024 * 1024,
+                    parallel ? 256 * 1024 : Integer.MAX_VALUE, Duration.ofHours(1), 1);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            executor.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void signAttached(SignerState signer, DocumentState document) throws IOException {
+        if (signer.keystore == KeystorePath.REGISTERED) {
+            // Chave pelo id: sem leitura do .pfx nem consulta ao cache de keystores enviados
+            try (InputStream in = SignerFixture.document(document.documentSize);
+                 ScratchBuffer signature = signer.signerService.generateAttachedSignatureBuffer(
+                         SignerKey.registered("bench"), in, SignatureOptions.DEFAULT);
+                 OutputStream out = OutputStream.nullOutputStream()) {
+                signature.writeTo(out);
+            }
+            return;
+        }
+        try (InputStream in = SignerFixture.document(document.documentSize);
+             OutputStream out = OutputStream.nullOutputStream()) {
+            signer.signerService.generateAttachedSignature(signer.fixture.keystorePath().toString(),
+                    SignerFixture.PASSWORD, signer.fixture.alias(), in, out);
+        }
+    }
+
+    // Custo isolado do digest sobre o documento, para separar hash de operação com a chave privada
+    @Benchmark
+    public byte[] digestDocument(DocumentState document, DigestState digest) throws Exception {
+        MessageDigest md = MessageDigest.getInstance(DigestUtil.normalize(digest.digestAlgorithm));
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = SignerFixture.document(document.documentSize)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                md.update(buffer, 0, read);
+            }
+        }
+        return md.digest();
+    }
+
+    // SHA-256 e SHA-512 em uma leitura só (fingerprints da assinatura destacada), com os algoritmos em sequência
+    // ou em paralelo sobre o mesmo bloco de 1 MB
+    @Benchmark
+    public Map<String, byte[]> multiDigestDocument(DocumentState document, MultiDigestState state) throws IOException {
+        MultiDigest digest = state.digestService.newDigest(List.of("SHA-256", "SHA-512"));
+        try (InputStream in = SignerFixture.document(document.documentSize)) {
+            state.digestService.update(digest, in);
+        }
+        return digest.digest();
+    }
+
+    // Ed25519 só assina digest SHA-512: rode essa combinação com -p digestAlgorithm=SHA-512
+    @Benchmark
+    public ResponseEntity<String> signDigest(SignerState signer, DigestState digest) throws IOException {
+        if (signer.keystore == KeystorePath.REGISTERED) {
+            return signer.signerService.generateSignatureFromDigest(SignerKey.registered("bench"),
+                    digest.digestAlgorithm, digest.hexDigest, false);
+        }
+        return signer.signerService.generateSignatureFromDigest(
+                SignerKey.uploaded(signer.fixture.keystoreBytes(), SignerFixture.PASSWORD, signer.fixture.alias()),
+                digest.digestAlgorithm, digest.hexDigest, false);
+    }
+}
@@ -0,0 +1,203 @@
+package com.vileladev.api.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vileladev.api.cache.CertificateCache;
+import com.vileladev.api.cache.SignerMaterialCache;
+import com.vileladev.api.cache.TrustStoreCache;
+import com.vileladev.api.cache.VerificationResultCache;
+import com.vileladev.api.crypto.CmsPreParser;
+import com.vileladev.api.crypto.PrivateKeyLimiter;
+import com.vileladev.api.crypto.SignerKeyRegistry;
+import com.vileladev.api.digest.DigestService;
+import com.vileladev.api.exception.DocumentSigningException;
+import com.vileladev.api.metrics.SignatureMetrics;
+import com.vileladev.api.revocation.HttpRevocationFetcher;
+import com.vileladev.api.revocation.RevocationCache;
+import com.vileladev.api.service.impl.SignatureSignerServiceImpl;
+import com.vileladev.api.service.impl.SignatureVerifierServiceImpl;
+import com.vileladev.api.service.record.SignerVerification;
+import com.vileladev.api.storage.ScratchSpace;
+import com.vileladev.api.storage.SignatureStorage;
+import com.vileladev.api.timestamp.TimestampService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Verificação de assinatura anexada lida do disco, com âncoras de confiança frias (recarregadas) ou quentes
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class SignatureVerifierBenchmark {
+
+    public enum TrustStorePath { COLD, WARM }
+
+    public enum ResultCachePath { COLD, WARM }
+
+    @State(Scope.Benchmark)
+    public static class VerifierState {
+
+        @Param({"FIXTURE", "RSA_2048", "RSA_4096", "EC_P256", "EC_P384", "ED25519"})
+        SignerFixture.KeyType keyType;
+
+        @Param({"1024", "1048576", "67108864", "1073741824"})
+        long documentSize;
+
+        @Param({"COLD", "WARM"})
+        TrustStorePath trustStore;
+
+        // Warm: o mesmo .p7s é verificado de novo e só paga o SHA-256 do arquivo
+        @Param({"COLD", "WARM"})
+        ResultCachePath resultCache;
+
+        SignerFixture fixture;
+        ThreadPoolTaskExecutor executor;
+        ObjectMapper objectMapper;
+        TrustStoreCache trustStoreCache;
+        VerificationResultCache verificationResultCache;
+        CertificateCache certificateCache;
+        SignatureVerifierServiceImpl verifierService;
+        Path signature;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            SignerFixture.productionLogging();
+            fixture = SignerFixture.create(keyType);
+            executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(1);
+            executor.initialize();
+            objectMapper = new ObjectMapper();
+
+            // Gera uma única vez o .p7s do tamanho pedido, em disco, para não medir a assinatura
+            Path scratchDir = Files.createTempDirectory("jmh-scratch-");
+            ScratchSpace scratchSpace = new ScratchSpace(scratchDir.toString(), 1024 * 1024, Long.MAX_VALUE);
+            scratchSpace.init();
+            SignatureSignerServiceImpl signerService = new SignatureSignerServiceImpl(
+                    new SignerMaterialCache(1, Duration.ofMinutes(1)), new SignerKeyRegistry(List.of()), executor, objectMapper,
+                    scratchSpace, new SignatureStorage(scratchDir.toString(), false, executor), new PrivateKeyLimiter(0),
+                    TimestampService.disabled(), DigestService.sequential(), SignatureMetrics.noop());
+            signature = Files.createTempFile("jmh-signature-", ".p7s");
+            try (InputStream in = SignerFixture.document(documentSize);
+                 OutputStream out = Files.newOutputStream(signature)) {
+                signerService.generateAttachedSignature(fixture.keystorePath().toString(),
+                        SignerFixture.PASSWORD, fixture.alias(), in, out);
+            }
+            Files.deleteIfExists(scratchDir.resolve("uploads"));
+            Files.deleteIfExists(scratchDir);
+
+            newTrustStoreCache();
+        }
+
+        // Cold: toda invocação relê e indexa o diretório de certificados, como antes do cache
+        @Setup(Level.Invocation)
+        public void resetTrustStore() throws IOException {
+            if (trustStore == TrustStorePath.COLD) {
+                trustStoreCache.close();
+                newTrustStoreCache();
+            }
+            if (resultCache == ResultCachePath.COLD) {
+                verificationResultCache.invalidateAll();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            trustStoreCache.close();
+            executor.shutdown();
+            Files.deleteIfExists(signature);
+            fixture.close();
+        }
+
+        private void newTrustStoreCache() {
+            trustStoreCache = new TrustStoreCache();
+            verificationResultCache = new VerificationResultCache(1024, Duration.ofHours(1));
+            certificateCache = new CertificateCache(1024, Duration.ofHours(1));
+            RevocationCache revocationCache = new RevocationCache(new HttpRevocationFetcher(Duration.ofSeconds(1)), executor,
+                    RevocationCache.Mode.OFF, "", Duration.ofHours(24), Duration.ofMinutes(5));
+            verifierService = new SignatureVerifierServiceImpl(trustStoreCache, executor, objectMapper, revocationCache,
+                    verificationResultCache, certificateCache, new CmsPreParser(0, 0, 8), SignatureMetrics.noop());
+        }
+    }
+
+    // Upload que não é CMS (64 MB de lixo): a triagem do cabeçalho rejeita antes do hash e do parse completo
+    @State(Scope.Benchmark)
+    public static class MalformedState {
+
+        ThreadPoolTaskExecutor executor;
+        TrustStoreCache trustStoreCache;
+        SignatureVerifierServiceImpl verifierService;
+        SignerFixture fixture;
+        Path junk;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            SignerFixture.productionLogging();
+            fixture = SignerFixture.create(SignerFixture.KeyType.FIXTURE);
+            executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(1);
+            executor.initialize();
+            trustStoreCache = new TrustStoreCache();
+            RevocationCache revocationCache = new RevocationCache(new HttpRevocationFetcher(Duration.ofSeconds(1)), executor,
+                    RevocationCache.Mode.OFF, "", Duration.ofHours(24), Duration.ofMinutes(5));
+            verifierService = new SignatureVerifierServiceImpl(trustStoreCache, executor, new ObjectMapper(), revocationCache,
+                    new VerificationResultCache(1024, Duration.ofHours(1)), new CertificateCache(1024, Duration.ofHours(1)),
+                    new CmsPreParser(0, 0, 8), SignatureMetrics.noop());
+            junk = Files.createTempFile("jmh-junk-", ".p7s");
+            try (InputStream in = SignerFixture.document(64L * 1024 * 1024)) {
+                Files.copy(in, junk, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            trustStoreCache.close();
+            executor.shutdown();
+            Files.deleteIfExists(junk);
+            fixture.close();
+        }
+    }
+
+    @Benchmark
+    public String rejectMalformed(MalformedState state) {
+        try {
+            state.verifierService.verifyAttachedSignature(new FileSystemResource(state.junk), state.fixture.trustDir());
+        } catch (DocumentSigningException e) {
+            return e.getErrorCode();
+        }
+        throw new IllegalStateException("Junk upload was accepted");
+    }
+
+    @Benchmark
+    public ResponseEntity<List<SignerVerification>> verifyAttached(VerifierState state) {
+        ResponseEntity<List<SignerVerification>> result = state.verifierService.verifyAttachedSignature(
+                new FileSystemResource(state.signature), state.fixture.trustDir());
+        if (!result.getBody().stream().allMatch(SignerVerification::isValid)) {
+            throw new IllegalStateException("Benchmark signature did not verify: " + result.getBody());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,214 @@
+package com.vileladev.api.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.Security;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.stream.Stream;
+
+// Keystore e cadeia de confiança usados pelos benchmarks: o .pfx de teste do projeto ou um par gerado na hora
+public final class SignerFixture implements AutoCloseable {
+
+    static final String PASSWORD = "bry123456";
+
+    public enum KeyType {
+        // certificado_teste_hub.pfx (RSA-2048) validado contra src/main/resources/cadeia
+        FIXTURE,
+        RSA_2048,
+        RSA_4096,
+        // SHA256withECDSA / SHA384withECDSA, escolhidos pela curva
+        EC_P256,
+        EC_P384,
+        ED25519
+    }
+
+    private final Path keystorePath;
+    private final String alias;
+    private final Path trustDir;
+    private final Path workDir;
+
+    private SignerFixture(Path keystorePath, String alias, Path trustDir, Path workDir) {
+        this.keystorePath = keystorePath;
+        this.alias = alias;
+        this.trustDir = trustDir;
+        this.workDir = workDir;
+    }
+
+    static SignerFixture create(KeyType keyType) throws Exception {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+        if (keyType == KeyType.FIXTURE) {
+            return new SignerFixture(resource("pkcs12/certificado_teste_hub.pfx"),
+                    "{e2618a8b-20de-4dd2-b209-70912e3177f4}", resource("cadeia"), null);
+        }
+
+        Path workDir = Files.createTempDirectory("jmh-signer-");
+        KeyPair root = keyPair("RSA", 2048);
+        KeyPair leaf = switch (keyType) {
+            case RSA_4096 -> keyPair("RSA", 4096);
+            case EC_P256 -> ecKeyPair("secp256r1");
+            case EC_P384 -> ecKeyPair("secp384r1");
+            case ED25519 -> KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+            default -> keyPair("RSA", 2048);
+        };
+
+        X500Name rootName = new X500Name("CN=JMH Root CA");
+        X509Certificate rootCert = certificate(rootName, rootName, root, root.getPrivate(), true);
+        X509Certificate leafCert = certificate(rootName, new X500Name("CN=JMH Signer " + keyType), leaf, root.getPrivate(), false);
+
+        Path trustDir = Files.createDirectories(workDir.resolve("cadeia"));
+        Files.write(trustDir.resolve("root.cer"), rootCert.getEncoded());
+
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        keyStore.setKeyEntry("signer", leaf.getPrivate(), PASSWORD.toCharArray(), new Certificate[]{leafCert, rootCert});
+        Path keystorePath = workDir.resolve("signer.p12");
+        try (OutputStream out = Files.newOutputStream(keystorePath)) {
+            keyStore.store(out, PASSWORD.toCharArray());
+        }
+        return new SignerFixture(keystorePath, "signer", trustDir, workDir);
+    }
+
+    Path keystorePath() {
+        return keystorePath;
+    }
+
+    byte[] keystoreBytes() throws IOException {
+        return Files.readAllBytes(keystorePath);
+    }
+
+    String alias() {
+        return alias;
+    }
+
+    String trustDir() {
+        return trustDir.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (workDir == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(workDir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static Path resource(String name) throws URISyntaxException {
+        return Path.of(SignerFixture.class.getClassLoader().getResource(name).toURI());
+    }
+
+    private static KeyPair keyPair(String algorithm, int size) throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+        generator.initialize(size);
+        return generator.generateKeyPair();
+    }
+
+    private static KeyPair ecKeyPair(String curve) throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec(curve));
+        return generator.generateKeyPair();
+    }
+
+    private static X509Certificate certificate(X500Name issuer, X500Name subject, KeyPair subjectKeys,
+                                               PrivateKey issuerKey, boolean ca) throws Exception {
+        Instant now = Instant.now();
+        X509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(
+                issuer, BigInteger.valueOf(now.toEpochMilli()),
+                Date.from(now.minus(Duration.ofDays(1))), Date.from(now.plus(Duration.ofDays(365))),
+                subject, subjectKeys.getPublic());
+        builder.addExtension(Extension.basicConstraints, true, new BasicConstraints(ca));
+        builder.addExtension(Extension.keyUsage, true, new KeyUsage(ca
+                ? KeyUsage.keyCertSign | KeyUsage.cRLSign
+                : KeyUsage.digitalSignature | KeyUsage.nonRepudiation));
+        return new JcaX509CertificateConverter()
+                .setProvider(BouncyCastleProvider.PROVIDER_NAME)
+                .getCertificate(builder.build(new JcaContentSignerBuilder("SHA256withRSA")
+                        .setProvider(BouncyCastleProvider.PROVIDER_NAME)
+                        .build(issuerKey)));
+    }
+
+    // Documento sintético de tamanho arbitrário, sem ocupar heap
+    // Logback como na aplicação (root em INFO, padrão de console do Spring Boot), escrevendo em um stream nulo:
+    // o -prof gc passa a contar a formatação dos logs de cada requisição sem medir o terminal
+    static void productionLogging() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%t] %-40.40logger{39} : %m%n");
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        ch.qos.logback.classic.Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(appender);
+    }
+
+    static InputStream document(long size) {
+        return new InputStream() {
+            private long remaining = size;
+
+            @Override
+            public int read() {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                remaining--;
+                return 'a';
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int n = (int) Math.min(len, remaining);
+                Arrays.fill(b, off, off + n, (byte) 'a');
+                remaining -= n;
+                return n;
+            }
+        };
+    }
+}
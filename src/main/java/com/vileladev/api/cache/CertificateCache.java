@@ -0,0 +1,211 @@
+package com.vileladev.api.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Certificados já decodificados, endereçados pelo SHA-256 do DER, e o resultado da PKIX para caminhos
+// signatário -> âncora já validados. Um caminho vale até o TTL ou o fim da validade do certificado mais curto,
+// e uma nova versão das âncoras descarta a entrada no acesso. A revogação não entra aqui: ela é consultada
+// a cada verificação no RevocationCache, que já responde em memória e acompanha CRLs vencidas e novas.
+@Component
+public class CertificateCache implements MeterBinder {
+
+    private final int maxEntries;
+    private final Duration chainTtl;
+    private final Clock clock;
+    private final JcaX509CertificateConverter converter = new JcaX509CertificateConverter()
+            .setProvider(BouncyCastleProvider.PROVIDER_NAME);
+
+    // Ordenados por acesso: o primeiro elemento é sempre o menos usado recentemente
+    private final LinkedHashMap<ByteBuffer, X509Certificate> certificates = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<ChainKey, ChainEntry> chains = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong certificateHits = new AtomicLong();
+    private final AtomicLong certificateMisses = new AtomicLong();
+    private final AtomicLong chainHits = new AtomicLong();
+    private final AtomicLong chainMisses = new AtomicLong();
+
+    @Autowired
+    public CertificateCache(@Value("${app.signature.verify.certificate-cache.max-entries:4096}") int maxEntries,
+                            @Value("${app.signature.verify.certificate-cache.chain-ttl:PT1H}") Duration chainTtl) {
+        this(maxEntries, chainTtl, Clock.systemUTC());
+    }
+
+    CertificateCache(int maxEntries, Duration chainTtl, Clock clock) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("Certificate cache size cannot be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.chainTtl = chainTtl;
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    // Devolve a mesma instância para o mesmo DER, decodificando só no primeiro encontro
+    public X509Certificate intern(X509CertificateHolder holder) throws IOException, CertificateException {
+        if (!isEnabled()) {
+            return converter.getCertificate(holder);
+        }
+        ByteBuffer key = ByteBuffer.wrap(VerificationResultCache.newDigest().digest(holder.getEncoded()));
+        synchronized (certificates) {
+            X509Certificate cached = certificates.get(key);
+            if (cached != null) {
+                certificateHits.incrementAndGet();
+                return cached;
+            }
+        }
+        certificateMisses.incrementAndGet();
+        X509Certificate parsed = converter.getCertificate(holder);
+        synchronized (certificates) {
+            // Em uma corrida, fica a primeira instância guardada
+            X509Certificate raced = certificates.putIfAbsent(key, parsed);
+            evict(certificates);
+            return raced != null ? raced : parsed;
+        }
+    }
+
+    // Resultado da PKIX memorizado para o caminho (na ordem signatário -> último intermediário) ou null
+    public Boolean getTrusted(List<X509Certificate> path, TrustStore trustStore) throws CertificateEncodingException {
+        if (!isEnabled()) {
+            return null;
+        }
+        ChainKey key = new ChainKey(pathDigest(path), trustStore.getDirectory());
+        long now = clock.millis();
+        synchronized (chains) {
+            ChainEntry entry = chains.get(key);
+            if (entry != null) {
+                if (entry.trustStoreVersion != trustStore.getVersion() || entry.expiresAt <= now) {
+                    chains.remove(key);
+                } else {
+                    chainHits.incrementAndGet();
+                    return entry.trusted;
+                }
+            }
+        }
+        chainMisses.incrementAndGet();
+        return null;
+    }
+
+    public void putTrusted(List<X509Certificate> path, TrustStore trustStore, boolean trusted)
+            throws CertificateEncodingException {
+        if (!isEnabled()) {
+            return;
+        }
+        long expiresAt = clock.millis() + chainTtl.toMillis();
+        for (X509Certificate cert : path) {
+            expiresAt = Math.min(expiresAt, cert.getNotAfter().getTime());
+        }
+        ChainEntry entry = new ChainEntry(trusted, trustStore.getVersion(), expiresAt);
+        synchronized (chains) {
+            chains.put(new ChainKey(pathDigest(path), trustStore.getDirectory()), entry);
+            evict(chains);
+        }
+    }
+
+    // Remove periodicamente caminhos expirados, mesmo sem novas verificações do mesmo signatário
+    @Scheduled(fixedDelayString = "${app.signature.verify.certificate-cache.purge-interval:PT1M}")
+    public void purgeExpired() {
+        long now = clock.millis();
+        synchronized (chains) {
+            chains.values().removeIf(entry -> entry.expiresAt <= now);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (certificates) {
+            certificates.clear();
+        }
+        synchronized (chains) {
+            chains.clear();
+        }
+    }
+
+    public int certificateCount() {
+        synchronized (certificates) {
+            return certificates.size();
+        }
+    }
+
+    public int chainCount() {
+        synchronized (chains) {
+            return chains.size();
+        }
+    }
+
+    public long chainHitCount() {
+        return chainHits.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("verify.certificate.cache.requests", certificateHits, AtomicLong::get)
+                .tags("cache", "certificate", "result", "hit")
+                .description("Certificates served already decoded")
+                .register(registry);
+        FunctionCounter.builder("verify.certificate.cache.requests", certificateMisses, AtomicLong::get)
+                .tags("cache", "certificate", "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("verify.certificate.cache.requests", chainHits, AtomicLong::get)
+                .tags("cache", "chain", "result", "hit")
+                .description("Signer chains accepted or rejected without running PKIX again")
+                .register(registry);
+        FunctionCounter.builder("verify.certificate.cache.requests", chainMisses, AtomicLong::get)
+                .tags("cache", "chain", "result", "miss")
+                .register(registry);
+        Gauge.builder("verify.certificate.cache.size", this, CertificateCache::certificateCount)
+                .tag("cache", "certificate")
+                .register(registry);
+        Gauge.builder("verify.certificate.cache.size", this, CertificateCache::chainCount)
+                .tag("cache", "chain")
+                .register(registry);
+    }
+
+    private <K, V> void evict(LinkedHashMap<K, V> map) {
+        Iterator<V> eldest = map.values().iterator();
+        while (map.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    // O caminho é identificado pelos DER de todos os certificados, na ordem
+    private static ByteBuffer pathDigest(List<X509Certificate> path) throws CertificateEncodingException {
+        MessageDigest md = VerificationResultCache.newDigest();
+        for (X509Certificate cert : path) {
+            md.update(cert.getEncoded());
+        }
+        return ByteBuffer.wrap(md.digest());
+    }
+
+    private record ChainEntry(boolean trusted, long trustStoreVersion, long expiresAt) {
+    }
+
+    private record ChainKey(ByteBuffer pathDigest, Path trustDirectory) {
+    }
+}
@@ -0,0 +1,233 @@
+package com.vileladev.api.cache;
+
+import com.vileladev.api.crypto.TokenSessionPool;
+import com.vileladev.api.service.record.SignatureOptions;
+import com.vileladev.api.util.SignatureAlgorithmUtil;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaCertStore;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cms.SignerInfoGenerator;
+import org.bouncycastle.cms.jcajce.JcaSignerInfoGeneratorBuilder;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.DefaultSignatureAlgorithmIdentifierFinder;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.SignatureAlgorithmIdentifierFinder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import javax.security.auth.DestroyFailedException;
+
+// Chave privada destravada e os objetos do BouncyCastle que podem ser reaproveitados entre assinaturas.
+// Cada get() do cache entrega uma referência que deve ser fechada; a chave só é descartada
+// quando o cache e todos os usuários em andamento a liberam.
+public final class SignerMaterial implements AutoCloseable {
+
+    private static final SignatureAlgorithmIdentifierFinder ALGORITHM_FINDER = new DefaultSignatureAlgorithmIdentifierFinder();
+
+    private volatile PrivateKey privateKey;
+    private final List<X509Certificate> certificateChain;
+    // A cadeia também em X509CertificateHolder, para acrescentar a CMS existentes sem recodificar por requisição
+    private final List<X509CertificateHolder> certificateHolders;
+    private final JcaCertStore certStore;
+    private final DigestCalculatorProvider digestProvider;
+    private final String signatureAlgorithm;
+    // Provedor JCA que assina com a chave (null: BouncyCastle) e, para chaves de token, o pool de sessões
+    private final Provider signingProvider;
+    private final TokenSessionPool sessionPool;
+
+    // Um builder por algoritmo pedido (padrão da chave, digest ou PSS escolhidos pelo cliente)
+    private final Map<String, JcaContentSignerBuilder> contentSignerBuilders = new ConcurrentHashMap<>();
+
+    // Começa em 1: a referência do próprio cache
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private SignerMaterial(PrivateKey privateKey, List<X509Certificate> certificateChain,
+                           Provider signingProvider, TokenSessionPool sessionPool) throws Exception {
+        this.privateKey = privateKey;
+        this.signingProvider = signingProvider;
+        this.sessionPool = sessionPool;
+        this.certificateChain = List.copyOf(certificateChain);
+        List<X509CertificateHolder> holders = new ArrayList<>(certificateChain.size());
+        for (X509Certificate cert : certificateChain) {
+            holders.add(new JcaX509CertificateHolder(cert));
+        }
+        this.certificateHolders = List.copyOf(holders);
+        this.certStore = new JcaCertStore(certificateChain);
+        this.digestProvider = new JcaDigestCalculatorProviderBuilder()
+                .setProvider(BouncyCastleProvider.PROVIDER_NAME)
+                .build();
+        this.signatureAlgorithm = SignatureAlgorithmUtil.resolve(algorithmKey(privateKey), null, false);
+    }
+
+    // Executa a derivação PBE do PKCS#12 e extrai a chave e a cadeia do alias
+    public static SignerMaterial load(byte[] pkcs12, char[] password, String alias) throws Exception {
+
+        // Inicializa o KeyStore com o tipo PKCS12
+        KeyStore keystore = KeyStore.getInstance("PKCS12");
+        keystore.load(new ByteArrayInputStream(pkcs12), password);
+        return load(keystore, password, alias, null, null);
+    }
+
+    // Extrai a chave e a cadeia do alias de um keystore já carregado (PKCS#12 do servidor ou token PKCS#11).
+    // signingProvider e sessionPool são null para chaves em memória, que assinam pelo BouncyCastle
+    public static SignerMaterial load(KeyStore keystore, char[] password, String alias,
+                                      Provider signingProvider, TokenSessionPool sessionPool) throws Exception {
+
+        // Verifica se o alias existe no keystore e se é de uma chave privada
+        Key key = keystore.getKey(alias, password);
+        if (!(key instanceof PrivateKey privateKey)) {
+            throw new IllegalArgumentException("This '" + alias + "' don't have any valid private key.");
+        }
+
+        // Obtém a cadeia de certificados do keystore
+        Certificate[] certificateChain = keystore.getCertificateChain(alias);
+        if (certificateChain == null || certificateChain.length == 0) {
+            throw new IllegalArgumentException("It was not possible to obtain the certificate for alias: " + alias);
+        }
+
+        // Converte para List<X509Certificate> para o JcaCertStore
+        List<X509Certificate> certList = new ArrayList<>(certificateChain.length);
+        for (Certificate cert : certificateChain) {
+            if (!(cert instanceof X509Certificate x509)) {
+                throw new CertificateException("This entry is not X509Certificate");
+            }
+            certList.add(x509);
+        }
+        return new SignerMaterial(privateKey, certList, signingProvider, sessionPool);
+    }
+
+    // O ContentSigner guarda estado da assinatura, então um novo é criado por documento
+    public SignerInfoGenerator newSignerInfoGenerator() throws Exception {
+        return newSignerInfoGenerator(UnaryOperator.identity());
+    }
+
+    // keyGuard envolve o ContentSigner (ex.: limite de operações simultâneas com a chave privada)
+    public SignerInfoGenerator newSignerInfoGenerator(UnaryOperator<ContentSigner> keyGuard) throws Exception {
+        return newSignerInfoGenerator(SignatureOptions.DEFAULT, keyGuard);
+    }
+
+    // Digest e PSS escolhidos pelo cliente; o digest do conteúdo acompanha o do algoritmo de assinatura
+    public SignerInfoGenerator newSignerInfoGenerator(SignatureOptions options,
+                                                      UnaryOperator<ContentSigner> keyGuard) throws Exception {
+        return new JcaSignerInfoGeneratorBuilder(digestProvider)
+                .build(keyGuard.apply(contentSigner(signatureAlgorithm(options))), certificateChain.get(0));
+    }
+
+    // Variante com digest escolhido e provedor de digest próprio (ex.: hash já calculado pelo cliente)
+    public SignerInfoGenerator newSignerInfoGenerator(String digestAlgorithm,
+                                                      boolean pss,
+                                                      DigestCalculatorProvider digestCalculatorProvider,
+                                                      UnaryOperator<ContentSigner> keyGuard) throws Exception {
+        String algorithm = SignatureAlgorithmUtil.resolve(algorithmKey(activeKey()), digestAlgorithm, pss);
+        return new JcaSignerInfoGeneratorBuilder(digestCalculatorProvider)
+                .build(keyGuard.apply(contentSigner(algorithm)), certificateChain.get(0));
+    }
+
+    public String signatureAlgorithm(SignatureOptions options) {
+        if (options.digestAlgorithm() == null && !options.pss()) {
+            return signatureAlgorithm;
+        }
+        return SignatureAlgorithmUtil.resolve(algorithmKey(activeKey()), options.digestAlgorithm(), options.pss());
+    }
+
+    private ContentSigner contentSigner(String algorithm) throws Exception {
+        JcaContentSignerBuilder builder = contentSignerBuilders.computeIfAbsent(algorithm, this::contentSignerBuilder);
+        PrivateKey key = activeKey();
+        if (sessionPool == null) {
+            return builder.build(key);
+        }
+        // No token a sessão só é ocupada na operação com a chave, depois do digest do documento
+        return sessionPool.deferred(ALGORITHM_FINDER.find(algorithm), () -> builder.build(key));
+    }
+
+    private JcaContentSignerBuilder contentSignerBuilder(String algorithm) {
+        JcaContentSignerBuilder builder = new JcaContentSignerBuilder(algorithm);
+        return signingProvider != null
+                ? builder.setProvider(signingProvider)
+                : builder.setProvider(BouncyCastleProvider.PROVIDER_NAME);
+    }
+
+    // Chaves em memória informam família e curva; a de um token pode não informar, e aí vale a do certificado
+    private Key algorithmKey(PrivateKey key) {
+        return sessionPool == null ? key : certificateChain.get(0).getPublicKey();
+    }
+
+    private PrivateKey activeKey() {
+        PrivateKey key = privateKey;
+        if (key == null) {
+            throw new IllegalStateException("Signer material was already wiped");
+        }
+        return key;
+    }
+
+    public List<X509Certificate> getCertificateChain() {
+        return certificateChain;
+    }
+
+    public List<X509CertificateHolder> getCertificateHolders() {
+        return certificateHolders;
+    }
+
+    public JcaCertStore getCertStore() {
+        return certStore;
+    }
+
+    public DigestCalculatorProvider getDigestProvider() {
+        return digestProvider;
+    }
+
+    public String getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    public boolean isWiped() {
+        return privateKey == null;
+    }
+
+    // Adquire uma referência adicional; falha se o material já foi descartado
+    public boolean retain() {
+        int current;
+        do {
+            current = references.get();
+            if (current <= 0) {
+                return false;
+            }
+        } while (!references.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (references.decrementAndGet() == 0) {
+            wipe();
+        }
+    }
+
+    // Descarta a referência à chave; provedores que suportam Destroyable também zeram o material
+    private void wipe() {
+        PrivateKey key = privateKey;
+        privateKey = null;
+        if (key != null && !key.isDestroyed()) {
+            try {
+                key.destroy();
+            } catch (DestroyFailedException ignored) {
+                // A maioria das implementações JCA não suporta destroy(); a referência já foi liberada
+            }
+        }
+    }
+}
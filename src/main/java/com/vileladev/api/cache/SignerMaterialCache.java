@@ -0,0 +1,191 @@
+package com.vileladev.api.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class SignerMaterialCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignerMaterialCache.class);
+
+    private final int maxEntries;
+    private final Duration ttl;
+    private final Clock clock;
+
+    // Ordenado por acesso: o primeiro elemento é sempre o menos usado recentemente
+    private final LinkedHashMap<CacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public SignerMaterialCache(@Value("${app.signature.signer-cache.max-entries:64}") int maxEntries,
+                               @Value("${app.signature.signer-cache.ttl:PT10M}") Duration ttl) {
+        this(maxEntries, ttl, Clock.systemUTC());
+    }
+
+    SignerMaterialCache(int maxEntries, Duration ttl, Clock clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Signer cache must hold at least one entry");
+        }
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    // Retorna o material do assinante, destravando o PKCS#12 somente em caso de miss.
+    // O chamador deve fechar o material devolvido ao terminar de assinar.
+    public SignerMaterial get(byte[] pkcs12, String password, String alias) throws Exception {
+        CacheKey key = CacheKey.of(pkcs12, password, alias);
+        long now = clock.millis();
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > now && entry.material.retain()) {
+                    hits.incrementAndGet();
+                    return entry.material;
+                }
+                entries.remove(key);
+                evict(entry);
+            }
+        }
+
+        misses.incrementAndGet();
+        char[] secret = password.toCharArray();
+        SignerMaterial material;
+        try {
+            material = SignerMaterial.load(pkcs12, secret, alias);
+        } finally {
+            Arrays.fill(secret, '\0');
+        }
+        logger.info("Signer material unlocked for alias {}", alias);
+
+        synchronized (entries) {
+            Entry current = entries.get(key);
+            if (current != null && current.expiresAt > now && current.material.retain()) {
+                // Outra requisição destravou o mesmo keystore em paralelo; mantém a entrada existente
+                material.close();
+                return current.material;
+            }
+            material.retain();
+            Entry previous = entries.put(key, new Entry(material, now + ttl.toMillis()));
+            if (previous != null) {
+                evict(previous);
+            }
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                Entry removed = eldest.next();
+                eldest.remove();
+                evict(removed);
+            }
+        }
+        return material;
+    }
+
+    // Remove periodicamente entradas expiradas, mesmo sem tráfego para o mesmo keystore
+    @Scheduled(fixedDelayString = "${app.signature.signer-cache.purge-interval:PT1M}")
+    public void purgeExpired() {
+        long now = clock.millis();
+        synchronized (entries) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.expiresAt <= now) {
+                    it.remove();
+                    evict(entry);
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.values().forEach(this::evict);
+            entries.clear();
+        }
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    public long evictionCount() {
+        return evictions.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("signer.cache.requests", hits, AtomicLong::get)
+                .tag("result", "hit")
+                .description("Signer material lookups served from cache")
+                .register(registry);
+        FunctionCounter.builder("signer.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss")
+                .description("Signer material lookups that unlocked the PKCS#12")
+                .register(registry);
+        FunctionCounter.builder("signer.cache.evictions", evictions, AtomicLong::get)
+                .description("Signer material entries wiped by TTL or size bound")
+                .register(registry);
+        Gauge.builder("signer.cache.size", this, SignerMaterialCache::size)
+                .description("Unlocked keys currently held in memory")
+                .register(registry);
+    }
+
+    // Libera a referência do cache; a chave é zerada assim que nenhuma assinatura em andamento a usar
+    private void evict(Entry entry) {
+        entry.material.close();
+        evictions.incrementAndGet();
+    }
+
+    private record Entry(SignerMaterial material, long expiresAt) {
+    }
+
+    // SHA-256 do keystore, senha e alias; nenhum segredo fica guardado em claro na chave do cache
+    private record CacheKey(ByteBuffer digest) {
+
+        static CacheKey of(byte[] pkcs12, String password, String alias) throws Exception {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            update(md, pkcs12);
+            update(md, password.getBytes(StandardCharsets.UTF_8));
+            update(md, alias.getBytes(StandardCharsets.UTF_8));
+            return new CacheKey(ByteBuffer.wrap(md.digest()));
+        }
+
+        // Prefixa o tamanho para que campos adjacentes não colidam
+        private static void update(MessageDigest md, byte[] value) {
+            md.update(ByteBuffer.allocate(Integer.BYTES).putInt(value.length).array());
+            md.update(value);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.vileladev.api.cache;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.cert.CertPath;
+import java.security.cert.CertPathValidator;
+import java.security.cert.CertPathValidatorException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.PKIXParameters;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.security.auth.x500.X500Principal;
+
+// Snapshot imutável das âncoras de confiança de um diretório, com os parâmetros PKIX já montados
+public final class TrustStore {
+
+    private final Path directory;
+    private final long version;
+    private final Set<TrustAnchor> anchors;
+    private final Map<X500Principal, X509Certificate> anchorsBySubject;
+    private final PKIXParameters parameters;
+    private final CertPathValidator validator;
+
+    private TrustStore(Path directory, long version, Set<TrustAnchor> anchors) throws GeneralSecurityException {
+        this.directory = directory;
+        this.version = version;
+        this.anchors = Set.copyOf(anchors);
+        this.anchorsBySubject = this.anchors.stream()
+                .map(TrustAnchor::getTrustedCert)
+                .collect(Collectors.toUnmodifiableMap(X509Certificate::getSubjectX500Principal, cert -> cert, (a, b) -> a));
+        this.parameters = new PKIXParameters(this.anchors);
+        // Revogação é consultada à parte, no cache local de CRL/OCSP, para não buscar na rede a cada validação
+        this.parameters.setRevocationEnabled(false);
+        // O validador PKIX do BouncyCastle não guarda estado entre chamadas e pode ser compartilhado
+        this.validator = CertPathValidator.getInstance("PKIX", BouncyCastleProvider.PROVIDER_NAME);
+    }
+
+    // Carrega os TrustAnchors dos arquivos .cer/.pem do diretório
+    static TrustStore load(Path directory, long version) throws IOException, GeneralSecurityException {
+        CertificateFactory cf = CertificateFactory.getInstance("X.509", BouncyCastleProvider.PROVIDER_NAME);
+        Set<TrustAnchor> trustAnchors = new HashSet<>();
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(TrustStore::isCertificateFile).toList();
+        }
+        for (Path p : files) {
+            try (InputStream in = Files.newInputStream(p)) {
+                X509Certificate caCert = (X509Certificate) cf.generateCertificate(in);
+                trustAnchors.add(new TrustAnchor(caCert, null));
+            } catch (Exception e) {
+                throw new IOException("Erro ao carregar CA: " + p, e);
+            }
+        }
+        return new TrustStore(directory, version, trustAnchors);
+    }
+
+    static boolean isCertificateFile(Path p) {
+        String name = p.toString().toLowerCase();
+        return name.endsWith(".cer") || name.endsWith(".pem");
+    }
+
+    // Valida o caminho de certificação contra as âncoras deste snapshot
+    public void validate(CertPath certPath) throws CertPathValidatorException, GeneralSecurityException {
+        validator.validate(certPath, parameters);
+    }
+
+    // Mesma validação, mas na data informada (ex.: certificado da TSA na data do carimbo)
+    public void validate(CertPath certPath, Date at) throws CertPathValidatorException, GeneralSecurityException {
+        PKIXParameters atTime = (PKIXParameters) parameters.clone();
+        atTime.setDate(at);
+        validator.validate(certPath, atTime);
+    }
+
+    // Indica se o emissor informado é uma das âncoras, para encerrar a montagem do caminho
+    public boolean isAnchorSubject(X500Principal issuer) {
+        return anchorsBySubject.containsKey(issuer);
+    }
+
+    // Certificado da âncora com o subject informado, usado como emissor na consulta de revogação
+    public X509Certificate anchorFor(X500Principal subject) {
+        return anchorsBySubject.get(subject);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Set<TrustAnchor> getAnchors() {
+        return anchors;
+    }
+}
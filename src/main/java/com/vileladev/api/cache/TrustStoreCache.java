@@ -0,0 +1,179 @@
+package com.vileladev.api.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Índice das âncoras de confiança por diretório. A verificação só lê a referência atual (sem lock);
+// o WatchService reconstrói o snapshot e o troca atomicamente quando os arquivos mudam.
+@Component
+public class TrustStoreCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrustStoreCache.class);
+
+    // Agrupa rajadas de eventos (cópia de vários arquivos) em uma única recarga
+    private static final long DEBOUNCE_MILLIS = 250;
+
+    private final ConcurrentMap<Path, AtomicReference<TrustStore>> stores = new ConcurrentHashMap<>();
+    private final ConcurrentMap<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong reloadFailures = new AtomicLong();
+
+    private volatile WatchService watchService;
+    private volatile Thread watcherThread;
+
+    // Retorna o snapshot atual do diretório, carregando e registrando o watch no primeiro acesso
+    public TrustStore get(String certificatesDir) throws IOException {
+        Path directory = Paths.get(certificatesDir).toAbsolutePath().normalize();
+        AtomicReference<TrustStore> ref = stores.get(directory);
+        if (ref != null) {
+            return ref.get();
+        }
+        try {
+            return stores.computeIfAbsent(directory, this::register).get();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Versão global que muda a cada recarga de qualquer diretório
+    public long currentVersion() {
+        return versions.get();
+    }
+
+    public long reloadCount() {
+        return reloads.get();
+    }
+
+    private AtomicReference<TrustStore> register(Path directory) {
+        try {
+            TrustStore initial = TrustStore.load(directory, versions.incrementAndGet());
+            WatchKey key = directory.register(watchService(),
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            watchedDirectories.put(key, directory);
+            logger.info("Trust store loaded from {} ({} anchors)", directory, initial.getAnchors().size());
+            return new AtomicReference<>(initial);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (Exception e) {
+            throw new UncheckedIOException(new IOException("Erro ao carregar cadeia: " + directory, e));
+        }
+    }
+
+    private synchronized WatchService watchService() throws IOException {
+        if (watchService == null) {
+            watchService = FileSystems.getDefault().newWatchService();
+            watcherThread = new Thread(this::watchLoop, "trust-store-watcher");
+            watcherThread.setDaemon(true);
+            watcherThread.start();
+        }
+        return watchService;
+    }
+
+    private void watchLoop() {
+        WatchService ws = watchService;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> changed = new HashSet<>();
+                collect(ws.take(), changed);
+
+                // Aguarda o fim da rajada antes de recarregar
+                WatchKey next;
+                while ((next = ws.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    collect(next, changed);
+                }
+                changed.forEach(this::reload);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> changed) {
+        Path directory = watchedDirectories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (directory == null) {
+                continue;
+            }
+            Object context = event.context();
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || (context instanceof Path file && TrustStore.isCertificateFile(file))) {
+                changed.add(directory);
+            }
+        }
+        if (!key.reset()) {
+            watchedDirectories.remove(key);
+        }
+    }
+
+    // Reconstrói o snapshot; em caso de erro (ex.: arquivo ainda sendo escrito) mantém o anterior
+    private void reload(Path directory) {
+        AtomicReference<TrustStore> ref = stores.get(directory);
+        if (ref == null) {
+            return;
+        }
+        try {
+            TrustStore reloaded = TrustStore.load(directory, versions.incrementAndGet());
+            ref.set(reloaded);
+            reloads.incrementAndGet();
+            logger.info("Trust store reloaded from {} ({} anchors)", directory, reloaded.getAnchors().size());
+        } catch (Exception e) {
+            reloadFailures.incrementAndGet();
+            logger.warn("Trust store reload failed for {}, keeping previous anchors: {}", directory, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        WatchService ws = watchService;
+        if (ws != null) {
+            ws.close();
+        }
+        Thread thread = watcherThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("trust.store.reloads", reloads, AtomicLong::get)
+                .tag("result", "success")
+                .description("Trust store snapshots rebuilt after directory changes")
+                .register(registry);
+        FunctionCounter.builder("trust.store.reloads", reloadFailures, AtomicLong::get)
+                .tag("result", "failure")
+                .description("Trust store reloads rejected, previous snapshot kept")
+                .register(registry);
+        Gauge.builder("trust.store.anchors", this,
+                        cache -> cache.stores.values().stream().mapToInt(ref -> ref.get().getAnchors().size()).sum())
+                .description("Trust anchors currently indexed")
+                .register(registry);
+    }
+}
@@ -0,0 +1,200 @@
+package com.vileladev.api.cache;
+
+import com.vileladev.api.service.record.SignerVerification;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Resultados de verificação endereçados pelo SHA-256 do .p7s e pelo diretório de âncoras. Cada entrada guarda
+// as versões do trust store e do cache de revogação; se qualquer uma mudar, a entrada é descartada no acesso.
+@Component
+public class VerificationResultCache implements MeterBinder {
+
+    private static final int DIGEST_BUFFER_SIZE = 64 * 1024;
+
+    private final int maxEntries;
+    private final Duration ttl;
+    private final Clock clock;
+
+    // Ordenado por acesso: o primeiro elemento é sempre o menos usado recentemente
+    private final LinkedHashMap<CacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong sizeEvictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Autowired
+    public VerificationResultCache(@Value("${app.signature.verify.result-cache.max-entries:10000}") int maxEntries,
+                                   @Value("${app.signature.verify.result-cache.ttl:PT10M}") Duration ttl) {
+        this(maxEntries, ttl, Clock.systemUTC());
+    }
+
+    VerificationResultCache(int maxEntries, Duration ttl, Clock clock) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("Verification result cache size cannot be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Chave de conteúdo do .p7s, lida em streaming
+    public static byte[] digest(InputStream signature) throws IOException {
+        MessageDigest md = newDigest();
+        byte[] buffer = new byte[DIGEST_BUFFER_SIZE];
+        int read;
+        while ((read = signature.read(buffer)) != -1) {
+            md.update(buffer, 0, read);
+        }
+        return md.digest();
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    // Retorna o resultado guardado ou null; entradas de outra versão de âncoras ou revogação não são reaproveitadas
+    public List<SignerVerification> get(byte[] digest, TrustStore trustStore, long revocationVersion) {
+        if (!isEnabled()) {
+            return null;
+        }
+        CacheKey key = new CacheKey(ByteBuffer.wrap(digest), trustStore.getDirectory());
+        long now = clock.millis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.trustStoreVersion != trustStore.getVersion() || entry.revocationVersion != revocationVersion) {
+                    entries.remove(key);
+                    invalidations.incrementAndGet();
+                } else if (entry.expiresAt <= now) {
+                    entries.remove(key);
+                    expirations.incrementAndGet();
+                } else {
+                    hits.incrementAndGet();
+                    return entry.results;
+                }
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(byte[] digest, TrustStore trustStore, long revocationVersion, List<SignerVerification> results) {
+        if (!isEnabled()) {
+            return;
+        }
+        Entry entry = new Entry(List.copyOf(results), trustStore.getVersion(), revocationVersion,
+                clock.millis() + ttl.toMillis());
+        synchronized (entries) {
+            entries.put(new CacheKey(ByteBuffer.wrap(digest.clone()), trustStore.getDirectory()), entry);
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                sizeEvictions.incrementAndGet();
+            }
+        }
+    }
+
+    // Remove periodicamente entradas expiradas, mesmo sem novas verificações do mesmo arquivo
+    @Scheduled(fixedDelayString = "${app.signature.verify.result-cache.purge-interval:PT1M}")
+    public void purgeExpired() {
+        long now = clock.millis();
+        synchronized (entries) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().expiresAt <= now) {
+                    it.remove();
+                    expirations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    public double hitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0.0 : (double) hits.get() / total;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("verify.cache.requests", hits, AtomicLong::get)
+                .tag("result", "hit")
+                .description("Verifications answered from the result cache")
+                .register(registry);
+        FunctionCounter.builder("verify.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss")
+                .description("Verifications that parsed and validated the CMS")
+                .register(registry);
+        FunctionCounter.builder("verify.cache.evictions", sizeEvictions, AtomicLong::get)
+                .tag("cause", "size")
+                .description("Results dropped by the size bound (least recently used first)")
+                .register(registry);
+        FunctionCounter.builder("verify.cache.evictions", expirations, AtomicLong::get)
+                .tag("cause", "expired")
+                .register(registry);
+        FunctionCounter.builder("verify.cache.evictions", invalidations, AtomicLong::get)
+                .tag("cause", "invalidated")
+                .description("Results discarded after trust anchors or revocation data changed")
+                .register(registry);
+        Gauge.builder("verify.cache.hit.ratio", this, VerificationResultCache::hitRatio)
+                .register(registry);
+        Gauge.builder("verify.cache.size", this, VerificationResultCache::size)
+                .register(registry);
+    }
+
+    private record Entry(List<SignerVerification> results, long trustStoreVersion, long revocationVersion,
+                         long expiresAt) {
+    }
+
+    private record CacheKey(ByteBuffer digest, Path trustDirectory) {
+    }
+}
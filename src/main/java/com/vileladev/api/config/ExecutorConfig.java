@@ -0,0 +1,85 @@
+package com.vileladev.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    // Pool limitado para assinaturas em lote; com a fila cheia a própria requisição assina (back-pressure)
+    @Bean
+    public ThreadPoolTaskExecutor signingExecutor(
+            @Value("${app.signature.batch.parallelism:0}") int parallelism,
+            @Value("${app.signature.batch.queue-capacity:256}") int queueCapacity
+    ) {
+        return boundedExecutor("signing-", parallelism, queueCapacity);
+    }
+
+    // Pool da verificação em lote; o serviço limita os itens em voo, a fila só absorve a janela
+    @Bean
+    public ThreadPoolTaskExecutor verificationExecutor(
+            @Value("${app.signature.verify.parallelism:0}") int parallelism,
+            @Value("${app.signature.verify.queue-capacity:256}") int queueCapacity
+    ) {
+        return boundedExecutor("verification-", parallelism, queueCapacity);
+    }
+
+    // Gravação assíncrona dos .p7s em app.signature.storage-dir
+    @Bean
+    public ThreadPoolTaskExecutor storageExecutor(
+            @Value("${app.signature.storage.parallelism:2}") int parallelism,
+            @Value("${app.signature.storage.queue-capacity:1024}") int queueCapacity
+    ) {
+        return boundedExecutor("storage-", parallelism, queueCapacity);
+    }
+
+    // Workers dos jobs assíncronos; a fila do executor é a capacidade da fila de jobs (cheia = 429 no envio)
+    @Bean
+    public ThreadPoolTaskExecutor signingJobExecutor(
+            @Value("${app.signature.jobs.parallelism:0}") int parallelism,
+            @Value("${app.signature.jobs.max-queued:1000}") int maxQueued
+    ) {
+        return boundedExecutor("signing-job-", parallelism, maxQueued, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Buscas de CRL/OCSP em segundo plano; com a fila cheia a busca é descartada em vez de bloquear a verificação
+    @Bean
+    public ThreadPoolTaskExecutor revocationExecutor(
+            @Value("${app.signature.revocation.parallelism:2}") int parallelism,
+            @Value("${app.signature.revocation.queue-capacity:256}") int queueCapacity
+    ) {
+        return boundedExecutor("revocation-", parallelism, queueCapacity, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Algoritmos do MultiDigest processando o mesmo bloco em paralelo; com a fila cheia o bloco é digerido na chamadora
+    @Bean
+    public ThreadPoolTaskExecutor digestExecutor(
+            @Value("${app.digest.parallelism:0}") int parallelism,
+            @Value("${app.digest.queue-capacity:256}") int queueCapacity
+    ) {
+        return boundedExecutor("digest-", parallelism, queueCapacity);
+    }
+
+    private static ThreadPoolTaskExecutor boundedExecutor(String threadNamePrefix, int parallelism, int queueCapacity) {
+        return boundedExecutor(threadNamePrefix, parallelism, queueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private static ThreadPoolTaskExecutor boundedExecutor(String threadNamePrefix, int parallelism, int queueCapacity,
+                                                          RejectedExecutionHandler rejectedExecutionHandler) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setRejectedExecutionHandler(rejectedExecutionHandler);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+}
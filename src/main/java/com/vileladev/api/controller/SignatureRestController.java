@@ -1,29 +1,69 @@
 package com.vileladev.api.controller;
 
+import com.vileladev.api.digest.DigestService;
+import com.vileladev.api.exception.DocumentSigningException;
+import com.vileladev.api.job.SigningJob;
+import com.vileladev.api.job.SigningJobQueue;
 import com.vileladev.api.service.SignatureSignerService;
 import com.vileladev.api.service.impl.SignatureVerifierServiceImpl;
-import com.vileladev.api.service.record.Infos;
+import com.vileladev.api.service.record.DigestSession;
+import com.vileladev.api.service.record.DocumentDigest;
+import com.vileladev.api.service.record.SignatureOptions;
+import com.vileladev.api.service.record.SignerKey;
+import com.vileladev.api.service.record.SignerKeyInfo;
+import com.vileladev.api.service.record.SignerVerification;
+import com.vileladev.api.storage.ScratchBuffer;
+import com.vileladev.api.storage.SignatureStorage;
+import com.vileladev.api.storage.StoredSignature;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.util.Map;
-
-import static com.vileladev.api.util.CmsPaths.*;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api")
 public class SignatureRestController {
 
+    public static final String PKCS7_SIGNATURE_VALUE = "application/pkcs7-signature";
+
+    // Atributos de requisição do sendfile do Tomcat (org.apache.catalina.Globals)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final SignatureSignerService signatureSignerService;
     private final SignatureVerifierServiceImpl signatureVerifierService;
+    private final SigningJobQueue signingJobQueue;
+    private final SignatureStorage signatureStorage;
+    private final DigestService digestService;
 
     @Value("${alias}")
     private String ALIAS;
@@ -33,35 +73,425 @@ public class SignatureRestController {
 
 
     public SignatureRestController(SignatureSignerService signatureSignerService,
-                                   SignatureVerifierServiceImpl signatureVerifierService) {
+                                   SignatureVerifierServiceImpl signatureVerifierService,
+                                   SigningJobQueue signingJobQueue,
+                                   SignatureStorage signatureStorage,
+                                   DigestService digestService) {
         this.signatureSignerService = signatureSignerService;
         this.signatureVerifierService = signatureVerifierService;
+        this.signingJobQueue = signingJobQueue;
+        this.signatureStorage = signatureStorage;
+        this.digestService = digestService;
     }
 
+    // Padrão (compatível): Base64 em text/plain, codificado em streaming sem montar uma String
     @PostMapping(value = "/signature", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<String> signFile(
+    public ResponseEntity<StreamingResponseBody> signFile(
+            @RequestPart("file") MultipartFile file,
+            @RequestPart(value = "pkcs12", required = false) MultipartFile pkcs12,
+            @RequestPart(value = "password", required = false) String password,
+            @RequestPart(value = "keyId", required = false) String keyId,
+            @RequestPart(value = "digestAlgorithm", required = false) String digestAlgorithm,
+            @RequestPart(value = "padding", required = false) String padding
+    ) throws IOException {
+
+        return base64Response(sign(file, signerKey(pkcs12, password, keyId), signatureOptions(digestAlgorithm, padding)));
+    }
+
+    // Accept: application/pkcs7-signature devolve os bytes DER do .p7s
+    @PostMapping(value = "/signature",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = PKCS7_SIGNATURE_VALUE)
+    public ResponseEntity<StreamingResponseBody> signFileBinary(
             @RequestPart("file") MultipartFile file,
-            @RequestPart("pkcs12") MultipartFile pkcs12,
-            @RequestPart("password") String password
+            @RequestPart(value = "pkcs12", required = false) MultipartFile pkcs12,
+            @RequestPart(value = "password", required = false) String password,
+            @RequestPart(value = "keyId", required = false) String keyId,
+            @RequestPart(value = "digestAlgorithm", required = false) String digestAlgorithm,
+            @RequestPart(value = "padding", required = false) String padding
+    ) throws IOException {
+
+        return binaryResponse(sign(file, signerKey(pkcs12, password, keyId), signatureOptions(digestAlgorithm, padding)));
+    }
+
+    // Assina direto do stream do multipart; o buffer devolvido é liberado ao fim da resposta
+    private ScratchBuffer sign(MultipartFile file, SignerKey key, SignatureOptions options) throws IOException {
+        try (InputStream content = file.getInputStream()) {
+            return signatureSignerService.generateAttachedSignatureBuffer(key, content, options);
+        }
+    }
+
+    // Acrescenta um co-signatário ao .p7s enviado, sem reprocessar o conteúdo
+    @PostMapping(value = "/signature/cosign", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> coSign(
+            @RequestPart("signedFile") MultipartFile signedFile,
+            @RequestPart(value = "pkcs12", required = false) MultipartFile pkcs12,
+            @RequestPart(value = "password", required = false) String password,
+            @RequestPart(value = "keyId", required = false) String keyId,
+            @RequestPart(value = "padding", required = false) String padding
+    ) throws IOException {
+
+        return base64Response(signatureSignerService.generateCoSignature(
+                signerKey(pkcs12, password, keyId), signedFile, signatureOptions(null, padding)));
+    }
+
+    @PostMapping(value = "/signature/cosign",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = PKCS7_SIGNATURE_VALUE)
+    public ResponseEntity<StreamingResponseBody> coSignBinary(
+            @RequestPart("signedFile") MultipartFile signedFile,
+            @RequestPart(value = "pkcs12", required = false) MultipartFile pkcs12,
+            @RequestPart(value = "password", required = false) String password,
+            @RequestPart(value = "keyId", required = false) String keyId,
+            @RequestPart(value = "padding", required = false) String padding
+    ) throws IOException {
+
+        return binaryResponse(signatureSignerService.generateCoSignature(
+                signerKey(pkcs12, password, keyId), signedFile, signatureOptions(null, padding)));
+    }
+
+    // Contra-assina o signatário signerIndex (numeração da resposta de /verify)
+    @PostMapping(value = "/signature/countersign", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> counterSign(
+            @RequestPart("signedFile") MultipartFile signedFile,
+            @RequestPart(value = "pkcs12", required = false) MultipartFile pkcs12,
+            @RequestPart(value = "password", required = false) String password,
+            @RequestPart(value = "keyId", required = false) String keyId,
+            @RequestPart(value = "digestAlgorithm", required = false) String digestAlgorithm,
+            @RequestPart(value = "padding", required = false) String padding,
+            @RequestParam(value = "signerIndex", defaultValue = "0") int signerIndex
+    ) throws IOException {
+
+        return base64Response(signatureSignerService.generateCounterSignature(
+                signerKey(pkcs12, password, keyId), signedFile, signerIndex, signatureOptions(digestAlgorithm, padding)));
+    }
+
+    @PostMapping(value = "/signature/countersign",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = PKCS7_SIGNATURE_VALUE)
+    public ResponseEntity<StreamingResponseBody> counterSignBinary(
+            @RequestPart("signedFile") MultipartFile signedFile,
+            @RequestPart(value = "pkcs12", required = false) MultipartFile pkcs12,
+            @RequestPart(value = "password", required = false) String password,
+            @RequestPart(value = "keyId", required = false) String keyId,
+            @RequestPart(value = "digestAlgorithm", required = false) String digestAlgorithm,
+            @RequestPart(value = "padding", required = false) String padding,
+            @RequestParam(value = "signerIndex", defaultValue = "0") int signerIndex
+    ) throws IOException {
+
+        return binaryResponse(signatureSignerService.generateCounterSignature(
+                signerKey(pkcs12, password, keyId), signedFile, signerIndex, signatureOptions(digestAlgorithm, padding)));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> base64Response(ScratchBuffer signature) {
+        return base64Response(signature.size(), out -> {
+            try (signature) {
+                signature.writeTo(out);
+            }
+        });
+    }
+
+    private static ResponseEntity<StreamingResponseBody> binaryResponse(ScratchBuffer signature) {
+        return binaryResponse(signature.size(), out -> {
+            try (signature) {
+                signature.writeTo(out);
+            }
+        });
+    }
+
+    private static ResponseEntity<StreamingResponseBody> base64Response(long size, StreamingResponseBody signature) {
+        StreamingResponseBody body = out -> {
+            try (OutputStream base64 = Base64.getEncoder().wrap(StreamUtils.nonClosing(out))) {
+                signature.writeTo(base64);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_PLAIN)
+                .contentLength(4 * ((size + 2) / 3))
+                .body(body);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> binaryResponse(long size, StreamingResponseBody signature) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(PKCS7_SIGNATURE_VALUE))
+                .contentLength(size)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"signature.p7s\"")
+                .body(signature);
+    }
+
+    @PostMapping(value = "/signature/detached", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<String> signFileDetached(
+            @RequestPart("file") MultipartFile file,
+            @RequestPart(value = "pkcs12", required = false) MultipartFile pkcs12,
+            @RequestPart(value = "password", required = false) String password,
+            @RequestPart(value = "keyId", required = false) String keyId,
+            @RequestPart(value = "digestAlgorithm", required = false) String digestAlgorithm,
+            @RequestPart(value = "padding", required = false) String padding,
+            @RequestPart(value = "fingerprints", required = false) String fingerprints
+    ) throws IOException {
+
+        try (InputStream content = file.getInputStream()) {
+            return signatureSignerService.generateDetachedSignature(
+                    signerKey(pkcs12, password, keyId), content, signatureOptions(digestAlgorithm, padding),
+                    algorithms(fingerprints)
+            );
+        }
+    }
+
+    // Digests do documento em uma única leitura; sem algorithms valem os de app.digest.algorithms
+    @PostMapping(value = "/digest", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<DocumentDigest> digest(
+            @RequestPart("file") MultipartFile file,
+            @RequestPart(value = "algorithms", required = false) String algorithms
+    ) throws IOException {
+
+        try (InputStream content = file.getInputStream()) {
+            return ResponseEntity.ok(digestService.digest(content, algorithms(algorithms)));
+        }
+    }
+
+    // Upload em partes: o servidor guarda o estado dos digests entre os PUT e só finaliza no complete
+    @PostMapping("/digest/sessions")
+    public ResponseEntity<DigestSession> startDigestSession(
+            @RequestParam(value = "algorithms", required = false) String algorithms
+    ) {
+        DigestSession session = digestService.startSession(algorithms(algorithms));
+        return ResponseEntity.created(URI.create("/api/digest/sessions/" + session.id()))
+                .body(session);
+    }
+
+    // Corpo application/octet-stream com a parte; offset é a posição dela no documento (o length atual da sessão)
+    @PutMapping(value = "/digest/sessions/{id}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<DigestSession> appendDigestPart(
+            @PathVariable("id") String id,
+            @RequestParam("offset") long offset,
+            InputStream part
+    ) throws IOException {
+        return ResponseEntity.ok(digestService.append(id, offset, part));
+    }
+
+    @GetMapping("/digest/sessions/{id}")
+    public ResponseEntity<DigestSession> getDigestSession(@PathVariable("id") String id) {
+        return ResponseEntity.ok(digestService.get(id));
+    }
+
+    @PostMapping("/digest/sessions/{id}/complete")
+    public ResponseEntity<DocumentDigest> completeDigestSession(@PathVariable("id") String id) {
+        return ResponseEntity.ok(digestService.complete(id));
+    }
+
+    // "SHA-256, SHA-512" -> [SHA-256, SHA-512]
+    private static List<String> algorithms(String algorithms) {
+        if (algorithms == null || algorithms.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(algorithms.split(","))
+                .map(String::trim)
+                .filter(algorithm -> !algorithm.isEmpty())
+                .toList();
+    }
+
+    @PostMapping(value = "/signature/hash", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<String> signHash(
+            @RequestPart("digest") String digest,
+            @RequestPart("digestAlgorithm") String digestAlgorithm,
+            @RequestPart(value = "pkcs12", required = false) MultipartFile pkcs12,
+            @RequestPart(value = "password", required = false) String password,
+            @RequestPart(value = "keyId", required = false) String keyId,
+            @RequestPart(value = "padding", required = false) String padding
     ) throws IOException {
 
-        Path docPath = getDocPath(file);
-        Path ksPath = getKsPath(pkcs12);
+        return signatureSignerService.generateSignatureFromDigest(
+                signerKey(pkcs12, password, keyId),
+                digestAlgorithm, digest, signatureOptions(null, padding).pss()
+        );
+    }
+
+    @PostMapping(value = "/signature/batch",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> signBatch(
+            @RequestPart("files") List<MultipartFile> files,
+            @RequestPart(value = "pkcs12", required = false) MultipartFile pkcs12,
+            @RequestPart(value = "password", required = false) String password,
+            @RequestPart(value = "keyId", required = false) String keyId,
+            @RequestPart(value = "digestAlgorithm", required = false) String digestAlgorithm,
+            @RequestPart(value = "padding", required = false) String padding
+    ) throws IOException {
 
-        return signatureSignerService.generateAttachedSignature(
-                ksPath.toString(), password, ALIAS,
-                docPath.toString()
+        return signatureSignerService.generateAttachedSignatureBatch(
+                signerKey(pkcs12, password, keyId), files, signatureOptions(digestAlgorithm, padding)
         );
     }
 
+    // Campos opcionais do algoritmo: digestAlgorithm (SHA-256/384/512) e padding RSA (PKCS1, o padrão, ou PSS).
+    // Sem eles o algoritmo segue a chave do keystore: SHA512withRSA, ECDSA com o digest da curva ou Ed25519
+    private static SignatureOptions signatureOptions(String digestAlgorithm, String padding) {
+        if (padding == null || padding.isBlank() || "PKCS1".equalsIgnoreCase(padding.trim())) {
+            return new SignatureOptions(digestAlgorithm, false);
+        }
+        if ("PSS".equalsIgnoreCase(padding.trim())) {
+            return new SignatureOptions(digestAlgorithm, true);
+        }
+        throw new DocumentSigningException("INVALID_ARGUMENT", "Unsupported padding '" + padding + "', use PKCS1 or PSS", null);
+    }
+
+    // Chave da assinatura: keyId de uma chave registrada no servidor ou o PKCS#12 enviado com a senha
+    private SignerKey signerKey(MultipartFile pkcs12, String password, String keyId) throws IOException {
+        boolean uploaded = pkcs12 != null && !pkcs12.isEmpty();
+        if (keyId != null && !keyId.isBlank()) {
+            if (uploaded) {
+                throw new DocumentSigningException("INVALID_ARGUMENT", "Send either keyId or pkcs12, not both", null);
+            }
+            return SignerKey.registered(keyId.trim());
+        }
+        if (!uploaded || password == null) {
+            throw new DocumentSigningException("INVALID_ARGUMENT", "Send keyId or pkcs12 and password", null);
+        }
+        return SignerKey.uploaded(pkcs12.getBytes(), password, ALIAS);
+    }
+
+    // Assinatura assíncrona: responde 202 com o id assim que o job está gravado em disco
+    @PostMapping(value = "/signature/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<SigningJob> submitSigningJob(
+            @RequestPart("file") MultipartFile file,
+            @RequestPart(value = "pkcs12", required = false) MultipartFile pkcs12,
+            @RequestPart(value = "password", required = false) String password,
+            @RequestPart(value = "keyId", required = false) String keyId,
+            @RequestPart(value = "digestAlgorithm", required = false) String digestAlgorithm,
+            @RequestPart(value = "padding", required = false) String padding,
+            @RequestPart(value = "callbackUrl", required = false) String callbackUrl
+    ) throws IOException {
+
+        SigningJob job = signingJobQueue.submit(file, signerKey(pkcs12, password, keyId),
+                signatureOptions(digestAlgorithm, padding), callbackUrl);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/signature/jobs/" + job.id()))
+                .body(job);
+    }
+
+    @GetMapping("/signature/jobs/{id}")
+    public ResponseEntity<SigningJob> getSigningJob(@PathVariable("id") String id) {
+        return ResponseEntity.ok(signingJobQueue.get(id));
+    }
+
+    @GetMapping("/signature/jobs/{id}/result")
+    public ResponseEntity<StreamingResponseBody> getSigningJobResult(@PathVariable("id") String id) throws IOException {
+        Path result = signingJobQueue.result(id);
+        return base64Response(Files.size(result), out -> Files.copy(result, out));
+    }
+
+    @GetMapping(value = "/signature/jobs/{id}/result", produces = PKCS7_SIGNATURE_VALUE)
+    public ResponseEntity<StreamingResponseBody> getSigningJobResultBinary(@PathVariable("id") String id) throws IOException {
+        Path result = signingJobQueue.result(id);
+        return binaryResponse(Files.size(result), out -> Files.copy(result, out));
+    }
+
+    // Chaves registradas no servidor (app.signature.keys.*), referenciadas nas assinaturas pelo campo keyId
+    @GetMapping("/keys")
+    public ResponseEntity<List<SignerKeyInfo>> listKeys() {
+        return ResponseEntity.ok(signatureSignerService.listRegisteredKeys());
+    }
+
+    // Assinatura guardada pelo repositório, endereçada pelo SHA-256 do .p7s. O arquivo é aberto antes da resposta:
+    // a retenção pode removê-lo depois do find, e o canal já aberto continua legível; removido antes, responde 404
+    @GetMapping("/signature/stored/{id}")
+    public ResponseEntity<StreamingResponseBody> getStoredSignature(@PathVariable("id") String id) throws IOException {
+        Optional<StoredSignature> stored = signatureStorage.find(id);
+        if (stored.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            FileChannel channel = signatureStorage.open(stored.get());
+            return base64Response(channel.size(), storedBody(channel));
+        } catch (NoSuchFileException ex) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // No Tomcat com sendfile o corpo não passa pela aplicação: o conector envia o arquivo do disco para o socket
+    // depois dos cabeçalhos. Sem suporte (outro servidor, testes) o arquivo é copiado pelo canal da resposta
+    @GetMapping(value = "/signature/stored/{id}", produces = PKCS7_SIGNATURE_VALUE)
+    public ResponseEntity<StreamingResponseBody> getStoredSignatureBinary(@PathVariable("id") String id,
+                                                                          HttpServletRequest request) throws IOException {
+        Optional<StoredSignature> stored = signatureStorage.find(id);
+        if (stored.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, signatureStorage.path(stored.get()).toRealPath().toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, stored.get().size());
+                return binaryResponse(stored.get().size(), null);
+            }
+            FileChannel channel = signatureStorage.open(stored.get());
+            return binaryResponse(channel.size(), storedBody(channel));
+        } catch (NoSuchFileException ex) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Copia com FileChannel.transferTo e fecha o canal. Sobre o OutputStream da resposta o JDK não tem zero-copy
+    // e copia em blocos por um buffer próprio; o envio direto do disco é o do sendfile
+    private static StreamingResponseBody storedBody(FileChannel channel) {
+        return out -> {
+            try (channel) {
+                WritableByteChannel target = Channels.newChannel(StreamUtils.nonClosing(out));
+                long position = 0;
+                long size = channel.size();
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+            }
+        };
+    }
+
     @PostMapping(value = "/verify", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<Map<String, Infos>> verify(
+    public ResponseEntity<List<SignerVerification>> verify(
             @RequestPart("signedFile") MultipartFile signedFile
+    ) {
+        // O upload é relido no miss do cache de resultados, então vai como fonte e não como stream aberto
+        return signatureVerifierService.verifyAttachedSignature(
+                signedFile, certificatesDir
+        );
+    }
+
+    @PostMapping(value = "/verify/detached", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<List<SignerVerification>> verifyDetached(
+            @RequestPart("signedFile") MultipartFile signedFile,
+            @RequestPart(value = "file", required = false) MultipartFile file,
+            @RequestPart(value = "digest", required = false) String digest,
+            @RequestPart(value = "digestAlgorithm", required = false) String digestAlgorithm
     ) throws IOException {
-        Path temp = getSignedFilePath(signedFile);
 
-        return signatureVerifierService.verifyAttachedSignature(
-                temp.toString(),certificatesDir
+        // Confere a assinatura contra o documento enviado ou, na falta dele, contra o digest informado
+        try (InputStream signature = signedFile.getInputStream()) {
+            if (file != null) {
+                try (InputStream content = file.getInputStream()) {
+                    return signatureVerifierService.verifyDetachedSignature(signature, content, certificatesDir);
+                }
+            }
+            if (digest == null) {
+                throw new DocumentSigningException("INVALID_ARGUMENT",
+                        "Send the signed document (file) or its digest (digest + digestAlgorithm)", null);
+            }
+            return signatureVerifierService.verifyDetachedSignatureDigest(
+                    signature, digestAlgorithm, digest, certificatesDir
+            );
+        }
+    }
+
+    @PostMapping(value = "/verify/batch",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> verifyBatch(
+            @RequestPart(value = "signedFiles", required = false) List<MultipartFile> signedFiles,
+            @RequestPart(value = "archive", required = false) MultipartFile archive
+    ) {
+
+        return signatureVerifierService.verifyAttachedSignatureBatch(
+                signedFiles, archive, certificatesDir
         );
     }
 }
@@ -0,0 +1,308 @@
+package com.vileladev.api.crypto;
+
+import com.vileladev.api.exception.DocumentSigningException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Triagem do .p7s antes do parse completo: lê só o cabeçalho DER/BER (ContentInfo, SignedData, versão e
+// digestAlgorithms) e rejeita em microssegundos o que não é um SignedData, declara digests desconhecidos ou
+// excede os limites; o conteúdo encapsulado segue em streaming para o CMSSignedDataParser
+@Component
+public class CmsPreParser implements MeterBinder {
+
+    public static final String MALFORMED = "MALFORMED_SIGNATURE";
+    public static final String TOO_LARGE = "SIGNATURE_TOO_LARGE";
+    public static final String UNSUPPORTED_DIGEST = "UNSUPPORTED_DIGEST_ALGORITHM";
+    public static final String TOO_MANY_SIGNERS = "TOO_MANY_SIGNERS";
+    public static final String TOO_MANY_DIGESTS = "TOO_MANY_DIGEST_ALGORITHMS";
+
+    // O cabeçalho inteiro precisa caber no mark do buffer para o parser completo reler desde o início
+    private static final int HEADER_LIMIT = 8 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_OID_LENGTH = 32;
+    private static final int INDEFINITE = -1;
+
+    // 1.2.840.113549.1.7.2 (id-signedData), conteúdo do OBJECT IDENTIFIER
+    private static final byte[] SIGNED_DATA = {0x2A, (byte) 0x86, 0x48, (byte) 0x86, (byte) 0xF7, 0x0D, 0x01, 0x07, 0x02};
+
+    // Os mesmos digests que a verificação reconhece: SHA-1, SHA-2, SHA-3 e SHAKE256 (Ed448)
+    private static final Set<String> DIGEST_OIDS = Set.of(
+            "1.3.14.3.2.26",
+            "2.16.840.1.101.3.4.2.1", "2.16.840.1.101.3.4.2.2", "2.16.840.1.101.3.4.2.3",
+            "2.16.840.1.101.3.4.2.4", "2.16.840.1.101.3.4.2.5", "2.16.840.1.101.3.4.2.6",
+            "2.16.840.1.101.3.4.2.7", "2.16.840.1.101.3.4.2.8", "2.16.840.1.101.3.4.2.9",
+            "2.16.840.1.101.3.4.2.10", "2.16.840.1.101.3.4.2.12");
+
+    private final long maxSize;
+    private final int maxSigners;
+    private final int maxDigestAlgorithms;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public CmsPreParser(@Value("${app.signature.verify.max-size:2147483648}") long maxSize,
+                        @Value("${app.signature.verify.max-signers:64}") int maxSigners,
+                        @Value("${app.signature.verify.max-digest-algorithms:8}") int maxDigestAlgorithms) {
+        this.maxSize = maxSize;
+        this.maxSigners = maxSigners;
+        this.maxDigestAlgorithms = maxDigestAlgorithms;
+    }
+
+    // Confere o cabeçalho e devolve o stream reposicionado no início, com o limite de tamanho aplicado ao restante
+    public InputStream inspect(InputStream source) throws IOException {
+        InputStream in = new BufferedInputStream(maxSize > 0 ? new LimitedInputStream(source, maxSize) : source, BUFFER_SIZE);
+        in.mark(HEADER_LIMIT);
+        try {
+            new HeaderReader(in).read();
+        } catch (DocumentSigningException e) {
+            rejected.incrementAndGet();
+            throw e;
+        }
+        in.reset();
+        accepted.incrementAndGet();
+        return in;
+    }
+
+    // Signatários e contra-assinaturas só são conhecidos depois do conteúdo; cada um vira uma tarefa de verificação
+    public void checkSignerCount(int signers) {
+        if (maxSigners > 0 && signers > maxSigners) {
+            rejected.incrementAndGet();
+            throw new DocumentSigningException(TOO_MANY_SIGNERS,
+                    "Signature has " + signers + " signers, the limit is " + maxSigners, null);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("verify.preparse", accepted, AtomicLong::get)
+                .tag("result", "accepted")
+                .description("Signatures screened before the full CMS parse")
+                .register(registry);
+        FunctionCounter.builder("verify.preparse", rejected, AtomicLong::get)
+                .tag("result", "rejected")
+                .register(registry);
+    }
+
+    private static DocumentSigningException malformed(String message) {
+        return new DocumentSigningException(MALFORMED, message, null);
+    }
+
+    // Leitor TLV mínimo sobre o stream: nada além do cabeçalho é lido nem alocado
+    private final class HeaderReader {
+
+        private final InputStream in;
+        private int position;
+
+        private HeaderReader(InputStream in) {
+            this.in = in;
+        }
+
+        private void read() throws IOException {
+            // ContentInfo ::= SEQUENCE { contentType, [0] EXPLICIT content }
+            expectTag(0x30, "ContentInfo");
+            long contentInfoLength = readLength();
+            if (contentInfoLength != INDEFINITE && maxSize > 0 && position + contentInfoLength > maxSize) {
+                throw new DocumentSigningException(TOO_LARGE,
+                        "Signature declares " + (position + contentInfoLength) + " bytes, the limit is " + maxSize, null);
+            }
+            expectTag(0x06, "contentType");
+            if (!Arrays.equals(SIGNED_DATA, readOid())) {
+                throw malformed("Content type is not CMS SignedData");
+            }
+            expectTag(0xA0, "SignedData wrapper");
+            readLength();
+
+            // SignedData ::= SEQUENCE { version, digestAlgorithms SET, encapContentInfo, ... }
+            expectTag(0x30, "SignedData");
+            readLength();
+            expectTag(0x02, "SignedData version");
+            long versionLength = readLength();
+            if (versionLength != 1) {
+                throw malformed("Invalid SignedData version");
+            }
+            int version = next();
+            if (version != 1 && version != 3 && version != 4 && version != 5) {
+                throw malformed("Unsupported SignedData version " + version);
+            }
+            readDigestAlgorithms();
+
+            expectTag(0x30, "encapContentInfo");
+            readLength();
+            expectTag(0x06, "eContentType");
+            readOid();
+        }
+
+        private void readDigestAlgorithms() throws IOException {
+            expectTag(0x31, "digestAlgorithms");
+            long length = readLength();
+            long end = length == INDEFINITE ? Long.MAX_VALUE : position + length;
+            int count = 0;
+            while (position < end) {
+                int tag = next();
+                if (length == INDEFINITE && tag == 0x00) {
+                    if (next() != 0x00) {
+                        throw malformed("Invalid end-of-contents in digestAlgorithms");
+                    }
+                    break;
+                }
+                if (tag != 0x30) {
+                    throw malformed("Invalid AlgorithmIdentifier in digestAlgorithms");
+                }
+                long algorithmLength = readLength();
+                if (algorithmLength == INDEFINITE) {
+                    throw malformed("Indefinite-length AlgorithmIdentifier in digestAlgorithms");
+                }
+                long algorithmEnd = position + algorithmLength;
+                expectTag(0x06, "digest algorithm");
+                String oid = oidToString(readOid());
+                if (!DIGEST_OIDS.contains(oid)) {
+                    throw new DocumentSigningException(UNSUPPORTED_DIGEST, "Unsupported digest algorithm " + oid, null);
+                }
+                if (++count > maxDigestAlgorithms) {
+                    // Cada digest declarado custa uma passada de hash sobre o conteúdo inteiro
+                    throw new DocumentSigningException(TOO_MANY_DIGESTS,
+                            "More than " + maxDigestAlgorithms + " digest algorithms declared", null);
+                }
+                skip(algorithmEnd - position);
+            }
+            if (position > end) {
+                throw malformed("digestAlgorithms overruns its declared length");
+            }
+        }
+
+        private void expectTag(int expected, String element) throws IOException {
+            int tag = next();
+            // A forma BER construída de tipos primitivos não aparece nesses campos
+            if (tag != expected) {
+                throw malformed("Expected " + element + " at offset " + (position - 1));
+            }
+        }
+
+        private long readLength() throws IOException {
+            int first = next();
+            if (first < 0x80) {
+                return first;
+            }
+            if (first == 0x80) {
+                return INDEFINITE;
+            }
+            int octets = first & 0x7F;
+            if (octets > 7) {
+                throw malformed("Length field too long at offset " + (position - 1));
+            }
+            long length = 0;
+            for (int i = 0; i < octets; i++) {
+                length = (length << 8) | next();
+            }
+            return length;
+        }
+
+        private byte[] readOid() throws IOException {
+            long length = readLength();
+            if (length < 1 || length > MAX_OID_LENGTH) {
+                throw malformed("Invalid OBJECT IDENTIFIER length at offset " + position);
+            }
+            byte[] oid = new byte[(int) length];
+            for (int i = 0; i < oid.length; i++) {
+                oid[i] = (byte) next();
+            }
+            return oid;
+        }
+
+        private void skip(long n) throws IOException {
+            if (n < 0) {
+                throw malformed("AlgorithmIdentifier overruns its declared length");
+            }
+            for (long i = 0; i < n; i++) {
+                next();
+            }
+        }
+
+        private int next() throws IOException {
+            if (position >= HEADER_LIMIT) {
+                throw malformed("CMS header exceeds " + HEADER_LIMIT + " bytes");
+            }
+            int b = in.read();
+            if (b < 0) {
+                throw malformed("Truncated CMS structure at offset " + position);
+            }
+            position++;
+            return b;
+        }
+    }
+
+    private static String oidToString(byte[] encoded) {
+        StringBuilder oid = new StringBuilder();
+        long value = 0;
+        boolean first = true;
+        for (byte b : encoded) {
+            value = (value << 7) | (b & 0x7F);
+            if ((b & 0x80) == 0) {
+                if (first) {
+                    int arc = (int) Math.min(value / 40, 2);
+                    oid.append(arc).append('.').append(value - arc * 40L);
+                    first = false;
+                } else {
+                    oid.append('.').append(value);
+                }
+                value = 0;
+            }
+        }
+        return oid.toString();
+    }
+
+    // Interrompe a leitura assim que o total passa do limite, em vez de digerir o upload inteiro
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+
+        private LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long n) {
+            count += n;
+            if (count > limit) {
+                throw new DocumentSigningException(TOO_LARGE, "Signature exceeds " + limit + " bytes", null);
+            }
+        }
+    }
+}
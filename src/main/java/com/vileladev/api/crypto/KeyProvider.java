@@ -0,0 +1,19 @@
+package com.vileladev.api.crypto;
+
+import com.vileladev.api.cache.SignerMaterial;
+
+import java.util.Map;
+
+// Origem das chaves registradas no servidor. Cada provedor carrega as suas chaves uma vez, na inicialização,
+// e devolve id -> material; o SignerKeyRegistry fica com a referência de cada material até o encerramento
+public interface KeyProvider extends AutoCloseable {
+
+    String name();
+
+    Map<String, SignerMaterial> loadKeys() throws Exception;
+
+    // Sem exceção verificada: o encerramento de um provedor não deve impedir o dos outros
+    @Override
+    default void close() {
+    }
+}
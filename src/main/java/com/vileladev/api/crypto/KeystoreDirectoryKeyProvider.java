@@ -0,0 +1,116 @@
+package com.vileladev.api.crypto;
+
+import com.vileladev.api.cache.SignerMaterial;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Keystores .p12/.pfx de app.signature.keys.dir, destravados uma única vez na inicialização.
+// O id é o nome do arquivo sem extensão; keystores com mais de uma chave geram <arquivo>:<alias>.
+// A senha vem de <arquivo>.password, ao lado do keystore, ou de app.signature.keys.password
+@Component
+public class KeystoreDirectoryKeyProvider implements KeyProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeystoreDirectoryKeyProvider.class);
+
+    private final String directory;
+    private final String password;
+
+    public KeystoreDirectoryKeyProvider(@Value("${app.signature.keys.dir:}") String directory,
+                                        @Value("${app.signature.keys.password:}") String password) {
+        this.directory = directory;
+        this.password = password;
+    }
+
+    @Override
+    public String name() {
+        return "keystore";
+    }
+
+    @Override
+    public Map<String, SignerMaterial> loadKeys() throws Exception {
+        if (directory == null || directory.isBlank()) {
+            return Map.of();
+        }
+        Path dir = Paths.get(directory);
+        if (!Files.isDirectory(dir)) {
+            logger.warn("Signing keys directory {} does not exist, no keystore keys registered", dir);
+            return Map.of();
+        }
+
+        List<Path> keystores;
+        try (Stream<Path> listing = Files.list(dir)) {
+            keystores = listing.filter(KeystoreDirectoryKeyProvider::isKeystore).sorted().toList();
+        }
+
+        Map<String, SignerMaterial> keys = new LinkedHashMap<>();
+        try {
+            for (Path file : keystores) {
+                load(file, keys);
+            }
+        } catch (Exception ex) {
+            keys.values().forEach(SignerMaterial::close);
+            throw ex;
+        }
+        return keys;
+    }
+
+    private void load(Path file, Map<String, SignerMaterial> keys) throws Exception {
+        String baseName = baseName(file);
+        char[] secret = secret(file, baseName);
+        try {
+            KeyStore keystore = KeyStore.getInstance("PKCS12");
+            try (InputStream in = Files.newInputStream(file)) {
+                keystore.load(in, secret);
+            }
+            List<String> aliases = new ArrayList<>();
+            for (String alias : Collections.list(keystore.aliases())) {
+                if (keystore.isKeyEntry(alias)) {
+                    aliases.add(alias);
+                }
+            }
+            for (String alias : aliases) {
+                String id = aliases.size() == 1 ? baseName : baseName + ":" + alias;
+                keys.put(id, SignerMaterial.load(keystore, secret, alias, null, null));
+            }
+        } catch (Exception ex) {
+            throw new IllegalStateException("Keystore " + file + " could not be loaded: " + ex.getMessage(), ex);
+        } finally {
+            Arrays.fill(secret, '\0');
+        }
+    }
+
+    private char[] secret(Path file, String baseName) throws Exception {
+        Path sidecar = file.resolveSibling(baseName + ".password");
+        if (Files.isRegularFile(sidecar)) {
+            return Files.readString(sidecar, StandardCharsets.UTF_8).strip().toCharArray();
+        }
+        return password.toCharArray();
+    }
+
+    private static boolean isKeystore(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return Files.isRegularFile(file) && (name.endsWith(".p12") || name.endsWith(".pfx"));
+    }
+
+    private static String baseName(Path file) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.lastIndexOf('.'));
+    }
+}
@@ -0,0 +1,127 @@
+package com.vileladev.api.crypto;
+
+import com.vileladev.api.cache.SignerMaterial;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.AuthProvider;
+import java.security.KeyStore;
+import java.security.Provider;
+import java.security.Security;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+import javax.security.auth.login.LoginException;
+
+// Chaves de um token PKCS#11 (HSM, cartão ou SoftHSM) pelo SunPKCS11. O PIN é apresentado uma única vez,
+// no carregamento do keystore do token; as assinaturas disputam as sessões pelo TokenSessionPool.
+// O id de cada chave é o seu rótulo (CKA_LABEL) no token
+@Component
+public class Pkcs11KeyProvider implements KeyProvider, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(Pkcs11KeyProvider.class);
+
+    private final String config;
+    private final String pin;
+    private final int sessions;
+
+    private volatile Provider provider;
+    private volatile TokenSessionPool sessionPool;
+
+    public Pkcs11KeyProvider(@Value("${app.signature.keys.pkcs11.config:}") String config,
+                             @Value("${app.signature.keys.pkcs11.pin:}") String pin,
+                             @Value("${app.signature.keys.pkcs11.sessions:0}") int sessions) {
+        this.config = config;
+        this.pin = pin;
+        this.sessions = sessions > 0 ? sessions : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public String name() {
+        return "pkcs11";
+    }
+
+    @Override
+    public Map<String, SignerMaterial> loadKeys() throws Exception {
+        if (config == null || config.isBlank()) {
+            return Map.of();
+        }
+        Provider base = Security.getProvider("SunPKCS11");
+        if (base == null) {
+            throw new IllegalStateException("SunPKCS11 provider is not available in this JVM");
+        }
+        // config: arquivo de configuração do SunPKCS11 (name, library, slot)
+        Provider token = base.configure(config);
+        KeyStore keystore = KeyStore.getInstance("PKCS11", token);
+        char[] secret = pin.toCharArray();
+        try {
+            keystore.load(null, secret);
+        } finally {
+            Arrays.fill(secret, '\0');
+        }
+        // Só registrado depois do login: um PIN errado ou token ausente não deixa o provedor em Security
+        Security.addProvider(token);
+        provider = token;
+
+        TokenSessionPool pool = new TokenSessionPool(token.getName(), sessions);
+        sessionPool = pool;
+        Map<String, SignerMaterial> keys = new LinkedHashMap<>();
+        for (String alias : Collections.list(keystore.aliases())) {
+            if (keystore.isKeyEntry(alias)) {
+                keys.put(alias, SignerMaterial.load(keystore, null, alias, token, pool));
+            }
+        }
+        logger.info("PKCS#11 token {} logged in with {} keys and {} sessions", token.getName(), keys.size(), sessions);
+        return keys;
+    }
+
+    @Override
+    public void close() {
+        Provider token = provider;
+        if (token == null) {
+            return;
+        }
+        provider = null;
+        try {
+            if (token instanceof AuthProvider auth) {
+                auth.logout();
+            }
+        } catch (LoginException ex) {
+            logger.warn("PKCS#11 token {} logout failed: {}", token.getName(), ex.getMessage());
+        } finally {
+            Security.removeProvider(token.getName());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("token.sessions.active", this, pool(TokenSessionPool::activeCount))
+                .description("PKCS#11 sessions signing right now")
+                .register(registry);
+        Gauge.builder("token.sessions.queue", this, pool(TokenSessionPool::waitingCount))
+                .description("Signatures waiting for a PKCS#11 session")
+                .register(registry);
+        Gauge.builder("token.sessions.limit", this, pool(TokenSessionPool::getSize))
+                .register(registry);
+        FunctionTimer.builder("token.sessions.wait", this,
+                        provider -> provider.sessionPool == null ? 0 : provider.sessionPool.acquisitionCount(),
+                        provider -> provider.sessionPool == null ? 0 : provider.sessionPool.waitNanos(),
+                        TimeUnit.NANOSECONDS)
+                .description("Time spent waiting for a PKCS#11 session")
+                .register(registry);
+    }
+
+    private static ToDoubleFunction<Pkcs11KeyProvider> pool(ToDoubleFunction<TokenSessionPool> metric) {
+        return provider -> provider.sessionPool == null ? 0 : metric.applyAsDouble(provider.sessionPool);
+    }
+}
@@ -0,0 +1,105 @@
+package com.vileladev.api.crypto;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.RuntimeOperatorException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Limita quantas operações com chave privada rodam ao mesmo tempo. Com threads virtuais as requisições
+// não têm teto, então só o trecho de CPU (a assinatura RSA) passa por aqui; leitura e digest ficam de fora.
+@Component
+public class PrivateKeyLimiter implements MeterBinder {
+
+    private final int maxConcurrency;
+    private final Semaphore permits;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    public PrivateKeyLimiter(@Value("${app.signature.crypto.max-concurrency:0}") int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency > 0 ? maxConcurrency : Runtime.getRuntime().availableProcessors();
+        this.permits = new Semaphore(this.maxConcurrency, true);
+    }
+
+    // Envolve o ContentSigner: o acesso à chave acontece em getSignature(), depois do documento todo lido
+    public ContentSigner guard(ContentSigner delegate) {
+        return new ContentSigner() {
+            @Override
+            public AlgorithmIdentifier getAlgorithmIdentifier() {
+                return delegate.getAlgorithmIdentifier();
+            }
+
+            @Override
+            public OutputStream getOutputStream() {
+                return delegate.getOutputStream();
+            }
+
+            @Override
+            public byte[] getSignature() {
+                acquire();
+                try {
+                    return delegate.getSignature();
+                } finally {
+                    permits.release();
+                }
+            }
+        };
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int waitingCount() {
+        return waiting.get();
+    }
+
+    public int activeCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    private void acquire() {
+        long start = System.nanoTime();
+        waiting.incrementAndGet();
+        try {
+            permits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeOperatorException("Interrupted while waiting for a private key slot", ex);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        waitNanos.addAndGet(System.nanoTime() - start);
+        acquisitions.incrementAndGet();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("crypto.limiter.queue", this, PrivateKeyLimiter::waitingCount)
+                .description("Signatures waiting for a private key slot")
+                .register(registry);
+        Gauge.builder("crypto.limiter.active", this, PrivateKeyLimiter::activeCount)
+                .description("Private key operations in progress")
+                .register(registry);
+        Gauge.builder("crypto.limiter.limit", this, PrivateKeyLimiter::getMaxConcurrency)
+                .register(registry);
+        FunctionTimer.builder("crypto.limiter.wait", this,
+                        limiter -> limiter.acquisitions.get(),
+                        limiter -> limiter.waitNanos.get(),
+                        TimeUnit.NANOSECONDS)
+                .description("Time spent waiting for a private key slot")
+                .register(registry);
+    }
+}
@@ -0,0 +1,137 @@
+package com.vileladev.api.crypto;
+
+import com.vileladev.api.cache.SignerMaterial;
+import com.vileladev.api.service.record.SignerKeyInfo;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Chaves registradas no servidor, carregadas uma vez de cada KeyProvider. As requisições referenciam a chave
+// pelo id e não pagam upload nem a derivação PBE do PKCS#12; o material fica destravado até o encerramento
+@Component
+public class SignerKeyRegistry implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignerKeyRegistry.class);
+
+    private final List<KeyProvider> providers;
+    private volatile Map<String, RegisteredKey> keys = Map.of();
+
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong unknown = new AtomicLong();
+
+    public SignerKeyRegistry(List<KeyProvider> providers) {
+        this.providers = List.copyOf(providers);
+    }
+
+    @PostConstruct
+    public void init() throws Exception {
+        try {
+            keys = load();
+        } catch (Exception ex) {
+            // Nenhum provedor fica registrado em Security ou logado no token com a inicialização interrompida
+            closeProviders();
+            throw ex;
+        }
+    }
+
+    private Map<String, RegisteredKey> load() throws Exception {
+        Map<String, RegisteredKey> loaded = new LinkedHashMap<>();
+        for (KeyProvider provider : providers) {
+            Map<String, SignerMaterial> provided;
+            try {
+                provided = provider.loadKeys();
+            } catch (Exception ex) {
+                loaded.values().forEach(key -> key.material().close());
+                throw ex;
+            }
+            for (Map.Entry<String, SignerMaterial> key : provided.entrySet()) {
+                RegisteredKey previous = loaded.get(key.getKey());
+                if (previous != null) {
+                    // Id repetido: nenhuma chave fica destravada com a inicialização interrompida
+                    loaded.values().forEach(registered -> registered.material().close());
+                    provided.values().stream()
+                            .filter(material -> loaded.values().stream().noneMatch(r -> r.material() == material))
+                            .forEach(SignerMaterial::close);
+                    throw new IllegalStateException("Signing key id '" + key.getKey() + "' is registered by both "
+                            + previous.provider() + " and " + provider.name());
+                }
+                loaded.put(key.getKey(), new RegisteredKey(key.getKey(), provider.name(), key.getValue()));
+                logger.info("Signing key {} registered from {} ({})", key.getKey(), provider.name(),
+                        key.getValue().getSignatureAlgorithm());
+            }
+        }
+        return Map.copyOf(loaded);
+    }
+
+    // Referência ao material da chave; o chamador deve fechá-la ao terminar de assinar
+    public SignerMaterial acquire(String keyId) {
+        RegisteredKey key = keys.get(keyId);
+        if (key == null || !key.material().retain()) {
+            unknown.incrementAndGet();
+            throw new IllegalArgumentException("Signing key '" + keyId + "' is not registered");
+        }
+        acquisitions.incrementAndGet();
+        return key.material();
+    }
+
+    public List<SignerKeyInfo> list() {
+        List<SignerKeyInfo> infos = new ArrayList<>(keys.size());
+        for (RegisteredKey key : keys.values()) {
+            infos.add(new SignerKeyInfo(key.id(), key.provider(),
+                    key.material().getCertificateChain().get(0).getSubjectX500Principal().getName(),
+                    key.material().getSignatureAlgorithm()));
+        }
+        return infos;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        Map<String, RegisteredKey> current = keys;
+        keys = Map.of();
+        current.values().forEach(key -> key.material().close());
+        closeProviders();
+    }
+
+    private void closeProviders() {
+        for (KeyProvider provider : providers) {
+            try {
+                provider.close();
+            } catch (RuntimeException ex) {
+                logger.warn("Key provider {} did not close cleanly: {}", provider.name(), ex.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("signer.keys.registered", this, SignerKeyRegistry::size)
+                .description("Signing keys registered on the server")
+                .register(registry);
+        FunctionCounter.builder("signer.keys.requests", acquisitions, AtomicLong::get)
+                .tag("result", "registered")
+                .description("Signatures that referenced a registered key id")
+                .register(registry);
+        FunctionCounter.builder("signer.keys.requests", unknown, AtomicLong::get)
+                .tag("result", "unknown")
+                .register(registry);
+    }
+
+    private record RegisteredKey(String id, String provider, SignerMaterial material) {
+    }
+}
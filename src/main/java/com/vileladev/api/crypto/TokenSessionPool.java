@@ -0,0 +1,114 @@
+package com.vileladev.api.crypto;
+
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.RuntimeOperatorException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Sessões de um token PKCS#11 repartidas entre as assinaturas. O login é feito uma única vez, ao registrar o
+// token; o provedor reaproveita as sessões abertas e aqui só se limita quantas ficam em uso ao mesmo tempo.
+// Cada assinatura ocupa uma sessão apenas na operação com a chave: o ContentSigner do token é criado em
+// getSignature(), sobre os atributos assinados já montados, e não enquanto o documento passa pelo digest.
+public class TokenSessionPool {
+
+    private final String token;
+    private final int size;
+    private final Semaphore sessions;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    public TokenSessionPool(String token, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Token session pool must hold at least one session");
+        }
+        this.token = token;
+        this.size = size;
+        this.sessions = new Semaphore(size, true);
+    }
+
+    // ContentSigner que acumula os bytes a assinar em memória (os atributos assinados têm poucas centenas
+    // de bytes) e só cria o signer do token, com uma sessão do pool, na hora de assinar
+    public ContentSigner deferred(AlgorithmIdentifier algorithm, SignerFactory factory) {
+        ByteArrayOutputStream toBeSigned = new ByteArrayOutputStream();
+        return new ContentSigner() {
+            @Override
+            public AlgorithmIdentifier getAlgorithmIdentifier() {
+                return algorithm;
+            }
+
+            @Override
+            public OutputStream getOutputStream() {
+                return toBeSigned;
+            }
+
+            @Override
+            public byte[] getSignature() {
+                acquire();
+                try {
+                    ContentSigner signer = factory.create();
+                    try (OutputStream out = signer.getOutputStream()) {
+                        toBeSigned.writeTo(out);
+                    }
+                    return signer.getSignature();
+                } catch (OperatorCreationException | IOException ex) {
+                    throw new RuntimeOperatorException("Token " + token + " could not sign: " + ex.getMessage(), ex);
+                } finally {
+                    sessions.release();
+                }
+            }
+        };
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int activeCount() {
+        return size - sessions.availablePermits();
+    }
+
+    public int waitingCount() {
+        return waiting.get();
+    }
+
+    public long acquisitionCount() {
+        return acquisitions.get();
+    }
+
+    public long waitNanos() {
+        return waitNanos.get();
+    }
+
+    private void acquire() {
+        long start = System.nanoTime();
+        waiting.incrementAndGet();
+        try {
+            sessions.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeOperatorException("Interrupted while waiting for a session on token " + token, ex);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        waitNanos.addAndGet(System.nanoTime() - start);
+        acquisitions.incrementAndGet();
+    }
+
+    @FunctionalInterface
+    public interface SignerFactory {
+        ContentSigner create() throws OperatorCreationException;
+    }
+}
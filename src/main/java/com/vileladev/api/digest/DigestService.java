@@ -0,0 +1,247 @@
+package com.vileladev.api.digest;
+
+import com.vileladev.api.exception.DigestSessionException;
+import com.vileladev.api.service.record.DigestSession;
+import com.vileladev.api.service.record.DocumentDigest;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.bouncycastle.util.encoders.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Digests de documentos em uma única leitura (MultiDigest) e sessões de upload em partes, com o estado dos
+// MessageDigest guardado em memória entre uma parte e outra até complete ou até expirar. Cada sessão aceita uma
+// escrita por vez (ReentrantLock, que não prende a thread carregadora de uma virtual thread durante a leitura da
+// rede); uma segunda parte ou complete concorrente recebe 409 em vez de esperar, e o GET lê o último snapshot
+// publicado sem lock
+@Component
+public class DigestService implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(DigestService.class);
+
+    public static final String SESSION_NOT_FOUND = "DIGEST_SESSION_NOT_FOUND";
+    public static final String OFFSET_MISMATCH = "DIGEST_OFFSET_MISMATCH";
+    public static final String TOO_MANY_SESSIONS = "TOO_MANY_DIGEST_SESSIONS";
+    public static final String SESSION_BUSY = "DIGEST_SESSION_BUSY";
+
+    private final Executor executor;
+    private final List<String> defaultAlgorithms;
+    private final int bufferSize;
+    private final int parallelThreshold;
+    private final Duration sessionTtl;
+    private final int maxSessions;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    // Buffers de leitura reaproveitados entre requisições. Ficam no heap: MessageDigest.update(ByteBuffer) com
+    // buffer direto copia de volta para um array em blocos, e o stream do upload já entrega os bytes em um array.
+    // ThreadLocal também não serve, porque com virtual threads cada requisição teria o seu
+    private final ConcurrentLinkedDeque<byte[]> buffers = new ConcurrentLinkedDeque<>();
+    private final int maxPooledBuffers = 2 * Runtime.getRuntime().availableProcessors();
+
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+
+    public DigestService(@Qualifier("digestExecutor") Executor executor,
+                         @Value("${app.digest.algorithms:SHA-256,SHA-512}") List<String> defaultAlgorithms,
+                         @Value("${app.digest.buffer-size:1048576}") int bufferSize,
+                         @Value("${app.digest.parallel-threshold:262144}") int parallelThreshold,
+                         @Value("${app.digest.session.ttl:PT1H}") Duration sessionTtl,
+                         @Value("${app.digest.session.max-sessions:256}") int maxSessions) {
+        this.executor = executor;
+        this.defaultAlgorithms = new MultiDigest(defaultAlgorithms, executor, parallelThreshold).algorithms();
+        this.bufferSize = bufferSize;
+        this.parallelThreshold = parallelThreshold;
+        this.sessionTtl = sessionTtl;
+        this.maxSessions = maxSessions;
+    }
+
+    // Sem executor nem paralelismo, para montar o serviço de assinatura fora do contexto Spring (testes e benchmarks)
+    public static DigestService sequential() {
+        return new DigestService(Runnable::run, List.of("SHA-256", "SHA-512"), 1024 * 1024, Integer.MAX_VALUE,
+                Duration.ofHours(1), 256);
+    }
+
+    // Algoritmos pedidos ou, na falta deles, os de app.digest.algorithms
+    public MultiDigest newDigest(Collection<String> algorithms) {
+        return new MultiDigest(algorithms == null || algorithms.isEmpty() ? defaultAlgorithms : algorithms,
+                executor, parallelThreshold);
+    }
+
+    public long update(MultiDigest digest, InputStream in) throws IOException {
+        long start = digest.length();
+        byte[] pooled = buffers.pollFirst();
+        byte[] buffer = pooled != null ? pooled : new byte[bufferSize];
+        try {
+            return digest.update(in, buffer);
+        } finally {
+            bytes.addAndGet(digest.length() - start);
+            // O update só retorna depois que todos os algoritmos terminaram o bloco; o buffer já está livre
+            if (pooled != null || buffers.size() < maxPooledBuffers) {
+                buffers.offerFirst(buffer);
+            }
+        }
+    }
+
+    public DocumentDigest digest(InputStream in, Collection<String> algorithms) throws IOException {
+        MultiDigest digest = newDigest(algorithms);
+        update(digest, in);
+        return toDocumentDigest(digest);
+    }
+
+    public DigestSession startSession(Collection<String> algorithms) {
+        purgeExpired();
+        if (maxSessions > 0 && sessions.size() >= maxSessions) {
+            throw new DigestSessionException(HttpStatus.TOO_MANY_REQUESTS, TOO_MANY_SESSIONS,
+                    "There are already " + sessions.size() + " open digest sessions");
+        }
+        Session session = new Session(UUID.randomUUID().toString(), newDigest(algorithms));
+        session.touch(sessionTtl);
+        sessions.put(session.id, session);
+        logger.debug("Digest session {} started ({})", session.id, session.digest.algorithms());
+        return session.snapshot;
+    }
+
+    // Acrescenta uma parte começando em offset. Se a leitura da parte falhar no meio, o que já foi digerido
+    // fica na sessão e o cliente retoma a partir do length devolvido pelo GET da sessão
+    public DigestSession append(String id, long offset, InputStream part) throws IOException {
+        Session session = lock(id);
+        try {
+            ensureOpen(session);
+            if (offset != session.digest.length()) {
+                throw new DigestSessionException(HttpStatus.CONFLICT, OFFSET_MISMATCH,
+                        "Digest session " + id + " expects offset " + session.digest.length() + ", got " + offset);
+            }
+            session.touch(sessionTtl);
+            try {
+                update(session.digest, part);
+            } finally {
+                session.touch(sessionTtl);
+            }
+            return session.snapshot;
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    public DigestSession get(String id) {
+        return session(id).snapshot;
+    }
+
+    // Finaliza os digests e encerra a sessão
+    public DocumentDigest complete(String id) {
+        Session session = lock(id);
+        try {
+            ensureOpen(session);
+            sessions.remove(id, session);
+            session.closed = true;
+            return toDocumentDigest(session.digest);
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.digest.session.purge-interval:PT1M}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        sessions.values().removeIf(session -> {
+            if (session.expiresAt.isAfter(now)) {
+                return false;
+            }
+            expired.incrementAndGet();
+            logger.debug("Digest session {} expired at {} bytes", session.id, session.digest.length());
+            return true;
+        });
+    }
+
+    public static DocumentDigest toDocumentDigest(MultiDigest digest) {
+        Map<String, String> hex = new LinkedHashMap<>();
+        digest.digest().forEach((algorithm, value) -> hex.put(algorithm, Hex.toHexString(value)));
+        return new DocumentDigest(digest.length(), hex);
+    }
+
+    private Session session(String id) {
+        Session session = sessions.get(id);
+        if (session == null || session.expiresAt.isBefore(Instant.now())) {
+            throw notFound(id);
+        }
+        return session;
+    }
+
+    // Sem esperar: outra parte em andamento na mesma sessão é erro do cliente, que deve enviar em sequência
+    private Session lock(String id) {
+        Session session = session(id);
+        if (!session.lock.tryLock()) {
+            throw new DigestSessionException(HttpStatus.CONFLICT, SESSION_BUSY,
+                    "Digest session " + id + " is already receiving a part");
+        }
+        return session;
+    }
+
+    // Outra requisição pode ter concluído a sessão entre a busca e o lock
+    private static void ensureOpen(Session session) {
+        if (session.closed) {
+            throw notFound(session.id);
+        }
+    }
+
+    private static DigestSessionException notFound(String id) {
+        return new DigestSessionException(HttpStatus.NOT_FOUND, SESSION_NOT_FOUND,
+                "Digest session " + id + " not found or expired");
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("digest.bytes", bytes, AtomicLong::get)
+                .description("Bytes read by the multi-algorithm digest")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("digest.sessions.open", sessions, Map::size)
+                .register(registry);
+        FunctionCounter.builder("digest.sessions.expired", expired, AtomicLong::get)
+                .register(registry);
+    }
+
+    private static final class Session {
+
+        private final String id;
+        private final MultiDigest digest;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Instant expiresAt;
+        private volatile DigestSession snapshot;
+        private boolean closed;
+
+        private Session(String id, MultiDigest digest) {
+            this.id = id;
+            this.digest = digest;
+        }
+
+        // Chamado com o lock (ou antes de publicar a sessão); o snapshot é o que o GET devolve
+        private void touch(Duration ttl) {
+            expiresAt = Instant.now().plus(ttl);
+            snapshot = new DigestSession(id, digest.algorithms(), digest.length(), expiresAt);
+        }
+    }
+}
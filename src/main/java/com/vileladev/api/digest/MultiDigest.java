@@ -0,0 +1,170 @@
+package com.vileladev.api.digest;
+
+import com.vileladev.api.util.DigestUtil;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Vários digests (SHA-256/384/512) sobre uma única leitura do conteúdo. Em blocos a partir de parallelThreshold
+// cada algoritmo processa o mesmo bloco em uma thread do executor; o primeiro roda na thread chamadora.
+// Não é thread-safe: uma instância por documento ou sessão
+public final class MultiDigest {
+
+    private final List<String> algorithms;
+    private final MessageDigest[] digests;
+    private final Executor executor;
+    private final int parallelThreshold;
+    private long length;
+    private Map<String, byte[]> result;
+
+    MultiDigest(Collection<String> algorithms, Executor executor, int parallelThreshold) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String algorithm : algorithms) {
+            String name = DigestUtil.normalize(algorithm);
+            DigestUtil.digestOid(name);
+            names.add(name);
+        }
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("At least one digest algorithm is required");
+        }
+        this.algorithms = List.copyOf(names);
+        this.digests = new MessageDigest[this.algorithms.size()];
+        for (int i = 0; i < digests.length; i++) {
+            try {
+                digests[i] = MessageDigest.getInstance(this.algorithms.get(i));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Digest " + this.algorithms.get(i) + " unavailable", e);
+            }
+        }
+        this.executor = executor;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public List<String> algorithms() {
+        return algorithms;
+    }
+
+    public boolean contains(String algorithm) {
+        return algorithms.contains(DigestUtil.normalize(algorithm));
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public void update(byte[] buffer, int offset, int len) {
+        if (result != null) {
+            throw new IllegalStateException("Digest already finished");
+        }
+        if (len <= 0) {
+            return;
+        }
+        if (digests.length == 1 || len < parallelThreshold) {
+            for (MessageDigest md : digests) {
+                md.update(buffer, offset, len);
+            }
+        } else {
+            // Só leitura sobre o bloco compartilhado; cada MessageDigest fica com uma única thread
+            CompletableFuture<?>[] pending = new CompletableFuture<?>[digests.length - 1];
+            for (int i = 1; i < digests.length; i++) {
+                MessageDigest md = digests[i];
+                pending[i - 1] = CompletableFuture.runAsync(() -> md.update(buffer, offset, len), executor);
+            }
+            digests[0].update(buffer, offset, len);
+            CompletableFuture.allOf(pending).join();
+        }
+        length += len;
+    }
+
+    // Lê até o fim em blocos do tamanho do buffer (preenchido por inteiro antes de cada update). Se a leitura
+    // falhar no meio de um bloco, o que já chegou é digerido antes de propagar o erro
+    public long update(InputStream in, byte[] buffer) throws IOException {
+        long start = length;
+        int filled = 0;
+        try {
+            int read;
+            while ((read = in.read(buffer, filled, buffer.length - filled)) != -1) {
+                filled += read;
+                if (filled == buffer.length) {
+                    update(buffer, 0, filled);
+                    filled = 0;
+                }
+            }
+        } finally {
+            update(buffer, 0, filled);
+        }
+        return length - start;
+    }
+
+    // Digere o que for lido do stream, para quando outro componente consome o conteúdo
+    public InputStream inputStream(InputStream in) {
+        return new FilterInputStream(in) {
+
+            // Reaproveitados entre chamadas; o stream, como o MultiDigest, é de uma thread só
+            private final byte[] single = new byte[1];
+            private byte[] skipBuffer;
+
+            @Override
+            public int read() throws IOException {
+                int n = read(single, 0, 1);
+                return n == 1 ? single[0] & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                update(b, off, n);
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                // Pular bytes deixaria o digest incompleto: os bytes são lidos e digeridos
+                if (n <= 0) {
+                    return 0;
+                }
+                if (skipBuffer == null) {
+                    skipBuffer = new byte[8192];
+                }
+                return Math.max(read(skipBuffer, 0, (int) Math.min(n, skipBuffer.length)), 0);
+            }
+
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+    }
+
+    // Finaliza todos os algoritmos de uma vez; chamadas seguintes devolvem o mesmo resultado
+    public Map<String, byte[]> digest() {
+        if (result == null) {
+            Map<String, byte[]> values = new LinkedHashMap<>();
+            for (int i = 0; i < digests.length; i++) {
+                values.put(algorithms.get(i), digests[i].digest());
+            }
+            result = Collections.unmodifiableMap(values);
+        }
+        return result;
+    }
+
+    public byte[] digest(String algorithm) {
+        byte[] value = digest().get(DigestUtil.normalize(algorithm));
+        if (value == null) {
+            throw new IllegalArgumentException("Digest " + algorithm + " was not computed");
+        }
+        return value.clone();
+    }
+}
@@ -0,0 +1,17 @@
+package com.vileladev.api.exception;
+
+import org.springframework.http.HttpStatus;
+
+// Erros das sessões de digest em partes: sessão inexistente ou expirada, parte fora de ordem, limite de sessões
+public class DigestSessionException extends DocumentSigningException {
+    private static final long serialVersionUID = 1L;
+
+    private final HttpStatus status;
+
+    public DigestSessionException(HttpStatus status, String errorCode, String message) {
+        super(errorCode, message, null);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() { return status; }
+}
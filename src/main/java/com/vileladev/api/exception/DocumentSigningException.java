@@ -10,6 +10,8 @@ import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
 
 public class DocumentSigningException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
     private final String errorCode;
 
     public DocumentSigningException(String errorCode, String message, Throwable cause) {
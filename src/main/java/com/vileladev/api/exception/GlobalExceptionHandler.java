@@ -2,10 +2,12 @@ package com.vileladev.api.exception;
 
 import com.vileladev.api.exception.record.ApiError;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.io.IOException;
 import java.security.UnrecoverableKeyException;
@@ -29,6 +31,54 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(body);
     }
 
+    @ExceptionHandler(SigningJobException.class)
+    public ResponseEntity<ApiError> onSigningJobError(SigningJobException ex,
+                                                      HttpServletRequest req) {
+        ApiError body = new ApiError(
+                LocalDateTime.now(),
+                ex.getStatus().value(),
+                "Signing Job Error",
+                ex.getErrorCode(),
+                ex.getMessage(),
+                req.getRequestURI()
+        );
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(ex.getStatus());
+        if (ex.getStatus() == HttpStatus.TOO_MANY_REQUESTS) {
+            // Fila cheia: o cliente deve reenviar mais tarde
+            response.header(HttpHeaders.RETRY_AFTER, "30");
+        }
+        return response.body(body);
+    }
+
+    @ExceptionHandler(DigestSessionException.class)
+    public ResponseEntity<ApiError> onDigestSessionError(DigestSessionException ex,
+                                                         HttpServletRequest req) {
+        ApiError body = new ApiError(
+                LocalDateTime.now(),
+                ex.getStatus().value(),
+                "Digest Session Error",
+                ex.getErrorCode(),
+                ex.getMessage(),
+                req.getRequestURI()
+        );
+        return ResponseEntity.status(ex.getStatus()).body(body);
+    }
+
+    // Upload acima de spring.servlet.multipart.max-file-size/max-request-size
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<ApiError> onUploadTooLarge(MaxUploadSizeExceededException ex,
+                                                     HttpServletRequest req) {
+        ApiError body = new ApiError(
+                LocalDateTime.now(),
+                HttpStatus.PAYLOAD_TOO_LARGE.value(),
+                "Upload Too Large",
+                "UPLOAD_TOO_LARGE",
+                ex.getMessage(),
+                req.getRequestURI()
+        );
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(body);
+    }
+
     @ExceptionHandler({UnrecoverableKeyException.class, CertificateException.class })
     public ResponseEntity<ApiError> onCryptoError(Exception ex, HttpServletRequest req) {
         ApiError body = new ApiError(
@@ -0,0 +1,17 @@
+package com.vileladev.api.exception;
+
+import org.springframework.http.HttpStatus;
+
+// Erros da API de jobs que não são falhas do documento: fila cheia, job inexistente ou ainda em andamento
+public class SigningJobException extends DocumentSigningException {
+    private static final long serialVersionUID = 1L;
+
+    private final HttpStatus status;
+
+    public SigningJobException(HttpStatus status, String errorCode, String message) {
+        super(errorCode, message, null);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() { return status; }
+}
@@ -0,0 +1,50 @@
+package com.vileladev.api.job;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+// Cifra a senha do PKCS#12 gravada junto do job (AES-GCM), para que a fila sobreviva a um restart
+// sem deixar a senha em claro no disco
+final class JobSecretCipher {
+
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecretKeySpec key;
+    private final SecureRandom random = new SecureRandom();
+
+    private JobSecretCipher(byte[] key) {
+        this.key = new SecretKeySpec(key, "AES");
+    }
+
+    // Só com a chave configurada (Base64, 256 bits): uma chave gerada ao lado dos jobs decifraria as senhas
+    // para quem lê o diretório
+    static JobSecretCipher create(String configuredKey) {
+        byte[] key = Base64.getDecoder().decode(configuredKey.trim());
+        if (key.length != 32) {
+            throw new IllegalArgumentException("Job secret key must be 256 bits");
+        }
+        return new JobSecretCipher(key);
+    }
+
+    byte[] encrypt(String secret) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+        byte[] sealed = cipher.doFinal(secret.getBytes(StandardCharsets.UTF_8));
+        return ByteBuffer.allocate(IV_LENGTH + sealed.length).put(iv).put(sealed).array();
+    }
+
+    String decrypt(byte[] sealed) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, sealed, 0, IV_LENGTH));
+        return new String(cipher.doFinal(sealed, IV_LENGTH, sealed.length - IV_LENGTH), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,47 @@
+package com.vileladev.api.job;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.vileladev.api.service.record.SignatureOptions;
+
+import java.time.Instant;
+
+// Estado de um job de assinatura; é o conteúdo do job.json gravado no diretório do job. Com keyId a chave é a
+// registrada no servidor e o job não guarda keystore nem senha; sem ele valem o keystore.p12 e o alias
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SigningJob(
+        String id,
+        SigningJobStatus status,
+        String fileName,
+        String keyId,
+        String alias,
+        SignatureOptions options,
+        String callbackUrl,
+        int attempts,
+        Instant createdAt,
+        Instant updatedAt,
+        String errorCode,
+        String error
+) {
+
+    static SigningJob queued(String id, String fileName, String keyId, String alias, SignatureOptions options,
+                             String callbackUrl, Instant now) {
+        return new SigningJob(id, SigningJobStatus.QUEUED, fileName, keyId, alias, options, callbackUrl, 0, now, now,
+                null, null);
+    }
+
+    SigningJob running(Instant now) {
+        return new SigningJob(id, SigningJobStatus.RUNNING, fileName, keyId, alias, options, callbackUrl, attempts + 1, createdAt, now, null, null);
+    }
+
+    SigningJob requeued(Instant now) {
+        return new SigningJob(id, SigningJobStatus.QUEUED, fileName, keyId, alias, options, callbackUrl, attempts, createdAt, now, null, null);
+    }
+
+    SigningJob done(Instant now) {
+        return new SigningJob(id, SigningJobStatus.DONE, fileName, keyId, alias, options, callbackUrl, attempts, createdAt, now, null, null);
+    }
+
+    SigningJob failed(String errorCode, String error, Instant now) {
+        return new SigningJob(id, SigningJobStatus.FAILED, fileName, keyId, alias, options, callbackUrl, attempts, createdAt, now, errorCode, error);
+    }
+}
@@ -0,0 +1,433 @@
+package com.vileladev.api.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vileladev.api.exception.DocumentSigningException;
+import com.vileladev.api.exception.SigningJobException;
+import com.vileladev.api.service.SignatureSignerService;
+import com.vileladev.api.service.record.SignatureOptions;
+import com.vileladev.api.service.record.SignerKey;
+import com.vileladev.api.service.record.SignerKeyInfo;
+import com.vileladev.api.storage.ScratchBuffer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Fila durável de assinaturas: cada job é um diretório em app.signature.jobs.dir com o documento, o job.json e,
+// para chave enviada pelo cliente, o keystore e a senha cifrada (chave registrada fica só pelo keyId). O disco é a fonte da verdade; o executor só guarda os ids prontos para rodar,
+// e jobs que ficaram QUEUED ou RUNNING quando o processo caiu são retomados na subida e pela varredura periódica.
+@Component
+public class SigningJobQueue implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(SigningJobQueue.class);
+
+    private static final String JOB_FILE = "job.json";
+    private static final String DOCUMENT_FILE = "document";
+    private static final String KEYSTORE_FILE = "keystore.p12";
+    private static final String SECRET_FILE = "secret";
+    private static final String RESULT_FILE = "signature.p7s";
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    private final SignatureSignerService signerService;
+    private final ThreadPoolTaskExecutor jobExecutor;
+    private final ObjectMapper objectMapper;
+    private final Path jobsDir;
+    private final String secretKey;
+    private final Duration retention;
+    private final int maxAttempts;
+    private final Set<String> callbackAllowedHosts;
+    private final HttpClient callbackClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    // Ids entregues ao executor e ainda não concluídos; evita que a varredura reenfileire o mesmo job
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    // Nulo sem app.signature.jobs.secret-key: só jobs com keyId, que não gravam senha, são aceitos
+    private JobSecretCipher cipher;
+
+    public SigningJobQueue(SignatureSignerService signerService,
+                           @Qualifier("signingJobExecutor") ThreadPoolTaskExecutor jobExecutor,
+                           ObjectMapper objectMapper,
+                           @Value("${app.signature.jobs.dir}") String jobsDir,
+                           @Value("${app.signature.jobs.secret-key:}") String secretKey,
+                           @Value("${app.signature.jobs.retention:PT24H}") Duration retention,
+                           @Value("${app.signature.jobs.max-attempts:3}") int maxAttempts,
+                           @Value("${app.signature.jobs.callback-allowed-hosts:}") Set<String> callbackAllowedHosts) {
+        this.signerService = signerService;
+        this.jobExecutor = jobExecutor;
+        this.objectMapper = objectMapper;
+        this.jobsDir = Paths.get(jobsDir).toAbsolutePath().normalize();
+        this.secretKey = secretKey;
+        this.retention = retention;
+        this.maxAttempts = maxAttempts;
+        // Comparados em minúsculas, independentes do locale padrão da JVM
+        this.callbackAllowedHosts = callbackAllowedHosts.stream()
+                .map(host -> host.strip().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(jobsDir);
+        if (secretKey != null && !secretKey.isBlank()) {
+            cipher = JobSecretCipher.create(secretKey);
+        }
+        resume();
+    }
+
+    // Grava o job e devolve assim que ele está no disco; a assinatura acontece nos workers
+    public SigningJob submit(MultipartFile document, SignerKey key, SignatureOptions options, String callbackUrl) {
+        if (jobExecutor.getThreadPoolExecutor().getQueue().remainingCapacity() == 0) {
+            throw queueFull();
+        }
+        validateCallback(callbackUrl);
+        if (key.isRegistered()) {
+            validateKeyId(key.keyId());
+        } else if (cipher == null) {
+            throw new SigningJobException(HttpStatus.BAD_REQUEST, "JOB_SECRET_KEY_NOT_CONFIGURED",
+                    " Jobs with an uploaded keystore need app.signature.jobs.secret-key; send keyId instead");
+        }
+
+        String id = UUID.randomUUID().toString();
+        Path staging = jobsDir.resolve(id + PARTIAL_SUFFIX);
+        SigningJob job = SigningJob.queued(id, document.getOriginalFilename(), key.keyId(), key.alias(),
+                options, callbackUrl, Instant.now());
+        try {
+            Files.createDirectory(staging);
+            document.transferTo(staging.resolve(DOCUMENT_FILE));
+            if (!key.isRegistered()) {
+                Files.write(staging.resolve(KEYSTORE_FILE), key.pkcs12());
+                Files.write(staging.resolve(SECRET_FILE), cipher.encrypt(key.password()));
+            }
+            writeJob(staging, job);
+            // O job só passa a existir para a retomada depois do rename atômico do diretório completo
+            Files.move(staging, jobDir(id), StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception ex) {
+            deleteRecursively(staging);
+            throw toSigningException(ex);
+        }
+
+        if (!dispatch(id)) {
+            deleteRecursively(jobDir(id));
+            throw queueFull();
+        }
+        logger.info("Signing job {} queued for {}", id, job.fileName());
+        return job;
+    }
+
+    public SigningJob get(String id) {
+        try {
+            return readJob(jobDir(id));
+        } catch (NoSuchFileException ex) {
+            throw notFound(id);
+        } catch (IOException ex) {
+            throw toSigningException(ex);
+        }
+    }
+
+    // Caminho do .p7s de um job concluído
+    public Path result(String id) {
+        SigningJob job = get(id);
+        if (job.status() != SigningJobStatus.DONE) {
+            throw new SigningJobException(HttpStatus.CONFLICT, "JOB_NOT_DONE",
+                    " Signing job " + id + " is " + job.status());
+        }
+        return jobDir(id).resolve(RESULT_FILE);
+    }
+
+    // Recoloca na fila os jobs pendentes do disco e remove os concluídos fora do prazo de retenção
+    @Scheduled(fixedDelayString = "${app.signature.jobs.sweep-interval:PT30S}")
+    public void sweep() {
+        try {
+            resume();
+        } catch (IOException ex) {
+            logger.warn("Signing job sweep failed: {}", ex.getMessage());
+        }
+    }
+
+    private void resume() throws IOException {
+        List<Path> entries;
+        try (Stream<Path> listing = Files.list(jobsDir)) {
+            entries = listing.filter(Files::isDirectory).sorted().toList();
+        }
+        Instant expiry = Instant.now().minus(retention);
+        for (Path dir : entries) {
+            String name = dir.getFileName().toString();
+            if (name.endsWith(PARTIAL_SUFFIX)) {
+                // Upload interrompido antes do rename: o cliente nunca recebeu o id
+                if (Files.getLastModifiedTime(dir).toInstant().isBefore(Instant.now().minus(Duration.ofHours(1)))) {
+                    deleteRecursively(dir);
+                }
+                continue;
+            }
+            if (inFlight.contains(name)) {
+                continue;
+            }
+            try {
+                SigningJob job = readJob(dir);
+                if (job.status().isFinished()) {
+                    if (job.updatedAt().isBefore(expiry)) {
+                        deleteRecursively(dir);
+                    }
+                } else if (job.attempts() >= maxAttempts) {
+                    // Job que derrubou o processo repetidas vezes não volta para a fila
+                    finish(dir, job.failed("UNEXPECTED_ERROR", "Signing job interrupted " + job.attempts() + " times", Instant.now()));
+                } else {
+                    if (job.status() == SigningJobStatus.RUNNING) {
+                        writeJob(dir, job.requeued(Instant.now()));
+                        logger.info("Signing job {} resumed after interruption", name);
+                    }
+                    dispatch(name);
+                }
+            } catch (IOException ex) {
+                logger.warn("Signing job {} could not be read: {}", name, ex.getMessage());
+            }
+        }
+    }
+
+    private boolean dispatch(String id) {
+        if (!inFlight.add(id)) {
+            return true;
+        }
+        try {
+            jobExecutor.execute(() -> {
+                try {
+                    process(id);
+                } finally {
+                    inFlight.remove(id);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException ex) {
+            // Continua QUEUED no disco; a próxima varredura tenta de novo
+            inFlight.remove(id);
+            rejected.incrementAndGet();
+            return false;
+        }
+    }
+
+    private void process(String id) {
+        Path dir = jobDir(id);
+        SigningJob job;
+        try {
+            job = readJob(dir);
+            if (job.status().isFinished()) {
+                return;
+            }
+            job = job.running(Instant.now());
+            writeJob(dir, job);
+        } catch (IOException ex) {
+            logger.warn("Signing job {} could not be started: {}", id, ex.getMessage());
+            return;
+        }
+
+        try (InputStream document = Files.newInputStream(dir.resolve(DOCUMENT_FILE));
+             ScratchBuffer signature = signerService.generateAttachedSignatureBuffer(
+                     signerKey(dir, job),
+                     document,
+                     job.options() == null ? SignatureOptions.DEFAULT : job.options())) {
+            Path partial = dir.resolve(RESULT_FILE + PARTIAL_SUFFIX);
+            try (OutputStream out = Files.newOutputStream(partial)) {
+                signature.writeTo(out);
+            }
+            Files.move(partial, dir.resolve(RESULT_FILE), StandardCopyOption.ATOMIC_MOVE);
+            job = finish(dir, job.done(Instant.now()));
+            completed.incrementAndGet();
+            logger.info("Signing job {} done", id);
+        } catch (Exception ex) {
+            DocumentSigningException error = toSigningException(ex);
+            job = finish(dir, job.failed(error.getErrorCode(), error.getMessage().trim(), Instant.now()));
+            failed.incrementAndGet();
+            logger.error("Signing job {} failed: {}", id, error.getMessage());
+        }
+        notifyCallback(dir, job);
+    }
+
+    // Chave registrada pelo id ou o keystore e a senha gravados no job
+    private SignerKey signerKey(Path dir, SigningJob job) throws IOException, GeneralSecurityException {
+        if (job.keyId() != null) {
+            return SignerKey.registered(job.keyId());
+        }
+        if (cipher == null) {
+            throw new IllegalStateException("Job keystore password is encrypted but app.signature.jobs.secret-key is not configured");
+        }
+        return SignerKey.uploaded(Files.readAllBytes(dir.resolve(KEYSTORE_FILE)),
+                cipher.decrypt(Files.readAllBytes(dir.resolve(SECRET_FILE))), job.alias());
+    }
+
+    // Estado final gravado e entradas sensíveis (keystore e senha) e o documento removidos
+    private SigningJob finish(Path dir, SigningJob job) {
+        try {
+            // Apaga antes de gravar o estado: quem vê o job terminado nunca encontra keystore ou senha no disco
+            Files.deleteIfExists(dir.resolve(SECRET_FILE));
+            Files.deleteIfExists(dir.resolve(KEYSTORE_FILE));
+            Files.deleteIfExists(dir.resolve(DOCUMENT_FILE));
+            writeJob(dir, job);
+        } catch (IOException ex) {
+            logger.warn("Signing job {} cleanup failed: {}", job.id(), ex.getMessage());
+        }
+        return job;
+    }
+
+    // Entrega o .p7s (ou o job com o erro) no callback informado; a falha aqui não altera o job, que segue consultável
+    private void notifyCallback(Path dir, SigningJob job) {
+        if (job.callbackUrl() == null) {
+            return;
+        }
+        try {
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(job.callbackUrl()))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("X-Signing-Job-Id", job.id())
+                    .header("X-Signing-Job-Status", job.status().name());
+            if (job.status() == SigningJobStatus.DONE) {
+                request.header("Content-Type", "application/pkcs7-signature")
+                        .POST(HttpRequest.BodyPublishers.ofFile(dir.resolve(RESULT_FILE)));
+            } else {
+                request.header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(job)));
+            }
+            HttpResponse<Void> response = callbackClient.send(request.build(), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 300) {
+                logger.warn("Signing job {} callback answered HTTP {}", job.id(), response.statusCode());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            logger.warn("Signing job {} callback failed: {}", job.id(), ex.getMessage());
+        }
+    }
+
+    private void validateCallback(String callbackUrl) {
+        if (callbackUrl == null || callbackUrl.isBlank()) {
+            return;
+        }
+        URI uri;
+        try {
+            uri = URI.create(callbackUrl);
+        } catch (IllegalArgumentException ex) {
+            throw toSigningException(ex);
+        }
+        boolean http = "http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme());
+        if (!http || uri.getHost() == null || !callbackAllowedHosts.contains(uri.getHost().toLowerCase(Locale.ROOT))) {
+            throw toSigningException(new IllegalArgumentException("Callback host not allowed: " + uri.getHost()));
+        }
+    }
+
+    // Falha já no envio, e não só quando o worker pegar o job, se o keyId não existe
+    private void validateKeyId(String keyId) {
+        for (SignerKeyInfo info : signerService.listRegisteredKeys()) {
+            if (info.id().equals(keyId)) {
+                return;
+            }
+        }
+        throw toSigningException(new IllegalArgumentException("Signing key '" + keyId + "' is not registered"));
+    }
+
+    private Path jobDir(String id) {
+        try {
+            // Só ids gerados aqui (UUID) viram caminho; evita path traversal pelo parâmetro da URL
+            return jobsDir.resolve(UUID.fromString(id).toString());
+        } catch (IllegalArgumentException ex) {
+            throw notFound(id);
+        }
+    }
+
+    private SigningJob readJob(Path dir) throws IOException {
+        return objectMapper.readValue(dir.resolve(JOB_FILE).toFile(), SigningJob.class);
+    }
+
+    // Escrita atômica do estado: um crash nunca deixa um job.json pela metade
+    private void writeJob(Path dir, SigningJob job) throws IOException {
+        Path partial = dir.resolve(JOB_FILE + PARTIAL_SUFFIX);
+        objectMapper.writeValue(partial.toFile(), job);
+        Files.move(partial, dir.resolve(JOB_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException ex) {
+            logger.warn("Signing job directory {} could not be removed: {}", dir, ex.getMessage());
+        }
+    }
+
+    private SigningJobException queueFull() {
+        rejected.incrementAndGet();
+        return new SigningJobException(HttpStatus.TOO_MANY_REQUESTS, "QUEUE_FULL", " Signing job queue is full");
+    }
+
+    private static SigningJobException notFound(String id) {
+        return new SigningJobException(HttpStatus.NOT_FOUND, "JOB_NOT_FOUND", " Signing job " + id + " not found");
+    }
+
+    private static DocumentSigningException toSigningException(Exception ex) {
+        if (ex instanceof DocumentSigningException signingException) {
+            return signingException;
+        }
+        Throwable root = (ex.getCause() != null) ? ex.getCause() : ex;
+        return new DocumentSigningException(
+                DocumentSigningException.resolveErrorCode(root),
+                " " + root.getMessage(),
+                root
+        );
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("signing.jobs.queued", jobExecutor, executor -> executor.getThreadPoolExecutor().getQueue().size())
+                .description("Signing jobs waiting for a worker")
+                .register(registry);
+        Gauge.builder("signing.jobs.running", jobExecutor, ThreadPoolTaskExecutor::getActiveCount)
+                .register(registry);
+        FunctionCounter.builder("signing.jobs.finished", completed, AtomicLong::get)
+                .tag("result", "done")
+                .register(registry);
+        FunctionCounter.builder("signing.jobs.finished", failed, AtomicLong::get)
+                .tag("result", "failed")
+                .register(registry);
+        FunctionCounter.builder("signing.jobs.rejected", rejected, AtomicLong::get)
+                .description("Submissions refused because the queue was full")
+                .register(registry);
+    }
+}
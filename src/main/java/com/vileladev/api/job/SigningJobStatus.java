@@ -0,0 +1,12 @@
+package com.vileladev.api.job;
+
+public enum SigningJobStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == DONE || this == FAILED;
+    }
+}
@@ -0,0 +1,65 @@
+package com.vileladev.api.metrics;
+
+import com.vileladev.api.exception.DocumentSigningException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.stereotype.Component;
+
+// Tempo de cada etapa da assinatura e da verificação. Cada etapa é uma Observation: vira o timer
+// signature.stage{operation,stage} e, com uma ponte de tracing no classpath, um span com o mesmo nome.
+@Component
+public class SignatureMetrics {
+
+    public static final String SIGN = "sign";
+    public static final String VERIFY = "verify";
+
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+
+    public SignatureMetrics(ObservationRegistry observationRegistry, MeterRegistry meterRegistry) {
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Sem registro: usado por testes e benchmarks que montam os serviços à mão
+    public static SignatureMetrics noop() {
+        return new SignatureMetrics(ObservationRegistry.NOOP, new SimpleMeterRegistry());
+    }
+
+    public <T> T stage(String operation, String stage, Stage<T> work) throws Exception {
+        return Observation.createNotStarted("signature.stage", observationRegistry)
+                .contextualName(operation + " " + stage)
+                .lowCardinalityKeyValue("operation", operation)
+                .lowCardinalityKeyValue("stage", stage)
+                .observeChecked(work);
+    }
+
+    // Bytes de conteúdo que passaram pelo digest
+    public void recordBytes(String operation, long bytes) {
+        DistributionSummary.builder("signature.bytes")
+                .baseUnit("bytes")
+                .tag("operation", operation)
+                .description("Content bytes digested per signature or verification")
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    // Conta a falha pelo errorCode de DocumentSigningException e devolve a própria exceção para o throw
+    public DocumentSigningException recordError(String operation, DocumentSigningException error) {
+        Counter.builder("signature.errors")
+                .tag("operation", operation)
+                .tag("errorCode", error.getErrorCode())
+                .description("Failed signatures and verifications by error code")
+                .register(meterRegistry)
+                .increment();
+        return error;
+    }
+
+    @FunctionalInterface
+    public interface Stage<T> extends Observation.CheckedCallable<T, Exception> {
+    }
+}
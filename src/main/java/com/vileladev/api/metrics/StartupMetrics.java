@@ -0,0 +1,111 @@
+package com.vileladev.api.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Tempo até a primeira requisição rápida: segundos desde o início da JVM até a primeira assinatura ou verificação
+// (POST em /api/signature e /api/verify, fora a fila de jobs) que termina com 2xx abaixo de fast-request-threshold,
+// e quantas foram lentas antes dela. Erros e consultas baratas (jobs, assinaturas guardadas, digest, chaves) não
+// contam: respondem rápido mesmo com a JVM fria. Complementa application.ready.time do Spring Boot, que mede só
+// até o contexto pronto.
+@Component
+public class StartupMetrics extends OncePerRequestFilter implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupMetrics.class);
+
+    private final long thresholdNanos;
+
+    private volatile boolean fastRequestSeen;
+    private volatile double firstFastRequestSeconds = Double.NaN;
+    private volatile double warmupSeconds = Double.NaN;
+    private final AtomicLong slowRequests = new AtomicLong();
+    private final AtomicLong warmupIterations = new AtomicLong();
+
+    public StartupMetrics(@Value("${app.startup.fast-request-threshold:PT0.2S}") Duration fastRequestThreshold) {
+        this.thresholdNanos = fastRequestThreshold.toNanos();
+    }
+
+    public void warmupFinished(Duration elapsed, int iterations) {
+        warmupSeconds = elapsed.toNanos() / 1e9;
+        warmupIterations.set(iterations);
+    }
+
+    // Depois da primeira requisição rápida o filtro sai do caminho
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return fastRequestSeen || !isSignOrVerify(request);
+    }
+
+    static boolean isSignOrVerify(HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod())) {
+            return false;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.equals("/api/signature") || path.startsWith("/api/signature/")) {
+            return !path.startsWith("/api/signature/jobs");
+        }
+        return path.equals("/api/verify") || path.startsWith("/api/verify/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        chain.doFilter(request, response);
+        // Exceção propagada ou status de erro: a requisição não diz nada sobre o aquecimento
+        int status = response.getStatus();
+        if (status >= 200 && status < 300) {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    void record(long elapsedNanos) {
+        if (elapsedNanos > thresholdNanos) {
+            slowRequests.incrementAndGet();
+            return;
+        }
+        synchronized (this) {
+            if (fastRequestSeen) {
+                return;
+            }
+            firstFastRequestSeconds = ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0;
+            fastRequestSeen = true;
+        }
+        logger.info("First fast request {}s after JVM start ({} slower requests before it)",
+                firstFastRequestSeconds, slowRequests.get());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("startup.first.fast.request", this, m -> m.firstFastRequestSeconds)
+                .baseUnit("seconds")
+                .description("Seconds from JVM start to the first successful sign/verify request under the fast-request threshold")
+                .register(registry);
+        FunctionCounter.builder("startup.slow.requests", slowRequests, AtomicLong::get)
+                .description("Successful sign/verify requests over the fast-request threshold before the first fast one")
+                .register(registry);
+        Gauge.builder("startup.warmup.duration", this, m -> m.warmupSeconds)
+                .baseUnit("seconds")
+                .description("Time spent in the startup warm-up before readiness")
+                .register(registry);
+        Gauge.builder("startup.warmup.iterations", warmupIterations, AtomicLong::get)
+                .description("Sign/verify rounds run by the startup warm-up")
+                .register(registry);
+    }
+}
@@ -0,0 +1,103 @@
+package com.vileladev.api.revocation;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import java.math.BigInteger;
+import java.net.URI;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.cert.X509CRL;
+import java.security.cert.X509CRLEntry;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.security.auth.x500.X500Principal;
+
+// CRL decodificada uma única vez: os números de série revogados ficam em um HashSet para consulta O(1)
+final class CrlIndex {
+
+    private final X509CRL crl;
+    private final X500Principal issuer;
+    private final Instant thisUpdate;
+    private final Instant nextUpdate;
+    private final Set<BigInteger> revokedSerials;
+    private final URI source;
+    private final Set<PublicKey> verifiedKeys = ConcurrentHashMap.newKeySet();
+    private volatile X509Certificate verifiedIssuer;
+
+    private CrlIndex(X509CRL crl, Set<BigInteger> revokedSerials, URI source) {
+        this.crl = crl;
+        this.issuer = crl.getIssuerX500Principal();
+        this.thisUpdate = crl.getThisUpdate().toInstant();
+        this.nextUpdate = crl.getNextUpdate() == null ? null : crl.getNextUpdate().toInstant();
+        this.revokedSerials = revokedSerials;
+        this.source = source;
+    }
+
+    static CrlIndex of(X509CRL crl, URI source) {
+        Set<? extends X509CRLEntry> entries = crl.getRevokedCertificates();
+        Set<BigInteger> serials = new HashSet<>(entries == null ? 0 : entries.size() * 2);
+        if (entries != null) {
+            for (X509CRLEntry entry : entries) {
+                serials.add(entry.getSerialNumber());
+            }
+        }
+        return new CrlIndex(crl, Set.copyOf(serials), source);
+    }
+
+    boolean isRevoked(BigInteger serial) {
+        return revokedSerials.contains(serial);
+    }
+
+    // Sem nextUpdate, a CRL vale por ttl a partir de thisUpdate
+    Instant expiresAt(Duration ttl) {
+        return nextUpdate != null ? nextUpdate : thisUpdate.plus(ttl);
+    }
+
+    // A assinatura da CRL é conferida na primeira consulta com o certificado do emissor em mãos e memorizada
+    boolean isIssuedBy(X509Certificate issuerCert) {
+        PublicKey key = issuerCert.getPublicKey();
+        if (verifiedKeys.contains(key)) {
+            return true;
+        }
+        if (!issuer.equals(issuerCert.getSubjectX500Principal())) {
+            return false;
+        }
+        try {
+            crl.verify(key, BouncyCastleProvider.PROVIDER_NAME);
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+        verifiedKeys.add(key);
+        verifiedIssuer = issuerCert;
+        return true;
+    }
+
+    // Só uma CRL cuja assinatura já conferiu pode substituir outra conferida
+    boolean isVerified() {
+        return verifiedIssuer != null;
+    }
+
+    X509Certificate getVerifiedIssuer() {
+        return verifiedIssuer;
+    }
+
+    X500Principal getIssuer() {
+        return issuer;
+    }
+
+    Instant getThisUpdate() {
+        return thisUpdate;
+    }
+
+    URI getSource() {
+        return source;
+    }
+
+    int size() {
+        return revokedSerials.size();
+    }
+}
@@ -0,0 +1,65 @@
+package com.vileladev.api.revocation;
+
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509CRL;
+import java.time.Duration;
+
+// Busca CRLs por GET e consulta respondedores OCSP por POST (RFC 6960, application/ocsp-request)
+@Component
+public class HttpRevocationFetcher implements RevocationFetcher {
+
+    private final HttpClient client;
+    private final Duration timeout;
+
+    public HttpRevocationFetcher(@Value("${app.signature.revocation.fetch-timeout:PT5S}") Duration timeout) {
+        this.timeout = timeout;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @Override
+    public X509CRL fetchCrl(URI distributionPoint) throws IOException, GeneralSecurityException {
+        byte[] body = send(HttpRequest.newBuilder(distributionPoint).timeout(timeout).GET().build());
+        CertificateFactory cf = CertificateFactory.getInstance("X.509", BouncyCastleProvider.PROVIDER_NAME);
+        return (X509CRL) cf.generateCRL(new ByteArrayInputStream(body));
+    }
+
+    @Override
+    public OCSPResp fetchOcsp(URI responder, OCSPReq request) throws IOException {
+        byte[] body = send(HttpRequest.newBuilder(responder)
+                .timeout(timeout)
+                .header("Content-Type", "application/ocsp-request")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(request.getEncoded()))
+                .build());
+        return new OCSPResp(body);
+    }
+
+    private byte[] send(HttpRequest request) throws IOException {
+        try {
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IOException("Unexpected HTTP " + response.statusCode() + " from " + request.uri());
+            }
+            return response.body();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Revocation fetch interrupted: " + request.uri());
+        }
+    }
+}
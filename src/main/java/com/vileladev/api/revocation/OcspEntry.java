@@ -0,0 +1,131 @@
+package com.vileladev.api.revocation;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.bouncycastle.cert.ocsp.SingleResp;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+
+import java.net.URI;
+import java.security.PublicKey;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Resposta OCSP de um certificado, guardada com o status já resolvido
+final class OcspEntry {
+
+    private final BasicOCSPResp response;
+    private final CertificateID certificateId;
+    private final RevocationStatus status;
+    private final Instant thisUpdate;
+    private final Instant nextUpdate;
+    private final URI source;
+    private final Set<PublicKey> verifiedKeys = ConcurrentHashMap.newKeySet();
+    private volatile X509Certificate verifiedIssuer;
+
+    private OcspEntry(BasicOCSPResp response, SingleResp single, URI source) {
+        this.response = response;
+        this.certificateId = single.getCertID();
+        this.status = statusOf(single.getCertStatus());
+        this.thisUpdate = single.getThisUpdate().toInstant();
+        this.nextUpdate = single.getNextUpdate() == null ? null : single.getNextUpdate().toInstant();
+        this.source = source;
+    }
+
+    // Uma resposta pode trazer vários certificados; cada SingleResp vira uma entrada
+    static List<OcspEntry> of(OCSPResp ocspResp, URI source) throws OCSPException {
+        if (ocspResp.getStatus() != OCSPResp.SUCCESSFUL) {
+            throw new OCSPException("OCSP responder returned status " + ocspResp.getStatus());
+        }
+        BasicOCSPResp basic = (BasicOCSPResp) ocspResp.getResponseObject();
+        List<OcspEntry> entries = new ArrayList<>();
+        for (SingleResp single : basic.getResponses()) {
+            entries.add(new OcspEntry(basic, single, source));
+        }
+        return entries;
+    }
+
+    private static RevocationStatus statusOf(CertificateStatus certStatus) {
+        if (certStatus == CertificateStatus.GOOD) {
+            return RevocationStatus.GOOD;
+        }
+        return certStatus instanceof RevokedStatus ? RevocationStatus.REVOKED : RevocationStatus.UNKNOWN;
+    }
+
+    RevocationStatus getStatus() {
+        return status;
+    }
+
+    CertificateID getCertificateId() {
+        return certificateId;
+    }
+
+    Instant getThisUpdate() {
+        return thisUpdate;
+    }
+
+    URI getSource() {
+        return source;
+    }
+
+    Instant expiresAt(Duration ttl) {
+        return nextUpdate != null ? nextUpdate : thisUpdate.plus(ttl);
+    }
+
+    // Aceita resposta assinada pelo próprio emissor ou por respondedor delegado (id-kp-OCSPSigning) emitido por ele
+    boolean isIssuedBy(X509Certificate issuerCert) {
+        PublicKey key = issuerCert.getPublicKey();
+        if (verifiedKeys.contains(key)) {
+            return true;
+        }
+        try {
+            JcaContentVerifierProviderBuilder verifiers = new JcaContentVerifierProviderBuilder()
+                    .setProvider(BouncyCastleProvider.PROVIDER_NAME);
+            boolean valid = response.isSignatureValid(verifiers.build(key));
+            X500Name issuerName = X500Name.getInstance(issuerCert.getSubjectX500Principal().getEncoded());
+            for (X509CertificateHolder responder : response.getCerts()) {
+                if (valid) {
+                    break;
+                }
+                valid = responder.getIssuer().equals(issuerName)
+                        && isOcspSigner(responder)
+                        && responder.isSignatureValid(verifiers.build(key))
+                        && response.isSignatureValid(verifiers.build(responder));
+            }
+            if (valid) {
+                verifiedKeys.add(key);
+                verifiedIssuer = issuerCert;
+            }
+            return valid;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // Só uma resposta cuja assinatura já conferiu pode substituir outra conferida
+    boolean isVerified() {
+        return verifiedIssuer != null;
+    }
+
+    X509Certificate getVerifiedIssuer() {
+        return verifiedIssuer;
+    }
+
+    private static boolean isOcspSigner(X509CertificateHolder responder) {
+        ExtendedKeyUsage usage = ExtendedKeyUsage.fromExtensions(responder.getExtensions());
+        return usage != null && usage.hasKeyPurposeId(KeyPurposeId.id_kp_OCSPSigning);
+    }
+}
@@ -0,0 +1,459 @@
+package com.vileladev.api.revocation;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.bouncycastle.asn1.x509.AccessDescription;
+import org.bouncycastle.asn1.x509.AuthorityInformationAccess;
+import org.bouncycastle.asn1.x509.CRLDistPoint;
+import org.bouncycastle.asn1.x509.DistributionPoint;
+import org.bouncycastle.asn1.x509.DistributionPointName;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPReqBuilder;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.bouncycastle.util.encoders.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.SignatureException;
+import java.security.cert.CRLException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import javax.security.auth.x500.X500Principal;
+
+// Cache local de CRLs e respostas OCSP. A verificação só consulta mapas em memória; um miss ou uma entrada
+// vencida agenda a busca em segundo plano e a consulta responde UNKNOWN sem esperar pela rede.
+@Component
+public class RevocationCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevocationCache.class);
+
+    // Tolerância de relógio para o thisUpdate de CRLs e respostas OCSP
+    private static final Duration CLOCK_SKEW = Duration.ofMinutes(5);
+
+    // off: não consulta; soft-fail: sem dado válido não invalida; hard-fail: sem dado válido invalida
+    public enum Mode { OFF, SOFT_FAIL, HARD_FAIL }
+
+    private final RevocationFetcher fetcher;
+    private final Executor revocationExecutor;
+    private final Mode mode;
+    private final Path directory;
+    private final Duration ttl;
+    private final Duration refreshInterval;
+
+    private final ConcurrentMap<X500Principal, CrlIndex> crls = new ConcurrentHashMap<>();
+    private final ConcurrentMap<OcspKey, OcspEntry> ocspResponses = new ConcurrentHashMap<>();
+    private final ConcurrentMap<PublicKey, String> issuerKeyHashes = new ConcurrentHashMap<>();
+    private final Set<String> pendingFetches = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicLong good = new AtomicLong();
+    private final AtomicLong revoked = new AtomicLong();
+    private final AtomicLong unknown = new AtomicLong();
+    private final AtomicLong fetches = new AtomicLong();
+    private final AtomicLong fetchFailures = new AtomicLong();
+
+    private volatile long directoryStamp;
+
+    public RevocationCache(RevocationFetcher fetcher,
+                           @Qualifier("revocationExecutor") Executor revocationExecutor,
+                           @Value("${app.signature.revocation.mode:soft-fail}") Mode mode,
+                           @Value("${app.signature.revocation.directory:}") String directory,
+                           @Value("${app.signature.revocation.ttl:PT24H}") Duration ttl,
+                           @Value("${app.signature.revocation.refresh-interval:PT5M}") Duration refreshInterval) {
+        this.fetcher = fetcher;
+        this.revocationExecutor = revocationExecutor;
+        this.mode = mode;
+        this.directory = directory == null || directory.isBlank() ? null : Paths.get(directory).toAbsolutePath().normalize();
+        this.ttl = ttl;
+        this.refreshInterval = refreshInterval;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (isEnabled()) {
+            reloadDirectory();
+        }
+    }
+
+    public boolean isEnabled() {
+        return mode != Mode.OFF;
+    }
+
+    // Decide se o status encontrado mantém a assinatura válida no modo configurado
+    public boolean accepts(RevocationStatus status) {
+        return status != RevocationStatus.REVOKED
+                && !(status == RevocationStatus.UNKNOWN && mode == Mode.HARD_FAIL);
+    }
+
+    // Situação do caminho já validado pela PKIX: path começa no signatário e anchor emitiu o último certificado.
+    // REVOKED se qualquer certificado estiver revogado, UNKNOWN se faltar dado válido para algum deles.
+    public RevocationStatus check(List<X509Certificate> path, X509Certificate anchor) {
+        RevocationStatus result = RevocationStatus.GOOD;
+        for (int i = 0; i < path.size(); i++) {
+            X509Certificate issuer = i + 1 < path.size() ? path.get(i + 1) : anchor;
+            if (issuer == null) {
+                return RevocationStatus.UNKNOWN;
+            }
+            RevocationStatus status = check(path.get(i), issuer);
+            if (status == RevocationStatus.REVOKED) {
+                return status;
+            }
+            if (status == RevocationStatus.UNKNOWN) {
+                result = status;
+            }
+        }
+        return result;
+    }
+
+    public RevocationStatus check(X509Certificate cert, X509Certificate issuer) {
+        Instant now = Instant.now();
+
+        // OCSP é específico do certificado e, quando presente e vigente, tem precedência sobre a CRL
+        OcspEntry response = ocspResponses.get(new OcspKey(issuerKeyHash(issuer), cert.getSerialNumber()));
+        if (response != null && response.getStatus() != RevocationStatus.UNKNOWN
+                && now.isBefore(response.expiresAt(ttl)) && response.isIssuedBy(issuer)) {
+            return count(response.getStatus());
+        }
+
+        CrlIndex crl = crls.get(cert.getIssuerX500Principal());
+        if (crl != null && now.isBefore(crl.expiresAt(ttl)) && crl.isIssuedBy(issuer)) {
+            return count(crl.isRevoked(cert.getSerialNumber()) ? RevocationStatus.REVOKED : RevocationStatus.GOOD);
+        }
+
+        scheduleFetch(cert, issuer);
+        return count(RevocationStatus.UNKNOWN);
+    }
+
+    // Relê o diretório local quando ele muda e antecipa a renovação do que vence antes da próxima rodada
+    @Scheduled(fixedDelayString = "${app.signature.revocation.refresh-interval:PT5M}")
+    public void refresh() {
+        if (!isEnabled()) {
+            return;
+        }
+        reloadDirectory();
+        Instant horizon = Instant.now().plus(refreshInterval);
+        for (CrlIndex crl : crls.values()) {
+            URI source = crl.getSource();
+            if (source != null && crl.expiresAt(ttl).isBefore(horizon)) {
+                X509Certificate issuer = crl.getVerifiedIssuer();
+                fetchAsync("crl " + source, () -> fetchCrl(source, issuer));
+            }
+        }
+        for (OcspEntry entry : ocspResponses.values()) {
+            URI source = entry.getSource();
+            if (source != null && entry.expiresAt(ttl).isBefore(horizon)) {
+                CertificateID id = entry.getCertificateId();
+                X509Certificate issuer = entry.getVerifiedIssuer();
+                fetchAsync("ocsp " + source + " " + id.getSerialNumber(), () -> fetchOcsp(source, id, issuer));
+            }
+        }
+    }
+
+    // Muda sempre que uma CRL ou resposta OCSP nova entra no cache
+    public long currentVersion() {
+        return versions.get();
+    }
+
+    public int crlCount() {
+        return crls.size();
+    }
+
+    public int ocspCount() {
+        return ocspResponses.size();
+    }
+
+    // Carrega arquivos .crl (DER ou PEM) e .ocsp (OCSPResponse DER) do diretório configurado
+    private void reloadDirectory() {
+        if (directory == null || !Files.isDirectory(directory)) {
+            return;
+        }
+        try {
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(RevocationCache::isRevocationFile).sorted().toList();
+            }
+            long stamp = files.size();
+            for (Path file : files) {
+                stamp = 31 * stamp + Files.getLastModifiedTime(file).toMillis() + file.hashCode();
+            }
+            if (stamp == directoryStamp) {
+                return;
+            }
+            CertificateFactory cf = CertificateFactory.getInstance("X.509", BouncyCastleProvider.PROVIDER_NAME);
+            for (Path file : files) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    if (file.toString().toLowerCase(Locale.ROOT).endsWith(".crl")) {
+                        merge(CrlIndex.of((X509CRL) cf.generateCRL(in), null), null);
+                    } else {
+                        merge(OcspEntry.of(new OCSPResp(in), null), null);
+                    }
+                } catch (Exception e) {
+                    logger.warn("Revocation file {} ignored: {}", file, e.getMessage());
+                }
+            }
+            directoryStamp = stamp;
+            logger.info("Revocation cache loaded from {} ({} CRLs, {} OCSP responses)",
+                    directory, crls.size(), ocspResponses.size());
+        } catch (IOException | GeneralSecurityException e) {
+            logger.warn("Revocation directory {} could not be read: {}", directory, e.getMessage());
+        }
+    }
+
+    private static boolean isRevocationFile(Path p) {
+        String name = p.toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".crl") || name.endsWith(".ocsp");
+    }
+
+    // Prefere a CRL (cobre todos os certificados do emissor); sem ponto de distribuição, consulta o OCSP
+    private void scheduleFetch(X509Certificate cert, X509Certificate issuer) {
+        try {
+            Extensions extensions = new JcaX509CertificateHolder(cert).getExtensions();
+            List<URI> crlUris = crlDistributionPoints(extensions);
+            if (!crlUris.isEmpty()) {
+                URI source = crlUris.get(0);
+                fetchAsync("crl " + source, () -> fetchCrl(source, issuer));
+                return;
+            }
+            List<URI> ocspUris = ocspResponders(extensions);
+            if (!ocspUris.isEmpty()) {
+                URI source = ocspUris.get(0);
+                CertificateID id = new CertificateID(
+                        new JcaDigestCalculatorProviderBuilder().build().get(CertificateID.HASH_SHA1),
+                        new JcaX509CertificateHolder(issuer), cert.getSerialNumber());
+                fetchAsync("ocsp " + source + " " + cert.getSerialNumber(), () -> fetchOcsp(source, id, issuer));
+            }
+        } catch (Exception e) {
+            logger.debug("No revocation source for {}: {}", cert.getSubjectX500Principal(), e.getMessage());
+        }
+    }
+
+    // Uma busca por origem em andamento; fila cheia descarta e o próximo miss tenta de novo
+    private void fetchAsync(String key, Runnable fetch) {
+        if (!pendingFetches.add(key)) {
+            return;
+        }
+        try {
+            revocationExecutor.execute(() -> {
+                try {
+                    fetch.run();
+                } finally {
+                    pendingFetches.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingFetches.remove(key);
+        }
+    }
+
+    private void fetchCrl(URI source, X509Certificate issuer) {
+        try {
+            merge(CrlIndex.of(fetcher.fetchCrl(source), source), issuer);
+            fetches.incrementAndGet();
+            logger.info("CRL refreshed from {}", source);
+        } catch (Exception e) {
+            fetchFailures.incrementAndGet();
+            logger.warn("CRL fetch from {} failed: {}", source, e.getMessage());
+        }
+    }
+
+    private void fetchOcsp(URI source, CertificateID id, X509Certificate issuer) {
+        try {
+            OCSPResp response = fetcher.fetchOcsp(source, new OCSPReqBuilder().addRequest(id).build());
+            merge(OcspEntry.of(response, source), issuer);
+            fetches.incrementAndGet();
+        } catch (Exception e) {
+            fetchFailures.incrementAndGet();
+            logger.warn("OCSP request to {} failed: {}", source, e.getMessage());
+        }
+    }
+
+    // A assinatura é conferida antes de entrar no cache: com o emissor da busca ou, para arquivos do diretório, com o
+    // emissor que conferiu a entrada atual. Sem emissor conhecido a CRL entra sem conferência e é conferida na
+    // consulta, mas nunca substitui uma CRL já conferida
+    private void merge(CrlIndex crl, X509Certificate issuer) throws GeneralSecurityException {
+        if (isFuture(crl.getThisUpdate())) {
+            throw new CRLException("CRL of " + crl.getIssuer() + " has thisUpdate in the future (" + crl.getThisUpdate() + ")");
+        }
+        CrlIndex current = crls.get(crl.getIssuer());
+        X509Certificate verifier = issuer != null ? issuer : current == null ? null : current.getVerifiedIssuer();
+        if (verifier != null && !crl.isIssuedBy(verifier)) {
+            throw new SignatureException("CRL of " + crl.getIssuer() + " is not signed by " + verifier.getSubjectX500Principal());
+        }
+        CrlIndex kept = crls.merge(crl.getIssuer(), crl, (existing, candidate) -> supersedes(
+                candidate.isVerified(), candidate.getThisUpdate(), existing.isVerified(), existing.getThisUpdate())
+                ? candidate : existing);
+        if (kept == crl) {
+            versions.incrementAndGet();
+        }
+    }
+
+    private void merge(List<OcspEntry> entries, X509Certificate issuer) throws GeneralSecurityException, OCSPException {
+        for (OcspEntry entry : entries) {
+            CertificateID id = entry.getCertificateId();
+            if (!CertificateID.HASH_SHA1.getAlgorithm().equals(id.getHashAlgOID())) {
+                logger.debug("OCSP response with CertID hash {} ignored", id.getHashAlgOID());
+                continue;
+            }
+            if (isFuture(entry.getThisUpdate())) {
+                throw new OCSPException("OCSP response for serial " + id.getSerialNumber()
+                        + " has thisUpdate in the future (" + entry.getThisUpdate() + ")");
+            }
+            OcspKey key = new OcspKey(Hex.toHexString(id.getIssuerKeyHash()), id.getSerialNumber());
+            OcspEntry current = ocspResponses.get(key);
+            X509Certificate verifier = issuer != null ? issuer : current == null ? null : current.getVerifiedIssuer();
+            if (verifier != null && !entry.isIssuedBy(verifier)) {
+                throw new OCSPException("OCSP response for serial " + id.getSerialNumber() + " is not signed by "
+                        + verifier.getSubjectX500Principal() + " or a delegated responder");
+            }
+            OcspEntry kept = ocspResponses.merge(key, entry, (existing, candidate) -> supersedes(
+                    candidate.isVerified(), candidate.getThisUpdate(), existing.isVerified(), existing.getThisUpdate())
+                    ? candidate : existing);
+            if (kept == entry) {
+                versions.incrementAndGet();
+            }
+        }
+    }
+
+    // Conferida vence não conferida; entre iguais só uma emissão mais recente substitui (reler o mesmo arquivo não
+    // muda a versão do cache)
+    private static boolean supersedes(boolean candidateVerified, Instant candidateThisUpdate,
+                                      boolean currentVerified, Instant currentThisUpdate) {
+        if (candidateVerified != currentVerified) {
+            return candidateVerified;
+        }
+        return candidateThisUpdate.isAfter(currentThisUpdate);
+    }
+
+    // Um thisUpdate no futuro faria a entrada vencer todas as emissões legítimas até lá
+    private static boolean isFuture(Instant thisUpdate) {
+        return thisUpdate.isAfter(Instant.now().plus(CLOCK_SKEW));
+    }
+
+    // SHA-1 da chave pública do emissor (campo issuerKeyHash do CertID), calculado uma vez por emissor
+    private String issuerKeyHash(X509Certificate issuer) {
+        return issuerKeyHashes.computeIfAbsent(issuer.getPublicKey(), key -> {
+            try {
+                byte[] keyBits = SubjectPublicKeyInfo.getInstance(key.getEncoded()).getPublicKeyData().getBytes();
+                return Hex.toHexString(MessageDigest.getInstance("SHA-1").digest(keyBits));
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static List<URI> crlDistributionPoints(Extensions extensions) {
+        List<URI> uris = new ArrayList<>();
+        if (extensions == null || extensions.getExtension(Extension.cRLDistributionPoints) == null) {
+            return uris;
+        }
+        CRLDistPoint distPoint = CRLDistPoint.getInstance(extensions.getExtensionParsedValue(Extension.cRLDistributionPoints));
+        for (DistributionPoint point : distPoint.getDistributionPoints()) {
+            DistributionPointName name = point.getDistributionPoint();
+            if (name != null && name.getType() == DistributionPointName.FULL_NAME) {
+                addHttpUris(GeneralNames.getInstance(name.getName()).getNames(), uris);
+            }
+        }
+        return uris;
+    }
+
+    private static List<URI> ocspResponders(Extensions extensions) {
+        List<URI> uris = new ArrayList<>();
+        AuthorityInformationAccess access = extensions == null ? null : AuthorityInformationAccess.fromExtensions(extensions);
+        if (access == null) {
+            return uris;
+        }
+        for (AccessDescription description : access.getAccessDescriptions()) {
+            if (description.getAccessMethod().equals(AccessDescription.id_ad_ocsp)) {
+                addHttpUris(new GeneralName[]{description.getAccessLocation()}, uris);
+            }
+        }
+        return uris;
+    }
+
+    private static void addHttpUris(GeneralName[] names, List<URI> uris) {
+        for (GeneralName name : names) {
+            if (name.getTagNo() == GeneralName.uniformResourceIdentifier) {
+                URI uri = URI.create(name.getName().toString());
+                if ("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme())) {
+                    uris.add(uri);
+                }
+            }
+        }
+    }
+
+    private RevocationStatus count(RevocationStatus status) {
+        switch (status) {
+            case GOOD -> good.incrementAndGet();
+            case REVOKED -> revoked.incrementAndGet();
+            default -> unknown.incrementAndGet();
+        }
+        return status;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("revocation.cache.lookups", good, AtomicLong::get)
+                .tag("result", "good")
+                .description("Certificates found not revoked in the local cache")
+                .register(registry);
+        FunctionCounter.builder("revocation.cache.lookups", revoked, AtomicLong::get)
+                .tag("result", "revoked")
+                .register(registry);
+        FunctionCounter.builder("revocation.cache.lookups", unknown, AtomicLong::get)
+                .tag("result", "unknown")
+                .description("Lookups without a fresh CRL or OCSP response, refreshed in background")
+                .register(registry);
+        FunctionCounter.builder("revocation.cache.fetches", fetches, AtomicLong::get)
+                .tag("result", "success")
+                .register(registry);
+        FunctionCounter.builder("revocation.cache.fetches", fetchFailures, AtomicLong::get)
+                .tag("result", "failure")
+                .register(registry);
+        Gauge.builder("revocation.cache.crls", this, RevocationCache::crlCount)
+                .register(registry);
+        Gauge.builder("revocation.cache.ocsp", this, RevocationCache::ocspCount)
+                .register(registry);
+    }
+
+    private record OcspKey(String issuerKeyHash, BigInteger serial) {
+    }
+}
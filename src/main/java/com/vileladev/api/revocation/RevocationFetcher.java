@@ -0,0 +1,17 @@
+package com.vileladev.api.revocation;
+
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+
+import java.io.IOException;
+import java.net.URI;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509CRL;
+
+// Origem das CRLs e respostas OCSP que atualizam o cache em segundo plano; nunca é chamada na verificação
+public interface RevocationFetcher {
+
+    X509CRL fetchCrl(URI distributionPoint) throws IOException, GeneralSecurityException;
+
+    OCSPResp fetchOcsp(URI responder, OCSPReq request) throws IOException;
+}
@@ -0,0 +1,9 @@
+package com.vileladev.api.revocation;
+
+// Situação de revogação de um certificado segundo o cache local
+public enum RevocationStatus {
+    GOOD,
+    REVOKED,
+    // Sem CRL ou resposta OCSP válida em cache para o emissor
+    UNKNOWN
+}
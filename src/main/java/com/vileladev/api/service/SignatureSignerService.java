@@ -1,6 +1,17 @@
 package com.vileladev.api.service;
 
+import com.vileladev.api.service.record.SignatureOptions;
+import com.vileladev.api.service.record.SignerKey;
+import com.vileladev.api.service.record.SignerKeyInfo;
+import com.vileladev.api.storage.ScratchBuffer;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
 
 public interface SignatureSignerService {
 
@@ -9,4 +20,60 @@ public interface SignatureSignerService {
                                                      String alias,
                                                      String inputFilePath
     );
+
+    void generateAttachedSignature(String pkcs12Path,
+                                   String pkcs12Password,
+                                   String alias,
+                                   InputStream content,
+                                   OutputStream signatureOut
+    );
+
+    // options: digest (SHA-256/384/512) e RSASSA-PSS escolhidos pelo cliente; sem escolha, o padrão da chave.
+    // key: PKCS#12 enviado na requisição ou id de uma chave registrada no servidor
+    ScratchBuffer generateAttachedSignatureBuffer(SignerKey key,
+                                                  InputStream content,
+                                                  SignatureOptions options
+    );
+
+    // O digest do co-signatário é sempre o do signatário existente; options.digestAlgorithm só pode repeti-lo
+    ScratchBuffer generateCoSignature(SignerKey key,
+                                      InputStreamSource existingSignature,
+                                      SignatureOptions options
+    );
+
+    ScratchBuffer generateCounterSignature(SignerKey key,
+                                           InputStreamSource existingSignature,
+                                           int signerIndex,
+                                           SignatureOptions options
+    );
+
+    default ResponseEntity<String> generateDetachedSignature(SignerKey key,
+                                                             InputStream content,
+                                                             SignatureOptions options
+    ) {
+        return generateDetachedSignature(key, content, options, List.of());
+    }
+
+    // fingerprints: digests do documento (SHA-256/384/512) devolvidos no cabeçalho X-Document-Digest, calculados
+    // na mesma leitura que o digest assinado
+    ResponseEntity<String> generateDetachedSignature(SignerKey key,
+                                                     InputStream content,
+                                                     SignatureOptions options,
+                                                     List<String> fingerprints
+    );
+
+    // O digest já vem do cliente; aqui só se escolhe PKCS#1 v1.5 ou PSS para chaves RSA
+    ResponseEntity<String> generateSignatureFromDigest(SignerKey key,
+                                                       String digestAlgorithm,
+                                                       String hexDigest,
+                                                       boolean pss
+    );
+
+    ResponseEntity<StreamingResponseBody> generateAttachedSignatureBatch(SignerKey key,
+                                                                         List<MultipartFile> documents,
+                                                                         SignatureOptions options
+    );
+
+    // Chaves registradas no servidor que podem ser referenciadas por keyId
+    List<SignerKeyInfo> listRegisteredKeys();
 }
@@ -1,15 +1,48 @@
 package com.vileladev.api.service;
 
-import com.vileladev.api.service.record.Infos;
+import com.vileladev.api.service.record.SignerVerification;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Map;
+import java.io.InputStream;
+import java.util.List;
 
 public interface SignatureVerifierService {
 
-    ResponseEntity<Map<String, Infos>> verifyAttachedSignature(
+    ResponseEntity<List<SignerVerification>> verifyAttachedSignature(
             String signaturePath,
             String cadeiaDir
     );
 
+    ResponseEntity<List<SignerVerification>> verifyAttachedSignature(
+            InputStream signature,
+            String cadeiaDir
+    );
+
+    ResponseEntity<List<SignerVerification>> verifyAttachedSignature(
+            InputStreamSource signature,
+            String cadeiaDir
+    );
+
+    ResponseEntity<List<SignerVerification>> verifyDetachedSignature(
+            InputStream signature,
+            InputStream content,
+            String cadeiaDir
+    );
+
+    ResponseEntity<List<SignerVerification>> verifyDetachedSignatureDigest(
+            InputStream signature,
+            String digestAlgorithm,
+            String hexDigest,
+            String cadeiaDir
+    );
+
+    ResponseEntity<StreamingResponseBody> verifyAttachedSignatureBatch(
+            List<MultipartFile> signedFiles,
+            MultipartFile archive,
+            String cadeiaDir
+    );
+
 }
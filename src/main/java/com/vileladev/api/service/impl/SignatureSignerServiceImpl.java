@@ -1,50 +1,129 @@
 package com.vileladev.api.service.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vileladev.api.cache.SignerMaterial;
+import com.vileladev.api.cache.SignerMaterialCache;
+import com.vileladev.api.crypto.PrivateKeyLimiter;
+import com.vileladev.api.crypto.SignerKeyRegistry;
+import com.vileladev.api.digest.DigestService;
+import com.vileladev.api.digest.MultiDigest;
 import com.vileladev.api.exception.DocumentSigningException;
+import com.vileladev.api.metrics.SignatureMetrics;
 import com.vileladev.api.service.SignatureSignerService;
-import org.bouncycastle.cert.jcajce.JcaCertStore;
-import org.bouncycastle.cms.CMSProcessableByteArray;
-import org.bouncycastle.cms.CMSSignedData;
+import com.vileladev.api.service.record.BatchSignatureResult;
+import com.vileladev.api.service.record.SignatureOptions;
+import com.vileladev.api.service.record.SignerKey;
+import com.vileladev.api.service.record.SignerKeyInfo;
+import com.vileladev.api.storage.ScratchBuffer;
+import com.vileladev.api.storage.ScratchSpace;
+import com.vileladev.api.storage.SignatureStorage;
+import com.vileladev.api.timestamp.TimestampService;
+import com.vileladev.api.util.DigestUtil;
+import com.vileladev.api.util.SignatureAlgorithmUtil;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.cms.AttributeTable;
+import org.bouncycastle.asn1.cms.CMSAttributes;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cms.CMSAbsentContent;
 import org.bouncycastle.cms.CMSSignedDataGenerator;
+import org.bouncycastle.cms.CMSSignedDataParser;
+import org.bouncycastle.cms.CMSSignedDataStreamGenerator;
+import org.bouncycastle.cms.CMSTypedStream;
 import org.bouncycastle.cms.SignerInfoGenerator;
-import org.bouncycastle.cms.jcajce.JcaSignerInfoGeneratorBuilder;
+import org.bouncycastle.cms.SignerInformation;
+import org.bouncycastle.cms.SignerInformationStore;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
-import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.DigestCalculator;
 import org.bouncycastle.operator.DigestCalculatorProvider;
-import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
-import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.util.CollectionStore;
+import org.bouncycastle.util.Store;
+import org.bouncycastle.util.encoders.Hex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.security.Key;
-import java.security.KeyStore;
-import java.security.PrivateKey;
 import java.security.Security;
-import java.security.cert.Certificate;
-import java.security.cert.CertificateException;
-import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class SignatureSignerServiceImpl implements SignatureSignerService {
 
     private static final Logger logger = LoggerFactory.getLogger(SignatureSignerServiceImpl.class);
 
-    @Value("${app.signature.storage-dir}")
-    private String storageDir;
+    // Tamanho do bloco de leitura/escrita do pipeline de assinatura
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    // Fingerprints do documento pedidos na assinatura destacada
+    public static final String DOCUMENT_DIGEST_HEADER = "X-Document-Digest";
+
+    @Value("${app.signature.batch.max-documents:1000}")
+    private int maxBatchDocuments = 1000;
+
+    private final SignerMaterialCache signerMaterialCache;
+    private final SignerKeyRegistry signerKeyRegistry;
+    private final ThreadPoolTaskExecutor signingExecutor;
+    private final ObjectMapper objectMapper;
+    private final ScratchSpace scratchSpace;
+    private final SignatureStorage signatureStorage;
+    private final PrivateKeyLimiter privateKeyLimiter;
+    private final TimestampService timestampService;
+    private final DigestService digestService;
+    private final SignatureMetrics metrics;
+
+    public SignatureSignerServiceImpl(SignerMaterialCache signerMaterialCache,
+                                      SignerKeyRegistry signerKeyRegistry,
+                                      @Qualifier("signingExecutor") ThreadPoolTaskExecutor signingExecutor,
+                                      ObjectMapper objectMapper,
+                                      ScratchSpace scratchSpace,
+                                      SignatureStorage signatureStorage,
+                                      PrivateKeyLimiter privateKeyLimiter,
+                                      TimestampService timestampService,
+                                      DigestService digestService,
+                                      SignatureMetrics metrics) {
+        this.signerMaterialCache = signerMaterialCache;
+        this.signerKeyRegistry = signerKeyRegistry;
+        this.signingExecutor = signingExecutor;
+        this.objectMapper = objectMapper;
+        this.scratchSpace = scratchSpace;
+        this.signatureStorage = signatureStorage;
+        this.privateKeyLimiter = privateKeyLimiter;
+        this.timestampService = timestampService;
+        this.digestService = digestService;
+        this.metrics = metrics;
+    }
 
     @Override
     public ResponseEntity<String> generateAttachedSignature(String pkcs12Path,
@@ -52,112 +131,751 @@ public class SignatureSignerServiceImpl implements SignatureSignerService {
                                                             String alias,
                                                             String inputFilePath
     ) {
+        long start = System.nanoTime();
+        // Assina em um buffer de rascunho e codifica a partir dele, sem reler o .p7s do disco
+        try (InputStream in = new FileInputStream(inputFilePath);
+             ScratchBuffer signature = scratchSpace.newBuffer()) {
+            long total;
+            try (OutputStream out = signature.outputStream()) {
+                total = streamAttachedSignature(pkcs12Path, pkcs12Password, alias, in, out);
+            }
+            signatureStorage.persistAsync(signature);
+
+            String base64 = metrics.stage(SignatureMetrics.SIGN, "encode",
+                    () -> Base64.getEncoder().encodeToString(signature.toByteArray()));
+
+            logSigned("attached", total, start);
+            return new ResponseEntity<>(base64, HttpStatus.OK);
+        } catch (Exception ex) {
+            throw signingFailure("attached", start, ex);
+        }
+    }
+
+    @Override
+    public void generateAttachedSignature(String pkcs12Path,
+                                          String pkcs12Password,
+                                          String alias,
+                                          InputStream content,
+                                          OutputStream signatureOut
+    ) {
+        long start = System.nanoTime();
+        try {
+            logSigned("attached", streamAttachedSignature(pkcs12Path, pkcs12Password, alias, content, signatureOut), start);
+        } catch (Exception ex) {
+            throw signingFailure("attached", start, ex);
+        }
+    }
+
+    @Override
+    public ScratchBuffer generateAttachedSignatureBuffer(SignerKey key,
+                                                         InputStream content,
+                                                         SignatureOptions options
+    ) {
+        long start = System.nanoTime();
+        ScratchBuffer signature = scratchSpace.newBuffer();
         try {
+            ensureProvider();
+            long total;
+            try (SignerMaterial material = unlock(key);
+                 OutputStream out = signature.outputStream()) {
+                total = signAttached(material, options, content, out);
+            }
+
+            // A gravação em app.signature.storage-dir não bloqueia a resposta
+            signatureStorage.persistAsync(signature);
+            logSigned("attached", total, start);
+            return signature;
+        } catch (Exception ex) {
+            signature.close();
+            throw signingFailure("attached", start, ex);
+        }
+    }
+
+    @Override
+    public ScratchBuffer generateCoSignature(SignerKey key,
+                                             InputStreamSource existingSignature,
+                                             SignatureOptions options
+    ) {
+        return appendSigner("cosign", key, existingSignature, (material, existing) -> {
+
+            // O co-signatário assina o mesmo messageDigest de um signatário existente, sem refazer o hash do conteúdo
+            SignerInformation reference = digestReference(existing.signers());
+            ASN1ObjectIdentifier digestOid = reference.getDigestAlgorithmID().getAlgorithm();
+            byte[] digest = ASN1OctetString.getInstance(reference.getSignedAttributes()
+                    .get(CMSAttributes.messageDigest).getAttrValues().getObjectAt(0)).getOctets();
+            String digestAlgorithm = DigestUtil.digestName(digestOid);
+            if (options.digestAlgorithm() != null && !digestAlgorithm.equals(DigestUtil.normalize(options.digestAlgorithm()))) {
+                throw new IllegalArgumentException("Co-signers reuse the existing " + digestAlgorithm
+                        + " messageDigest, " + options.digestAlgorithm() + " was requested");
+            }
 
-            if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
-                Security.addProvider(new BouncyCastleProvider());
-                logger.info("BouncyCastle provider added on JCA");
-            }
-
-            // Verifica se já existe a pasta destino dos arquivos assinados
-            Path dir = Paths.get(storageDir);
-            if (!Files.exists(dir)) {
-                Files.createDirectories(dir);
-            }
-
-            // Inicializa o KeyStore com o tipo PKCS12
-            KeyStore keystore = KeyStore.getInstance("PKCS12");
-
-            // Verifica se o caminho do arquivo PKCS#12 é válido
-            try (InputStream ksStream = new FileInputStream(pkcs12Path)) {
-                keystore.load(ksStream, pkcs12Password.toCharArray());
-                logger.info("Keystore PKCS#12 loaded at: {}", pkcs12Path);
-            }
-
-            // Verifica se o alias existe no keystore e se é de uma chave privada
-            Key key = keystore.getKey(alias, pkcs12Password.toCharArray());
-            if (!(key instanceof PrivateKey)) {
-                logger.error("This alias '{}' don't have a valid private key", alias);
-                throw new IllegalArgumentException("This '" + alias + "' don't have any valid private key.");
-            }
-            PrivateKey privateKey = (PrivateKey) key;
-            logger.info("Private key extracted by alias {}", alias);
-
-            // Obtém a cadeia de certificados do keystore
-            Certificate[] certificateChain = keystore.getCertificateChain(alias);
-            if (certificateChain == null || certificateChain.length == 0) {
-                throw new IllegalArgumentException("It was not possible to obtain the certificate for alias: " + alias);
-            }
-
-            // Converte para List<X509Certificate> para o JcaCertStore
-            List<X509Certificate> certList = Stream.of(certificateChain)
-                    .map(cert -> {
-                        if (!(cert instanceof X509Certificate)) {
-                            try {
-                                throw new CertificateException("This entry is not X509Certificate");
-                            } catch (CertificateException e) {
-                                throw new RuntimeException(e);
-                            }
-                        }
-                        return (X509Certificate) cert;
-                    })
-                    .collect(Collectors.toList());
-
-            // Configura o ContentSigner com SHA-512 e RSA
-            JcaContentSignerBuilder signerBuilder = new JcaContentSignerBuilder("SHA512withRSA");
-            signerBuilder.setProvider(BouncyCastleProvider.PROVIDER_NAME);
-
-            // Cria o objeto que efetivamente fará a assinatura
-            ContentSigner contentSigner =
-                    signerBuilder.build(privateKey);
-            logger.info("ContentSigner created using SHA512withRSA");
-
-            // Configura o SignerInfoGenerator para as informações do assinante e builda o digestProvider
-            DigestCalculatorProvider digestProvider =
-                    new JcaDigestCalculatorProviderBuilder()
-                            .setProvider(BouncyCastleProvider.PROVIDER_NAME)
-                            .build();
-            SignerInfoGenerator signerInfoGen =
-                    new JcaSignerInfoGeneratorBuilder(digestProvider)
-                            .build(contentSigner, certList.get(0));
-            logger.info("SignerInfoGenerator configured");
-
-            // Configura o CMSSignedDataGenerator
             CMSSignedDataGenerator cmsGenerator = new CMSSignedDataGenerator();
-            cmsGenerator.addSignerInfoGenerator(signerInfoGen);
-            cmsGenerator.addCertificates(new JcaCertStore(certList));
-            logger.info("CMSSignedDataGenerator with signer and certificates configured");
+            cmsGenerator.addSignerInfoGenerator(timestampService.stamped(material.newSignerInfoGenerator(
+                    digestAlgorithm, options.pss(),
+                    new PrecomputedDigestCalculatorProvider(digestOid, digest),
+                    privateKeyLimiter::guard)));
+            SignerInformationStore added = cmsGenerator.generate(
+                    new CMSAbsentContent(new ASN1ObjectIdentifier(existing.contentType())), false).getSignerInfos();
+
+            List<SignerInformation> signers = new ArrayList<>(existing.signers().getSigners());
+            signers.addAll(added.getSigners());
+            return new SignerInformationStore(signers);
+        });
+    }
+
+    @Override
+    public ScratchBuffer generateCounterSignature(SignerKey key,
+                                                  InputStreamSource existingSignature,
+                                                  int signerIndex,
+                                                  SignatureOptions options
+    ) {
+        return appendSigner("countersign", key, existingSignature, (material, existing) -> {
+            int[] next = {0};
+            SignerInformationStore signers = countersign(existing.signers(), signerIndex, next, target -> {
+
+                // A contra-assinatura cobre só o valor da assinatura do signatário alvo (RFC 5652, 11.4)
+                CMSSignedDataGenerator cmsGenerator = new CMSSignedDataGenerator();
+                cmsGenerator.addSignerInfoGenerator(timestampService.stamped(
+                        material.newSignerInfoGenerator(options, privateKeyLimiter::guard)));
+                return SignerInformation.addCounterSigners(target, cmsGenerator.generateCounterSigners(target));
+            });
+            if (signers == null) {
+                throw new IllegalArgumentException("No signer found at index " + signerIndex);
+            }
+            return signers;
+        });
+    }
+
+    @Override
+    public ResponseEntity<String> generateDetachedSignature(SignerKey key,
+                                                            InputStream content,
+                                                            SignatureOptions options,
+                                                            List<String> fingerprints
+    ) {
+        long start = System.nanoTime();
+        try {
+            ensureProvider();
+            try (SignerMaterial material = unlock(key)) {
+
+                // O documento só passa pelo digest; o .p7s resultante tem poucos KB
+                String digestAlgorithm = SignatureAlgorithmUtil.contentDigest(material.signatureAlgorithm(options));
+                ByteArrayOutputStream signature = new ByteArrayOutputStream();
+                MultiDigest digest = null;
+                long total;
+                if (digestAlgorithm != null) {
+                    // Uma leitura pelo MultiDigest: o digest assinado e os fingerprints saem do mesmo passe, e o
+                    // messageDigest dos atributos assinados recebe o valor pronto
+                    List<String> algorithms = new ArrayList<>(fingerprints);
+                    algorithms.add(digestAlgorithm);
+                    MultiDigest documentDigest = digestService.newDigest(algorithms);
+                    total = metrics.stage(SignatureMetrics.SIGN, "digest", () -> digestService.update(documentDigest, content));
+                    signature.write(signPrecomputed(material, digestAlgorithm, options.pss(),
+                            documentDigest.digest(digestAlgorithm), false));
+                    digest = documentDigest;
+                } else {
+                    // Ed448 assina com SHAKE256, fora do MultiDigest: o gerador CMS faz esse digest e os
+                    // fingerprints são calculados enquanto ele lê o documento
+                    InputStream in = content;
+                    if (!fingerprints.isEmpty()) {
+                        digest = digestService.newDigest(fingerprints);
+                        in = digest.inputStream(content);
+                    }
+                    total = streamSignature(material, options, in, signature, false);
+                }
+
+                logSigned("detached", total, start);
+                ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                if (!fingerprints.isEmpty()) {
+                    response.header(DOCUMENT_DIGEST_HEADER, documentDigestHeader(digest, fingerprints));
+                }
+                return response.body(Base64.getEncoder().encodeToString(signature.toByteArray()));
+            }
+        } catch (Exception ex) {
+            throw signingFailure("detached", start, ex);
+        }
+    }
+
+    @Override
+    public ResponseEntity<String> generateSignatureFromDigest(SignerKey key,
+                                                              String digestAlgorithm,
+                                                              String hexDigest,
+                                                              boolean pss
+    ) {
+        long start = System.nanoTime();
+        try {
+            ensureProvider();
+            String algorithm = DigestUtil.normalize(digestAlgorithm);
+            byte[] digest = DigestUtil.decodeDigest(algorithm, hexDigest);
+
+            try (SignerMaterial material = unlock(key)) {
+                byte[] signature = signPrecomputed(material, algorithm, pss, digest, true);
+                logger.debug("SignedData CMS generated from client digest ({})", algorithm);
+
+                logSigned("digest", 0, start);
+                return new ResponseEntity<>(Base64.getEncoder().encodeToString(signature), HttpStatus.OK);
+            }
+        } catch (Exception ex) {
+            throw signingFailure("digest", start, ex);
+        }
+    }
+
+    // Os atributos assinados (contentType, signingTime, messageDigest) são montados sobre um hash já calculado,
+    // pelo cliente ou pelo MultiDigest; sem conteúdo, a assinatura é sempre destacada
+    private byte[] signPrecomputed(SignerMaterial material, String digestAlgorithm, boolean pss, byte[] digest,
+                                   boolean clientDigest) throws Exception {
+        ASN1ObjectIdentifier digestOid = DigestUtil.digestOid(digestAlgorithm);
+        SignerInfoGenerator signerInfoGen = timestampService.stamped(material.newSignerInfoGenerator(
+                digestAlgorithm, pss, new PrecomputedDigestCalculatorProvider(digestOid, digest, clientDigest),
+                privateKeyLimiter::guard));
+
+        CMSSignedDataGenerator cmsGenerator = new CMSSignedDataGenerator();
+        cmsGenerator.addSignerInfoGenerator(signerInfoGen);
+        cmsGenerator.addCertificates(material.getCertStore());
+        return cmsGenerator.generate(new CMSAbsentContent(), false).getEncoded();
+    }
+
+    // "SHA-256=<hex>, SHA-512=<hex>", na ordem pedida
+    private static String documentDigestHeader(MultiDigest digest, List<String> fingerprints) {
+        StringJoiner header = new StringJoiner(", ");
+        for (String algorithm : new LinkedHashSet<>(fingerprints)) {
+            header.add(DigestUtil.normalize(algorithm) + "=" + Hex.toHexString(digest.digest(algorithm)));
+        }
+        return header.toString();
+    }
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> generateAttachedSignatureBatch(SignerKey key,
+                                                                                List<MultipartFile> documents,
+                                                                                SignatureOptions options
+    ) {
+        long start = System.nanoTime();
+        if (documents == null || documents.isEmpty()) {
+            throw signingFailure("batch", start, new IllegalArgumentException("No documents sent for batch signing"));
+        }
+        if (documents.size() > maxBatchDocuments) {
+            throw signingFailure("batch", start, new IllegalArgumentException(
+                    "Batch has " + documents.size() + " documents, the limit is " + maxBatchDocuments));
+        }
+
+        // Destrava o keystore uma única vez antes de iniciar a resposta; falhas aqui ainda viram HTTP 400
+        SignerMaterial material;
+        try {
+            ensureProvider();
+            material = unlock(key);
+        } catch (Exception ex) {
+            throw signingFailure("batch", start, ex);
+        }
+        try {
+            // Digest ou PSS incompatível com a chave falha aqui, e não uma vez por documento
+            material.signatureAlgorithm(options);
+        } catch (Exception ex) {
+            material.close();
+            throw signingFailure("batch", start, ex);
+        }
+
+        StreamingResponseBody body = out -> {
+            // O material só é liberado depois que nenhum item em voo pode mais usar a chave
+            try (material) {
+                new BatchSigner(material, options, out, start).sign(documents);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @Override
+    public List<SignerKeyInfo> listRegisteredKeys() {
+        return signerKeyRegistry.list();
+    }
 
-            // Lê o conteúdo do arquivo a ser assinado
-            byte[] data = Files.readAllBytes(Paths.get(inputFilePath));
-            CMSProcessableByteArray cmsData = new CMSProcessableByteArray(data);
-            logger.info("Content by {} readed ({} bytes)", inputFilePath, data.length);
+    // Assina os documentos com uma janela limitada de itens em voo e escreve uma linha NDJSON por documento, na
+    // ordem de conclusão. Se a escrita para o cliente falhar, os itens pendentes são cancelados e a chamada só
+    // retorna quando nenhum deles está mais assinando
+    private final class BatchSigner {
 
-            // Gera o CMS SignedData
-            CMSSignedData signedData = cmsGenerator.generate(cmsData, true);
-            logger.info("SignedData CMS generated (attached)");
+        private final SignerMaterial material;
+        private final SignatureOptions options;
+        private final OutputStream out;
+        private final long start;
+        private final ExecutorCompletionService<SignedItem> completion;
+        private final int window;
+        private final List<Future<SignedItem>> submitted = new ArrayList<>();
+        // Assinaturas prontas que ainda não foram escritas na resposta; fechadas se o lote abortar
+        private final Set<ScratchBuffer> pending = ConcurrentHashMap.newKeySet();
+        private final ReentrantLock activity = new ReentrantLock();
+        private final Condition idle = activity.newCondition();
+        private int active;
+        private boolean aborted;
+        private int inFlight;
+        private int failures;
 
-            // Cria o arquivo .p7s vazio na pasta de armazenamento configurada
-            Path out = Files.createTempFile(Path.of(storageDir),"sig-", ".p7s");
+        BatchSigner(SignerMaterial material, SignatureOptions options, OutputStream out, long start) {
+            this.material = material;
+            this.options = options;
+            this.out = out;
+            this.start = start;
+            this.completion = new ExecutorCompletionService<>(signingExecutor.getThreadPoolExecutor());
+            this.window = Math.max(1, signingExecutor.getMaxPoolSize() * 2);
+        }
+
+        void sign(List<MultipartFile> documents) throws IOException {
+            boolean finished = false;
+            try {
+                for (int i = 0; i < documents.size(); i++) {
+                    while (inFlight >= window) {
+                        drainOne();
+                    }
+                    int index = i;
+                    MultipartFile document = documents.get(i);
+                    submitted.add(completion.submit(() -> run(index, document)));
+                    inFlight++;
+                }
+                while (inFlight > 0) {
+                    drainOne();
+                }
+                finished = true;
+            } finally {
+                if (!finished) {
+                    abort();
+                }
+            }
+            if (logger.isInfoEnabled()) {
+                logger.info("Signature request: mode=batch documents={} failures={} elapsedMs={}",
+                        documents.size(), failures, elapsedMillis(start));
+            }
+        }
 
-            // Grava o resultado em disco de fato
-            try (FileOutputStream fos = new FileOutputStream(out.toString())) {
-                fos.write(signedData.getEncoded());
-                logger.info("Signature CMS recorded at: {}", out);
+        // Itens que ainda não começaram não chegam a usar a chave depois de aborted
+        private SignedItem run(int index, MultipartFile document) {
+            activity.lock();
+            try {
+                if (aborted) {
+                    return null;
+                }
+                active++;
+            } finally {
+                activity.unlock();
+            }
+            try {
+                SignedItem item = signBatchItem(material, options, index, document);
+                if (item.signature() != null) {
+                    pending.add(item.signature());
+                }
+                return item;
+            } finally {
+                activity.lock();
+                try {
+                    active--;
+                    idle.signalAll();
+                } finally {
+                    activity.unlock();
+                }
             }
+        }
 
-            // Lê o arquivo assinado e converte para Base64
-            byte[] signatureBytes = Files.readAllBytes(out);
-            String base64 = Base64.getEncoder().encodeToString(signatureBytes);
+        private void drainOne() throws IOException {
+            SignedItem item;
+            try {
+                item = completion.take().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Batch signing interrupted");
+            } catch (ExecutionException e) {
+                // signBatchItem já converte falhas em resultado; chegar aqui indica erro inesperado
+                throw new IOException(e.getCause());
+            }
+            inFlight--;
+            if (item.signature() == null) {
+                failures++;
+                out.write(objectMapper.writeValueAsBytes(item.error()));
+            } else {
+                try (ScratchBuffer signature = item.signature()) {
+                    pending.remove(signature);
+                    writeSigned(item, signature);
+                }
+            }
+            out.write('\n');
+            out.flush();
+        }
 
-            return new ResponseEntity<>(base64, HttpStatus.OK);
+        // Mesmo JSON de BatchSignatureResult.success, com o Base64 codificado em streaming a partir do buffer
+        private void writeSigned(SignedItem item, ScratchBuffer signature) throws IOException {
+            try (JsonGenerator json = objectMapper.createGenerator(out);
+                 InputStream in = signature.openInputStream()) {
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                json.writeStartObject();
+                json.writeNumberField("index", item.index());
+                if (item.fileName() != null) {
+                    json.writeStringField("fileName", item.fileName());
+                }
+                json.writeStringField("status", "SUCCESS");
+                json.writeFieldName("signature");
+                json.writeBinary(in, -1);
+                json.writeEndObject();
+            }
+        }
+
+        // Cancela o que está na fila, interrompe o que está assinando e espera os itens ativos terminarem
+        private void abort() {
+            activity.lock();
+            try {
+                aborted = true;
+            } finally {
+                activity.unlock();
+            }
+            for (Future<SignedItem> future : submitted) {
+                future.cancel(true);
+            }
+            activity.lock();
+            try {
+                while (active > 0) {
+                    idle.awaitUninterruptibly();
+                }
+            } finally {
+                activity.unlock();
+            }
+            for (ScratchBuffer signature : pending) {
+                signature.close();
+            }
+            pending.clear();
+        }
+    }
+
+    // Resultado de um item: a assinatura em um buffer de rascunho ou o erro que vira a linha NDJSON
+    private record SignedItem(int index, String fileName, ScratchBuffer signature, BatchSignatureResult error) {
+    }
+
+    // Uma falha em um documento vira um resultado de erro e não interrompe o lote
+    private SignedItem signBatchItem(SignerMaterial material, SignatureOptions options, int index,
+                                     MultipartFile document) {
+        String fileName = document.getOriginalFilename();
+        ScratchBuffer signature = scratchSpace.newBuffer();
+        try (InputStream in = document.getInputStream()) {
+            try (OutputStream out = signature.outputStream()) {
+                signAttached(material, options, in, out);
+            }
+            return new SignedItem(index, fileName, signature, null);
+        } catch (Exception ex) {
+            signature.close();
+            DocumentSigningException error = metrics.recordError(SignatureMetrics.SIGN, toSigningException(ex));
+            logger.warn("Batch item {} ({}) failed: {}", index, fileName, error.getMessage());
+            return new SignedItem(index, fileName, null,
+                    BatchSignatureResult.error(index, fileName, error.getErrorCode(), error.getMessage().trim()));
+        }
+    }
+
+    private long streamAttachedSignature(String pkcs12Path,
+                                         String pkcs12Password,
+                                         String alias,
+                                         InputStream content,
+                                         OutputStream signatureOut
+    ) throws Exception {
+
+        ensureProvider();
+
+        // Obtém a chave e a cadeia já destravadas do cache, carregando o PKCS#12 apenas em caso de miss
+        byte[] pkcs12 = Files.readAllBytes(Paths.get(pkcs12Path));
+        try (SignerMaterial material = unlock(SignerKey.uploaded(pkcs12, pkcs12Password, alias))) {
+            return signAttached(material, SignatureOptions.DEFAULT, content, signatureOut);
+        }
+    }
+
+    // Chave registrada no servidor, pelo id; ou o keystore enviado, destravado pelo cache (no miss inclui
+    // a leitura do PKCS#12 e a derivação da chave)
+    private SignerMaterial unlock(SignerKey key) throws Exception {
+        return metrics.stage(SignatureMetrics.SIGN, "keystore", () -> key.isRegistered()
+                ? signerKeyRegistry.acquire(key.keyId())
+                : signerMaterialCache.get(key.pkcs12(), key.password(), key.alias()));
+    }
+
+    private long signAttached(SignerMaterial material,
+                              SignatureOptions options,
+                              InputStream content,
+                              OutputStream signatureOut
+    ) throws Exception {
+        long total = metrics.stage(SignatureMetrics.SIGN, "cms",
+                () -> streamSignature(material, options, content, signatureOut, true));
+        metrics.recordBytes(SignatureMetrics.SIGN, total);
+        logger.debug("SignedData CMS generated (attached, {} bytes streamed)", total);
+        return total;
+    }
+
+    // Calcula o digest e codifica o CMS em um único passe sobre o conteúdo, com uso de heap constante
+    private long streamSignature(SignerMaterial material,
+                                 SignatureOptions options,
+                                 InputStream content,
+                                 OutputStream signatureOut,
+                                 boolean encapsulate
+    ) throws Exception {
+
+        // Cria o SignerInfoGenerator com um ContentSigner próprio desta assinatura; a operação com a chave
+        // privada só disputa vaga no limitador ao final, depois que o conteúdo todo passou pelo digest; o carimbo
+        // do tempo, quando ligado, é pedido depois da assinatura, já fora do limitador
+        SignerInfoGenerator signerInfoGen = timestampService.stamped(
+                material.newSignerInfoGenerator(options, privateKeyLimiter::guard));
+        if (logger.isDebugEnabled()) {
+            logger.debug("SignerInfoGenerator configured using {}", material.signatureAlgorithm(options));
+        }
+
+        // Configura o CMSSignedDataStreamGenerator
+        CMSSignedDataStreamGenerator cmsGenerator = new CMSSignedDataStreamGenerator();
+        cmsGenerator.addSignerInfoGenerator(signerInfoGen);
+        cmsGenerator.addCertificates(material.getCertStore());
+        cmsGenerator.setBufferSize(STREAM_BUFFER_SIZE);
+        logger.debug("CMSSignedDataStreamGenerator with signer and certificates configured");
+
+        // Encaminha o conteúdo em blocos para o digest e, se anexada, para o OCTET STRING encapsulado
+        long total = 0;
+        try (OutputStream cmsOut = cmsGenerator.open(signatureOut, encapsulate)) {
+            byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                cmsOut.write(buffer, 0, read);
+                total += read;
+            }
+        }
+        return total;
+    }
+
+    // Acrescenta um SignerInfo a um CMS existente. O conteúdo encapsulado é só copiado entre streams:
+    // nenhum passe faz hash nem reencoda o documento, e o heap não depende do tamanho do .p7s
+    private ScratchBuffer appendSigner(String mode,
+                                       SignerKey key,
+                                       InputStreamSource existingSignature,
+                                       SignerUpdate update
+    ) {
+        long start = System.nanoTime();
+        ScratchBuffer withSigners = null;
+        try {
+            ensureProvider();
+            ExistingSignature existing = readExisting(existingSignature);
+
+            SignerInformationStore signers;
+            List<X509CertificateHolder> certificates = new ArrayList<>(existing.certificates().getMatches(null));
+            try (SignerMaterial material = unlock(key)) {
+                signers = update.apply(material, existing);
+                for (X509CertificateHolder holder : material.getCertificateHolders()) {
+                    if (!certificates.contains(holder)) {
+                        certificates.add(holder);
+                    }
+                }
+            }
+
+            withSigners = scratchSpace.newBuffer();
+            try (InputStream in = existingSignature.getInputStream();
+                 OutputStream out = withSigners.outputStream()) {
+                CMSSignedDataParser.replaceSigners(in, signers, out);
+            }
+
+            ScratchBuffer signature = withSigners;
+            if (certificates.size() > existing.certificates().getMatches(null).size()) {
+                // Segundo passe só quando a cadeia do novo signatário ainda não está no CMS
+                signature = scratchSpace.newBuffer();
+                try (InputStream in = withSigners.openInputStream();
+                     OutputStream out = signature.outputStream()) {
+                    CMSSignedDataParser.replaceCertificatesAndCRLs(in, new CollectionStore<>(certificates),
+                            existing.crls(), existing.attributeCertificates(), out);
+                } catch (Exception ex) {
+                    signature.close();
+                    throw ex;
+                }
+                withSigners.close();
+            }
+            withSigners = null;
+            logger.debug("Signer appended to existing CMS ({} signers)", signers.size());
+
+            signatureStorage.persistAsync(signature);
+            logSigned(mode, 0, start);
+            return signature;
         } catch (Exception ex) {
-            Throwable root = (ex.getCause() != null) ? ex.getCause() : ex;
-            throw new DocumentSigningException(
-                    DocumentSigningException.resolveErrorCode(root),
-                    " " + root.getMessage(),
-                    root
-            );
+            if (withSigners != null) {
+                withSigners.close();
+            }
+            throw signingFailure(mode, start, ex);
+        }
+    }
+
+    // Lê signatários e certificados do CMS; o conteúdo é atravessado sem calcular digest
+    private static ExistingSignature readExisting(InputStreamSource existingSignature) throws Exception {
+        try (InputStream in = existingSignature.getInputStream()) {
+            CMSSignedDataParser parser = new CMSSignedDataParser(
+                    new DiscardingDigestCalculatorProvider(), new BufferedInputStream(in, STREAM_BUFFER_SIZE));
+            CMSTypedStream content = parser.getSignedContent();
+            if (content != null) {
+                content.drain();
+            }
+            @SuppressWarnings("unchecked")
+            Store<X509CertificateHolder> certificates = parser.getCertificates();
+            return new ExistingSignature(parser.getSignedContentTypeOID(), certificates, parser.getCRLs(),
+                    parser.getAttributeCertificates(), parser.getSignerInfos());
+        }
+    }
+
+    // Primeiro signatário com messageDigest em um algoritmo suportado (SHA-256/384/512)
+    private static SignerInformation digestReference(SignerInformationStore signers) {
+        for (SignerInformation signer : signers.getSigners()) {
+            AttributeTable signedAttributes = signer.getSignedAttributes();
+            if (signedAttributes == null || signedAttributes.get(CMSAttributes.messageDigest) == null) {
+                continue;
+            }
+            try {
+                DigestUtil.digestName(signer.getDigestAlgorithmID().getAlgorithm());
+                return signer;
+            } catch (IllegalArgumentException unsupported) {
+                // Tenta o próximo signatário
+            }
+        }
+        throw new IllegalArgumentException("No existing signer carries a SHA-256/384/512 messageDigest to co-sign");
+    }
+
+    // Percorre os signatários em pré-ordem (mesma numeração da verificação) e contra-assina o índice alvo;
+    // devolve null quando o índice não está nesta subárvore
+    private static SignerInformationStore countersign(SignerInformationStore signers,
+                                                      int target,
+                                                      int[] next,
+                                                      CounterSigner counterSigner) throws Exception {
+        List<SignerInformation> result = new ArrayList<>(signers.getSigners());
+        for (int i = 0; i < result.size(); i++) {
+            SignerInformation signer = result.get(i);
+            if (next[0]++ == target) {
+                result.set(i, counterSigner.apply(signer));
+                return new SignerInformationStore(result);
+            }
+            SignerInformationStore counterSignatures = signer.getCounterSignatures();
+            if (counterSignatures.size() == 0) {
+                continue;
+            }
+            SignerInformationStore replaced = countersign(counterSignatures, target, next, counterSigner);
+            if (replaced != null) {
+                // Reconstrói o atributo counterSignature do pai com a contra-assinatura atualizada
+                SignerInformation stripped = SignerInformation.replaceUnsignedAttributes(
+                        signer, signer.getUnsignedAttributes().remove(CMSAttributes.counterSignature));
+                result.set(i, SignerInformation.addCounterSigners(stripped, replaced));
+                return new SignerInformationStore(result);
+            }
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface SignerUpdate {
+        SignerInformationStore apply(SignerMaterial material, ExistingSignature existing) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface CounterSigner {
+        SignerInformation apply(SignerInformation target) throws Exception;
+    }
+
+    private record ExistingSignature(String contentType,
+                                     Store<X509CertificateHolder> certificates,
+                                     Store<?> crls,
+                                     Store<?> attributeCertificates,
+                                     SignerInformationStore signers) {
+    }
+
+    // Atravessa o conteúdo sem calcular hash: usado quando só a estrutura do CMS interessa
+    private static final class DiscardingDigestCalculatorProvider implements DigestCalculatorProvider {
+
+        @Override
+        public DigestCalculator get(AlgorithmIdentifier algorithm) {
+            return new DigestCalculator() {
+                @Override
+                public AlgorithmIdentifier getAlgorithmIdentifier() {
+                    return algorithm;
+                }
+
+                @Override
+                public OutputStream getOutputStream() {
+                    return OutputStream.nullOutputStream();
+                }
+
+                @Override
+                public byte[] getDigest() {
+                    return new byte[0];
+                }
+            };
+        }
+    }
+
+    // Entrega ao SignerInfoGenerator um digest já calculado (pelo cliente ou pelo MultiDigest) em vez de processar o conteúdo
+    private static final class PrecomputedDigestCalculatorProvider implements DigestCalculatorProvider {
+
+        private final ASN1ObjectIdentifier digestOid;
+        private final byte[] digest;
+        private final boolean clientDigest;
+
+        PrecomputedDigestCalculatorProvider(ASN1ObjectIdentifier digestOid, byte[] digest) {
+            this(digestOid, digest, true);
+        }
+
+        PrecomputedDigestCalculatorProvider(ASN1ObjectIdentifier digestOid, byte[] digest, boolean clientDigest) {
+            this.digestOid = digestOid;
+            this.digest = digest.clone();
+            this.clientDigest = clientDigest;
+        }
+
+        @Override
+        public DigestCalculator get(AlgorithmIdentifier algorithm) throws OperatorCreationException {
+            if (!digestOid.equals(algorithm.getAlgorithm())) {
+                throw new OperatorCreationException("Signer requested digest " + algorithm.getAlgorithm()
+                        + " but " + (clientDigest ? "the client sent " : "the document digest is ") + digestOid);
+            }
+            return new DigestCalculator() {
+                @Override
+                public AlgorithmIdentifier getAlgorithmIdentifier() {
+                    return algorithm;
+                }
+
+                @Override
+                public OutputStream getOutputStream() {
+                    return OutputStream.nullOutputStream();
+                }
+
+                @Override
+                public byte[] getDigest() {
+                    return digest.clone();
+                }
+            };
+        }
+    }
+
+    private static void ensureProvider() {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+            logger.info("BouncyCastle provider added on JCA");
+        }
+    }
+
+    // Um único evento INFO por requisição, com resultado e duração; o passo a passo fica em DEBUG
+    private static void logSigned(String mode, long bytes, long start) {
+        if (logger.isInfoEnabled()) {
+            logger.info("Signature request: mode={} outcome=OK bytes={} elapsedMs={}", mode, bytes, elapsedMillis(start));
+        }
+    }
+
+    private DocumentSigningException signingFailure(String mode, long start, Exception ex) {
+        DocumentSigningException error = metrics.recordError(SignatureMetrics.SIGN, toSigningException(ex));
+        if (logger.isInfoEnabled()) {
+            logger.info("Signature request: mode={} outcome={} elapsedMs={}", mode, error.getErrorCode(), elapsedMillis(start));
+        }
+        return error;
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static DocumentSigningException toSigningException(Exception ex) {
+        if (ex instanceof DocumentSigningException signingException) {
+            return signingException;
         }
+        Throwable root = (ex.getCause() != null) ? ex.getCause() : ex;
+        return new DocumentSigningException(
+                DocumentSigningException.resolveErrorCode(root),
+                " " + root.getMessage(),
+                root
+        );
     }
 }
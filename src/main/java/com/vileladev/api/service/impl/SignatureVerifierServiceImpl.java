@@ -1,164 +1,620 @@
 package com.vileladev.api.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vileladev.api.cache.CertificateCache;
+import com.vileladev.api.cache.TrustStore;
+import com.vileladev.api.cache.TrustStoreCache;
+import com.vileladev.api.cache.VerificationResultCache;
+import com.vileladev.api.crypto.CmsPreParser;
 import com.vileladev.api.exception.DocumentSigningException;
+import com.vileladev.api.metrics.SignatureMetrics;
+import com.vileladev.api.revocation.RevocationCache;
+import com.vileladev.api.revocation.RevocationStatus;
 import com.vileladev.api.service.SignatureVerifierService;
+import com.vileladev.api.service.record.BatchVerificationResult;
+import com.vileladev.api.service.record.BatchVerificationSummary;
 import com.vileladev.api.service.record.Infos;
+import com.vileladev.api.service.record.SignerVerification;
+import com.vileladev.api.timestamp.TimestampVerifier;
+import com.vileladev.api.util.DigestUtil;
 import org.bouncycastle.asn1.ASN1Encodable;
-import org.bouncycastle.asn1.ASN1GeneralizedTime;
 import org.bouncycastle.asn1.cms.Attribute;
+import org.bouncycastle.asn1.cms.AttributeTable;
 import org.bouncycastle.asn1.cms.CMSAttributes;
+import org.bouncycastle.asn1.cms.Time;
 import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cms.CMSException;
 import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.CMSSignedDataParser;
+import org.bouncycastle.cms.CMSTypedStream;
+import org.bouncycastle.cms.SignerId;
 import org.bouncycastle.cms.SignerInformation;
 import org.bouncycastle.cms.SignerInformationStore;
 import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.bouncycastle.util.Store;
 import org.bouncycastle.util.encoders.Hex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.InvalidAlgorithmParameterException;
-import java.security.NoSuchAlgorithmException;
-import java.security.NoSuchProviderException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.GeneralSecurityException;
 import java.security.Security;
 import java.security.cert.*;
-import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.FutureTask;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 @Service
 public class SignatureVerifierServiceImpl implements SignatureVerifierService {
 
-    Logger logger = LoggerFactory.getLogger(SignatureVerifierServiceImpl.class);
+    private static final Logger logger = LoggerFactory.getLogger(SignatureVerifierServiceImpl.class);
+
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    // Limite de certificados no caminho montado a partir do CMS (protege contra cadeias cíclicas)
+    private static final int MAX_CHAIN_LENGTH = 10;
+
+    @Value("${app.signature.verify.max-entry-size:67108864}")
+    private long maxBatchEntrySize = 64L * 1024 * 1024;
+
+    private final TrustStoreCache trustStoreCache;
+    private final ThreadPoolTaskExecutor verificationExecutor;
+    private final ObjectMapper objectMapper;
+    private final RevocationCache revocationCache;
+    private final VerificationResultCache resultCache;
+    private final CertificateCache certificateCache;
+    private final CmsPreParser preParser;
+    private final SignatureMetrics metrics;
+
+    public SignatureVerifierServiceImpl(TrustStoreCache trustStoreCache,
+                                        @Qualifier("verificationExecutor") ThreadPoolTaskExecutor verificationExecutor,
+                                        ObjectMapper objectMapper,
+                                        RevocationCache revocationCache,
+                                        VerificationResultCache resultCache,
+                                        CertificateCache certificateCache,
+                                        CmsPreParser preParser,
+                                        SignatureMetrics metrics) {
+        this.trustStoreCache = trustStoreCache;
+        this.verificationExecutor = verificationExecutor;
+        this.objectMapper = objectMapper;
+        this.revocationCache = revocationCache;
+        this.resultCache = resultCache;
+        this.certificateCache = certificateCache;
+        this.preParser = preParser;
+        this.metrics = metrics;
+    }
 
     @Override
-    public ResponseEntity<Map<String, Infos>> verifyAttachedSignature(
+    public ResponseEntity<List<SignerVerification>> verifyAttachedSignature(
             String signaturePath,
             String certificatesDir
     ) {
 
-      try{
-          // Check se o BouncyCastleProvider já está registrado
-          if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
-              Security.addProvider(new BouncyCastleProvider());
-          }
-
-          // Verifica se o caminho do arquivo de assinatura é válido
-          CMSSignedData cms = null;
-          try (InputStream sigStream = new FileInputStream(signaturePath)) {
-              cms = new CMSSignedData(sigStream);
-          }
-
-          // Obtem as informações dos signatários pela CMSSignedData
-          SignerInformationStore signers = cms.getSignerInfos();
-          if (signers.size() == 0) {
-              throw new IllegalArgumentException("Any signer information found in the CMS");
-          }
-          // Pegar o primeiro signatário
-          SignerInformation signer = signers.getSigners().iterator().next();
-
-          // Prepara o CertificateFactory para extrair certificados
-          CertificateFactory cf = CertificateFactory.getInstance("X.509", BouncyCastleProvider.PROVIDER_NAME);
-
-          // Verificar se o signatário possui certificado associado
-          List<X509Certificate> certList = new ArrayList<>();
-          for (Object obj : cms.getCertificates().getMatches(signer.getSID()).toArray()) {
-              var x509certHolder = (X509CertificateHolder) obj;
-              ByteArrayInputStream bais = new ByteArrayInputStream(x509certHolder.getEncoded());
-              X509Certificate cert = (X509Certificate) cf.generateCertificate(bais);
-              certList.add(cert);
-          }
-          if (certList.isEmpty()) {
-              throw new IllegalArgumentException("No certificate found for the signer");
-          }
-
-          X509Certificate signerCert = certList.get(0);
-
-          //Verificar integridade da assinatura
-          boolean signatureValid = signer.verify(
-                  new JcaSimpleSignerInfoVerifierBuilder()
-                          .setProvider(BouncyCastleProvider.PROVIDER_NAME)
-                          .build(signerCert)
-          );
-
-          Set<TrustAnchor> trustAnchors = getTrustAnchorsByDirectory(certificatesDir, cf);
-
-          // Validar o certificado do signatário pelas PKIX
-          boolean result = certficateValidator(certList, cf, trustAnchors);
-
-          // Logs da operação
-          logger.info("=== Signer Certificate Information ===");
-          logger.info("Subject DN: " + signerCert.getSubjectDN());
-          logger.info("Issuer DN: " + signerCert.getIssuerDN());
-          logger.info("Serial Number: " + signerCert.getSerialNumber());
-          logger.info("Validate range: " + signerCert.getNotBefore() + " to " + signerCert.getNotAfter());
-          logger.info("Digital signature valid and integrated " + signatureValid);
-
-          return new ResponseEntity<>(
-                    Map.of(
-                            (result) ? "VALIDO" : "INVALIDO", new Infos(
-                                    signerCert.getSubjectX500Principal().getName(),
-                                    getSigningTimeBySigner(signer),
-                                    Hex.toHexString(signerCert.getEncoded()),
-                                    getHashAlgorithmNameFromOid(signer.getDigestAlgorithmID().getAlgorithm().getId())
-                            )
-                    ),
-                    HttpStatus.OK
-          );
-      } catch (Exception ex) {
-            Throwable root = (ex.getCause() != null) ? ex.getCause() : ex;
-            throw new DocumentSigningException(
-                    DocumentSigningException.resolveErrorCode(root),
-                    " " + root.getMessage(),
-                    root
+      return verifyAttachedSignature(() -> new FileInputStream(signaturePath), certificatesDir);
+    }
+
+    @Override
+    public ResponseEntity<List<SignerVerification>> verifyAttachedSignature(
+            InputStream signature,
+            String certificatesDir
+    ) {
+        long start = System.nanoTime();
+        try {
+            ensureProvider();
+
+            // Obtém o snapshot das âncoras de confiança já carregado em memória
+            TrustStore trustStore = trustStoreCache.get(certificatesDir);
+
+            // O stream só pode ser lido uma vez: verifica e alimenta o cache com o hash calculado no caminho
+            long revocationVersion = revocationCache.currentVersion();
+            DigestInputStream digestStream = new DigestInputStream(signature, VerificationResultCache.newDigest());
+            List<SignerVerification> results = verify(digestStream, trustStore);
+            digestStream.transferTo(OutputStream.nullOutputStream());
+            resultCache.put(digestStream.getMessageDigest().digest(), trustStore, revocationVersion, results);
+
+            logVerified("attached", results, start);
+            return new ResponseEntity<>(results, HttpStatus.OK);
+        } catch (Exception ex) {
+            throw verificationFailure("attached", start, ex);
+        }
+    }
+
+    @Override
+    public ResponseEntity<List<SignerVerification>> verifyAttachedSignature(
+            InputStreamSource signature,
+            String certificatesDir
+    ) {
+        long start = System.nanoTime();
+        try {
+            ensureProvider();
+            TrustStore trustStore = trustStoreCache.get(certificatesDir);
+
+            List<SignerVerification> results = verifyCached(signature::getInputStream, trustStore);
+            logVerified("attached", results, start);
+            return new ResponseEntity<>(results, HttpStatus.OK);
+        } catch (Exception ex) {
+            throw verificationFailure("attached", start, ex);
+        }
+    }
+
+    @Override
+    public ResponseEntity<List<SignerVerification>> verifyDetachedSignature(
+            InputStream signature,
+            InputStream content,
+            String certificatesDir
+    ) {
+        long start = System.nanoTime();
+        try {
+            ensureProvider();
+            TrustStore trustStore = trustStoreCache.get(certificatesDir);
+
+            // O documento é digerido em streaming enquanto o parser percorre a estrutura destacada
+            CMSSignedDataParser parser = new CMSSignedDataParser(
+                    digestCalculatorProvider(),
+                    new CMSTypedStream(new BufferedInputStream(content, STREAM_BUFFER_SIZE)),
+                    preParser.inspect(signature)
             );
+            parser.getSignedContent().drain();
+
+            List<SignerVerification> results = verifySigners(parser.getSignerInfos(), certificates(parser), trustStore);
+            logVerified("detached", results, start);
+            return new ResponseEntity<>(results, HttpStatus.OK);
+        } catch (Exception ex) {
+            throw verificationFailure("detached", start, ex);
         }
     }
 
-    // Carregar os TrustAnchors da API que estão em resources/cadeia/
-    private static Set<TrustAnchor> getTrustAnchorsByDirectory(String certificatesDir, CertificateFactory cf) throws IOException {
-        Set<TrustAnchor> trustAnchors = new HashSet<>();
-        java.nio.file.Files.list(java.nio.file.Paths.get(certificatesDir))
-                .filter(p -> p.toString().toLowerCase().endsWith(".cer") || p.toString().toLowerCase().endsWith(".pem"))
-                .forEach(p -> {
-                    try (InputStream in = new FileInputStream(p.toFile())) {
-                        X509Certificate caCert = (X509Certificate) cf.generateCertificate(in);
-                        trustAnchors.add(new TrustAnchor(caCert, null));
-                    } catch (Exception e) {
-                        throw new RuntimeException("Erro ao carregar CA: " + p, e);
-                    }
-                });
-        return trustAnchors;
+    @Override
+    public ResponseEntity<List<SignerVerification>> verifyDetachedSignatureDigest(
+            InputStream signature,
+            String digestAlgorithm,
+            String hexDigest,
+            String certificatesDir
+    ) {
+        long start = System.nanoTime();
+        try {
+            ensureProvider();
+            TrustStore trustStore = trustStoreCache.get(certificatesDir);
+
+            // O digest informado substitui o conteúdo na comparação com o atributo messageDigest
+            CMSSignedData cms = new CMSSignedData(
+                    Map.of(DigestUtil.digestOid(digestAlgorithm), DigestUtil.decodeDigest(digestAlgorithm, hexDigest)),
+                    preParser.inspect(signature).readAllBytes()
+            );
+
+            List<SignerVerification> results = verifySigners(cms.getSignerInfos(), cms.getCertificates(), trustStore);
+            logVerified("digest", results, start);
+            return new ResponseEntity<>(results, HttpStatus.OK);
+        } catch (Exception ex) {
+            throw verificationFailure("digest", start, ex);
+        }
+    }
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> verifyAttachedSignatureBatch(
+            List<MultipartFile> signedFiles,
+            MultipartFile archive,
+            String certificatesDir
+    ) {
+        long start = System.nanoTime();
+        boolean hasFiles = signedFiles != null && !signedFiles.isEmpty();
+        if (!hasFiles && archive == null) {
+            throw verificationFailure("batch", start, new IllegalArgumentException("No signed files or archive sent for batch verification"));
+        }
+
+        // As âncoras são resolvidas uma vez e compartilhadas por todas as verificações do lote
+        TrustStore trustStore;
+        try {
+            ensureProvider();
+            trustStore = trustStoreCache.get(certificatesDir);
+        } catch (Exception ex) {
+            throw verificationFailure("batch", start, ex);
+        }
+
+        StreamingResponseBody body = out -> {
+            BatchWriter writer = new BatchWriter(trustStore, out, start);
+            if (hasFiles) {
+                for (MultipartFile file : signedFiles) {
+                    writer.submit(file.getOriginalFilename(), file::getInputStream);
+                }
+            }
+            if (archive != null) {
+                submitArchive(writer, archive);
+            }
+            writer.finish();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // Lê as entradas do zip sequencialmente e despacha cada .p7s para verificação em paralelo
+    private void submitArchive(BatchWriter writer, MultipartFile archive) throws IOException {
+        try (ZipInputStream zip = new ZipInputStream(archive.getInputStream())) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                String name = entry.getName();
+                byte[] bytes = zip.readNBytes((int) Math.min(maxBatchEntrySize + 1, Integer.MAX_VALUE - 8));
+                if (bytes.length > maxBatchEntrySize) {
+                    writer.reject(name, "INVALID_ARGUMENT", "Entry exceeds " + maxBatchEntrySize + " bytes");
+                    continue;
+                }
+                writer.submit(name, () -> new ByteArrayInputStream(bytes));
+            }
+        } catch (IOException ex) {
+            // Zip corrompido: reporta no próprio stream e mantém os resultados já verificados
+            writer.reject(archive.getOriginalFilename(), "IO_ERROR", ex.getMessage());
+        }
+    }
+
+    // Despacha as verificações com uma janela limitada de itens em voo e escreve cada resultado ao concluir
+    private final class BatchWriter {
+
+        private final TrustStore trustStore;
+        private final OutputStream out;
+        private final long start;
+        private final ExecutorCompletionService<BatchVerificationResult> completion;
+        private final int window;
+        private int index;
+        private int inFlight;
+        private int valid;
+        private int invalid;
+        private int errors;
+
+        BatchWriter(TrustStore trustStore, OutputStream out, long start) {
+            this.trustStore = trustStore;
+            this.out = out;
+            this.start = start;
+            this.completion = new ExecutorCompletionService<>(verificationExecutor.getThreadPoolExecutor());
+            this.window = Math.max(1, verificationExecutor.getMaxPoolSize() * 2);
+        }
+
+        void submit(String name, SignatureSource source) throws IOException {
+            while (inFlight >= window) {
+                drainOne();
+            }
+            int itemIndex = index++;
+            completion.submit(() -> verifyBatchItem(itemIndex, name, source, trustStore));
+            inFlight++;
+        }
+
+        void reject(String name, String errorCode, String message) throws IOException {
+            write(BatchVerificationResult.error(index++, name, errorCode, message));
+        }
+
+        void finish() throws IOException {
+            while (inFlight > 0) {
+                drainOne();
+            }
+            BatchVerificationSummary summary = new BatchVerificationSummary(index, valid, invalid, errors);
+            out.write(objectMapper.writeValueAsBytes(Map.of("summary", summary)));
+            out.write('\n');
+            out.flush();
+            if (logger.isInfoEnabled()) {
+                logger.info("Verification request: mode=batch files={} valid={} invalid={} errors={} elapsedMs={}",
+                        summary.total(), summary.valid(), summary.invalid(), summary.errors(), elapsedMillis(start));
+            }
+        }
+
+        private void drainOne() throws IOException {
+            try {
+                BatchVerificationResult result = completion.take().get();
+                inFlight--;
+                write(result);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Batch verification interrupted");
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+
+        private void write(BatchVerificationResult result) throws IOException {
+            switch (result.status()) {
+                case "VALIDO" -> valid++;
+                case "INVALIDO" -> invalid++;
+                default -> errors++;
+            }
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+            out.flush();
+        }
+    }
+
+    @FunctionalInterface
+    private interface SignatureSource {
+        InputStream open() throws IOException;
+    }
+
+    // Um arquivo malformado vira um resultado ERRO e não interrompe o lote
+    private BatchVerificationResult verifyBatchItem(int index, String name, SignatureSource source, TrustStore trustStore) {
+        try {
+            return BatchVerificationResult.verified(index, name, verifyCached(source, trustStore));
+        } catch (Exception ex) {
+            DocumentSigningException error = metrics.recordError(SignatureMetrics.VERIFY, toSigningException(ex));
+            return BatchVerificationResult.error(index, name, error.getErrorCode(), error.getMessage().trim());
+        }
+    }
+
+    // Uma leitura só para o hash; o parse, as assinaturas e a PKIX rodam apenas no miss. A versão da revogação
+    // é lida antes da verificação, então um dado novo que chegue durante ela invalida o resultado guardado.
+    // O cabeçalho é triado antes do hash: um arquivo que não é SignedData não chega a ser lido inteiro.
+    private List<SignerVerification> verifyCached(SignatureSource source, TrustStore trustStore) throws Exception {
+        byte[] digest = metrics.stage(SignatureMetrics.VERIFY, "digest", () -> {
+            try (InputStream in = source.open()) {
+                return VerificationResultCache.digest(preParser.inspect(in));
+            }
+        });
+        long revocationVersion = revocationCache.currentVersion();
+        List<SignerVerification> cached = resultCache.get(digest, trustStore, revocationVersion);
+        if (cached != null) {
+            return cached;
+        }
+        List<SignerVerification> results;
+        try (InputStream in = source.open()) {
+            results = verify(in, trustStore);
+        }
+        resultCache.put(digest, trustStore, revocationVersion, results);
+        return results;
+    }
+
+    // Percorre o CMS anexado em streaming: o conteúdo é digerido uma única vez para todos os algoritmos
+    // declarados, e cada signatário reaproveita esse digest em vez de refazer o hash do documento
+    private List<SignerVerification> verify(InputStream sigStream, TrustStore trustStore) throws Exception {
+        InputStream screened = preParser.inspect(sigStream);
+        CMSSignedDataParser parser = metrics.stage(SignatureMetrics.VERIFY, "parse", () -> {
+            CMSSignedDataParser cms = new CMSSignedDataParser(digestCalculatorProvider(), screened);
+            CMSTypedStream content = cms.getSignedContent();
+            if (content != null) {
+                try (InputStream in = content.getContentStream()) {
+                    metrics.recordBytes(SignatureMetrics.VERIFY, in.transferTo(OutputStream.nullOutputStream()));
+                } catch (EOFException e) {
+                    throw new DocumentSigningException(CmsPreParser.MALFORMED, "Truncated encapsulated content", e);
+                }
+            }
+            return cms;
+        });
+        return verifySigners(parser.getSignerInfos(), certificates(parser), trustStore);
+    }
+
+    // O CMSSignedDataParser devolve Store cru; o conteúdo são sempre X509CertificateHolder, como no CMSSignedData
+    @SuppressWarnings("unchecked")
+    private static Store<X509CertificateHolder> certificates(CMSSignedDataParser parser) throws CMSException {
+        return parser.getCertificates();
+    }
+
+    // Verifica todos os signatários, inclusive contra-assinaturas aninhadas, em paralelo
+    private List<SignerVerification> verifySigners(SignerInformationStore signers,
+                                                   Store<X509CertificateHolder> certificates,
+                                                   TrustStore trustStore) throws Exception {
+
+        // Obtem as informações dos signatários pela CMSSignedData
+        if (signers.size() == 0) {
+            throw new IllegalArgumentException("Any signer information found in the CMS");
+        }
+
+        CertificateIndex certificateIndex = new CertificateIndex(certificates, trustStore);
+        List<SignerNode> nodes = new ArrayList<>();
+        collectSigners(signers, null, nodes);
+        preParser.checkSignerCount(nodes.size());
+
+        List<FutureTask<SignerVerification>> tasks = new ArrayList<>(nodes.size());
+        for (SignerNode node : nodes) {
+            tasks.add(new FutureTask<>(() -> verifySigner(node, certificateIndex)));
+        }
+
+        // Os demais signatários vão para o pool e a thread atual também executa o que ainda não começou;
+        // assim a chamada nunca espera por tarefa parada na fila (ex.: dentro de um lote com o pool cheio)
+        for (FutureTask<SignerVerification> task : tasks.subList(1, tasks.size())) {
+            verificationExecutor.execute(task);
+        }
+        for (FutureTask<SignerVerification> task : tasks) {
+            task.run();
+        }
+
+        List<SignerVerification> results = new ArrayList<>(tasks.size());
+        for (FutureTask<SignerVerification> task : tasks) {
+            try {
+                results.add(task.get());
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+        }
+        return results;
+    }
+
+    // Achata a árvore de signatários em pré-ordem: cada contra-assinatura aponta para o índice do pai
+    private static void collectSigners(SignerInformationStore signers, Integer parent, List<SignerNode> nodes) {
+        for (SignerInformation signer : signers.getSigners()) {
+            int index = nodes.size();
+            nodes.add(new SignerNode(index, parent, signer));
+            SignerInformationStore counterSignatures = signer.getCounterSignatures();
+            if (counterSignatures.size() > 0) {
+                collectSigners(counterSignatures, index, nodes);
+            }
+        }
+    }
+
+    private record SignerNode(int index, Integer parent, SignerInformation signer) {
+    }
+
+    // Verifica a integridade da assinatura e valida a cadeia de um signatário
+    private SignerVerification verifySigner(SignerNode node, CertificateIndex certificateIndex) throws Exception {
+        SignerInformation signer = node.signer();
+
+        // Verificar se o signatário possui certificado associado
+        X509Certificate signerCert = certificateIndex.signerCertificate(signer);
+
+        //Verificar integridade da assinatura
+        boolean signatureValid = metrics.stage(SignatureMetrics.VERIFY, "signature", () -> signer.verify(
+                new JcaSimpleSignerInfoVerifierBuilder()
+                        .setProvider(BouncyCastleProvider.PROVIDER_NAME)
+                        .build(signerCert)
+        ));
+
+        // Validar o certificado do signatário pelas PKIX (uma vez por certificado, mesmo com vários signatários)
+        ChainStatus chain = certificateIndex.chainStatus(signerCert);
+        boolean result = signatureValid && chain.trusted()
+                && (chain.revocation() == null || revocationCache.accepts(chain.revocation()));
+
+        // Detalhes do signatário só em DEBUG: formatar os DNs custa mais que o resto do log
+        if (logger.isDebugEnabled()) {
+            logger.debug("Signer {}: subject={}, issuer={}, serial={}, validity={} to {}, signatureValid={}, trusted={}",
+                    node.index(), signerCert.getSubjectX500Principal(), signerCert.getIssuerX500Principal(),
+                    signerCert.getSerialNumber(), signerCert.getNotBefore(), signerCert.getNotAfter(),
+                    signatureValid, chain.trusted());
+        }
+
+        return new SignerVerification(
+                node.index(),
+                node.parent(),
+                (result) ? "VALIDO" : "INVALIDO",
+                chain.revocation() == null ? null : chain.revocation().name(),
+                new Infos(
+                        signerCert.getSubjectX500Principal().getName(),
+                        getSigningTimeBySigner(signer),
+                        Hex.toHexString(signerCert.getEncoded()),
+                        getHashAlgorithmNameFromOid(signer.getDigestAlgorithmID().getAlgorithm().getId()),
+                        getSignatureAlgorithmNameFromOid(signer.getEncryptionAlgOID())
+                ),
+                TimestampVerifier.verify(signer, digestCalculatorProvider(), certificateIndex.trustStore)
+        );
+    }
+
+    // Certificados de um CMS obtidos do cache de certificados (decodificados uma vez por DER) e cadeias
+    // validadas uma vez por certificado, compartilhados entre os signatários verificados em paralelo
+    private final class CertificateIndex {
+
+        private final Store<X509CertificateHolder> store;
+        private final TrustStore trustStore;
+        private final Map<X509CertificateHolder, X509Certificate> parsed = new HashMap<>();
+        private final Map<X509Certificate, ChainStatus> chains = new ConcurrentHashMap<>();
+
+        CertificateIndex(Store<X509CertificateHolder> store, TrustStore trustStore) throws Exception {
+            this.store = store;
+            this.trustStore = trustStore;
+            for (X509CertificateHolder holder : store.getMatches(null)) {
+                parsed.put(holder, certificateCache.intern(holder));
+            }
+        }
+
+        X509Certificate signerCertificate(SignerInformation signer) {
+            SignerId sid = signer.getSID();
+            for (Map.Entry<X509CertificateHolder, X509Certificate> entry : parsed.entrySet()) {
+                if (sid.match(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+            throw new IllegalArgumentException("No certificate found for the signer");
+        }
+
+        ChainStatus chainStatus(X509Certificate signerCert) {
+            return chains.computeIfAbsent(signerCert, this::validateChain);
+        }
+
+        // Monta o caminho com os intermediários presentes no CMS até um emissor que seja âncora; um caminho já
+        // validado com as mesmas âncoras não passa de novo pela PKIX. A revogação só é consultada para caminhos
+        // aceitos pela PKIX
+        private ChainStatus validateChain(X509Certificate signerCert) {
+            List<X509Certificate> certChain = new ArrayList<>();
+            certChain.add(signerCert);
+            X509Certificate current = signerCert;
+            while (certChain.size() < MAX_CHAIN_LENGTH
+                    && !trustStore.isAnchorSubject(current.getIssuerX500Principal())
+                    && !current.getIssuerX500Principal().equals(current.getSubjectX500Principal())) {
+                X509Certificate issuer = findIssuer(current);
+                if (issuer == null || certChain.contains(issuer)) {
+                    break;
+                }
+                certChain.add(issuer);
+                current = issuer;
+            }
+            boolean trusted;
+            try {
+                Boolean cached = certificateCache.getTrusted(certChain, trustStore);
+                if (cached != null) {
+                    trusted = cached;
+                } else {
+                    trusted = metrics.stage(SignatureMetrics.VERIFY, "pkix", () -> certficateValidator(certChain,
+                            CertificateFactory.getInstance("X.509", BouncyCastleProvider.PROVIDER_NAME), trustStore));
+                    certificateCache.putTrusted(certChain, trustStore, trusted);
+                }
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            if (!trusted || !revocationCache.isEnabled()) {
+                return new ChainStatus(trusted, null);
+            }
+            X509Certificate anchor = trustStore.anchorFor(current.getIssuerX500Principal());
+            return new ChainStatus(true, revocationCache.check(certChain, anchor));
+        }
+
+        private X509Certificate findIssuer(X509Certificate cert) {
+            for (X509Certificate candidate : parsed.values()) {
+                if (candidate.getSubjectX500Principal().equals(cert.getIssuerX500Principal())
+                        && !candidate.equals(cert)) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+    }
+
+    private record ChainStatus(boolean trusted, RevocationStatus revocation) {
     }
 
     // Valida o certificado do signatário usando a PKIX
-    private boolean certficateValidator(List<X509Certificate> certList, CertificateFactory cf, Set<TrustAnchor> trustAnchors) throws CertificateException, InvalidAlgorithmParameterException, NoSuchAlgorithmException, NoSuchProviderException {
-        List<Certificate> certChain = new ArrayList<>(certList);
+    private boolean certficateValidator(List<X509Certificate> certChain, CertificateFactory cf, TrustStore trustStore) throws GeneralSecurityException {
         CertPath certPath = cf.generateCertPath(certChain);
-        PKIXParameters params = new PKIXParameters(trustAnchors);
-        params.setRevocationEnabled(false);
-        CertPathValidator validator = CertPathValidator.getInstance("PKIX", BouncyCastleProvider.PROVIDER_NAME);
         try {
-            validator.validate(certPath, params);
+            trustStore.validate(certPath);
             return true;
         } catch (CertPathValidatorException e) {
-            logger.info("Trust validation fail " + e.getMessage());
+            logger.debug("Trust validation failed: {}", e.getMessage());
             return false;
         }
     }
 
-    // Obtém o horário de assinatura do signatário
-    private static Date getSigningTimeBySigner(SignerInformation signer) throws ParseException {
-        Attribute signingTimeAtribute = signer.getSignedAttributes().get(CMSAttributes.signingTime);
+    // Obtém o horário de assinatura do signatário (UTCTime até 2049, GeneralizedTime depois, RFC 5652)
+    private static Date getSigningTimeBySigner(SignerInformation signer) {
+        AttributeTable signedAttributes = signer.getSignedAttributes();
+        Attribute signingTimeAtribute = signedAttributes == null ? null : signedAttributes.get(CMSAttributes.signingTime);
+        if (signingTimeAtribute == null) {
+            return null;
+        }
         ASN1Encodable value = signingTimeAtribute.getAttrValues().getObjectAt(0);
-        ASN1GeneralizedTime time = ASN1GeneralizedTime.getInstance(value);
-        return time.getDate();
+        return Time.getInstance(value).getDate();
     }
     // Obtém o nome do algoritmo de hash a partir do OID
     private static String getHashAlgorithmNameFromOid(String oid) {
@@ -168,7 +624,86 @@ public class SignatureVerifierServiceImpl implements SignatureVerifierService {
             case "2.16.840.1.101.3.4.2.2" -> "SHA-384";
             case "2.16.840.1.101.3.4.2.3" -> "SHA-512";
             case "2.16.840.1.101.3.4.2.4" -> "SHA-224";
+            case "2.16.840.1.101.3.4.2.5" -> "SHA-512/224";
+            case "2.16.840.1.101.3.4.2.6" -> "SHA-512/256";
+            case "2.16.840.1.101.3.4.2.7" -> "SHA3-224";
+            case "2.16.840.1.101.3.4.2.8" -> "SHA3-256";
+            case "2.16.840.1.101.3.4.2.9" -> "SHA3-384";
+            case "2.16.840.1.101.3.4.2.10" -> "SHA3-512";
+            // Digest do Ed448 no CMS (RFC 8419)
+            case "2.16.840.1.101.3.4.2.12" -> "SHAKE256";
+            default -> "OID desconhecido: " + oid;
+        };
+    }
+
+    // Obtém a família do algoritmo de assinatura a partir do signatureAlgorithm do SignerInfo
+    private static String getSignatureAlgorithmNameFromOid(String oid) {
+        return switch (oid) {
+            // RSASSA-PSS
+            case "1.2.840.113549.1.1.10" -> "RSASSA-PSS";
+            // rsaEncryption e sha*WithRSAEncryption (PKCS#1 v1.5)
+            case "1.2.840.113549.1.1.1", "1.2.840.113549.1.1.5", "1.2.840.113549.1.1.11",
+                 "1.2.840.113549.1.1.12", "1.2.840.113549.1.1.13", "1.2.840.113549.1.1.14" -> "RSA";
+            // ecdsa-with-SHA1/SHA224/SHA256/SHA384/SHA512
+            case "1.2.840.10045.4.1", "1.2.840.10045.4.3.1", "1.2.840.10045.4.3.2",
+                 "1.2.840.10045.4.3.3", "1.2.840.10045.4.3.4" -> "ECDSA";
+            case "1.3.101.112" -> "Ed25519";
+            case "1.3.101.113" -> "Ed448";
             default -> "OID desconhecido: " + oid;
         };
     }
+
+    private static DigestCalculatorProvider digestCalculatorProvider() throws OperatorCreationException {
+        return new JcaDigestCalculatorProviderBuilder()
+                .setProvider(BouncyCastleProvider.PROVIDER_NAME)
+                .build();
+    }
+
+    private static void ensureProvider() {
+        // Check se o BouncyCastleProvider já está registrado
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+    }
+
+    // Um único evento INFO por requisição, com resultado e duração; os detalhes por signatário ficam em DEBUG
+    private static void logVerified(String mode, List<SignerVerification> results, long start) {
+        if (logger.isInfoEnabled()) {
+            int valid = 0;
+            for (SignerVerification result : results) {
+                if ("VALIDO".equals(result.status())) {
+                    valid++;
+                }
+            }
+            logger.info("Verification request: mode={} outcome={} signers={} valid={} elapsedMs={}",
+                    mode, valid == results.size() ? "VALIDO" : "INVALIDO", results.size(), valid, elapsedMillis(start));
+        }
+    }
+
+    private DocumentSigningException verificationFailure(String mode, long start, Exception ex) {
+        DocumentSigningException error = metrics.recordError(SignatureMetrics.VERIFY, toSigningException(ex));
+        if (logger.isInfoEnabled()) {
+            logger.info("Verification request: mode={} outcome={} elapsedMs={}", mode, error.getErrorCode(), elapsedMillis(start));
+        }
+        return error;
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static DocumentSigningException toSigningException(Exception ex) {
+        // Os limites da triagem podem estourar dentro do parser do BouncyCastle, que embrulha a exceção
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DocumentSigningException signingException) {
+                return signingException;
+            }
+        }
+        Throwable root = (ex.getCause() != null) ? ex.getCause() : ex;
+        return new DocumentSigningException(
+                DocumentSigningException.resolveErrorCode(root),
+                " " + root.getMessage(),
+                root
+        );
+    }
 }
@@ -0,0 +1,22 @@
+package com.vileladev.api.service.record;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchSignatureResult(
+        int index,
+        String fileName,
+        String status,
+        String signature,
+        String errorCode,
+        String message
+) {
+
+    public static BatchSignatureResult success(int index, String fileName, String signature) {
+        return new BatchSignatureResult(index, fileName, "SUCCESS", signature, null, null);
+    }
+
+    public static BatchSignatureResult error(int index, String fileName, String errorCode, String message) {
+        return new BatchSignatureResult(index, fileName, "ERROR", null, errorCode, message);
+    }
+}
@@ -0,0 +1,26 @@
+package com.vileladev.api.service.record;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchVerificationResult(
+        int index,
+        String fileName,
+        String status,
+        List<SignerVerification> signers,
+        String errorCode,
+        String message
+) {
+
+    // O arquivo só é VALIDO quando todos os signatários (e contra-assinaturas) são válidos
+    public static BatchVerificationResult verified(int index, String fileName, List<SignerVerification> signers) {
+        String status = signers.stream().allMatch(SignerVerification::isValid) ? "VALIDO" : "INVALIDO";
+        return new BatchVerificationResult(index, fileName, status, signers, null, null);
+    }
+
+    public static BatchVerificationResult error(int index, String fileName, String errorCode, String message) {
+        return new BatchVerificationResult(index, fileName, "ERRO", null, errorCode, message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.vileladev.api.service.record;
+
+public record BatchVerificationSummary(
+        int total,
+        int valid,
+        int invalid,
+        int errors
+) {
+}
@@ -0,0 +1,13 @@
+package com.vileladev.api.service.record;
+
+import java.time.Instant;
+import java.util.List;
+
+// Upload em partes com digest incremental: o próximo PUT deve começar em length
+public record DigestSession(
+        String id,
+        List<String> algorithms,
+        long length,
+        Instant expiresAt
+) {
+}
@@ -0,0 +1,10 @@
+package com.vileladev.api.service.record;
+
+import java.util.Map;
+
+// Digests de um documento em hexadecimal, por algoritmo (SHA-256, SHA-512...), e o total de bytes lidos
+public record DocumentDigest(
+        long length,
+        Map<String, String> digests
+) {
+}
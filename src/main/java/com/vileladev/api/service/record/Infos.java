@@ -6,6 +6,7 @@ public record Infos(
         String signerName,
         Date signingTime,
         String documentName,
-        String digestAlgorithm
+        String digestAlgorithm,
+        String signatureAlgorithm
 ) {
 }
@@ -0,0 +1,10 @@
+package com.vileladev.api.service.record;
+
+// Escolhas do cliente para o algoritmo de assinatura; campos nulos/false usam o padrão da chave do keystore
+public record SignatureOptions(
+        String digestAlgorithm,
+        boolean pss
+) {
+
+    public static final SignatureOptions DEFAULT = new SignatureOptions(null, false);
+}
@@ -0,0 +1,11 @@
+package com.vileladev.api.service.record;
+
+import java.util.Date;
+
+// Carimbo do tempo encontrado nos atributos não assinados de um signatário
+public record SignatureTimestamp(
+        String type,
+        Date time,
+        String status
+) {
+}
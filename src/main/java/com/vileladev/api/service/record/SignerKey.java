@@ -0,0 +1,28 @@
+package com.vileladev.api.service.record;
+
+// De onde vem a chave da assinatura: um PKCS#12 enviado na requisição ou uma chave registrada no servidor por id
+public record SignerKey(
+        String keyId,
+        byte[] pkcs12,
+        String password,
+        String alias
+) {
+
+    public static SignerKey uploaded(byte[] pkcs12, String password, String alias) {
+        return new SignerKey(null, pkcs12, password, alias);
+    }
+
+    public static SignerKey registered(String keyId) {
+        return new SignerKey(keyId, null, null, null);
+    }
+
+    public boolean isRegistered() {
+        return keyId != null;
+    }
+
+    // Nunca expõe a senha nem o keystore em logs
+    @Override
+    public String toString() {
+        return isRegistered() ? "SignerKey[keyId=" + keyId + "]" : "SignerKey[alias=" + alias + "]";
+    }
+}
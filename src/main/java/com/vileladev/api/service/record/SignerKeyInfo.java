@@ -0,0 +1,10 @@
+package com.vileladev.api.service.record;
+
+// Chave registrada no servidor, como listada em /api/keys
+public record SignerKeyInfo(
+        String id,
+        String provider,
+        String subject,
+        String signatureAlgorithm
+) {
+}
@@ -0,0 +1,18 @@
+package com.vileladev.api.service.record;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SignerVerification(
+        int index,
+        Integer countersignatureOf,
+        String status,
+        String revocation,
+        Infos infos,
+        SignatureTimestamp timestamp
+) {
+
+    public boolean isValid() {
+        return "VALIDO".equals(status);
+    }
+}
@@ -0,0 +1,126 @@
+package com.vileladev.api.startup;
+
+import com.vileladev.api.cache.TrustStoreCache;
+import com.vileladev.api.metrics.StartupMetrics;
+import com.vileladev.api.service.SignatureSignerService;
+import com.vileladev.api.service.SignatureVerifierService;
+import com.vileladev.api.service.record.SignatureOptions;
+import com.vileladev.api.service.record.SignerKey;
+import com.vileladev.api.service.record.SignerVerification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+
+// Aquecimento antes da prontidão: o Spring só publica ReadinessState.ACCEPTING_TRAFFIC depois dos
+// ApplicationRunner, então /actuator/health/readiness fica fora até aqui terminar. Carrega as âncoras de
+// confiança e faz rodadas de assinatura e verificação destacadas com o keystore de exemplo, que não gravam
+// cópia em storage-dir nem entram no cache de resultados. Com exit=true a aplicação encerra em seguida
+// (rodada de treino do arquivo CDS no Dockerfile).
+@Component
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupRunner.class);
+
+    private final SignatureSignerService signerService;
+    private final SignatureVerifierService verifierService;
+    private final TrustStoreCache trustStoreCache;
+    private final StartupMetrics startupMetrics;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${app.startup.warmup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.startup.warmup.iterations:20}")
+    private int iterations = 20;
+
+    @Value("${app.startup.warmup.max-duration:PT30S}")
+    private Duration maxDuration = Duration.ofSeconds(30);
+
+    @Value("${app.startup.warmup.keystore:classpath:pkcs12/certificado_teste_hub.pfx}")
+    private Resource keystore;
+
+    @Value("${app.startup.warmup.password:}")
+    private String password;
+
+    @Value("${app.startup.warmup.alias:${alias:}}")
+    private String alias;
+
+    @Value("${app.startup.warmup.exit:false}")
+    private boolean exitAfterWarmup;
+
+    @Value("${certificates.directory}")
+    private String certificatesDir;
+
+    public WarmupRunner(SignatureSignerService signerService,
+                        SignatureVerifierService verifierService,
+                        TrustStoreCache trustStoreCache,
+                        StartupMetrics startupMetrics,
+                        ConfigurableApplicationContext context) {
+        this.signerService = signerService;
+        this.verifierService = verifierService;
+        this.trustStoreCache = trustStoreCache;
+        this.startupMetrics = startupMetrics;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        int[] rounds = {0};
+        try {
+            trustStoreCache.get(certificatesDir);
+            if (password == null || password.isBlank()) {
+                logger.warn("Warm-up signing skipped: app.startup.warmup.password is not set");
+            } else {
+                signAndVerify(start, rounds);
+            }
+        } catch (Exception e) {
+            // O aquecimento é só otimização: uma falha aqui não impede a aplicação de subir
+            logger.warn("Warm-up stopped after {} rounds: {}", rounds[0], e.getMessage());
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        startupMetrics.warmupFinished(elapsed, rounds[0]);
+        logger.info("Warm-up finished: rounds={} elapsedMs={}", rounds[0], elapsed.toMillis());
+
+        if (exitAfterWarmup) {
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+
+    private void signAndVerify(long start, int[] rounds) throws Exception {
+        byte[] pkcs12;
+        try (InputStream in = keystore.getInputStream()) {
+            pkcs12 = in.readAllBytes();
+        }
+        long deadline = start + maxDuration.toNanos();
+        while (rounds[0] < iterations && System.nanoTime() < deadline) {
+            // Conteúdo diferente a cada rodada, como requisições reais
+            byte[] content = ("warm-up " + rounds[0]).getBytes(StandardCharsets.UTF_8);
+            String signature = signerService.generateDetachedSignature(SignerKey.uploaded(pkcs12, password, alias),
+                    new ByteArrayInputStream(content), SignatureOptions.DEFAULT).getBody();
+            List<SignerVerification> result = verifierService.verifyDetachedSignature(
+                    new ByteArrayInputStream(Base64.getDecoder().decode(signature)),
+                    new ByteArrayInputStream(content), certificatesDir).getBody();
+            if (result == null || !result.stream().allMatch(SignerVerification::isValid)) {
+                throw new IllegalStateException("Warm-up signature did not verify: " + result);
+            }
+            rounds[0]++;
+        }
+    }
+}
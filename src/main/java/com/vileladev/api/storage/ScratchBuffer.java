@@ -0,0 +1,186 @@
+package com.vileladev.api.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Buffer de escrita única: fica em memória até o limite e depois transborda para a ScratchSpace.
+// Quem recebe o buffer deve fechá-lo; retain() permite que um leitor assíncrono o mantenha vivo.
+public final class ScratchBuffer implements AutoCloseable {
+
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
+    private final ScratchSpace space;
+    private final int memoryThreshold;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    private Path file;
+    private OutputStream fileOut;
+    private long size;
+    // Bytes reservados na ScratchSpace; pode passar de size quando uma escrita em disco falha
+    private long reserved;
+    private boolean sealed;
+
+    ScratchBuffer(ScratchSpace space, int memoryThreshold) {
+        this.space = space;
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    // Stream de escrita; fechá-lo sela o buffer para leitura
+    public OutputStream outputStream() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                append(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                seal();
+            }
+        };
+    }
+
+    private void append(byte[] b, int off, int len) throws IOException {
+        if (sealed) {
+            throw new IOException("Scratch buffer is already sealed");
+        }
+        if (file == null && memory.size() + len > memoryThreshold) {
+            spill();
+        }
+        if (file != null) {
+            space.reserve(len);
+            reserved += len;
+            fileOut.write(b, off, len);
+        } else {
+            memory.write(b, off, len);
+        }
+        size += len;
+    }
+
+    private void spill() throws IOException {
+        int pending = memory.size();
+        space.reserve(pending);
+        Path created = null;
+        OutputStream out = null;
+        try {
+            created = space.createFile();
+            out = new BufferedOutputStream(space.openFile(created), FILE_BUFFER_SIZE);
+            memory.writeTo(out);
+        } catch (IOException | RuntimeException e) {
+            // Falha no meio do transbordo: nada fica reservado nem sobra arquivo órfão
+            space.release(pending);
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException closeFailure) {
+                    e.addSuppressed(closeFailure);
+                }
+            }
+            if (created != null) {
+                Files.deleteIfExists(created);
+            }
+            throw e;
+        }
+        reserved += pending;
+        file = created;
+        fileOut = out;
+        memory = null;
+    }
+
+    public void seal() throws IOException {
+        if (!sealed) {
+            sealed = true;
+            if (fileOut != null) {
+                fileOut.close();
+            }
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isSpilled() {
+        return file != null;
+    }
+
+    public InputStream openInputStream() throws IOException {
+        requireSealed();
+        return (file != null) ? Files.newInputStream(file) : new ByteArrayInputStream(memory.toByteArray());
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        requireSealed();
+        if (file != null) {
+            Files.copy(file, out);
+        } else {
+            memory.writeTo(out);
+        }
+    }
+
+    public byte[] toByteArray() throws IOException {
+        try (InputStream in = openInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    public boolean retain() {
+        int current;
+        do {
+            current = references.get();
+            if (current <= 0) {
+                return false;
+            }
+        } while (!references.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    // Libera uma referência; a última apaga o arquivo de transbordo e devolve o orçamento
+    @Override
+    public void close() {
+        if (references.decrementAndGet() != 0) {
+            return;
+        }
+        try {
+            if (fileOut != null) {
+                fileOut.close();
+            }
+        } catch (IOException ignored) {
+            // Escrita já falhou; o arquivo é apagado abaixo de qualquer forma
+        }
+        try {
+            if (file != null) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException ignored) {
+            // O arquivo será removido na próxima inicialização da ScratchSpace
+        } finally {
+            // Devolve o que foi reservado, inclusive escritas que falharam depois da reserva
+            space.release(reserved);
+            reserved = 0;
+            memory = null;
+        }
+    }
+
+    private void requireSealed() throws IOException {
+        if (!sealed) {
+            throw new IOException("Scratch buffer is still being written");
+        }
+        if (references.get() <= 0) {
+            throw new IOException("Scratch buffer was already released");
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.vileladev.api.storage;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Área de rascunho gerenciada: dados pequenos ficam em memória, os grandes transbordam para arquivos
+// neste diretório, limitados a um orçamento total de bytes e apagados assim que o buffer é liberado.
+@Component
+public class ScratchSpace implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScratchSpace.class);
+
+    static final String SPILL_PREFIX = "spill-";
+    // Prefixo dos arquivos de upload que o Tomcat grava em spring.servlet.multipart.location
+    private static final String UPLOAD_PREFIX = "upload_";
+
+    private final Path directory;
+    private final int memoryThreshold;
+    private final long maxBytes;
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    public ScratchSpace(@Value("${app.scratch.dir}") String directory,
+                        @Value("${app.scratch.memory-threshold:1048576}") int memoryThreshold,
+                        @Value("${app.scratch.max-bytes:10737418240}") long maxBytes) {
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.memoryThreshold = memoryThreshold;
+        this.maxBytes = maxBytes;
+    }
+
+    // Cria o diretório e remove sobras de uma execução anterior interrompida
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(directory.resolve("uploads"));
+        List<Path> leftovers;
+        try (Stream<Path> files = Files.walk(directory)) {
+            leftovers = files.filter(Files::isRegularFile)
+                    .filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(SPILL_PREFIX) || name.startsWith(UPLOAD_PREFIX);
+                    })
+                    .toList();
+        }
+        for (Path leftover : leftovers) {
+            Files.deleteIfExists(leftover);
+        }
+        if (!leftovers.isEmpty()) {
+            logger.info("Removed {} leftover scratch files from {}", leftovers.size(), directory);
+        }
+    }
+
+    public ScratchBuffer newBuffer() {
+        return new ScratchBuffer(this, memoryThreshold);
+    }
+
+    // Reserva espaço em disco antes de escrever; falha em vez de encher o volume
+    void reserve(long bytes) throws IOException {
+        long current;
+        do {
+            current = usedBytes.get();
+            if (current + bytes > maxBytes) {
+                throw new IOException("Scratch space exhausted (" + maxBytes + " bytes)");
+            }
+        } while (!usedBytes.compareAndSet(current, current + bytes));
+    }
+
+    void release(long bytes) {
+        usedBytes.addAndGet(-bytes);
+    }
+
+    Path createFile() throws IOException {
+        return Files.createTempFile(directory, SPILL_PREFIX, ".tmp");
+    }
+
+    OutputStream openFile(Path file) throws IOException {
+        return Files.newOutputStream(file);
+    }
+
+    public long usedBytes() {
+        return usedBytes.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("scratch.used.bytes", usedBytes, AtomicLong::get)
+                .description("Bytes currently spilled to the scratch directory")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
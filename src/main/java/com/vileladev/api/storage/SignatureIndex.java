@@ -0,0 +1,209 @@
+package com.vileladev.api.storage;
+
+import org.bouncycastle.util.encoders.Hex;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Índice em disco do repositório de assinaturas: um log só de acréscimo com registros de tamanho fixo
+// (SHA-256, tamanho, instante da gravação e um byte de estado) e um mapa em memória id -> offset do registro.
+// Remover ou regravar um id só marca o registro antigo como morto na posição dele; a compactação reescreve
+// o log apenas com os registros vivos. Escritas são serializadas pelo monitor; get() lê o mapa sem ele, então
+// uma consulta não espera por um fsync ou por uma compactação em andamento.
+final class SignatureIndex implements Closeable {
+
+    private static final byte[] MAGIC = "SIGIDX1\n".getBytes(StandardCharsets.US_ASCII);
+    static final int RECORD_SIZE = 56;
+    private static final int STATE_OFFSET = 48;
+    private static final byte LIVE = 1;
+    private static final byte DEAD = 0;
+
+    private final Path file;
+    private final Map<ByteBuffer, Entry> entries = new ConcurrentHashMap<>();
+    private volatile FileChannel channel;
+    private long deadRecords;
+    private long liveBytes;
+
+    private SignatureIndex(Path file) {
+        this.file = file;
+    }
+
+    // Lê o log existente; um registro incompleto no fim (queda durante a escrita) é descartado
+    static SignatureIndex open(Path file) throws IOException {
+        SignatureIndex index = new SignatureIndex(file);
+        index.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index.load();
+        return index;
+    }
+
+    private void load() throws IOException {
+        long size = channel.size();
+        if (size < MAGIC.length) {
+            channel.truncate(0);
+            channel.write(ByteBuffer.wrap(MAGIC), 0);
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(MAGIC.length);
+        channel.read(header, 0);
+        if (!ByteBuffer.wrap(MAGIC).equals(header.flip())) {
+            throw new IOException("Not a signature index: " + file);
+        }
+        long end = MAGIC.length + (size - MAGIC.length) / RECORD_SIZE * RECORD_SIZE;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        for (long offset = MAGIC.length; offset < end; offset += RECORD_SIZE) {
+            record.clear();
+            channel.read(record, offset);
+            record.flip();
+            byte[] hash = new byte[32];
+            record.get(hash);
+            long length = record.getLong();
+            long storedAt = record.getLong();
+            if (record.get() != LIVE) {
+                deadRecords++;
+                continue;
+            }
+            Entry previous = entries.put(ByteBuffer.wrap(hash), new Entry(hash, offset, length, storedAt));
+            if (previous != null) {
+                // Só o registro mais recente de um id vale; o anterior passa a contar como lixo
+                deadRecords++;
+                liveBytes -= previous.size;
+            }
+            liveBytes += length;
+        }
+        if (end < size) {
+            channel.truncate(end);
+        }
+    }
+
+    StoredSignature get(byte[] hash) {
+        Entry entry = entries.get(ByteBuffer.wrap(hash));
+        return entry == null ? null : entry.toStored();
+    }
+
+    // Acrescenta o registro; um id regravado (mesmo conteúdo assinado de novo) tem o registro antigo marcado morto
+    synchronized StoredSignature put(byte[] hash, long size, long storedAt) throws IOException {
+        long offset = channel.size();
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE)
+                .put(hash)
+                .putLong(size)
+                .putLong(storedAt)
+                .put(LIVE);
+        record.position(0).limit(RECORD_SIZE);
+        writeFully(record, offset);
+        Entry entry = new Entry(hash.clone(), offset, size, storedAt);
+        Entry previous = entries.put(ByteBuffer.wrap(entry.hash), entry);
+        if (previous != null) {
+            markDead(previous);
+        }
+        liveBytes += size;
+        return entry.toStored();
+    }
+
+    synchronized boolean remove(byte[] hash) throws IOException {
+        Entry entry = entries.remove(ByteBuffer.wrap(hash));
+        if (entry == null) {
+            return false;
+        }
+        markDead(entry);
+        return true;
+    }
+
+    // Um fsync do índice para todos os registros acrescentados desde o último. Fora do monitor para não travar
+    // get(); quem chama serializa com compact(), que troca o canal
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    // Entradas vivas da mais antiga para a mais recente, para as políticas de retenção
+    synchronized List<StoredSignature> oldestFirst() {
+        List<Entry> live = new ArrayList<>(entries.values());
+        live.sort(Comparator.comparingLong(Entry::storedAt));
+        List<StoredSignature> result = new ArrayList<>(live.size());
+        for (Entry entry : live) {
+            result.add(entry.toStored());
+        }
+        return result;
+    }
+
+    synchronized boolean needsCompaction(double garbageRatio) {
+        long total = deadRecords + entries.size();
+        return deadRecords > 0 && total > 0 && (double) deadRecords / total >= garbageRatio;
+    }
+
+    // Reescreve o log só com os registros vivos em um arquivo novo e o troca atomicamente pelo atual
+    synchronized void compact() throws IOException {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        List<Entry> live = new ArrayList<>(entries.values());
+        live.sort(Comparator.comparingLong(Entry::storedAt));
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(MAGIC.length + live.size() * RECORD_SIZE).put(MAGIC);
+            for (Entry entry : live) {
+                buffer.put(entry.hash).putLong(entry.size).putLong(entry.storedAt).put(LIVE).position(buffer.position() + 7);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        channel.close();
+        Files.move(compacted, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long offset = MAGIC.length;
+        for (Entry entry : live) {
+            entries.put(ByteBuffer.wrap(entry.hash), new Entry(entry.hash, offset, entry.size, entry.storedAt));
+            offset += RECORD_SIZE;
+        }
+        deadRecords = 0;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long liveBytes() {
+        return liveBytes;
+    }
+
+    synchronized long fileSize() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void markDead(Entry entry) throws IOException {
+        writeFully(ByteBuffer.wrap(new byte[]{DEAD}), entry.offset + STATE_OFFSET);
+        deadRecords++;
+        liveBytes -= entry.size;
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private record Entry(byte[] hash, long offset, long size, long storedAt) {
+
+        StoredSignature toStored() {
+            return new StoredSignature(Hex.toHexString(hash), size, Instant.ofEpochMilli(storedAt));
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package com.vileladev.api.storage;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.bouncycastle.util.encoders.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Persistência opcional dos .p7s gerados em app.signature.storage-dir, fora do caminho da requisição.
+// Cada assinatura é guardada pelo SHA-256 do próprio .p7s em objects/ab/cd/<sha256>.p7s, então a mesma
+// assinatura recebida de novo não ocupa mais espaço, e objects/index guarda id -> tamanho e data sem varrer
+// o diretório. Os fsync são feitos em lote: a cada fsync-interval ou fsync-batch-size gravações.
+@Component
+public class SignatureStorage implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignatureStorage.class);
+
+    private static final String PARTIAL_PREFIX = "sig-";
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    private final Path storageDir;
+    private final Path objectsDir;
+    private final boolean enabled;
+    private final Executor storageExecutor;
+    private final int fsyncBatchSize;
+    private final Duration retention;
+    private final long maxBytes;
+    private final double compactionGarbageRatio;
+    private final Clock clock;
+
+    // Gravações já em disco aguardando o fsync do lote; a assinatura só entra no índice depois dele
+    private final List<PendingWrite> pending = new ArrayList<>();
+    private final Object commitLock = new Object();
+    // Publicado uma vez aberto: leituras (find) não passam pelo commitLock, que fica com os fsync e a retenção
+    private volatile SignatureIndex index;
+
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong fsyncBatches = new AtomicLong();
+
+    @Autowired
+    public SignatureStorage(@Value("${app.signature.storage-dir}") String storageDir,
+                            @Value("${app.signature.storage.enabled:true}") boolean enabled,
+                            @Qualifier("storageExecutor") Executor storageExecutor,
+                            @Value("${app.signature.storage.fsync-batch-size:64}") int fsyncBatchSize,
+                            @Value("${app.signature.storage.retention:P0D}") Duration retention,
+                            @Value("${app.signature.storage.max-bytes:0}") long maxBytes,
+                            @Value("${app.signature.storage.compaction.garbage-ratio:0.5}") double compactionGarbageRatio) {
+        this(storageDir, enabled, storageExecutor, fsyncBatchSize, retention, maxBytes, compactionGarbageRatio,
+                Clock.systemUTC());
+    }
+
+    // Sem agendador (testes e benchmarks): cada assinatura é sincronizada e indexada logo após a gravação
+    public SignatureStorage(String storageDir, boolean enabled, Executor storageExecutor) {
+        this(storageDir, enabled, storageExecutor, 1, Duration.ZERO, 0, 0.5, Clock.systemUTC());
+    }
+
+    SignatureStorage(String storageDir, boolean enabled, Executor storageExecutor, int fsyncBatchSize,
+                     Duration retention, long maxBytes, double compactionGarbageRatio, Clock clock) {
+        this.storageDir = Paths.get(storageDir);
+        this.objectsDir = this.storageDir.resolve("objects");
+        this.enabled = enabled;
+        this.storageExecutor = storageExecutor;
+        this.fsyncBatchSize = Math.max(1, fsyncBatchSize);
+        this.retention = retention;
+        this.maxBytes = maxBytes;
+        this.compactionGarbageRatio = compactionGarbageRatio;
+        this.clock = clock;
+    }
+
+    // Copia o buffer para o repositório em segundo plano; o buffer é mantido vivo até o fim da cópia.
+    // O futuro conclui quando a assinatura está sincronizada em disco e indexada.
+    public CompletableFuture<StoredSignature> persistAsync(ScratchBuffer signature) {
+        if (!enabled || !signature.retain()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try (signature) {
+                return write(signature);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, storageExecutor).thenCompose(write -> write).whenComplete((result, ex) -> {
+            if (ex != null) {
+                logger.error("Signature CMS could not be stored at {}: {}", storageDir, ex.getMessage());
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Optional<StoredSignature> find(String id) throws IOException {
+        byte[] hash = parseId(id);
+        if (hash == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(index().get(hash));
+    }
+
+    // Arquivo do .p7s, para o servidor enviá-lo direto do disco (sendfile do Tomcat)
+    public Path path(StoredSignature signature) {
+        return objectPath(signature.id());
+    }
+
+    // Abre o .p7s para leitura. O canal aberto continua lendo o arquivo mesmo que a retenção o remova depois;
+    // se a remoção veio antes, lança NoSuchFileException
+    public FileChannel open(StoredSignature signature) throws IOException {
+        return FileChannel.open(objectPath(signature.id()), StandardOpenOption.READ);
+    }
+
+    // Sincroniza as gravações pendentes, mesmo que o lote não tenha enchido
+    @Scheduled(fixedDelayString = "${app.signature.storage.fsync-interval:PT0.2S}")
+    public void flush() {
+        List<PendingWrite> batch;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pending);
+            pending.clear();
+        }
+        commit(batch);
+    }
+
+    // Remove assinaturas mais antigas que a retenção e, acima de max-bytes, as mais antigas até caber;
+    // depois compacta o índice quando a fração de registros mortos passa de garbage-ratio
+    @Scheduled(fixedDelayString = "${app.signature.storage.compaction.interval:PT1H}")
+    public void applyRetention() {
+        if (!enabled || !Files.isDirectory(objectsDir)) {
+            return;
+        }
+        try {
+            SignatureIndex current = index();
+            long cutoff = retention.isZero() ? Long.MIN_VALUE : clock.millis() - retention.toMillis();
+            long excess = maxBytes > 0 ? current.liveBytes() - maxBytes : 0;
+            for (StoredSignature signature : current.oldestFirst()) {
+                boolean tooOld = signature.storedAt().toEpochMilli() < cutoff;
+                if (!tooOld && excess <= 0) {
+                    break;
+                }
+                synchronized (commitLock) {
+                    current.remove(Hex.decode(signature.id()));
+                    Files.deleteIfExists(objectPath(signature.id()));
+                }
+                excess -= signature.size();
+                expired.incrementAndGet();
+            }
+            synchronized (commitLock) {
+                current.force();
+                if (current.needsCompaction(compactionGarbageRatio)) {
+                    current.compact();
+                    logger.info("Signature index compacted to {} entries", current.size());
+                }
+            }
+        } catch (IOException ex) {
+            logger.error("Signature storage retention failed at {}: {}", storageDir, ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        flush();
+        synchronized (commitLock) {
+            if (index != null) {
+                index.close();
+                index = null;
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("signature.storage.writes", stored, AtomicLong::get)
+                .tag("result", "stored")
+                .description("Signatures written to the content-addressed store")
+                .register(registry);
+        FunctionCounter.builder("signature.storage.writes", deduplicated, AtomicLong::get)
+                .tag("result", "deduplicated")
+                .description("Signatures already present in the store")
+                .register(registry);
+        FunctionCounter.builder("signature.storage.expired", expired, AtomicLong::get)
+                .description("Signatures removed by retention or max-bytes")
+                .register(registry);
+        FunctionCounter.builder("signature.storage.fsync.batches", fsyncBatches, AtomicLong::get)
+                .register(registry);
+        Gauge.builder("signature.storage.bytes", this, storage -> storage.indexed(SignatureIndex::liveBytes))
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("signature.storage.entries", this, storage -> storage.indexed(SignatureIndex::size))
+                .register(registry);
+    }
+
+    // Grava um .part pelo FileChannel calculando o SHA-256 no mesmo passe; o nome final só é conhecido no fim
+    private CompletableFuture<StoredSignature> write(ScratchBuffer signature) throws IOException {
+        index();
+        MessageDigest md = sha256();
+        Path partial = Files.createTempFile(objectsDir, PARTIAL_PREFIX, PARTIAL_SUFFIX);
+        try (FileChannel out = FileChannel.open(partial, StandardOpenOption.WRITE);
+             OutputStream digesting = new DigestOutputStream(Channels.newOutputStream(out), md)) {
+            signature.writeTo(digesting);
+        } catch (IOException ex) {
+            Files.deleteIfExists(partial);
+            throw ex;
+        }
+
+        PendingWrite write = new PendingWrite(partial, md.digest(), signature.size(), new CompletableFuture<>());
+        List<PendingWrite> batch = null;
+        synchronized (pending) {
+            pending.add(write);
+            if (pending.size() >= fsyncBatchSize) {
+                batch = new ArrayList<>(pending);
+                pending.clear();
+            }
+        }
+        if (batch != null) {
+            commit(batch);
+        }
+        return write.done;
+    }
+
+    // Um fsync por arquivo do lote, a renomeação para o endereço final, um fsync por diretório de shard
+    // e um único fsync do índice para o lote inteiro
+    private void commit(List<PendingWrite> batch) {
+        synchronized (commitLock) {
+            try {
+                SignatureIndex current = index();
+                Set<Path> shards = new HashSet<>();
+                List<PendingWrite> durable = new ArrayList<>(batch.size());
+                for (PendingWrite write : batch) {
+                    try {
+                        String id = Hex.toHexString(write.hash);
+                        Path target = objectPath(id);
+                        StoredSignature existing = current.get(write.hash);
+                        if (existing != null && Files.exists(target)) {
+                            // Já guardada e sincronizada: não regrava nem gera registro novo no índice
+                            Files.deleteIfExists(write.partial);
+                            deduplicated.incrementAndGet();
+                            write.done.complete(existing);
+                            continue;
+                        }
+                        try (FileChannel channel = FileChannel.open(write.partial, StandardOpenOption.WRITE)) {
+                            channel.force(true);
+                        }
+                        Files.createDirectories(target.getParent());
+                        Files.move(write.partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                        shards.add(target.getParent());
+                        stored.incrementAndGet();
+                        durable.add(write);
+                    } catch (IOException ex) {
+                        Files.deleteIfExists(write.partial);
+                        write.done.completeExceptionally(ex);
+                    }
+                }
+                for (Path shard : shards) {
+                    forceDirectory(shard);
+                }
+                List<StoredSignature> indexed = new ArrayList<>(durable.size());
+                long now = clock.millis();
+                for (PendingWrite write : durable) {
+                    indexed.add(current.put(write.hash, write.size, now));
+                }
+                current.force();
+                fsyncBatches.incrementAndGet();
+                for (int i = 0; i < durable.size(); i++) {
+                    logger.debug("Signature CMS recorded as {}", indexed.get(i).id());
+                    durable.get(i).done.complete(indexed.get(i));
+                }
+            } catch (IOException ex) {
+                for (PendingWrite write : batch) {
+                    write.done.completeExceptionally(ex);
+                }
+            }
+        }
+    }
+
+    // Abre o índice na primeira utilização e descarta .part de uma execução interrompida; depois disso a
+    // leitura do campo não toma lock
+    private SignatureIndex index() throws IOException {
+        SignatureIndex current = index;
+        if (current != null) {
+            return current;
+        }
+        synchronized (commitLock) {
+            if (index == null) {
+                Files.createDirectories(objectsDir);
+                try (var files = Files.newDirectoryStream(objectsDir, PARTIAL_PREFIX + "*" + PARTIAL_SUFFIX)) {
+                    for (Path leftover : files) {
+                        Files.deleteIfExists(leftover);
+                    }
+                }
+                index = SignatureIndex.open(objectsDir.resolve("index"));
+            }
+            return index;
+        }
+    }
+
+    private <T> T indexed(IndexQuery<T> query) {
+        try {
+            return query.apply(index());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    Path objectPath(String id) {
+        return objectsDir.resolve(id.substring(0, 2)).resolve(id.substring(2, 4)).resolve(id + ".p7s");
+    }
+
+    private static byte[] parseId(String id) {
+        if (id == null || !id.matches("[0-9a-fA-F]{64}")) {
+            return null;
+        }
+        return Hex.decode(id);
+    }
+
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            // Nem todo sistema de arquivos permite fsync de diretório; a renomeação já foi feita
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexQuery<T> {
+        T apply(SignatureIndex index) throws IOException;
+    }
+
+    private record PendingWrite(Path partial, byte[] hash, long size, CompletableFuture<StoredSignature> done) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.vileladev.api.storage;
+
+import java.time.Instant;
+
+// Assinatura guardada no repositório endereçado por conteúdo; id é o SHA-256 do .p7s em hexadecimal
+public record StoredSignature(
+        String id,
+        long size,
+        Instant storedAt
+) {
+}
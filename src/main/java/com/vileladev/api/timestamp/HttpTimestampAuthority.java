@@ -0,0 +1,58 @@
+package com.vileladev.api.timestamp;
+
+import org.bouncycastle.tsp.TSPException;
+import org.bouncycastle.tsp.TimeStampRequest;
+import org.bouncycastle.tsp.TimeStampResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+// Envia a requisição de carimbo por POST (RFC 3161, application/timestamp-query) à TSA configurada
+@Component
+public class HttpTimestampAuthority implements TimestampAuthority {
+
+    private final HttpClient client;
+    private final String url;
+    private final Duration timeout;
+
+    public HttpTimestampAuthority(@Value("${app.signature.timestamp.url:}") String url,
+                                  @Value("${app.signature.timestamp.timeout:PT5S}") Duration timeout) {
+        this.url = url;
+        this.timeout = timeout;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @Override
+    public TimeStampResponse timestamp(TimeStampRequest request) throws IOException {
+        if (url == null || url.isBlank()) {
+            throw new IOException("No timestamp authority configured (app.signature.timestamp.url)");
+        }
+        HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                .header("Content-Type", "application/timestamp-query")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(request.getEncoded()))
+                .build();
+        try {
+            HttpResponse<byte[]> response = client.send(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IOException("Unexpected HTTP " + response.statusCode() + " from " + url);
+            }
+            return new TimeStampResponse(response.body());
+        } catch (TSPException e) {
+            throw new IOException("Malformed timestamp response from " + url, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Timestamp request interrupted: " + url);
+        }
+    }
+}
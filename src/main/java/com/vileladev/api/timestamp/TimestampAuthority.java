@@ -0,0 +1,12 @@
+package com.vileladev.api.timestamp;
+
+import org.bouncycastle.tsp.TimeStampRequest;
+import org.bouncycastle.tsp.TimeStampResponse;
+
+import java.io.IOException;
+
+// Autoridade de carimbo do tempo (RFC 3161) consultada pelo TimestampService; em testes, uma TSA local
+public interface TimestampAuthority {
+
+    TimeStampResponse timestamp(TimeStampRequest request) throws IOException;
+}
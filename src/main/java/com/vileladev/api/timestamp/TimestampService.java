@@ -0,0 +1,294 @@
+package com.vileladev.api.timestamp;
+
+import com.vileladev.api.util.DigestUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.DERSet;
+import org.bouncycastle.asn1.cms.Attribute;
+import org.bouncycastle.asn1.cms.AttributeTable;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.cms.CMSAttributeTableGenerationException;
+import org.bouncycastle.cms.CMSAttributeTableGenerator;
+import org.bouncycastle.cms.SignerInfoGenerator;
+import org.bouncycastle.operator.DigestCalculator;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.bouncycastle.tsp.TSPException;
+import org.bouncycastle.tsp.TimeStampRequest;
+import org.bouncycastle.tsp.TimeStampRequestGenerator;
+import org.bouncycastle.tsp.TimeStampResponse;
+import org.bouncycastle.tsp.TimeStampToken;
+import org.bouncycastle.tsp.ers.ERSArchiveTimeStampGenerator;
+import org.bouncycastle.tsp.ers.ERSByteData;
+import org.bouncycastle.tsp.ers.ERSEvidenceRecord;
+import org.bouncycastle.tsp.ers.ERSEvidenceRecordGenerator;
+import org.bouncycastle.tsp.ers.ERSException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Carimbo do tempo das assinaturas geradas. Em modo batch, as assinaturas que terminam dentro da mesma janela
+// viram folhas de uma árvore de Merkle e só a raiz vai à TSA: cada SignerInfo recebe o token da raiz com a
+// prova de inclusão (registro de evidência da RFC 4998). Lote de uma folha, modo individual ou falha do lote
+// caem no carimbo CAdES-T comum (id-aa-signatureTimeStampToken), uma chamada à TSA por assinatura.
+// Nos dois casos o dado carimbado é o valor da assinatura do SignerInfo, como no CAdES-T.
+@Component
+public class TimestampService implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimestampService.class);
+
+    // id-aa-er-internal (RFC 4998, apêndice A): registro de evidência como atributo não assinado
+    public static final ASN1ObjectIdentifier ID_AA_ER_INTERNAL = new ASN1ObjectIdentifier("1.2.840.113549.1.9.16.2.49");
+
+    public enum Mode { OFF, BATCH, INDIVIDUAL }
+
+    private final TimestampAuthority authority;
+    private final Mode mode;
+    private final AlgorithmIdentifier digestAlgorithm;
+    private final ASN1ObjectIdentifier policy;
+    private final long batchWindowNanos;
+    private final int maxBatch;
+    private final DigestCalculatorProvider digestProvider;
+    private final SecureRandom random = new SecureRandom();
+
+    private final Object lock = new Object();
+    private Batch open;
+
+    private final AtomicLong authorityCalls = new AtomicLong();
+    private final AtomicLong batchedSignatures = new AtomicLong();
+    private final AtomicLong individualSignatures = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    public TimestampService(TimestampAuthority authority,
+                            @Value("${app.signature.timestamp.mode:off}") Mode mode,
+                            @Value("${app.signature.timestamp.digest-algorithm:SHA-256}") String digestAlgorithm,
+                            @Value("${app.signature.timestamp.policy:}") String policy,
+                            @Value("${app.signature.timestamp.batch-window:PT0.05S}") Duration batchWindow,
+                            @Value("${app.signature.timestamp.max-batch:256}") int maxBatch) {
+        this.authority = authority;
+        this.mode = mode;
+        this.digestAlgorithm = new AlgorithmIdentifier(DigestUtil.digestOid(DigestUtil.normalize(digestAlgorithm)));
+        this.policy = policy == null || policy.isBlank() ? null : new ASN1ObjectIdentifier(policy);
+        this.batchWindowNanos = batchWindow.toNanos();
+        this.maxBatch = Math.max(1, maxBatch);
+        try {
+            this.digestProvider = new JcaDigestCalculatorProviderBuilder().build();
+        } catch (OperatorCreationException e) {
+            throw new IllegalStateException("Digest provider unavailable for timestamping", e);
+        }
+    }
+
+    // Carimbo desligado, para montar o serviço de assinatura fora do contexto Spring (testes e benchmarks)
+    public static TimestampService disabled() {
+        return new TimestampService(request -> {
+            throw new IOException("Timestamping is disabled");
+        }, Mode.OFF, "SHA-256", "", Duration.ZERO, 1);
+    }
+
+    public boolean isEnabled() {
+        return mode != Mode.OFF;
+    }
+
+    // Acrescenta o carimbo como atributo não assinado; com o carimbo desligado devolve o gerador sem mudanças
+    public SignerInfoGenerator stamped(SignerInfoGenerator generator) {
+        if (!isEnabled()) {
+            return generator;
+        }
+        return new SignerInfoGenerator(generator, generator.getSignedAttributeTableGenerator(), unsignedAttributes());
+    }
+
+    private CMSAttributeTableGenerator unsignedAttributes() {
+        return parameters -> {
+            byte[] signature = (byte[]) parameters.get(CMSAttributeTableGenerator.SIGNATURE);
+            try {
+                return new AttributeTable(stamp(signature));
+            } catch (IOException | TSPException | ERSException e) {
+                throw new CMSAttributeTableGenerationException("Timestamp failed: " + e.getMessage(), e);
+            }
+        };
+    }
+
+    Attribute stamp(byte[] signature) throws IOException, TSPException, ERSException {
+        if (mode == Mode.INDIVIDUAL) {
+            return individual(signature);
+        }
+        Batch batch;
+        int index;
+        boolean leader;
+        boolean full = false;
+        synchronized (lock) {
+            leader = open == null;
+            if (leader) {
+                open = new Batch();
+            }
+            batch = open;
+            index = batch.leaves.size();
+            batch.leaves.add(signature);
+            if (batch.leaves.size() >= maxBatch) {
+                open = null;
+                full = true;
+            }
+        }
+        if (full) {
+            flush(batch);
+        } else if (leader) {
+            // O primeiro da janela espera os demais e, se o lote não encheu antes, fecha e envia a raiz
+            try {
+                batch.result.get(batchWindowNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                closeAndFlush(batch);
+            } catch (InterruptedException e) {
+                // Mesmo interrompido, o líder fecha o lote para não deixar os demais participantes esperando
+                Thread.currentThread().interrupt();
+                closeAndFlush(batch);
+            } catch (ExecutionException ignored) {
+                // tratado abaixo, como para os demais participantes do lote
+            }
+        }
+
+        List<Attribute> attributes;
+        try {
+            attributes = batch.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Timestamp batch interrupted", e);
+        } catch (ExecutionException e) {
+            // Cada participante refaz o próprio carimbo individualmente, em paralelo, em vez de o lote inteiro
+            // esperar chamadas sequenciais na thread que fechou o lote
+            fallbacks.incrementAndGet();
+            logger.debug("Batch timestamp failed, stamping individually: {}", e.getCause().getMessage());
+            return individual(signature);
+        }
+        return attributes.get(index);
+    }
+
+    private void closeAndFlush(Batch batch) {
+        boolean take;
+        synchronized (lock) {
+            take = open == batch;
+            if (take) {
+                open = null;
+            }
+        }
+        if (take) {
+            flush(batch);
+        }
+    }
+
+    private void flush(Batch batch) {
+        try {
+            if (batch.leaves.size() == 1) {
+                batch.result.complete(List.of(individual(batch.leaves.get(0))));
+                return;
+            }
+            batch.result.complete(aggregate(batch.leaves));
+        } catch (Exception e) {
+            batch.result.completeExceptionally(e);
+        }
+    }
+
+    private List<Attribute> aggregate(List<byte[]> leaves) throws IOException, TSPException, ERSException {
+        ERSArchiveTimeStampGenerator generator = new ERSArchiveTimeStampGenerator(digestCalculator());
+        for (byte[] leaf : leaves) {
+            generator.addData(new ERSByteData(leaf));
+        }
+        TimeStampRequest request = generator.generateTimeStampRequest(requestGenerator(), nonce());
+        TimeStampResponse response = call(request);
+        List<ERSEvidenceRecord> records = new ERSEvidenceRecordGenerator(digestProvider)
+                .generate(generator.generateArchiveTimeStamps(response));
+        if (records.size() != leaves.size()) {
+            throw new ERSException("Evidence records do not match the batch: " + records.size() + " of " + leaves.size());
+        }
+
+        List<Attribute> attributes = new ArrayList<>(leaves.size());
+        for (int i = 0; i < leaves.size(); i++) {
+            ERSEvidenceRecord record = records.get(i);
+            // A prova reduzida precisa levar à raiz carimbada a partir desta folha
+            record.validatePresent(new ERSByteData(leaves.get(i)), response.getTimeStampToken().getTimeStampInfo().getGenTime());
+            attributes.add(new Attribute(ID_AA_ER_INTERNAL, new DERSet(record.toASN1Structure())));
+        }
+        batchedSignatures.addAndGet(leaves.size());
+        logger.debug("Timestamped {} signatures with one TSA token", leaves.size());
+        return attributes;
+    }
+
+    private Attribute individual(byte[] signature) throws IOException, TSPException {
+        DigestCalculator calculator = digestCalculator();
+        calculator.getOutputStream().write(signature);
+        TimeStampRequest request = requestGenerator().generate(digestAlgorithm, calculator.getDigest(), nonce());
+        TimeStampToken token = call(request).getTimeStampToken();
+        individualSignatures.incrementAndGet();
+        return new Attribute(PKCSObjectIdentifiers.id_aa_signatureTimeStampToken,
+                new DERSet(ASN1Primitive.fromByteArray(token.getEncoded())));
+    }
+
+    private TimeStampResponse call(TimeStampRequest request) throws IOException, TSPException {
+        authorityCalls.incrementAndGet();
+        TimeStampResponse response = authority.timestamp(request);
+        // Confere status, imprint, nonce e política da resposta contra a requisição enviada
+        response.validate(request);
+        return response;
+    }
+
+    private TimeStampRequestGenerator requestGenerator() {
+        TimeStampRequestGenerator generator = new TimeStampRequestGenerator();
+        // O certificado da TSA vai no token para que o verificador não dependa de configuração extra
+        generator.setCertReq(true);
+        if (policy != null) {
+            generator.setReqPolicy(policy);
+        }
+        return generator;
+    }
+
+    private DigestCalculator digestCalculator() throws IOException {
+        try {
+            return digestProvider.get(digestAlgorithm);
+        } catch (OperatorCreationException e) {
+            throw new IOException("Digest unavailable for timestamping: " + digestAlgorithm.getAlgorithm(), e);
+        }
+    }
+
+    private BigInteger nonce() {
+        return new BigInteger(64, random);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("signature.timestamp.authority.calls", authorityCalls, AtomicLong::get)
+                .description("Requests sent to the timestamp authority")
+                .register(registry);
+        FunctionCounter.builder("signature.timestamp.signatures", batchedSignatures, AtomicLong::get)
+                .tag("kind", "batch")
+                .description("Signatures timestamped, by Merkle batch or individual token")
+                .register(registry);
+        FunctionCounter.builder("signature.timestamp.signatures", individualSignatures, AtomicLong::get)
+                .tag("kind", "individual")
+                .register(registry);
+        FunctionCounter.builder("signature.timestamp.fallbacks", fallbacks, AtomicLong::get)
+                .description("Batched signatures restamped individually after the batch request failed")
+                .register(registry);
+    }
+
+    private static final class Batch {
+        private final List<byte[]> leaves = new ArrayList<>();
+        private final CompletableFuture<List<Attribute>> result = new CompletableFuture<>();
+    }
+}
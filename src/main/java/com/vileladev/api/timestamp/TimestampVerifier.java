@@ -0,0 +1,184 @@
+package com.vileladev.api.timestamp;
+
+import com.vileladev.api.cache.TrustStore;
+import com.vileladev.api.service.record.SignatureTimestamp;
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.cms.Attribute;
+import org.bouncycastle.asn1.cms.AttributeTable;
+import org.bouncycastle.asn1.cms.ContentInfo;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.tsp.EvidenceRecord;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cms.SignerInformation;
+import org.bouncycastle.cms.SignerInformationVerifier;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.DigestCalculator;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.tsp.TimeStampToken;
+import org.bouncycastle.tsp.ers.ERSArchiveTimeStamp;
+import org.bouncycastle.tsp.ers.ERSByteData;
+import org.bouncycastle.tsp.ers.ERSEvidenceRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.cert.CertPathValidatorException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+// Confere o carimbo do tempo de um signatário: o token CAdES-T precisa carimbar o hash do valor da assinatura e
+// o registro de evidência precisa levar desse valor até a raiz carimbada. Em ambos, a assinatura do token é
+// conferida com o certificado da TSA que vem nele (uso estendido timeStamping) e o caminho desse certificado é
+// validado pela PKIX contra as âncoras de confiança na data do carimbo. Token íntegro de uma TSA fora das âncoras
+// fica NAO_CONFIAVEL
+public final class TimestampVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimestampVerifier.class);
+
+    public static final String TOKEN = "signatureTimeStampToken";
+    public static final String EVIDENCE_RECORD = "evidenceRecord";
+
+    // Limite de certificados no caminho da TSA montado a partir do token
+    private static final int MAX_CHAIN_LENGTH = 10;
+
+    private TimestampVerifier() {
+    }
+
+    // Devolve null quando o signatário não tem carimbo
+    public static SignatureTimestamp verify(SignerInformation signer, DigestCalculatorProvider digestProvider,
+                                            TrustStore trustStore) {
+        return verify(signer.getSignature(), signer.getUnsignedAttributes(), digestProvider, trustStore);
+    }
+
+    static SignatureTimestamp verify(byte[] signature, AttributeTable unsigned, DigestCalculatorProvider digestProvider,
+                                     TrustStore trustStore) {
+        if (unsigned == null) {
+            return null;
+        }
+        Attribute token = unsigned.get(PKCSObjectIdentifiers.id_aa_signatureTimeStampToken);
+        if (token != null) {
+            return verifyToken(signature, token.getAttrValues().getObjectAt(0), digestProvider, trustStore);
+        }
+        Attribute record = unsigned.get(TimestampService.ID_AA_ER_INTERNAL);
+        if (record != null) {
+            return verifyEvidenceRecord(signature, record.getAttrValues().getObjectAt(0), digestProvider, trustStore);
+        }
+        return null;
+    }
+
+    private static SignatureTimestamp verifyToken(byte[] signature, ASN1Encodable value, DigestCalculatorProvider digestProvider,
+                                                  TrustStore trustStore) {
+        Date time = null;
+        try {
+            TimeStampToken token = new TimeStampToken(ContentInfo.getInstance(value));
+            time = token.getTimeStampInfo().getGenTime();
+            DigestCalculator calculator = digestProvider.get(token.getTimeStampInfo().getHashAlgorithm());
+            try (OutputStream out = calculator.getOutputStream()) {
+                out.write(signature);
+            }
+            if (!Arrays.equals(calculator.getDigest(), token.getTimeStampInfo().getMessageImprintDigest())) {
+                return new SignatureTimestamp(TOKEN, time, "INVALIDO");
+            }
+            token.validate(tsaVerifier(tsaCertificates(token)));
+            return new SignatureTimestamp(TOKEN, time, status(token, trustStore));
+        } catch (Exception e) {
+            logger.debug("Timestamp token rejected: {}", e.getMessage());
+            return new SignatureTimestamp(TOKEN, time, "INVALIDO");
+        }
+    }
+
+    private static SignatureTimestamp verifyEvidenceRecord(byte[] signature, ASN1Encodable value,
+                                                           DigestCalculatorProvider digestProvider, TrustStore trustStore) {
+        Date time = null;
+        try {
+            EvidenceRecord structure = EvidenceRecord.getInstance(value);
+            ERSEvidenceRecord record = new ERSEvidenceRecord(structure, digestProvider);
+            // O primeiro carimbo da primeira cadeia é o que cobriu a raiz da árvore na geração
+            ERSArchiveTimeStamp first = new ERSArchiveTimeStamp(structure.getArchiveTimeStampSequence()
+                    .getArchiveTimeStampChains()[0].getArchiveTimestamps()[0], digestProvider);
+            time = first.getGenTime();
+            record.validatePresent(new ERSByteData(signature), time);
+            record.validate(tsaVerifier(List.of(record.getSigningCertificate())));
+            return new SignatureTimestamp(EVIDENCE_RECORD, time, status(first.getTimeStampToken(), trustStore));
+        } catch (Exception e) {
+            logger.debug("Evidence record rejected: {}", e.getMessage());
+            return new SignatureTimestamp(EVIDENCE_RECORD, time, "INVALIDO");
+        }
+    }
+
+    private static SignerInformationVerifier tsaVerifier(Collection<X509CertificateHolder> certificates)
+            throws OperatorCreationException, CertificateException {
+        if (certificates.isEmpty() || certificates.iterator().next() == null) {
+            throw new IllegalArgumentException("Timestamp token carries no TSA certificate");
+        }
+        return new JcaSimpleSignerInfoVerifierBuilder()
+                .setProvider(BouncyCastleProvider.PROVIDER_NAME)
+                .build(certificates.iterator().next());
+    }
+
+    // Certificados do token que casam com o SignerId da TSA
+    private static List<X509CertificateHolder> tsaCertificates(TimeStampToken token) {
+        List<X509CertificateHolder> matches = new ArrayList<>();
+        for (X509CertificateHolder holder : token.getCertificates().getMatches(null)) {
+            if (token.getSID().match(holder)) {
+                matches.add(holder);
+            }
+        }
+        if (matches.isEmpty()) {
+            throw new IllegalArgumentException("Timestamp token carries no TSA certificate");
+        }
+        return matches;
+    }
+
+    // Token já conferido: resta saber se a TSA encadeia até uma âncora na data do carimbo
+    private static String status(TimeStampToken token, TrustStore trustStore) throws GeneralSecurityException {
+        Date genTime = token.getTimeStampInfo().getGenTime();
+        try {
+            trustStore.validate(CertificateFactory.getInstance("X.509", BouncyCastleProvider.PROVIDER_NAME)
+                    .generateCertPath(tsaChain(token, trustStore)), genTime);
+            return "VALIDO";
+        } catch (CertPathValidatorException e) {
+            logger.debug("Timestamp authority not trusted at {}: {}", genTime, e.getMessage());
+            return "NAO_CONFIAVEL";
+        }
+    }
+
+    // Certificado da TSA seguido dos intermediários presentes no token, até um emissor que seja âncora
+    private static List<X509Certificate> tsaChain(TimeStampToken token, TrustStore trustStore) throws CertificateException {
+        JcaX509CertificateConverter converter = new JcaX509CertificateConverter().setProvider(BouncyCastleProvider.PROVIDER_NAME);
+        List<X509Certificate> available = new ArrayList<>();
+        for (X509CertificateHolder holder : token.getCertificates().getMatches(null)) {
+            available.add(converter.getCertificate(holder));
+        }
+        List<X509Certificate> chain = new ArrayList<>();
+        X509Certificate current = converter.getCertificate(tsaCertificates(token).get(0));
+        chain.add(current);
+        while (chain.size() < MAX_CHAIN_LENGTH
+                && !trustStore.isAnchorSubject(current.getIssuerX500Principal())
+                && !current.getIssuerX500Principal().equals(current.getSubjectX500Principal())) {
+            X509Certificate issuer = null;
+            for (X509Certificate candidate : available) {
+                if (candidate.getSubjectX500Principal().equals(current.getIssuerX500Principal()) && !chain.contains(candidate)) {
+                    issuer = candidate;
+                    break;
+                }
+            }
+            if (issuer == null) {
+                break;
+            }
+            chain.add(issuer);
+            current = issuer;
+        }
+        return chain;
+    }
+}
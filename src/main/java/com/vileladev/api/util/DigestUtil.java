@@ -1,5 +1,7 @@
 package com.vileladev.api.util;
 
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
 import org.bouncycastle.util.encoders.Hex;
 
 import java.io.IOException;
@@ -33,6 +35,60 @@ public class DigestUtil {
         }
     }
 
+    // OID do algoritmo de digest aceito no modo de assinatura por hash
+    public static ASN1ObjectIdentifier digestOid(String algorithm) {
+        return switch (normalize(algorithm)) {
+            case "SHA-256" -> NISTObjectIdentifiers.id_sha256;
+            case "SHA-384" -> NISTObjectIdentifiers.id_sha384;
+            case "SHA-512" -> NISTObjectIdentifiers.id_sha512;
+            default -> throw new IllegalArgumentException("Unsupported digest algorithm: " + algorithm);
+        };
+    }
+
+    // Nome JCA do digest a partir do OID (inverso de digestOid)
+    public static String digestName(ASN1ObjectIdentifier oid) {
+        if (NISTObjectIdentifiers.id_sha256.equals(oid)) {
+            return "SHA-256";
+        }
+        if (NISTObjectIdentifiers.id_sha384.equals(oid)) {
+            return "SHA-384";
+        }
+        if (NISTObjectIdentifiers.id_sha512.equals(oid)) {
+            return "SHA-512";
+        }
+        throw new IllegalArgumentException("Unsupported digest algorithm: " + oid);
+    }
+
+    // Aceita "SHA256", "sha-256" etc. e devolve o nome JCA ("SHA-256")
+    public static String normalize(String algorithm) {
+        if (algorithm == null) {
+            throw new IllegalArgumentException("Digest algorithm is required");
+        }
+        String upper = algorithm.trim().toUpperCase();
+        return upper.startsWith("SHA-") ? upper : upper.replace("SHA", "SHA-");
+    }
+
+    // Decodifica o digest em hexadecimal enviado pelo cliente e confere o tamanho com o algoritmo
+    public static byte[] decodeDigest(String algorithm, String hexDigest) {
+        String name = normalize(algorithm);
+        digestOid(name);
+        byte[] digest;
+        try {
+            digest = Hex.decode(hexDigest.trim());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Digest is not valid hexadecimal");
+        }
+        int expected = switch (name) {
+            case "SHA-256" -> 32;
+            case "SHA-384" -> 48;
+            default -> 64;
+        };
+        if (digest.length != expected) {
+            throw new IllegalArgumentException(name + " digest must have " + expected + " bytes, got " + digest.length);
+        }
+        return digest;
+    }
+
     public static void main(String[] args) throws Exception {
          logger.info("SHA-256:" + sha256FromResourceBC("/arquivos/doc.txt"));
     }
@@ -0,0 +1,92 @@
+package com.vileladev.api.util;
+
+import java.security.Key;
+import java.security.interfaces.ECKey;
+import java.security.interfaces.EdECKey;
+import java.security.interfaces.RSAKey;
+
+public class SignatureAlgorithmUtil {
+
+    public static final String RSA = "RSA";
+    public static final String EC = "EC";
+    public static final String ED25519 = "Ed25519";
+    public static final String ED448 = "Ed448";
+
+    // Algoritmo JCA de assinatura para a chave do keystore. Sem escolha do cliente: RSA mantém SHA512withRSA,
+    // EC usa o digest do tamanho da curva (P-256 -> SHA-256) e EdDSA usa o digest fixo do próprio algoritmo.
+    // Aceita a chave pública do certificado: chaves de token PKCS#11 nem sempre expõem módulo ou curva
+    public static String resolve(Key key, String digestAlgorithm, boolean pss) {
+        String family = keyFamily(key);
+        String digest = null;
+        if (digestAlgorithm != null && !digestAlgorithm.isBlank()) {
+            digest = DigestUtil.normalize(digestAlgorithm);
+            DigestUtil.digestOid(digest);
+        }
+        if (pss && !RSA.equals(family)) {
+            throw new IllegalArgumentException("RSASSA-PSS requires an RSA key, the keystore holds " + family);
+        }
+
+        return switch (family) {
+            case RSA -> jcaDigest(digest != null ? digest : "SHA-512")
+                    + (pss || "RSASSA-PSS".equalsIgnoreCase(key.getAlgorithm()) ? "withRSAandMGF1" : "withRSA");
+            case EC -> jcaDigest(digest != null ? digest : curveDigest((ECKey) key)) + "withECDSA";
+            case ED25519 -> {
+                // O Ed25519 faz o hash internamente e o CMS registra SHA-512 como digestAlgorithm (RFC 8419)
+                if (digest != null && !"SHA-512".equals(digest)) {
+                    throw new IllegalArgumentException("Ed25519 signatures use SHA-512, got " + digest);
+                }
+                yield ED25519;
+            }
+            default -> {
+                // Ed448: digest SHAKE256 fixo (RFC 8419)
+                if (digest != null) {
+                    throw new IllegalArgumentException("Ed448 signatures use SHAKE256, got " + digest);
+                }
+                yield ED448;
+            }
+        };
+    }
+
+    // Digest do conteúdo de um algoritmo JCA de assinatura ("SHA256withECDSA" -> "SHA-256", Ed25519 -> "SHA-512");
+    // null para o Ed448, que usa SHAKE256
+    public static String contentDigest(String signatureAlgorithm) {
+        if (ED25519.equalsIgnoreCase(signatureAlgorithm)) {
+            return "SHA-512";
+        }
+        int with = signatureAlgorithm.indexOf("with");
+        return with > 0 ? DigestUtil.normalize(signatureAlgorithm.substring(0, with)) : null;
+    }
+
+    // Família da chave: RSA (inclusive RSASSA-PSS), EC, Ed25519 ou Ed448
+    public static String keyFamily(Key key) {
+        if (key instanceof RSAKey) {
+            return RSA;
+        }
+        if (key instanceof ECKey) {
+            return EC;
+        }
+        // Chaves EdDSA do JDK respondem "EdDSA" em getAlgorithm(); a curva vem dos parâmetros
+        String algorithm = key instanceof EdECKey edKey ? edKey.getParams().getName() : key.getAlgorithm();
+        if (ED25519.equalsIgnoreCase(algorithm)) {
+            return ED25519;
+        }
+        if (ED448.equalsIgnoreCase(algorithm)) {
+            return ED448;
+        }
+        throw new IllegalArgumentException("Unsupported key algorithm: " + key.getAlgorithm());
+    }
+
+    // Digest com a mesma força da curva: P-256 -> SHA-256, P-384 -> SHA-384, P-521 -> SHA-512
+    private static String curveDigest(ECKey key) {
+        int fieldSize = key.getParams().getCurve().getField().getFieldSize();
+        if (fieldSize <= 256) {
+            return "SHA-256";
+        }
+        return fieldSize <= 384 ? "SHA-384" : "SHA-512";
+    }
+
+    // "SHA-256" -> "SHA256", forma usada nos nomes de algoritmo de assinatura do JCA
+    private static String jcaDigest(String digest) {
+        return digest.replace("-", "");
+    }
+}
@@ -0,0 +1,119 @@
+package com.vileladev.api.cache;
+
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CertificateCacheTest {
+
+    private TrustStore trustStore;
+    private List<X509CertificateHolder> holders;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+        trustStore = TrustStore.load(cadeia(), 1);
+        try (Stream<Path> files = Files.list(cadeia())) {
+            holders = files.filter(TrustStore::isCertificateFile).sorted()
+                    .map(CertificateCacheTest::holder)
+                    .toList();
+        }
+        assertTrue(holders.size() >= 2, "cadeia must hold at least two certificates");
+    }
+
+    @Test
+    void testSameEncodingIsDecodedOnceAndSharedAcrossHolders() throws Exception {
+        CertificateCache cache = new CertificateCache(10, Duration.ofHours(1));
+
+        X509Certificate first = cache.intern(holders.get(0));
+        X509Certificate again = cache.intern(new X509CertificateHolder(holders.get(0).getEncoded()));
+
+        assertSame(first, again);
+        assertNotSame(first, cache.intern(holders.get(1)));
+        assertEquals(2, cache.certificateCount());
+    }
+
+    @Test
+    void testChainIsForgottenWhenTrustStoreChangesOrTtlPasses() throws Exception {
+        MutableClock clock = new MutableClock();
+        CertificateCache cache = new CertificateCache(10, Duration.ofMinutes(1), clock);
+        List<X509Certificate> path = List.of(cache.intern(holders.get(0)));
+
+        assertNull(cache.getTrusted(path, trustStore));
+        cache.putTrusted(path, trustStore, true);
+        assertEquals(Boolean.TRUE, cache.getTrusted(path, trustStore));
+
+        // Um novo snapshot das âncoras descarta o resultado
+        assertNull(cache.getTrusted(path, TrustStore.load(cadeia(), 2)));
+        assertEquals(0, cache.chainCount());
+
+        cache.putTrusted(path, trustStore, false);
+        assertEquals(Boolean.FALSE, cache.getTrusted(path, trustStore));
+        clock.advance(Duration.ofMinutes(2));
+        cache.purgeExpired();
+        assertEquals(0, cache.chainCount());
+    }
+
+    @Test
+    void testLeastRecentlyUsedCertificateIsEvicted() throws Exception {
+        CertificateCache cache = new CertificateCache(1, Duration.ofHours(1));
+
+        X509Certificate first = cache.intern(holders.get(0));
+        cache.intern(holders.get(1));
+
+        assertEquals(1, cache.certificateCount());
+        assertNotSame(first, cache.intern(holders.get(0)));
+    }
+
+    private Path cadeia() throws Exception {
+        return Path.of(getClass().getClassLoader().getResource("cadeia").toURI());
+    }
+
+    private static X509CertificateHolder holder(Path file) {
+        try {
+            return new X509CertificateHolder(Files.readAllBytes(file));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.vileladev.api.cache;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.security.Security;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignerMaterialCacheTest {
+
+    private static final String ALIAS = "{e2618a8b-20de-4dd2-b209-70912e3177f4}";
+    private static final String PASSWORD = "bry123456";
+
+    private byte[] pkcs12;
+    private MutableClock clock;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("pkcs12/certificado_teste_hub.pfx")) {
+            assertNotNull(in, "PKCS12 not found at test classpath");
+            pkcs12 = in.readAllBytes();
+        }
+        clock = new MutableClock();
+    }
+
+    @Test
+    void testSecondLookupIsServedFromCache() throws Exception {
+        SignerMaterialCache cache = new SignerMaterialCache(4, Duration.ofMinutes(5), clock);
+
+        try (SignerMaterial first = cache.get(pkcs12, PASSWORD, ALIAS);
+             SignerMaterial second = cache.get(pkcs12, PASSWORD, ALIAS)) {
+            assertSame(first, second);
+            assertNotNull(second.newSignerInfoGenerator());
+        }
+
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testExpiredEntryIsWipedAndReloaded() throws Exception {
+        SignerMaterialCache cache = new SignerMaterialCache(4, Duration.ofMinutes(5), clock);
+
+        SignerMaterial first = cache.get(pkcs12, PASSWORD, ALIAS);
+        first.close();
+
+        clock.advance(Duration.ofMinutes(6));
+        cache.purgeExpired();
+
+        assertTrue(first.isWiped());
+        assertEquals(1, cache.evictionCount());
+        assertEquals(0, cache.size());
+
+        try (SignerMaterial second = cache.get(pkcs12, PASSWORD, ALIAS)) {
+            assertNotSame(first, second);
+        }
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    void testEvictionKeepsMaterialAliveWhileInUse() throws Exception {
+        SignerMaterialCache cache = new SignerMaterialCache(4, Duration.ofMinutes(5), clock);
+
+        SignerMaterial inUse = cache.get(pkcs12, PASSWORD, ALIAS);
+        cache.invalidateAll();
+
+        assertFalse(inUse.isWiped());
+        assertNotNull(inUse.newSignerInfoGenerator());
+
+        inUse.close();
+        assertTrue(inUse.isWiped());
+    }
+
+    @Test
+    void testWrongPasswordIsNotCached() {
+        SignerMaterialCache cache = new SignerMaterialCache(4, Duration.ofMinutes(5), clock);
+
+        assertThrows(Exception.class, () -> cache.get(pkcs12, "wrong", ALIAS));
+        assertEquals(0, cache.size());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
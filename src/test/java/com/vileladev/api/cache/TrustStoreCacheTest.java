@@ -0,0 +1,71 @@
+package com.vileladev.api.cache;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Security;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrustStoreCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private TrustStoreCache cache;
+
+    @BeforeEach
+    void setUp() {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+        cache = new TrustStoreCache();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        cache.close();
+    }
+
+    @Test
+    void testSnapshotIsReusedUntilDirectoryChanges() throws Exception {
+        copyCa("ac_raiz_bry_v3.cer");
+
+        TrustStore first = cache.get(tempDir.toString());
+        TrustStore second = cache.get(tempDir.toString());
+
+        assertSame(first, second);
+        assertEquals(1, first.getAnchors().size());
+    }
+
+    @Test
+    void testDirectoryChangeRebuildsSnapshot() throws Exception {
+        copyCa("ac_raiz_bry_v3.cer");
+        TrustStore initial = cache.get(tempDir.toString());
+
+        copyCa("ac_bry_servidor_seguro_v3.cer");
+
+        TrustStore reloaded = initial;
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (reloaded == initial && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            reloaded = cache.get(tempDir.toString());
+        }
+
+        assertNotSame(initial, reloaded, "Snapshot was not rebuilt after the directory changed");
+        assertEquals(2, reloaded.getAnchors().size());
+        assertTrue(reloaded.getVersion() > initial.getVersion());
+    }
+
+    private void copyCa(String name) throws Exception {
+        Path source = Path.of(getClass().getClassLoader().getResource("cadeia/" + name).toURI());
+        // Escreve em um arquivo temporário e renomeia, como uma implantação atômica faria
+        Path staging = Files.copy(source, tempDir.resolve(name + ".tmp"));
+        Files.move(staging, tempDir.resolve(name));
+    }
+}
@@ -0,0 +1,99 @@
+package com.vileladev.api.cache;
+
+import com.vileladev.api.service.record.SignerVerification;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.security.Security;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerificationResultCacheTest {
+
+    private static final List<SignerVerification> VALID = List.of(new SignerVerification(0, null, "VALIDO", null, null, null));
+
+    private TrustStore trustStore;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+        trustStore = TrustStore.load(cadeia(), 1);
+    }
+
+    @Test
+    void testEntryIsInvalidatedWhenTrustStoreOrRevocationVersionChanges() throws Exception {
+        VerificationResultCache cache = new VerificationResultCache(10, Duration.ofMinutes(10));
+        byte[] digest = VerificationResultCache.digest(new ByteArrayInputStream("p7s".getBytes()));
+
+        cache.put(digest, trustStore, 7, VALID);
+        assertSame(cache.get(digest, trustStore, 7), cache.get(digest, trustStore, 7));
+
+        assertNull(cache.get(digest, trustStore, 8));
+        cache.put(digest, trustStore, 8, VALID);
+        assertNull(cache.get(digest, TrustStore.load(cadeia(), 2), 8));
+
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.hitCount());
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    void testLeastRecentlyUsedIsEvictedAndExpiredEntriesArePurged() throws Exception {
+        MutableClock clock = new MutableClock();
+        VerificationResultCache cache = new VerificationResultCache(2, Duration.ofMinutes(1), clock);
+        byte[] a = {1};
+        byte[] b = {2};
+        byte[] c = {3};
+
+        cache.put(a, trustStore, 0, VALID);
+        cache.put(b, trustStore, 0, VALID);
+        cache.get(a, trustStore, 0);
+        cache.put(c, trustStore, 0, VALID);
+
+        assertNotNull(cache.get(a, trustStore, 0));
+        assertNull(cache.get(b, trustStore, 0));
+        assertNotNull(cache.get(c, trustStore, 0));
+
+        clock.advance(Duration.ofMinutes(2));
+        cache.purgeExpired();
+        assertEquals(0, cache.size());
+    }
+
+    private Path cadeia() throws Exception {
+        return Path.of(getClass().getClassLoader().getResource("cadeia").toURI());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.vileladev.api.controller;
+
+import com.vileladev.api.storage.ScratchBuffer;
+import com.vileladev.api.storage.ScratchSpace;
+import com.vileladev.api.storage.SignatureStorage;
+import com.vileladev.api.storage.StoredSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignatureRestControllerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ScratchSpace scratchSpace;
+    private SignatureStorage storage;
+    private SignatureRestController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        scratchSpace = new ScratchSpace(tempDir.resolve("scratch").toString(), 1024, Long.MAX_VALUE);
+        scratchSpace.init();
+        storage = new SignatureStorage(tempDir.toString(), true, Runnable::run);
+        controller = new SignatureRestController(null, null, null, storage, null);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        storage.close();
+    }
+
+    @Test
+    void testStoredSignatureIsHandedToTomcatSendfile() throws Exception {
+        StoredSignature stored = persist("assinatura guardada");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+
+        ResponseEntity<StreamingResponseBody> response = controller.getStoredSignatureBinary(stored.id(), request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(stored.size(), response.getHeaders().getContentLength());
+        assertEquals(storage.path(stored).toRealPath().toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(0L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(stored.size(), request.getAttribute("org.apache.tomcat.sendfile.end"));
+        assertNull(response.getBody());
+    }
+
+    @Test
+    void testStoredSignatureOpenedBeforeRetentionIsStillServed() throws Exception {
+        StoredSignature stored = persist("assinatura guardada");
+
+        ResponseEntity<StreamingResponseBody> response =
+                controller.getStoredSignatureBinary(stored.id(), new MockHttpServletRequest());
+        // A retenção remove o objeto entre a resposta montada e a escrita do corpo
+        Files.delete(storage.path(stored));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        assertEquals("assinatura guardada", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testStoredSignatureRemovedAfterLookupIsNotFound() throws Exception {
+        StoredSignature stored = persist("assinatura guardada");
+        // Ainda no índice, mas o arquivo já foi removido pela retenção
+        Files.delete(storage.path(stored));
+
+        MockHttpServletRequest sendfile = new MockHttpServletRequest();
+        sendfile.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        assertEquals(HttpStatus.NOT_FOUND, controller.getStoredSignatureBinary(stored.id(), sendfile).getStatusCode());
+        assertNull(sendfile.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(HttpStatus.NOT_FOUND,
+                controller.getStoredSignatureBinary(stored.id(), new MockHttpServletRequest()).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, controller.getStoredSignature(stored.id()).getStatusCode());
+    }
+
+    private StoredSignature persist(String content) throws Exception {
+        try (ScratchBuffer buffer = scratchSpace.newBuffer()) {
+            try (OutputStream out = buffer.outputStream()) {
+                out.write(content.getBytes(StandardCharsets.UTF_8));
+            }
+            return storage.persistAsync(buffer).get();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.vileladev.api.crypto;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.operator.ContentSigner;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrivateKeyLimiterTest {
+
+    @Test
+    void testGuardNeverExceedsMaxConcurrencyAndReportsQueue() throws Exception {
+        PrivateKeyLimiter limiter = new PrivateKeyLimiter(2);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        limiter.bindTo(registry);
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ContentSigner slow = new FakeSigner(() -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<byte[]>> signatures = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                signatures.add(pool.submit(() -> limiter.guard(slow).getSignature()));
+            }
+
+            for (int i = 0; i < 100 && limiter.waitingCount() < 3; i++) {
+                Thread.sleep(20);
+            }
+            assertEquals(2, limiter.activeCount());
+            assertEquals(3, limiter.waitingCount());
+            assertEquals(3.0, registry.get("crypto.limiter.queue").gauge().value());
+
+            release.countDown();
+            for (Future<byte[]> signature : signatures) {
+                assertArrayEquals(new byte[]{1}, signature.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(2, peak.get());
+        assertEquals(0, limiter.activeCount());
+        FunctionTimer wait = registry.get("crypto.limiter.wait").functionTimer();
+        assertEquals(5.0, wait.count());
+        assertTrue(wait.totalTime(TimeUnit.NANOSECONDS) > 0);
+    }
+
+    private record FakeSigner(Runnable onSign) implements ContentSigner {
+
+        @Override
+        public AlgorithmIdentifier getAlgorithmIdentifier() {
+            return null;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return new ByteArrayOutputStream();
+        }
+
+        @Override
+        public byte[] getSignature() {
+            onSign.run();
+            return new byte[]{1};
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.vileladev.api.crypto;
+
+import com.vileladev.api.cache.SignerMaterial;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignerKeyRegistryTest {
+
+    private static final String PASSWORD = "bry123456";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testKeystoreWithSeveralKeysRegistersOneIdPerAlias() throws Exception {
+        // O mesmo par do .pfx de teste sob dois aliases, com a senha padrão do diretório
+        KeyStore source = fixture();
+        String alias = source.aliases().nextElement();
+        KeyStore keystore = KeyStore.getInstance("PKCS12");
+        keystore.load(null, null);
+        for (String name : List.of("primeira", "segunda")) {
+            keystore.setKeyEntry(name, source.getKey(alias, PASSWORD.toCharArray()), PASSWORD.toCharArray(),
+                    source.getCertificateChain(alias));
+        }
+        try (OutputStream out = Files.newOutputStream(tempDir.resolve("loja.p12"))) {
+            keystore.store(out, PASSWORD.toCharArray());
+        }
+        Files.writeString(tempDir.resolve("leia-me.txt"), "ignorado");
+
+        SignerKeyRegistry registry = new SignerKeyRegistry(List.of(
+                new KeystoreDirectoryKeyProvider(tempDir.toString(), PASSWORD)));
+        registry.init();
+        try {
+            assertEquals(List.of("loja:primeira", "loja:segunda"),
+                    registry.list().stream().map(key -> key.id()).sorted().toList());
+            assertEquals("keystore", registry.list().get(0).provider());
+
+            SignerMaterial material = registry.acquire("loja:segunda");
+            material.close();
+            // A referência do registro mantém a chave destravada depois que a requisição a libera
+            assertFalse(material.isWiped());
+            assertThrows(IllegalArgumentException.class, () -> registry.acquire("loja"));
+        } finally {
+            registry.close();
+        }
+    }
+
+    @Test
+    void testSameIdFromTwoProvidersFailsStartupAndReleasesKeys() throws Exception {
+        KeyStore source = fixture();
+        String alias = source.aliases().nextElement();
+        SignerMaterial first = SignerMaterial.load(source, PASSWORD.toCharArray(), alias, null, null);
+        SignerMaterial second = SignerMaterial.load(source, PASSWORD.toCharArray(), alias, null, null);
+
+        SignerKeyRegistry registry = new SignerKeyRegistry(List.of(
+                new FixedProvider("a", Map.of("hub", first)),
+                new FixedProvider("b", Map.of("hub", second))));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, registry::init);
+        assertTrue(ex.getMessage().contains("hub"));
+        assertTrue(first.isWiped());
+        assertTrue(second.isWiped());
+    }
+
+    @Test
+    void testFailingProviderClosesEveryProvider() throws Exception {
+        KeyStore source = fixture();
+        SignerMaterial loaded = SignerMaterial.load(source, PASSWORD.toCharArray(), source.aliases().nextElement(), null, null);
+        FixedProvider first = new FixedProvider("a", Map.of("hub", loaded));
+        FixedProvider failing = new FixedProvider("token", null);
+
+        SignerKeyRegistry registry = new SignerKeyRegistry(List.of(first, failing));
+
+        // Como um PIN errado no token: o provedor que já carregou e o que falhou são encerrados
+        assertThrows(IllegalStateException.class, registry::init);
+        assertTrue(loaded.isWiped());
+        assertTrue(first.closed.get());
+        assertTrue(failing.closed.get());
+    }
+
+    private KeyStore fixture() throws Exception {
+        KeyStore keystore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("pkcs12/certificado_teste_hub.pfx")) {
+            keystore.load(in, PASSWORD.toCharArray());
+        }
+        return keystore;
+    }
+
+    // Sem chaves (keys nulo), falha como um token que recusa o login
+    private record FixedProvider(String name, Map<String, SignerMaterial> keys, AtomicBoolean closed) implements KeyProvider {
+
+        FixedProvider(String name, Map<String, SignerMaterial> keys) {
+            this(name, keys, new AtomicBoolean());
+        }
+
+        @Override
+        public Map<String, SignerMaterial> loadKeys() {
+            if (keys == null) {
+                throw new IllegalStateException("Token login failed");
+            }
+            return keys;
+        }
+
+        @Override
+        public void close() {
+            closed.set(true);
+        }
+    }
+}
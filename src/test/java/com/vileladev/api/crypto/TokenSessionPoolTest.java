@@ -0,0 +1,100 @@
+package com.vileladev.api.crypto;
+
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.operator.ContentSigner;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenSessionPoolTest {
+
+    @Test
+    void testTokenSignerIsCreatedOnlyAtSignatureTimeWithinSessionLimit() throws Exception {
+        TokenSessionPool pool = new TokenSessionPool("teste", 1);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<ContentSigner> signers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ContentSigner deferred = pool.deferred(null, () -> {
+                created.incrementAndGet();
+                return new EchoSigner(() -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                });
+            });
+            deferred.getOutputStream().write(new byte[]{(byte) i, 42});
+            signers.add(deferred);
+        }
+        // Os atributos assinados já passaram pelo signer, mas nenhuma sessão do token foi usada
+        assertEquals(0, created.get());
+        assertEquals(0, pool.activeCount());
+
+        ExecutorService threads = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<byte[]>> signatures = new ArrayList<>();
+            for (ContentSigner signer : signers) {
+                signatures.add(threads.submit(signer::getSignature));
+            }
+            for (int i = 0; i < 100 && pool.waitingCount() < 2; i++) {
+                Thread.sleep(20);
+            }
+            assertEquals(1, pool.activeCount());
+            assertEquals(2, pool.waitingCount());
+
+            release.countDown();
+            for (int i = 0; i < signatures.size(); i++) {
+                assertArrayEquals(new byte[]{(byte) i, 42}, signatures.get(i).get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+
+        assertEquals(3, created.get());
+        assertEquals(1, peak.get());
+        assertEquals(3, pool.acquisitionCount());
+        assertEquals(0, pool.activeCount());
+    }
+
+    // Devolve como "assinatura" os próprios bytes recebidos
+    private record EchoSigner(Runnable onSign, ByteArrayOutputStream received) implements ContentSigner {
+
+        EchoSigner(Runnable onSign) {
+            this(onSign, new ByteArrayOutputStream());
+        }
+
+        @Override
+        public AlgorithmIdentifier getAlgorithmIdentifier() {
+            return null;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return received;
+        }
+
+        @Override
+        public byte[] getSignature() {
+            onSign.run();
+            return received.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.vileladev.api.digest;
+
+import com.vileladev.api.exception.DigestSessionException;
+import com.vileladev.api.service.record.DigestSession;
+import com.vileladev.api.service.record.DocumentDigest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DigestServiceTest {
+
+    @Test
+    void testSinglePassMatchesMessageDigestAcrossParallelBlocks() throws Exception {
+        byte[] content = randomContent(1024 * 1024 + 17);
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            // Blocos de 64 KB, todos acima do limiar: SHA-384 e SHA-512 rodam no pool, SHA-256 na chamadora
+            DigestService service = new DigestService(pool, List.of("SHA-256"), 64 * 1024, 1, Duration.ofHours(1), 4);
+            DocumentDigest digest = service.digest(new ByteArrayInputStream(content), List.of("sha256", "SHA-384", "SHA512"));
+
+            assertEquals(content.length, digest.length());
+            assertEquals(List.of("SHA-256", "SHA-384", "SHA-512"), List.copyOf(digest.digests().keySet()));
+            for (String algorithm : digest.digests().keySet()) {
+                assertEquals(hex(algorithm, content), digest.digests().get(algorithm));
+            }
+            // Sem algoritmos pedidos valem os padrões
+            assertEquals(List.of("SHA-256"),
+                    List.copyOf(service.digest(new ByteArrayInputStream(content), List.of()).digests().keySet()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testDigestingStreamCoversSingleByteReadsAndSkips() throws Exception {
+        byte[] content = randomContent(50_000);
+        MultiDigest digest = DigestService.sequential().newDigest(List.of("SHA-256"));
+        try (InputStream in = digest.inputStream(new ByteArrayInputStream(content))) {
+            assertEquals(content[0] & 0xFF, in.read());
+            long skipped = 0;
+            while (skipped < 20_000) {
+                skipped += in.skip(20_000 - skipped);
+            }
+            in.transferTo(OutputStream.nullOutputStream());
+            assertEquals(-1, in.read());
+        }
+        assertEquals(content.length, digest.length());
+        assertEquals(hex("SHA-256", content), Hex.toHexString(digest.digest("SHA-256")));
+    }
+
+    @Test
+    void testSessionKeepsDigestStateBetweenPartsAndRejectsOutOfOrderParts() throws Exception {
+        DigestService service = DigestService.sequential();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        service.bindTo(registry);
+        byte[] content = randomContent(200_000);
+
+        DigestSession session = service.startSession(List.of());
+        assertEquals(List.of("SHA-256", "SHA-512"), session.algorithms());
+        assertEquals(70_000, service.append(session.id(), 0, part(content, 0, 70_000)).length());
+
+        // Parte repetida ou fora de ordem não altera o estado
+        DigestSessionException conflict = assertThrows(DigestSessionException.class,
+                () -> service.append(session.id(), 0, part(content, 0, 70_000)));
+        assertEquals(HttpStatus.CONFLICT, conflict.getStatus());
+        assertEquals(DigestService.OFFSET_MISMATCH, conflict.getErrorCode());
+
+        // Conexão que cai no meio da parte: o que chegou fica digerido e o cliente retoma do length da sessão
+        InputStream broken = new FilterInputStream(part(content, 70_000, 100_000)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n < 0) {
+                    throw new IOException("connection reset");
+                }
+                return n;
+            }
+        };
+        assertThrows(IOException.class, () -> service.append(session.id(), 70_000, broken));
+        long resumeAt = service.get(session.id()).length();
+        assertEquals(100_000, resumeAt);
+
+        assertEquals(content.length, service.append(session.id(), resumeAt,
+                part(content, (int) resumeAt, content.length)).length());
+        assertEquals(1.0, registry.get("digest.sessions.open").gauge().value());
+
+        DocumentDigest digest = service.complete(session.id());
+        assertEquals(content.length, digest.length());
+        assertEquals(hex("SHA-256", content), digest.digests().get("SHA-256"));
+        assertEquals(hex("SHA-512", content), digest.digests().get("SHA-512"));
+
+        DigestSessionException gone = assertThrows(DigestSessionException.class, () -> service.get(session.id()));
+        assertEquals(HttpStatus.NOT_FOUND, gone.getStatus());
+        assertEquals(0.0, registry.get("digest.sessions.open").gauge().value());
+    }
+
+    @Test
+    void testConcurrentPartIsRejectedWhileGetReadsLastSnapshot() throws Exception {
+        DigestService service = DigestService.sequential();
+        byte[] content = randomContent(20_000);
+        DigestSession session = service.startSession(List.of("SHA-256"));
+        service.append(session.id(), 0, part(content, 0, 10_000));
+
+        // Parte cuja leitura fica parada até o teste liberar, como um upload lento
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InputStream slow = new FilterInputStream(part(content, 10_000, 20_000)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                reading.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return super.read(b, off, len);
+            }
+        };
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<DigestSession> pending = pool.submit(() -> service.append(session.id(), 10_000, slow));
+            assertTrue(reading.await(10, TimeUnit.SECONDS));
+
+            DigestSessionException busy = assertThrows(DigestSessionException.class,
+                    () -> service.append(session.id(), 10_000, part(content, 10_000, 20_000)));
+            assertEquals(HttpStatus.CONFLICT, busy.getStatus());
+            assertEquals(DigestService.SESSION_BUSY, busy.getErrorCode());
+            assertEquals(DigestService.SESSION_BUSY, assertThrows(DigestSessionException.class,
+                    () -> service.complete(session.id())).getErrorCode());
+            // O GET não espera a parte em andamento
+            assertEquals(10_000, service.get(session.id()).length());
+
+            release.countDown();
+            assertEquals(20_000, pending.get(10, TimeUnit.SECONDS).length());
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+        assertEquals(hex("SHA-256", content), service.complete(session.id()).digests().get("SHA-256"));
+    }
+
+    @Test
+    void testSessionsExpireAndAreLimited() throws Exception {
+        DigestService expiring = new DigestService(Runnable::run, List.of("SHA-256"), 1024, Integer.MAX_VALUE,
+                Duration.ZERO, 4);
+        DigestSession session = expiring.startSession(List.of());
+        Thread.sleep(5);
+        assertEquals(HttpStatus.NOT_FOUND, assertThrows(DigestSessionException.class,
+                () -> expiring.append(session.id(), 0, part(new byte[10], 0, 10))).getStatus());
+
+        DigestService limited = new DigestService(Runnable::run, List.of("SHA-256"), 1024, Integer.MAX_VALUE,
+                Duration.ofHours(1), 1);
+        limited.startSession(List.of());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS,
+                assertThrows(DigestSessionException.class, () -> limited.startSession(List.of())).getStatus());
+    }
+
+    private static InputStream part(byte[] content, int from, int to) {
+        return new ByteArrayInputStream(Arrays.copyOfRange(content, from, to));
+    }
+
+    private static byte[] randomContent(int size) {
+        byte[] content = new byte[size];
+        new Random(42).nextBytes(content);
+        return content;
+    }
+
+    private static String hex(String algorithm, byte[] content) throws Exception {
+        return Hex.toHexString(MessageDigest.getInstance(algorithm).digest(content));
+    }
+}
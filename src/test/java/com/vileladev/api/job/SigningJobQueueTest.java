@@ -0,0 +1,257 @@
+package com.vileladev.api.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.vileladev.api.cache.SignerMaterialCache;
+import com.vileladev.api.crypto.KeystoreDirectoryKeyProvider;
+import com.vileladev.api.crypto.PrivateKeyLimiter;
+import com.vileladev.api.crypto.SignerKeyRegistry;
+import com.vileladev.api.digest.DigestService;
+import com.vileladev.api.exception.DocumentSigningException;
+import com.vileladev.api.exception.SigningJobException;
+import com.vileladev.api.metrics.SignatureMetrics;
+import com.vileladev.api.service.impl.SignatureSignerServiceImpl;
+import com.vileladev.api.service.record.SignatureOptions;
+import com.vileladev.api.service.record.SignerKey;
+import com.vileladev.api.storage.ScratchSpace;
+import com.vileladev.api.storage.SignatureStorage;
+import com.vileladev.api.timestamp.TimestampService;
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.SignerInformation;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Security;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SigningJobQueueTest {
+
+    private static final String ALIAS = "{e2618a8b-20de-4dd2-b209-70912e3177f4}";
+    private static final String PASSWORD = "bry123456";
+    // Chave AES-256 fixa dos testes (app.signature.jobs.secret-key)
+    private static final String SECRET_KEY = "AAECAwQFBgcICQoLDA0ODxAREhMUFRYXGBkaGxwdHh8=";
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final List<ThreadPoolTaskExecutor> executors = new ArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ThreadPoolTaskExecutor signingExecutor;
+    private ScratchSpace scratchSpace;
+    private SignatureSignerServiceImpl signerService;
+    private Path jobsDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+        signingExecutor = executor(2, 16);
+        scratchSpace = new ScratchSpace(tempDir.resolve("scratch").toString(), 1024 * 1024, 64L * 1024 * 1024);
+        scratchSpace.init();
+        signerService = signerService(new SignerKeyRegistry(List.of()));
+        jobsDir = tempDir.resolve("jobs");
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executors.forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+
+    @Test
+    void testSubmitReturnsQueuedJobAndWorkerStoresSignature() throws Exception {
+        SigningJobQueue queue = queue(executor(1, 16));
+
+        SigningJob job = queue.submit(document("contrato assíncrono"), key(), SignatureOptions.DEFAULT, null);
+        assertEquals(SigningJobStatus.QUEUED, job.status());
+
+        SigningJob done = awaitFinished(queue, job.id());
+        assertEquals(SigningJobStatus.DONE, done.status(), String.valueOf(done.error()));
+        CMSSignedData cms = new CMSSignedData(Files.readAllBytes(queue.result(job.id())));
+        assertArrayEquals("contrato assíncrono".getBytes(StandardCharsets.UTF_8), (byte[]) cms.getSignedContent().getContent());
+
+        // Keystore, senha cifrada e documento não ficam no disco depois do job
+        try (var files = Files.list(jobsDir.resolve(job.id()))) {
+            assertEquals(Set.of("job.json", "signature.p7s"),
+                    Set.copyOf(files.map(p -> p.getFileName().toString()).toList()));
+        }
+    }
+
+    @Test
+    void testUnfinishedJobsAreResumedAfterRestart() throws Exception {
+        // Primeira instância: o único worker fica ocupado e o job não chega a rodar
+        ThreadPoolTaskExecutor stuck = executor(1, 16);
+        stuck.execute(this::awaitRelease);
+        SigningJobQueue crashed = queue(stuck);
+        SigningJob job = crashed.submit(document("sobrevive ao restart"), key(), SignatureOptions.DEFAULT, null);
+
+        // Simula a queda no meio da assinatura
+        Path jobFile = jobsDir.resolve(job.id()).resolve("job.json");
+        objectMapper.writeValue(jobFile.toFile(), job.running(Instant.now()));
+
+        SigningJobQueue restarted = queue(executor(1, 16));
+        SigningJob done = awaitFinished(restarted, job.id());
+
+        assertEquals(SigningJobStatus.DONE, done.status(), String.valueOf(done.error()));
+        assertEquals(2, done.attempts());
+    }
+
+    @Test
+    void testFullQueueRejectsSubmissionWithoutLeavingFiles() throws Exception {
+        ThreadPoolTaskExecutor busy = executor(1, 1);
+        busy.execute(this::awaitRelease);
+        SigningJobQueue queue = queue(busy);
+
+        SigningJob accepted = queue.submit(document("primeiro"), key(), SignatureOptions.DEFAULT, null);
+        SigningJobException ex = assertThrows(SigningJobException.class, () ->
+                queue.submit(document("segundo"), key(), SignatureOptions.DEFAULT, null));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, ex.getStatus());
+        try (var dirs = Files.list(jobsDir)) {
+            assertEquals(List.of(accepted.id()),
+                    dirs.filter(Files::isDirectory).map(p -> p.getFileName().toString()).toList());
+        }
+    }
+
+    @Test
+    void testRegisteredKeyJobStoresOnlyKeyIdAndKeepsOptions() throws Exception {
+        Path keysDir = Files.createDirectories(tempDir.resolve("keys"));
+        Files.write(keysDir.resolve("hub.pfx"), key().pkcs12());
+        SignerKeyRegistry registry = new SignerKeyRegistry(List.of(new KeystoreDirectoryKeyProvider(keysDir.toString(), PASSWORD)));
+        registry.init();
+        try {
+            signerService = signerService(registry);
+            ThreadPoolTaskExecutor stuck = executor(1, 16);
+            stuck.execute(this::awaitRelease);
+            SigningJobQueue queue = queue(stuck);
+
+            SigningJob job = queue.submit(document("contrato com chave registrada"), SignerKey.registered("hub"),
+                    new SignatureOptions("SHA-256", true), null);
+            assertEquals("hub", job.keyId());
+            assertNull(job.alias());
+
+            // Enquanto espera o worker, o job não tem keystore nem senha no disco
+            try (var files = Files.list(jobsDir.resolve(job.id()))) {
+                assertEquals(Set.of("job.json", "document"),
+                        Set.copyOf(files.map(p -> p.getFileName().toString()).toList()));
+            }
+
+            release.countDown();
+            SigningJob done = awaitFinished(queue, job.id());
+            assertEquals(SigningJobStatus.DONE, done.status(), String.valueOf(done.error()));
+            SignerInformation signer = new CMSSignedData(Files.readAllBytes(queue.result(job.id())))
+                    .getSignerInfos().getSigners().iterator().next();
+            assertEquals(NISTObjectIdentifiers.id_sha256.getId(), signer.getDigestAlgOID());
+            assertEquals(PKCSObjectIdentifiers.id_RSASSA_PSS.getId(), signer.getEncryptionAlgOID());
+
+            DocumentSigningException ex = assertThrows(DocumentSigningException.class, () ->
+                    queue.submit(document("x"), SignerKey.registered("desconhecida"), SignatureOptions.DEFAULT, null));
+            assertEquals("INVALID_ARGUMENT", ex.getErrorCode());
+        } finally {
+            registry.close();
+        }
+    }
+
+    @Test
+    void testUploadedKeystoreIsRefusedWithoutSecretKey() throws Exception {
+        SigningJobQueue queue = queue(executor(1, 16), "");
+
+        SigningJobException ex = assertThrows(SigningJobException.class, () ->
+                queue.submit(document("x"), key(), SignatureOptions.DEFAULT, null));
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatus());
+        assertEquals("JOB_SECRET_KEY_NOT_CONFIGURED", ex.getErrorCode());
+
+        // Nenhuma chave é gerada no diretório de jobs, e nada do envio recusado fica no disco
+        try (var entries = Files.list(jobsDir)) {
+            assertEquals(List.of(), entries.toList());
+        }
+    }
+
+    @Test
+    void testCallbackHostMustBeAllowed() throws Exception {
+        SigningJobQueue queue = queue(executor(1, 16));
+
+        DocumentSigningException ex = assertThrows(DocumentSigningException.class, () ->
+                queue.submit(document("x"), key(), SignatureOptions.DEFAULT, "http://169.254.169.254/latest"));
+        assertEquals("INVALID_ARGUMENT", ex.getErrorCode());
+    }
+
+    private SigningJob awaitFinished(SigningJobQueue queue, String id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 15_000;
+        SigningJob job = queue.get(id);
+        while (!job.status().isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            job = queue.get(id);
+        }
+        return job;
+    }
+
+    private SignatureSignerServiceImpl signerService(SignerKeyRegistry registry) {
+        return new SignatureSignerServiceImpl(
+                new SignerMaterialCache(16, Duration.ofMinutes(5)), registry, signingExecutor, objectMapper,
+                scratchSpace, new SignatureStorage(tempDir.toString(), false, signingExecutor), new PrivateKeyLimiter(2),
+                TimestampService.disabled(), DigestService.sequential(), SignatureMetrics.noop());
+    }
+
+    private SigningJobQueue queue(ThreadPoolTaskExecutor executor) throws Exception {
+        return queue(executor, SECRET_KEY);
+    }
+
+    private SigningJobQueue queue(ThreadPoolTaskExecutor executor, String secretKey) throws Exception {
+        SigningJobQueue queue = new SigningJobQueue(signerService, executor, objectMapper, jobsDir.toString(),
+                secretKey, Duration.ofHours(1), 3, Set.of("localhost"));
+        queue.init();
+        return queue;
+    }
+
+    private ThreadPoolTaskExecutor executor(int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        // O @TempDir só é apagado depois que os jobs liberados no tearDown terminam
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        executors.add(executor);
+        return executor;
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static MockMultipartFile document(String content) {
+        return new MockMultipartFile("file", "documento.txt", "text/plain", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private SignerKey key() throws Exception {
+        return SignerKey.uploaded(Files.readAllBytes(Path.of(getClass().getClassLoader()
+                .getResource("pkcs12/certificado_teste_hub.pfx").toURI())), PASSWORD, ALIAS);
+    }
+}
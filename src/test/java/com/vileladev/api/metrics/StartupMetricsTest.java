@@ -0,0 +1,60 @@
+package com.vileladev.api.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StartupMetricsTest {
+
+    @Test
+    void testOnlySuccessfulSignAndVerifyRequestsCount() throws Exception {
+        StartupMetrics metrics = new StartupMetrics(Duration.ofMinutes(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        metrics.bindTo(registry);
+
+        // Consultas baratas e erros rápidos não marcam a primeira requisição rápida
+        request(metrics, "GET", "/api/keys", HttpServletResponse.SC_OK);
+        request(metrics, "GET", "/api/signature/stored/abc", HttpServletResponse.SC_OK);
+        request(metrics, "POST", "/api/signature/jobs", HttpServletResponse.SC_ACCEPTED);
+        request(metrics, "POST", "/api/digest", HttpServletResponse.SC_OK);
+        request(metrics, "POST", "/api/signature", HttpServletResponse.SC_BAD_REQUEST);
+        request(metrics, "POST", "/api/verify", HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        assertTrue(Double.isNaN(registry.get("startup.first.fast.request").gauge().value()));
+
+        request(metrics, "POST", "/api/verify/detached", HttpServletResponse.SC_OK);
+        assertFalse(Double.isNaN(registry.get("startup.first.fast.request").gauge().value()));
+        assertEquals(0.0, registry.get("startup.slow.requests").functionCounter().count());
+    }
+
+    @Test
+    void testSlowRequestsBeforeTheFirstFastOneAreCounted() {
+        StartupMetrics metrics = new StartupMetrics(Duration.ofMillis(200));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        metrics.bindTo(registry);
+
+        metrics.record(Duration.ofSeconds(2).toNanos());
+        metrics.record(Duration.ofMillis(10).toNanos());
+        metrics.record(Duration.ofSeconds(2).toNanos());
+
+        assertEquals(2.0, registry.get("startup.slow.requests").functionCounter().count());
+        assertFalse(Double.isNaN(registry.get("startup.first.fast.request").gauge().value()));
+    }
+
+    private static void request(StartupMetrics metrics, String method, String uri, int status) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        metrics.doFilter(request, response, new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest req, jakarta.servlet.ServletResponse res) {
+                ((HttpServletResponse) res).setStatus(status);
+            }
+        });
+    }
+}
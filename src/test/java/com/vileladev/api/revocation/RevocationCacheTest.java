@@ -0,0 +1,341 @@
+package com.vileladev.api.revocation;
+
+import com.sun.net.httpserver.HttpServer;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AccessDescription;
+import org.bouncycastle.asn1.x509.AuthorityInformationAccess;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CRLConverter;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v2CRLBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cert.ocsp.BasicOCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.Req;
+import org.bouncycastle.cert.ocsp.RespID;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevocationCacheTest {
+
+    private static final X500Name CA_NAME = new X500Name("CN=Revocation Test CA");
+
+    @TempDir
+    Path tempDir;
+
+    private KeyPair caKeys;
+    private X509Certificate ca;
+    private ExecutorService executor;
+    private HttpServer responder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+        caKeys = keyPair();
+        ca = certificate(CA_NAME, BigInteger.ONE, caKeys, true, null);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (responder != null) {
+            responder.stop(0);
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testCrlFromDirectoryRevokesOnlyListedSerials() throws Exception {
+        X509Certificate revoked = certificate(new X500Name("CN=Revoked"), BigInteger.valueOf(10), keyPair(), false, null);
+        X509Certificate valid = certificate(new X500Name("CN=Valid"), BigInteger.valueOf(11), keyPair(), false, null);
+        Files.write(tempDir.resolve("ca.crl"), crl(Instant.now().plus(Duration.ofDays(1)), revoked.getSerialNumber()).getEncoded());
+
+        RevocationCache cache = cache(RevocationCache.Mode.SOFT_FAIL);
+        cache.init();
+
+        assertEquals(1, cache.crlCount());
+        assertEquals(RevocationStatus.REVOKED, cache.check(revoked, ca));
+        assertEquals(RevocationStatus.GOOD, cache.check(valid, ca));
+        assertFalse(cache.accepts(RevocationStatus.REVOKED));
+    }
+
+    @Test
+    void testExpiredCrlIsIgnoredAndHardFailRejectsUnknown() throws Exception {
+        X509Certificate leaf = certificate(new X500Name("CN=Leaf"), BigInteger.valueOf(12), keyPair(), false, null);
+        Files.write(tempDir.resolve("ca.crl"), crl(Instant.now().minus(Duration.ofMinutes(1))).getEncoded());
+
+        RevocationCache cache = cache(RevocationCache.Mode.HARD_FAIL);
+        cache.init();
+
+        assertEquals(RevocationStatus.UNKNOWN, cache.check(leaf, ca));
+        assertFalse(cache.accepts(RevocationStatus.UNKNOWN));
+        assertTrue(cache(RevocationCache.Mode.SOFT_FAIL).accepts(RevocationStatus.UNKNOWN));
+    }
+
+    @Test
+    void testMissIsAnsweredImmediatelyAndFilledFromOcspResponderInBackground() throws Exception {
+        BigInteger revokedSerial = BigInteger.valueOf(21);
+        AtomicInteger requests = new AtomicInteger();
+        startOcspResponder(revokedSerial, requests);
+        String url = ocspUrl();
+
+        X509Certificate valid = certificate(new X500Name("CN=Valid"), BigInteger.valueOf(20), keyPair(), false, url);
+        X509Certificate revoked = certificate(new X500Name("CN=Revoked"), revokedSerial, keyPair(), false, url);
+        Deque<Runnable> background = new ArrayDeque<>();
+        RevocationCache cache = cache(new HttpRevocationFetcher(Duration.ofSeconds(5)), background::add);
+
+        // O primeiro acesso não espera pela rede; misses repetidos não duplicam a busca pendente
+        assertEquals(RevocationStatus.UNKNOWN, cache.check(valid, ca));
+        assertEquals(RevocationStatus.UNKNOWN, cache.check(revoked, ca));
+        assertEquals(RevocationStatus.UNKNOWN, cache.check(valid, ca));
+        assertEquals(2, background.size());
+        assertEquals(0, requests.get());
+
+        runAll(background);
+        assertEquals(RevocationStatus.GOOD, cache.check(valid, ca));
+        assertEquals(RevocationStatus.REVOKED, cache.check(revoked, ca));
+        assertEquals(2, requests.get());
+
+        // Com o cache quente as consultas não voltam ao respondedor
+        for (int i = 0; i < 100; i++) {
+            cache.check(valid, ca);
+            cache.check(revoked, ca);
+        }
+        assertTrue(background.isEmpty());
+        assertEquals(2, requests.get());
+        assertEquals(2, cache.ocspCount());
+    }
+
+    @Test
+    void testFailedFetchIsRetriedOnNextMiss() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        startOcspResponder(BigInteger.ZERO, requests);
+        X509Certificate leaf = certificate(new X500Name("CN=Leaf"), BigInteger.valueOf(30), keyPair(), false, ocspUrl());
+
+        // Primeira consulta falha antes de chegar ao respondedor; as seguintes vão à rede
+        AtomicInteger attempts = new AtomicInteger();
+        HttpRevocationFetcher http = new HttpRevocationFetcher(Duration.ofSeconds(5));
+        RevocationFetcher flaky = new RevocationFetcher() {
+            @Override
+            public X509CRL fetchCrl(URI distributionPoint) throws IOException, GeneralSecurityException {
+                return http.fetchCrl(distributionPoint);
+            }
+
+            @Override
+            public OCSPResp fetchOcsp(URI responder, OCSPReq request) throws IOException {
+                if (attempts.incrementAndGet() == 1) {
+                    throw new IOException("responder unavailable");
+                }
+                return http.fetchOcsp(responder, request);
+            }
+        };
+        Deque<Runnable> background = new ArrayDeque<>();
+        RevocationCache cache = cache(flaky, background::add);
+
+        assertEquals(RevocationStatus.UNKNOWN, cache.check(leaf, ca));
+        runAll(background);
+        assertEquals(1, attempts.get());
+        assertEquals(0, cache.ocspCount());
+
+        // A falha libera a origem: o próximo miss agenda outra busca
+        assertEquals(RevocationStatus.UNKNOWN, cache.check(leaf, ca));
+        assertEquals(1, background.size());
+        runAll(background);
+
+        assertEquals(RevocationStatus.GOOD, cache.check(leaf, ca));
+        assertEquals(2, attempts.get());
+        assertEquals(1, requests.get());
+        assertTrue(background.isEmpty());
+    }
+
+    @Test
+    void testUnverifiedOrFutureCrlNeverReplacesVerifiedOne() throws Exception {
+        X509Certificate revoked = certificate(new X500Name("CN=Revoked"), BigInteger.valueOf(40), keyPair(), false, null);
+        Files.write(tempDir.resolve("a.crl"), crl(Instant.now().plus(Duration.ofDays(1)), revoked.getSerialNumber()).getEncoded());
+        RevocationCache cache = cache(RevocationCache.Mode.HARD_FAIL);
+        cache.init();
+        assertEquals(RevocationStatus.REVOKED, cache.check(revoked, ca));
+        long version = cache.currentVersion();
+
+        // Mais nova, mas assinada por outra chave: não confere com o emissor que conferiu a atual
+        Instant now = Instant.now();
+        Files.write(tempDir.resolve("b.crl"), crl(now.minus(Duration.ofMinutes(1)), now.plus(Duration.ofDays(2)),
+                signer(keyPair())).getEncoded());
+        // Assinada pela CA, mas com thisUpdate no futuro
+        Files.write(tempDir.resolve("c.crl"), crl(now.plus(Duration.ofDays(3)), now.plus(Duration.ofDays(4)),
+                signer()).getEncoded());
+        cache.refresh();
+
+        assertEquals(version, cache.currentVersion());
+        assertEquals(RevocationStatus.REVOKED, cache.check(revoked, ca));
+    }
+
+    @Test
+    void testForgedOcspResponseIsNotCached() throws Exception {
+        X509Certificate leaf = certificate(new X500Name("CN=Leaf"), BigInteger.valueOf(50), keyPair(), false,
+                "http://127.0.0.1:1/ocsp");
+        KeyPair forger = keyPair();
+        RevocationFetcher forged = new RevocationFetcher() {
+            @Override
+            public X509CRL fetchCrl(URI distributionPoint) throws IOException {
+                throw new IOException("no CRL");
+            }
+
+            @Override
+            public OCSPResp fetchOcsp(URI responder, OCSPReq request) throws IOException {
+                try {
+                    BasicOCSPRespBuilder builder = new BasicOCSPRespBuilder(new RespID(CA_NAME));
+                    Date now = new Date();
+                    builder.addResponse(request.getRequestList()[0].getCertID(), CertificateStatus.GOOD, now,
+                            new Date(now.getTime() + 3_600_000), null);
+                    return new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL, builder.build(signer(forger), null, now));
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+            }
+        };
+        Deque<Runnable> background = new ArrayDeque<>();
+        RevocationCache cache = cache(forged, background::add);
+
+        assertEquals(RevocationStatus.UNKNOWN, cache.check(leaf, ca));
+        runAll(background);
+        assertEquals(0, cache.ocspCount());
+        assertEquals(RevocationStatus.UNKNOWN, cache.check(leaf, ca));
+    }
+
+    // Executa na thread do teste as buscas que o cache agendou, na ordem em que foram agendadas
+    private static void runAll(Deque<Runnable> background) {
+        Runnable task;
+        while ((task = background.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private String ocspUrl() {
+        return "http://127.0.0.1:" + responder.getAddress().getPort() + "/ocsp";
+    }
+
+    private RevocationCache cache(RevocationFetcher fetcher, Executor background) {
+        return new RevocationCache(fetcher, background, RevocationCache.Mode.SOFT_FAIL, tempDir.toString(),
+                Duration.ofHours(24), Duration.ofMinutes(5));
+    }
+
+    private RevocationCache cache(RevocationCache.Mode mode) {
+        return new RevocationCache(new HttpRevocationFetcher(Duration.ofSeconds(5)), executor,
+                mode, tempDir.toString(), Duration.ofHours(24), Duration.ofMinutes(5));
+    }
+
+    // Respondedor OCSP local: responde revogado apenas para o serial informado
+    private void startOcspResponder(BigInteger revokedSerial, AtomicInteger requests) throws Exception {
+        responder = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        responder.createContext("/ocsp", exchange -> {
+            try {
+                requests.incrementAndGet();
+                OCSPReq request = new OCSPReq(exchange.getRequestBody().readAllBytes());
+                BasicOCSPRespBuilder builder = new BasicOCSPRespBuilder(new RespID(CA_NAME));
+                Date now = new Date();
+                for (Req req : request.getRequestList()) {
+                    CertificateStatus status = req.getCertID().getSerialNumber().equals(revokedSerial)
+                            ? new RevokedStatus(now, CRLReason.keyCompromise)
+                            : CertificateStatus.GOOD;
+                    builder.addResponse(req.getCertID(), status, now, new Date(now.getTime() + 3_600_000), null);
+                }
+                byte[] body = new OCSPRespBuilder()
+                        .build(OCSPRespBuilder.SUCCESSFUL, builder.build(signer(), null, now))
+                        .getEncoded();
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (Exception e) {
+                exchange.sendResponseHeaders(500, -1);
+            }
+        });
+        responder.start();
+    }
+
+    private X509CRL crl(Instant nextUpdate, BigInteger... revokedSerials) throws Exception {
+        return crl(nextUpdate.minus(Duration.ofDays(2)), nextUpdate, signer(), revokedSerials);
+    }
+
+    private X509CRL crl(Instant thisUpdate, Instant nextUpdate, ContentSigner signer, BigInteger... revokedSerials)
+            throws Exception {
+        X509v2CRLBuilder builder = new JcaX509v2CRLBuilder(ca.getSubjectX500Principal(), Date.from(thisUpdate));
+        builder.setNextUpdate(Date.from(nextUpdate));
+        for (BigInteger serial : revokedSerials) {
+            builder.addCRLEntry(serial, Date.from(thisUpdate), CRLReason.keyCompromise);
+        }
+        return new JcaX509CRLConverter().setProvider(BouncyCastleProvider.PROVIDER_NAME).getCRL(builder.build(signer));
+    }
+
+    private X509Certificate certificate(X500Name subject, BigInteger serial, KeyPair subjectKeys, boolean isCa,
+                                        String ocspUrl) throws Exception {
+        Instant now = Instant.now();
+        X509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(CA_NAME, serial,
+                Date.from(now.minus(Duration.ofDays(1))), Date.from(now.plus(Duration.ofDays(30))),
+                subject, subjectKeys.getPublic());
+        builder.addExtension(Extension.basicConstraints, true, new BasicConstraints(isCa));
+        if (ocspUrl != null) {
+            builder.addExtension(Extension.authorityInfoAccess, false, new AuthorityInformationAccess(
+                    AccessDescription.id_ad_ocsp, new GeneralName(GeneralName.uniformResourceIdentifier, ocspUrl)));
+        }
+        return new JcaX509CertificateConverter().setProvider(BouncyCastleProvider.PROVIDER_NAME)
+                .getCertificate(builder.build(signer()));
+    }
+
+    private ContentSigner signer() throws Exception {
+        return signer(caKeys);
+    }
+
+    private static ContentSigner signer(KeyPair keys) throws Exception {
+        return new JcaContentSignerBuilder("SHA256withRSA").setProvider(BouncyCastleProvider.PROVIDER_NAME)
+                .build(keys.getPrivate());
+    }
+
+    private static KeyPair keyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+}
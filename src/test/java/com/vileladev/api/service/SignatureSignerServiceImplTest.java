@@ -1,19 +1,74 @@
 package com.vileladev.api.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vileladev.api.cache.SignerMaterialCache;
+import com.vileladev.api.crypto.KeystoreDirectoryKeyProvider;
+import com.vileladev.api.crypto.PrivateKeyLimiter;
+import com.vileladev.api.crypto.SignerKeyRegistry;
+import com.vileladev.api.digest.DigestService;
 import com.vileladev.api.exception.DocumentSigningException;
+import com.vileladev.api.metrics.SignatureMetrics;
 import com.vileladev.api.service.impl.SignatureSignerServiceImpl;
+import com.vileladev.api.service.record.SignatureOptions;
+import com.vileladev.api.service.record.SignerKey;
+import com.vileladev.api.storage.ScratchBuffer;
+import com.vileladev.api.storage.ScratchSpace;
+import com.vileladev.api.storage.SignatureStorage;
+import com.vileladev.api.timestamp.TimestampService;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cms.CMSProcessableByteArray;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.SignerInformation;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.MessageDigest;
 import java.security.Security;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -25,23 +80,53 @@ class SignatureSignerServiceImplTest {
     @TempDir
     Path tempDir;
 
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ThreadPoolTaskExecutor signingExecutor;
+    private ScratchSpace scratchSpace;
+    private SimpleMeterRegistry meterRegistry;
+    private SignerMaterialCache signerMaterialCache;
+    private SignerKeyRegistry signerKeyRegistry;
+
     @BeforeEach
-    void setUp() {
+    void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
-        signerService = new SignatureSignerServiceImpl();
+        signingExecutor = new ThreadPoolTaskExecutor();
+        signingExecutor.setCorePoolSize(2);
+        signingExecutor.setMaxPoolSize(2);
+        signingExecutor.initialize();
+        scratchSpace = new ScratchSpace(tempDir.resolve("scratch").toString(), 1024, 64L * 1024 * 1024);
+        scratchSpace.init();
+        meterRegistry = new SimpleMeterRegistry();
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        // Keystore do servidor registrado como "hub", com a senha ao lado do arquivo
+        Path keysDir = Files.createDirectories(tempDir.resolve("keys"));
+        Files.copy(Path.of(getClass().getClassLoader().getResource("pkcs12/certificado_teste_hub.pfx").toURI()),
+                keysDir.resolve("hub.pfx"));
+        Files.writeString(keysDir.resolve("hub.password"), "bry123456\n");
+        signerKeyRegistry = new SignerKeyRegistry(List.of(new KeystoreDirectoryKeyProvider(keysDir.toString(), "")));
+        signerKeyRegistry.init();
+        signerMaterialCache = new SignerMaterialCache(16, Duration.ofMinutes(5));
+        signerService = new SignatureSignerServiceImpl(
+                signerMaterialCache, signerKeyRegistry, signingExecutor, objectMapper,
+                scratchSpace, new SignatureStorage(tempDir.toString(), true, signingExecutor), new PrivateKeyLimiter(2),
+                TimestampService.disabled(),
+                // Blocos de 64 KB com os algoritmos em paralelo a partir de 1 KB
+                new DigestService(signingExecutor, List.of("SHA-256", "SHA-512"), 64 * 1024, 1024, Duration.ofHours(1), 4),
+                new SignatureMetrics(observationRegistry, meterRegistry));
 
-        try {
-            var storageDirField = SignatureSignerServiceImpl.class.getDeclaredField("storageDir");
-            storageDirField.setAccessible(true);
-            storageDirField.set(signerService, tempDir.toString());
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
         if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
             Security.addProvider(new BouncyCastleProvider());
         }
     }
 
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        waitForScratchRelease();
+        signingExecutor.shutdown();
+        signerKeyRegistry.close();
+    }
+
     @Test
     void testGenerateAttachedSignatureThrowsExceptionForInvalidPKCS12() throws Exception {
 
@@ -80,9 +165,385 @@ class SignatureSignerServiceImplTest {
             docPath.toString()
         );
 
-        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(200, response.getStatusCode().value());
         assertNotNull(response.getBody());
         assertFalse(response.getBody().isBlank());
     }
 
-} 
+    @Test
+    void testGenerateAttachedSignatureStreamingProducesVerifiableCms() throws Exception {
+        Path pkcs12Path = Path.of(getClass().getClassLoader().getResource("pkcs12/certificado_teste_hub.pfx").toURI());
+        Path docPath = Path.of(getClass().getClassLoader().getResource("arquivos/doc.txt").toURI());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = Files.newInputStream(docPath)) {
+            signerService.generateAttachedSignature(pkcs12Path.toString(), "bry123456",
+                    "{e2618a8b-20de-4dd2-b209-70912e3177f4}", in, out);
+        }
+
+        CMSSignedData cms = new CMSSignedData(out.toByteArray());
+        assertArrayEquals(Files.readAllBytes(docPath), (byte[]) cms.getSignedContent().getContent());
+
+        SignerInformation signer = cms.getSignerInfos().getSigners().iterator().next();
+        X509CertificateHolder cert = signerCertificate(cms, signer);
+        assertTrue(signer.verify(new JcaSimpleSignerInfoVerifierBuilder()
+                .setProvider(BouncyCastleProvider.PROVIDER_NAME)
+                .build(cert)));
+    }
+
+    @Test
+    void testGenerateAttachedSignatureBufferSpillsAndReleasesScratch() throws Exception {
+        byte[] pkcs12 = Files.readAllBytes(Path.of(getClass().getClassLoader().getResource("pkcs12/certificado_teste_hub.pfx").toURI()));
+        byte[] document = new byte[16 * 1024];
+        Arrays.fill(document, (byte) 'a');
+
+        ScratchBuffer signature;
+        try (InputStream in = new ByteArrayInputStream(document)) {
+            signature = signerService.generateAttachedSignatureBuffer(
+                    SignerKey.uploaded(pkcs12, "bry123456", "{e2618a8b-20de-4dd2-b209-70912e3177f4}"), in, SignatureOptions.DEFAULT);
+        }
+
+        assertTrue(signature.isSpilled());
+        assertTrue(scratchSpace.usedBytes() > 0);
+        assertArrayEquals(document,
+                (byte[]) new CMSSignedData(signature.toByteArray()).getSignedContent().getContent());
+
+        signature.close();
+        assertEquals(0, waitForScratchRelease());
+    }
+
+    @Test
+    void testGenerateAttachedSignatureBufferPersistsCopyInStorageDir() throws Exception {
+        byte[] pkcs12 = Files.readAllBytes(Path.of(getClass().getClassLoader().getResource("pkcs12/certificado_teste_hub.pfx").toURI()));
+
+        byte[] expected;
+        try (InputStream in = new ByteArrayInputStream("conteudo".getBytes());
+             ScratchBuffer signature = signerService.generateAttachedSignatureBuffer(
+                     SignerKey.uploaded(pkcs12, "bry123456", "{e2618a8b-20de-4dd2-b209-70912e3177f4}"), in, SignatureOptions.DEFAULT)) {
+            expected = signature.toByteArray();
+        }
+
+        Path stored = null;
+        for (int i = 0; i < 100 && stored == null; i++) {
+            try (Stream<Path> files = Files.walk(tempDir.resolve("objects"))) {
+                stored = files.filter(p -> p.toString().endsWith(".p7s")).findFirst().orElse(null);
+            } catch (NoSuchFileException ignored) {
+                // O repositório ainda não foi criado pela gravação assíncrona
+            }
+            if (stored == null) {
+                Thread.sleep(50);
+            }
+        }
+
+        assertNotNull(stored, "signature copy not persisted in storage dir");
+        assertArrayEquals(expected, Files.readAllBytes(stored));
+    }
+
+    @Test
+    void testSigningRecordsStageTimersBytesAndErrorCodes() throws Exception {
+        byte[] pkcs12 = Files.readAllBytes(Path.of(getClass().getClassLoader().getResource("pkcs12/certificado_teste_hub.pfx").toURI()));
+
+        try (InputStream in = new ByteArrayInputStream("medido".getBytes());
+             ScratchBuffer ignored = signerService.generateAttachedSignatureBuffer(
+                     SignerKey.uploaded(pkcs12, "bry123456", "{e2618a8b-20de-4dd2-b209-70912e3177f4}"), in, SignatureOptions.DEFAULT)) {
+            assertNotNull(ignored);
+        }
+        assertThrows(DocumentSigningException.class, () -> signerService.generateAttachedSignatureBuffer(
+                SignerKey.uploaded(pkcs12, "senha-errada", "{e2618a8b-20de-4dd2-b209-70912e3177f4}"), new ByteArrayInputStream(new byte[1]), SignatureOptions.DEFAULT));
+
+        for (String stage : List.of("keystore", "cms")) {
+            assertTrue(meterRegistry.get("signature.stage").tags("operation", "sign", "stage", stage)
+                    .timer().count() >= 1, stage);
+        }
+        assertEquals(6.0, meterRegistry.get("signature.bytes").tag("operation", "sign").summary().totalAmount());
+        assertEquals(1.0, meterRegistry.get("signature.errors").tag("operation", "sign").counter().count());
+        // A etapa que falhou fica marcada com a exceção no próprio timer
+        assertTrue(meterRegistry.get("signature.stage").tag("stage", "keystore").timers().stream()
+                .anyMatch(timer -> !"none".equals(timer.getId().getTag("error"))));
+    }
+
+    @Test
+    void testSigningPicksAlgorithmFromKeyType() throws Exception {
+        KeyPairGenerator ec = KeyPairGenerator.getInstance("EC");
+        ec.initialize(new ECGenParameterSpec("secp256r1"));
+        SignerInformation ecdsa = signWith(keystore(ec.generateKeyPair(), "SHA256withECDSA"), SignatureOptions.DEFAULT);
+        assertEquals("1.2.840.10045.4.3.2", ecdsa.getEncryptionAlgOID());
+        assertEquals("2.16.840.1.101.3.4.2.1", ecdsa.getDigestAlgOID());
+
+        SignerInformation ed25519 = signWith(keystore(KeyPairGenerator.getInstance("Ed25519").generateKeyPair(), "Ed25519"),
+                SignatureOptions.DEFAULT);
+        assertEquals("1.3.101.112", ed25519.getEncryptionAlgOID());
+        assertEquals("2.16.840.1.101.3.4.2.3", ed25519.getDigestAlgOID());
+    }
+
+    @Test
+    void testSigningHonoursDigestAndPssOverrides() throws Exception {
+        KeyPairGenerator rsa = KeyPairGenerator.getInstance("RSA");
+        rsa.initialize(2048);
+        byte[] rsaKeystore = keystore(rsa.generateKeyPair(), "SHA256withRSA");
+
+        SignerInformation pss = signWith(rsaKeystore, new SignatureOptions("SHA-256", true));
+        assertEquals("1.2.840.113549.1.1.10", pss.getEncryptionAlgOID());
+        assertEquals("2.16.840.1.101.3.4.2.1", pss.getDigestAlgOID());
+
+        SignerInformation sha384 = signWith(rsaKeystore, new SignatureOptions("SHA384", false));
+        assertEquals("2.16.840.1.101.3.4.2.2", sha384.getDigestAlgOID());
+
+        // PSS só existe para RSA e o Ed25519 não aceita outro digest além do SHA-512
+        KeyPairGenerator ec = KeyPairGenerator.getInstance("EC");
+        ec.initialize(new ECGenParameterSpec("secp256r1"));
+        byte[] ecKeystore = keystore(ec.generateKeyPair(), "SHA256withECDSA");
+        DocumentSigningException ex = assertThrows(DocumentSigningException.class,
+                () -> signWith(ecKeystore, new SignatureOptions(null, true)));
+        assertEquals("INVALID_ARGUMENT", ex.getErrorCode());
+
+        byte[] edKeystore = keystore(KeyPairGenerator.getInstance("Ed25519").generateKeyPair(), "Ed25519");
+        ex = assertThrows(DocumentSigningException.class,
+                () -> signWith(edKeystore, new SignatureOptions("SHA-256", false)));
+        assertEquals("INVALID_ARGUMENT", ex.getErrorCode());
+    }
+
+    @Test
+    void testDetachedSignatureReturnsFingerprintsFromTheSignedDigestPass() throws Exception {
+        byte[] content = new byte[300 * 1024];
+        new Random(7).nextBytes(content);
+        KeyPairGenerator ec = KeyPairGenerator.getInstance("EC");
+        ec.initialize(new ECGenParameterSpec("secp256r1"));
+        String expected = "SHA-256=" + Hex.toHexString(MessageDigest.getInstance("SHA-256").digest(content))
+                + ", SHA-512=" + Hex.toHexString(MessageDigest.getInstance("SHA-512").digest(content));
+
+        // P-256 assina o SHA-256 calculado no mesmo passe dos fingerprints; o Ed448 (SHAKE256) fica no gerador CMS
+        for (KeyPair keyPair : List.of(ec.generateKeyPair(), KeyPairGenerator.getInstance("Ed448").generateKeyPair())) {
+            String certificateAlgorithm = keyPair.getPublic().getAlgorithm().startsWith("EC") ? "SHA256withECDSA" : "Ed448";
+            ResponseEntity<String> response = signerService.generateDetachedSignature(
+                    SignerKey.uploaded(keystore(keyPair, certificateAlgorithm), "bry123456", "signer"),
+                    new ByteArrayInputStream(content), SignatureOptions.DEFAULT, List.of("sha256", "SHA-512"));
+
+            assertEquals(expected, response.getHeaders().getFirst(SignatureSignerServiceImpl.DOCUMENT_DIGEST_HEADER));
+            CMSSignedData cms = new CMSSignedData(new CMSProcessableByteArray(content),
+                    Base64.getDecoder().decode(response.getBody()));
+            SignerInformation signer = cms.getSignerInfos().getSigners().iterator().next();
+            X509CertificateHolder cert = signerCertificate(cms, signer);
+            assertTrue(signer.verify(new JcaSimpleSignerInfoVerifierBuilder()
+                    .setProvider(BouncyCastleProvider.PROVIDER_NAME)
+                    .build(cert)));
+        }
+
+        // Sem fingerprints pedidos a resposta não traz o cabeçalho
+        ResponseEntity<String> plain = signerService.generateDetachedSignature(SignerKey.registered("hub"),
+                new ByteArrayInputStream(content), SignatureOptions.DEFAULT);
+        assertNull(plain.getHeaders().getFirst(SignatureSignerServiceImpl.DOCUMENT_DIGEST_HEADER));
+    }
+
+    @Test
+    void testSigningWithRegisteredKeyIdSkipsKeystoreUnlock() throws Exception {
+        assertEquals("hub", signerKeyRegistry.list().get(0).id());
+
+        for (int i = 0; i < 2; i++) {
+            try (InputStream in = new ByteArrayInputStream("registrada".getBytes());
+                 ScratchBuffer signature = signerService.generateAttachedSignatureBuffer(
+                         SignerKey.registered("hub"), in, SignatureOptions.DEFAULT)) {
+                CMSSignedData cms = new CMSSignedData(signature.toByteArray());
+                SignerInformation signer = cms.getSignerInfos().getSigners().iterator().next();
+                X509CertificateHolder cert = signerCertificate(cms, signer);
+                assertTrue(signer.verify(new JcaSimpleSignerInfoVerifierBuilder()
+                        .setProvider(BouncyCastleProvider.PROVIDER_NAME)
+                        .build(cert)));
+            }
+        }
+        // Nenhuma derivação PBE: o cache de keystores enviados nem foi consultado
+        assertEquals(0, signerMaterialCache.missCount() + signerMaterialCache.hitCount());
+
+        ResponseEntity<String> hash = signerService.generateSignatureFromDigest(SignerKey.registered("hub"),
+                "SHA-256", "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08", false);
+        assertEquals(200, hash.getStatusCode().value());
+
+        DocumentSigningException ex = assertThrows(DocumentSigningException.class,
+                () -> signerService.generateAttachedSignatureBuffer(SignerKey.registered("desconhecida"),
+                        new ByteArrayInputStream(new byte[0]), SignatureOptions.DEFAULT));
+        assertEquals("INVALID_ARGUMENT", ex.getErrorCode());
+    }
+
+    // Assina um documento curto e confere a assinatura com o certificado embutido no CMS
+    private SignerInformation signWith(byte[] pkcs12, SignatureOptions options) throws Exception {
+        try (InputStream in = new ByteArrayInputStream("algoritmo".getBytes());
+             ScratchBuffer signature = signerService.generateAttachedSignatureBuffer(
+                     SignerKey.uploaded(pkcs12, "bry123456", "signer"), in, options)) {
+            CMSSignedData cms = new CMSSignedData(signature.toByteArray());
+            SignerInformation signer = cms.getSignerInfos().getSigners().iterator().next();
+            X509CertificateHolder cert = signerCertificate(cms, signer);
+            assertTrue(signer.verify(new JcaSimpleSignerInfoVerifierBuilder()
+                    .setProvider(BouncyCastleProvider.PROVIDER_NAME)
+                    .build(cert)));
+            return signer;
+        }
+    }
+
+    // PKCS#12 com um certificado autoassinado para o par gerado
+    private static X509CertificateHolder signerCertificate(CMSSignedData cms, SignerInformation signer) {
+        for (X509CertificateHolder holder : cms.getCertificates().getMatches(null)) {
+            if (signer.getSID().match(holder)) {
+                return holder;
+            }
+        }
+        throw new AssertionError("No certificate for the signer");
+    }
+
+    private static byte[] keystore(KeyPair keyPair, String certificateAlgorithm) throws Exception {
+        X500Name name = new X500Name("CN=Teste " + keyPair.getPrivate().getAlgorithm());
+        long now = System.currentTimeMillis();
+        X509Certificate cert = new JcaX509CertificateConverter().getCertificate(new JcaX509v3CertificateBuilder(
+                name, BigInteger.valueOf(now), new Date(now - 60_000), new Date(now + 3_600_000), name, keyPair.getPublic())
+                .build(new JcaContentSignerBuilder(certificateAlgorithm)
+                        .setProvider(BouncyCastleProvider.PROVIDER_NAME)
+                        .build(keyPair.getPrivate())));
+
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        keyStore.setKeyEntry("signer", keyPair.getPrivate(), "bry123456".toCharArray(), new Certificate[]{cert});
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        keyStore.store(out, "bry123456".toCharArray());
+        return out.toByteArray();
+    }
+
+    // A cópia assíncrona segura o buffer até terminar de gravar
+    private long waitForScratchRelease() throws InterruptedException {
+        for (int i = 0; i < 100 && scratchSpace.usedBytes() > 0; i++) {
+            Thread.sleep(50);
+        }
+        return scratchSpace.usedBytes();
+    }
+
+    @Test
+    void testGenerateAttachedSignatureBatchIsolatesFailingDocument() throws Exception {
+        byte[] pkcs12 = Files.readAllBytes(Path.of(getClass().getClassLoader().getResource("pkcs12/certificado_teste_hub.pfx").toURI()));
+        MultipartFile ok = new MockMultipartFile("files", "a.txt", "text/plain", "primeiro".getBytes());
+        MultipartFile broken = new MockMultipartFile("files", "b.txt", "text/plain", new byte[0]) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                throw new IOException("upload truncated");
+            }
+        };
+        MultipartFile other = new MockMultipartFile("files", "c.txt", "text/plain", "terceiro".getBytes());
+
+        ResponseEntity<StreamingResponseBody> response = signerService.generateAttachedSignatureBatch(
+                SignerKey.uploaded(pkcs12, "bry123456", "{e2618a8b-20de-4dd2-b209-70912e3177f4}"), List.of(ok, broken, other),
+                SignatureOptions.DEFAULT);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        List<JsonNode> lines = out.toString(StandardCharsets.UTF_8).lines()
+                .map(line -> {
+                    try {
+                        return objectMapper.readTree(line);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                })
+                .toList();
+        assertEquals(3, lines.size());
+        for (JsonNode line : lines) {
+            if ("b.txt".equals(line.get("fileName").asText())) {
+                assertEquals("ERROR", line.get("status").asText());
+                assertEquals("IO_ERROR", line.get("errorCode").asText());
+            } else {
+                assertEquals("SUCCESS", line.get("status").asText());
+                assertNotNull(new CMSSignedData(Base64.getDecoder().decode(line.get("signature").asText())).getSignedContent());
+            }
+        }
+    }
+
+    @Test
+    void testGenerateAttachedSignatureBatchWaitsForItemsWhenClientWriteFails() throws Exception {
+        byte[] pkcs12 = Files.readAllBytes(Path.of(getClass().getClassLoader().getResource("pkcs12/certificado_teste_hub.pfx").toURI()));
+        byte[] content = new byte[64 * 1024];
+        new Random(7).nextBytes(content);
+        List<MultipartFile> documents = Stream.iterate(0, i -> i + 1).limit(20)
+                .map(i -> (MultipartFile) new MockMultipartFile("files", i + ".bin", "application/octet-stream", content))
+                .toList();
+
+        ResponseEntity<StreamingResponseBody> response = signerService.generateAttachedSignatureBatch(
+                SignerKey.uploaded(pkcs12, "bry123456", "{e2618a8b-20de-4dd2-b209-70912e3177f4}"), documents,
+                SignatureOptions.DEFAULT);
+        OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        assertThrows(IOException.class, () -> response.getBody().writeTo(disconnected));
+
+        // Ao retornar nenhum item assina mais com a chave e as assinaturas não escritas já foram liberadas
+        assertEquals(0, scratchSpace.usedBytes());
+    }
+
+    @Test
+    void testGenerateAttachedSignatureBatchRejectsInvalidKeystoreBeforeStreaming() {
+        MultipartFile doc = new MockMultipartFile("files", "a.txt", "text/plain", "conteudo".getBytes());
+
+        DocumentSigningException ex = assertThrows(DocumentSigningException.class, () ->
+                signerService.generateAttachedSignatureBatch(
+                        SignerKey.uploaded(new byte[]{1, 2, 3}, "wrong", "invalid"), List.of(doc), SignatureOptions.DEFAULT));
+        assertEquals("IO_ERROR", ex.getErrorCode());
+    }
+
+    // Executado com -Plarge-files (-Xmx64m): um pipeline que bufferizasse o documento estouraria o heap
+    @Test
+    @Tag("large")
+    void testGenerateAttachedSignatureStreamsTwoGigabytesWithFlatHeap() throws Exception {
+        Path pkcs12Path = Path.of(getClass().getClassLoader().getResource("pkcs12/certificado_teste_hub.pfx").toURI());
+        long size = 2L * 1024 * 1024 * 1024;
+
+        CountingOutputStream out = new CountingOutputStream();
+        try (InputStream in = new SyntheticInputStream(size)) {
+            signerService.generateAttachedSignature(pkcs12Path.toString(), "bry123456",
+                    "{e2618a8b-20de-4dd2-b209-70912e3177f4}", in, out);
+        }
+
+        assertTrue(out.count > size, "CMS output must encapsulate the whole document");
+        assertTrue(Runtime.getRuntime().maxMemory() < size / 8, "Run with a small heap (-Plarge-files)");
+    }
+
+    // Gera um conteúdo de tamanho arbitrário sem tocar o disco
+    private static final class SyntheticInputStream extends InputStream {
+        private long remaining;
+
+        SyntheticInputStream(long size) {
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() {
+            if (remaining <= 0) return -1;
+            remaining--;
+            return (int) (remaining & 0xFF);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (remaining <= 0) return -1;
+            int n = (int) Math.min(len, remaining);
+            for (int i = 0; i < n; i++) {
+                b[off + i] = (byte) (remaining - i);
+            }
+            remaining -= n;
+            return n;
+        }
+    }
+
+    // Descarta a saída, contando apenas os bytes escritos
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+}
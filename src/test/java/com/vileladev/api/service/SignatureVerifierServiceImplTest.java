@@ -0,0 +1,478 @@
+package com.vileladev.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vileladev.api.cache.CertificateCache;
+import com.vileladev.api.cache.SignerMaterial;
+import com.vileladev.api.cache.SignerMaterialCache;
+import com.vileladev.api.cache.TrustStoreCache;
+import com.vileladev.api.cache.VerificationResultCache;
+import com.vileladev.api.crypto.CmsPreParser;
+import com.vileladev.api.crypto.PrivateKeyLimiter;
+import com.vileladev.api.crypto.SignerKeyRegistry;
+import com.vileladev.api.digest.DigestService;
+import com.vileladev.api.exception.DocumentSigningException;
+import com.vileladev.api.metrics.SignatureMetrics;
+import com.vileladev.api.revocation.HttpRevocationFetcher;
+import com.vileladev.api.revocation.RevocationCache;
+import com.vileladev.api.service.impl.SignatureSignerServiceImpl;
+import com.vileladev.api.service.impl.SignatureVerifierServiceImpl;
+import com.vileladev.api.service.record.Infos;
+import com.vileladev.api.service.record.SignatureOptions;
+import com.vileladev.api.service.record.SignerKey;
+import com.vileladev.api.service.record.SignerVerification;
+import com.vileladev.api.storage.ScratchBuffer;
+import com.vileladev.api.storage.ScratchSpace;
+import com.vileladev.api.storage.SignatureStorage;
+import com.vileladev.api.timestamp.LocalTimestampAuthority;
+import com.vileladev.api.timestamp.TimestampService;
+import com.vileladev.api.timestamp.TimestampVerifier;
+import org.bouncycastle.cms.CMSProcessableByteArray;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.CMSSignedDataGenerator;
+import org.bouncycastle.cms.SignerInformation;
+import org.bouncycastle.cms.SignerInformationStore;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.Security;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignatureVerifierServiceImplTest {
+
+    private static final String ALIAS = "{e2618a8b-20de-4dd2-b209-70912e3177f4}";
+    private static final String PASSWORD = "bry123456";
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ThreadPoolTaskExecutor executor;
+    private TrustStoreCache trustStoreCache;
+    private VerificationResultCache resultCache;
+    private CertificateCache certificateCache;
+    private RevocationCache revocationCache;
+    private SignatureSignerServiceImpl signerService;
+    private SignatureVerifierServiceImpl verifierService;
+    private String certificatesDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.initialize();
+        trustStoreCache = new TrustStoreCache();
+        ScratchSpace scratchSpace = new ScratchSpace(tempDir.resolve("scratch").toString(), 1024 * 1024, 64L * 1024 * 1024);
+        scratchSpace.init();
+        signerService = new SignatureSignerServiceImpl(
+                new SignerMaterialCache(16, Duration.ofMinutes(5)), new SignerKeyRegistry(List.of()), executor, objectMapper,
+                scratchSpace, new SignatureStorage(tempDir.toString(), false, executor), new PrivateKeyLimiter(2),
+                TimestampService.disabled(), DigestService.sequential(), SignatureMetrics.noop());
+        // A cadeia de teste aponta para CRLs na internet; a revogação é coberta em RevocationCacheTest
+        revocationCache = new RevocationCache(new HttpRevocationFetcher(Duration.ofSeconds(1)), executor,
+                RevocationCache.Mode.OFF, "", Duration.ofHours(24), Duration.ofMinutes(5));
+        resultCache = new VerificationResultCache(100, Duration.ofMinutes(10));
+        certificateCache = new CertificateCache(100, Duration.ofHours(1));
+        verifierService = verifier(new CmsPreParser(64L * 1024 * 1024, 64, 8));
+        certificatesDir = Path.of(getClass().getClassLoader().getResource("cadeia").toURI()).toString();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        trustStoreCache.close();
+        executor.shutdown();
+    }
+
+    @Test
+    void testVerifyAttachedSignatureReportsValidSigner() throws Exception {
+        Path signature = tempDir.resolve("doc.p7s");
+        Files.write(signature, sign("conteudo do contrato"));
+
+        ResponseEntity<List<SignerVerification>> response =
+                verifierService.verifyAttachedSignature(signature.toString(), certificatesDir);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(1, response.getBody().size());
+        SignerVerification signer = response.getBody().get(0);
+        assertEquals("VALIDO", signer.status());
+        assertNull(signer.countersignatureOf());
+        Infos infos = signer.infos();
+        assertTrue(infos.signerName().contains("HUB2 TESTES"));
+        assertEquals("SHA-512", infos.digestAlgorithm());
+        assertEquals("RSA", infos.signatureAlgorithm());
+        assertNull(signer.timestamp());
+    }
+
+    @Test
+    void testBatchTimestampedSignaturesCarryVerifiableEvidenceRecords() throws Exception {
+        LocalTimestampAuthority authority = new LocalTimestampAuthority();
+        ScratchSpace scratchSpace = new ScratchSpace(tempDir.resolve("scratch-tsa").toString(), 1024 * 1024, 64L * 1024 * 1024);
+        scratchSpace.init();
+        signerService = new SignatureSignerServiceImpl(
+                new SignerMaterialCache(16, Duration.ofMinutes(5)), new SignerKeyRegistry(List.of()), executor, objectMapper,
+                scratchSpace, new SignatureStorage(tempDir.toString(), false, executor), new PrivateKeyLimiter(2),
+                new TimestampService(authority, TimestampService.Mode.BATCH, "SHA-256", "", Duration.ofSeconds(30), 2),
+                DigestService.sequential(), SignatureMetrics.noop());
+
+        // As duas assinaturas terminam juntas e fecham um lote de duas folhas: uma única chamada à TSA
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Future<byte[]> first = pool.submit(() -> sign("primeiro contrato carimbado"));
+        Future<byte[]> second = pool.submit(() -> sign("segundo contrato carimbado"));
+        List<byte[]> signatures = List.of(first.get(), second.get());
+        pool.shutdown();
+        assertEquals(1, authority.calls());
+
+        // A TSA só é confiável com o certificado dela entre as âncoras, ao lado da cadeia do signatário
+        Path trustDir = Files.createDirectories(tempDir.resolve("cadeia-tsa"));
+        try (var anchors = Files.list(Path.of(certificatesDir))) {
+            for (Path anchor : anchors.toList()) {
+                Files.copy(anchor, trustDir.resolve(anchor.getFileName()));
+            }
+        }
+        authority.trustIn(trustDir);
+
+        for (byte[] signature : signatures) {
+            SignerVerification signer = verifierService.verifyAttachedSignature(
+                    new ByteArrayResource(signature), trustDir.toString()).getBody().get(0);
+            assertEquals("VALIDO", signer.status());
+            assertEquals(TimestampVerifier.EVIDENCE_RECORD, signer.timestamp().type());
+            assertEquals("VALIDO", signer.timestamp().status());
+            assertNotNull(signer.timestamp().time());
+
+            // Sem a TSA entre as âncoras o signatário continua válido, mas o carimbo não é confiável
+            SignerVerification untrusted = verifierService.verifyAttachedSignature(
+                    new ByteArrayResource(signature), certificatesDir).getBody().get(0);
+            assertEquals("VALIDO", untrusted.status());
+            assertEquals("NAO_CONFIAVEL", untrusted.timestamp().status());
+        }
+    }
+
+    @Test
+    void testSameSignerAcrossDocumentsReusesParsedCertificatesAndValidatedChain() throws Exception {
+        Path first = tempDir.resolve("primeiro.p7s");
+        Path second = tempDir.resolve("segundo.p7s");
+        Files.write(first, sign("primeiro contrato"));
+        Files.write(second, sign("segundo contrato"));
+
+        assertEquals("VALIDO", verifierService.verifyAttachedSignature(first.toString(), certificatesDir).getBody().get(0).status());
+        int certificates = certificateCache.certificateCount();
+        assertEquals(0, certificateCache.chainHitCount());
+
+        // Outro .p7s do mesmo signatário: nada novo para decodificar e a PKIX não roda de novo
+        assertEquals("VALIDO", verifierService.verifyAttachedSignature(second.toString(), certificatesDir).getBody().get(0).status());
+        assertEquals(certificates, certificateCache.certificateCount());
+        assertEquals(1, certificateCache.chainCount());
+        assertEquals(1, certificateCache.chainHitCount());
+    }
+
+    @Test
+    void testRepeatedVerificationIsServedFromResultCache() throws Exception {
+        Path signature = tempDir.resolve("arquivo.p7s");
+        Files.write(signature, sign("documento verificado todos os dias"));
+
+        List<SignerVerification> first = verifierService.verifyAttachedSignature(signature.toString(), certificatesDir).getBody();
+        MockMultipartFile upload = new MockMultipartFile("signedFile", Files.readAllBytes(signature));
+        List<SignerVerification> second = verifierService.verifyAttachedSignature(upload, certificatesDir).getBody();
+
+        assertEquals(first, second);
+        assertEquals(1, resultCache.missCount());
+        assertEquals(1, resultCache.hitCount());
+
+        // Outro conteúdo não colide com a entrada existente
+        Files.write(signature, sign("outro documento"));
+        verifierService.verifyAttachedSignature(signature.toString(), certificatesDir);
+        assertEquals(2, resultCache.missCount());
+    }
+
+    @Test
+    void testVerifyAttachedSignatureReportsEveryCoSignerAndCountersignature() throws Exception {
+        // Dois signatários sobre o mesmo conteúdo e uma contra-assinatura sobre o primeiro
+        CMSSignedData cms;
+        try (SignerMaterial material = SignerMaterial.load(pkcs12(), PASSWORD.toCharArray(), ALIAS)) {
+            CMSSignedDataGenerator generator = new CMSSignedDataGenerator();
+            generator.addSignerInfoGenerator(material.newSignerInfoGenerator());
+            generator.addSignerInfoGenerator(material.newSignerInfoGenerator());
+            generator.addCertificates(material.getCertStore());
+            cms = generator.generate(new CMSProcessableByteArray("contrato".getBytes(StandardCharsets.UTF_8)), true);
+
+            List<SignerInformation> signers = new ArrayList<>(cms.getSignerInfos().getSigners());
+            CMSSignedDataGenerator counterGenerator = new CMSSignedDataGenerator();
+            counterGenerator.addSignerInfoGenerator(material.newSignerInfoGenerator());
+            signers.set(0, SignerInformation.addCounterSigners(signers.get(0),
+                    counterGenerator.generateCounterSigners(signers.get(0))));
+            cms = CMSSignedData.replaceSigners(cms, new SignerInformationStore(signers));
+        }
+
+        List<SignerVerification> result = verifierService.verifyAttachedSignature(
+                new ByteArrayInputStream(cms.getEncoded()), certificatesDir).getBody();
+
+        assertEquals(3, result.size());
+        assertTrue(result.stream().allMatch(SignerVerification::isValid), result.toString());
+        assertEquals(List.of(0, 1, 2), result.stream().map(SignerVerification::index).toList());
+        // A ordem do SET de SignerInfos segue a codificação DER; a contra-assinatura vem logo após o seu pai
+        List<SignerVerification> countersignatures = result.stream().filter(r -> r.countersignatureOf() != null).toList();
+        assertEquals(1, countersignatures.size());
+        SignerVerification countersignature = countersignatures.get(0);
+        assertEquals(countersignature.index() - 1, countersignature.countersignatureOf());
+        assertNull(result.get(countersignature.countersignatureOf()).countersignatureOf());
+    }
+
+    @Test
+    void testCoSignAndCounterSignKeepContentAndAreVerified() throws Exception {
+        byte[] original = sign("contrato com duas partes");
+
+        byte[] coSigned = toBytes(signerService.generateCoSignature(key(),
+                new MockMultipartFile("signedFile", original), SignatureOptions.DEFAULT));
+        // Contra-assina o signatário 1 e depois a própria contra-assinatura (aninhada, índice 2)
+        byte[] counterSigned = toBytes(signerService.generateCounterSignature(key(),
+                new MockMultipartFile("signedFile", coSigned), 1, SignatureOptions.DEFAULT));
+        byte[] nested = toBytes(signerService.generateCounterSignature(key(),
+                new MockMultipartFile("signedFile", counterSigned), 2, SignatureOptions.DEFAULT));
+
+        CMSSignedData cms = new CMSSignedData(nested);
+        assertArrayEquals("contrato com duas partes".getBytes(StandardCharsets.UTF_8),
+                (byte[]) cms.getSignedContent().getContent());
+        assertEquals(2, cms.getSignerInfos().size());
+
+        List<SignerVerification> result = verifierService.verifyAttachedSignature(
+                new ByteArrayInputStream(nested), certificatesDir).getBody();
+        assertEquals(4, result.size());
+        assertTrue(result.stream().allMatch(SignerVerification::isValid), result.toString());
+        assertEquals(Arrays.asList(null, null, 1, 2),
+                result.stream().map(SignerVerification::countersignatureOf).toList());
+    }
+
+    @Test
+    void testCounterSignRejectsUnknownSignerIndex() throws Exception {
+        MockMultipartFile signed = new MockMultipartFile("signedFile", sign("contrato"));
+
+        DocumentSigningException ex = assertThrows(DocumentSigningException.class, () ->
+                signerService.generateCounterSignature(key(), signed, 3, SignatureOptions.DEFAULT));
+        assertEquals("INVALID_ARGUMENT", ex.getErrorCode());
+    }
+
+    @Test
+    void testVerifyAttachedSignatureRejectsMalformedInput() throws Exception {
+        Path garbage = Files.write(tempDir.resolve("garbage.p7s"), "not a cms".getBytes());
+
+        DocumentSigningException ex = assertThrows(DocumentSigningException.class, () ->
+                verifierService.verifyAttachedSignature(garbage.toString(), certificatesDir));
+        assertEquals(CmsPreParser.MALFORMED, ex.getErrorCode());
+    }
+
+    @Test
+    void testJunkUploadIsRejectedFromHeaderWithoutReadingWholeFile() throws Exception {
+        byte[] junk = new byte[8 * 1024 * 1024];
+        Arrays.fill(junk, (byte) 'x');
+        long[] read = {0};
+        InputStreamSource source = () -> new FilterInputStream(new ByteArrayInputStream(junk)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                read[0] += Math.max(n, 0);
+                return n;
+            }
+        };
+
+        DocumentSigningException ex = assertThrows(DocumentSigningException.class, () ->
+                verifierService.verifyAttachedSignature(source, certificatesDir));
+        assertEquals(CmsPreParser.MALFORMED, ex.getErrorCode());
+        // Só o primeiro bloco do buffer é lido: nem o hash do cache nem o parser completo passam pelo arquivo
+        assertTrue(read[0] <= 64 * 1024, "read " + read[0] + " bytes");
+    }
+
+    @Test
+    void testPreParserRejectsWrongContentTypeTruncationAndUnknownDigest() throws Exception {
+        // ContentInfo com id-data no lugar de id-signedData
+        byte[] data = Hex.decode("300f06092a864886f70d010701a0020400");
+        assertEquals(CmsPreParser.MALFORMED, verifyError(data).getErrorCode());
+
+        byte[] signature = sign("contrato");
+        assertEquals(CmsPreParser.MALFORMED, verifyError(Arrays.copyOf(signature, 20)).getErrorCode());
+
+        // Troca o OID do SHA-512 em digestAlgorithms por um arco inexistente da mesma família
+        byte[] sha512 = Hex.decode("608648016503040203");
+        byte[] patched = signature.clone();
+        int at = indexOf(patched, sha512);
+        patched[at + sha512.length - 1] = 0x63;
+        DocumentSigningException ex = verifyError(patched);
+        assertEquals(CmsPreParser.UNSUPPORTED_DIGEST, ex.getErrorCode());
+        assertTrue(ex.getMessage().contains("2.16.840.1.101.3.4.2.99"), ex.getMessage());
+    }
+
+    @Test
+    void testPreParserEnforcesSizeAndSignerLimits() throws Exception {
+        byte[] large = sign("x".repeat(8 * 1024));
+        verifierService = verifier(new CmsPreParser(4 * 1024, 64, 8));
+        assertEquals(CmsPreParser.TOO_LARGE, verifyError(large).getErrorCode());
+
+        byte[] coSigned = toBytes(signerService.generateCoSignature(key(),
+                new MockMultipartFile("signedFile", sign("contrato")), SignatureOptions.DEFAULT));
+        verifierService = verifier(new CmsPreParser(64L * 1024 * 1024, 1, 8));
+        assertEquals(CmsPreParser.TOO_MANY_SIGNERS, verifyError(coSigned).getErrorCode());
+
+        // Digests suportados, só acima do limite: código próprio, não UNSUPPORTED_DIGEST
+        verifierService = verifier(new CmsPreParser(64L * 1024 * 1024, 64, 0));
+        assertEquals(CmsPreParser.TOO_MANY_DIGESTS, verifyError(sign("contrato")).getErrorCode());
+    }
+
+    @Test
+    void testVerifyAttachedSignatureBatchStreamsResultsAndSummary() throws Exception {
+        ByteArrayOutputStream zipBytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(zipBytes)) {
+            zip.putNextEntry(new ZipEntry("arquivo/b.p7s"));
+            zip.write(sign("segundo"));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("arquivo/lixo.p7s"));
+            zip.write("lixo".getBytes());
+            zip.closeEntry();
+        }
+
+        List<MockMultipartFile> files = List.of(
+                new MockMultipartFile("signedFiles", "a.p7s", "application/pkcs7-signature", sign("primeiro")));
+        MockMultipartFile archive = new MockMultipartFile("archive", "lote.zip", "application/zip", zipBytes.toByteArray());
+
+        ResponseEntity<StreamingResponseBody> response =
+                verifierService.verifyAttachedSignatureBatch(List.copyOf(files), archive, certificatesDir);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        List<JsonNode> lines = out.toString(StandardCharsets.UTF_8).lines()
+                .map(this::readJson)
+                .toList();
+        assertEquals(4, lines.size());
+
+        JsonNode summary = lines.get(3).get("summary");
+        assertNotNull(summary, "Summary must be the last line");
+        assertEquals(3, summary.get("total").asInt());
+        assertEquals(2, summary.get("valid").asInt());
+        assertEquals(0, summary.get("invalid").asInt());
+        assertEquals(1, summary.get("errors").asInt());
+    }
+
+    @Test
+    void testDetachedSignatureVerifiesAgainstStreamedDocument() throws Exception {
+        byte[] document = "contrato destacado".getBytes(StandardCharsets.UTF_8);
+        byte[] signature = Base64.getDecoder().decode(signerService.generateDetachedSignature(
+                key(), new ByteArrayInputStream(document), SignatureOptions.DEFAULT).getBody());
+
+        ResponseEntity<List<SignerVerification>> response = verifierService.verifyDetachedSignature(
+                new ByteArrayInputStream(signature), new ByteArrayInputStream(document), certificatesDir);
+        assertEquals("VALIDO", response.getBody().get(0).status());
+
+        assertThrows(DocumentSigningException.class, () -> verifierService.verifyDetachedSignature(
+                new ByteArrayInputStream(signature), new ByteArrayInputStream("adulterado".getBytes()), certificatesDir));
+    }
+
+    @Test
+    void testHashSignatureVerifiesAgainstDocumentAndDigest() throws Exception {
+        byte[] document = "contrato por hash".getBytes(StandardCharsets.UTF_8);
+        String hexDigest = Hex.toHexString(MessageDigest.getInstance("SHA-256").digest(document));
+
+        byte[] signature = Base64.getDecoder().decode(signerService.generateSignatureFromDigest(
+                key(), "SHA-256", hexDigest, false).getBody());
+        assertTrue(signature.length < 8 * 1024, "Hash signature should stay a few KB");
+
+        SignerVerification byDocument = verifierService.verifyDetachedSignature(
+                new ByteArrayInputStream(signature), new ByteArrayInputStream(document), certificatesDir).getBody().get(0);
+        assertEquals("VALIDO", byDocument.status());
+        assertEquals("SHA-256", byDocument.infos().digestAlgorithm());
+
+        SignerVerification byDigest = verifierService.verifyDetachedSignatureDigest(
+                new ByteArrayInputStream(signature), "SHA-256", hexDigest, certificatesDir).getBody().get(0);
+        assertEquals("VALIDO", byDigest.status());
+    }
+
+    @Test
+    void testHashSignatureRejectsDigestWithWrongLength() throws Exception {
+        DocumentSigningException ex = assertThrows(DocumentSigningException.class, () ->
+                signerService.generateSignatureFromDigest(key(), "SHA-512", "abcd", false));
+        assertEquals("INVALID_ARGUMENT", ex.getErrorCode());
+    }
+
+    private byte[] pkcs12() throws Exception {
+        return Files.readAllBytes(Path.of(getClass().getClassLoader().getResource("pkcs12/certificado_teste_hub.pfx").toURI()));
+    }
+
+    private SignerKey key() throws Exception {
+        return SignerKey.uploaded(pkcs12(), PASSWORD, ALIAS);
+    }
+
+    private SignatureVerifierServiceImpl verifier(CmsPreParser preParser) {
+        return new SignatureVerifierServiceImpl(trustStoreCache, executor, objectMapper, revocationCache, resultCache,
+                certificateCache, preParser, SignatureMetrics.noop());
+    }
+
+    private DocumentSigningException verifyError(byte[] signature) {
+        return assertThrows(DocumentSigningException.class, () ->
+                verifierService.verifyAttachedSignature(new ByteArrayInputStream(signature), certificatesDir));
+    }
+
+    private static int indexOf(byte[] haystack, byte[] needle) {
+        for (int i = 0; i <= haystack.length - needle.length; i++) {
+            if (Arrays.equals(haystack, i, i + needle.length, needle, 0, needle.length)) {
+                return i;
+            }
+        }
+        throw new AssertionError("pattern not found");
+    }
+
+    private byte[] sign(String content) throws Exception {
+        Path pkcs12 = Path.of(getClass().getClassLoader().getResource("pkcs12/certificado_teste_hub.pfx").toURI());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))) {
+            signerService.generateAttachedSignature(pkcs12.toString(), PASSWORD, ALIAS, in, out);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] toBytes(ScratchBuffer buffer) throws IOException {
+        try (buffer) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            buffer.writeTo(out);
+            return out.toByteArray();
+        }
+    }
+
+    private JsonNode readJson(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.vileladev.api.startup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.startup.warmup.enabled=true",
+        "alias={E2618A8B-20DE-4DD2-B209-70912E3177F4}",
+        "app.startup.warmup.alias={E2618A8B-20DE-4DD2-B209-70912E3177F4}",
+        "app.startup.warmup.password=bry123456",
+        "app.startup.warmup.iterations=3",
+        "app.startup.fast-request-threshold=PT10S"
+})
+@AutoConfigureMockMvc
+class WarmupRunnerTest {
+
+    @TempDir
+    static Path tempDir;
+
+    // Assinaturas guardadas, jobs e scratch ficam no diretório do teste, e não em ./signed-files ou no tmp compartilhado
+    @DynamicPropertySource
+    static void directories(DynamicPropertyRegistry registry) {
+        registry.add("app.signature.storage-dir", () -> tempDir.resolve("signed-files").toString());
+        registry.add("app.signature.jobs.dir", () -> tempDir.resolve("jobs").toString());
+        registry.add("app.scratch.dir", () -> tempDir.resolve("scratch").toString());
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationAvailability availability;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void testWarmupRunsBeforeReadinessAndFirstFastRequestIsTracked() throws Exception {
+        // O contexto só chega aqui depois dos ApplicationRunner: o aquecimento já terminou
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, availability.getReadinessState());
+        assertEquals(3.0, meterRegistry.get("startup.warmup.iterations").gauge().value());
+        assertTrue(meterRegistry.get("startup.warmup.duration").gauge().value() > 0);
+        assertTrue(Double.isNaN(meterRegistry.get("startup.first.fast.request").gauge().value()));
+
+        // Consulta barata não conta; a primeira assinatura bem-sucedida sim
+        mockMvc.perform(get("/api/keys")).andExpect(status().isOk());
+        assertTrue(Double.isNaN(meterRegistry.get("startup.first.fast.request").gauge().value()));
+
+        byte[] pkcs12 = new ClassPathResource("pkcs12/certificado_teste_hub.pfx").getContentAsByteArray();
+        String digest = Hex.toHexString(MessageDigest.getInstance("SHA-256").digest(new byte[]{1, 2, 3}));
+        mockMvc.perform(multipart("/api/signature/hash")
+                        .file(new MockMultipartFile("pkcs12", "teste.pfx", "application/x-pkcs12", pkcs12))
+                        .file(new MockMultipartFile("password", "", "text/plain", "bry123456".getBytes(StandardCharsets.UTF_8)))
+                        .file(new MockMultipartFile("digest", "", "text/plain", digest.getBytes(StandardCharsets.UTF_8)))
+                        .file(new MockMultipartFile("digestAlgorithm", "", "text/plain", "SHA-256".getBytes(StandardCharsets.UTF_8))))
+                .andExpect(status().isOk());
+
+        assertTrue(meterRegistry.get("startup.first.fast.request").gauge().value() > 0);
+    }
+}
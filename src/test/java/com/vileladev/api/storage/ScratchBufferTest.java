@@ -0,0 +1,79 @@
+package com.vileladev.api.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScratchBufferTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testFailedDiskWriteReleasesReservation() throws Exception {
+        ScratchSpace space = failingSpace(false);
+        ScratchBuffer buffer = space.newBuffer();
+        OutputStream out = buffer.outputStream();
+        out.write(new byte[512]);
+
+        // Maior que o buffer do arquivo: vai direto ao stream, que falha como um disco cheio
+        assertThrows(IOException.class, () -> out.write(new byte[128 * 1024]));
+        assertTrue(space.usedBytes() > 0);
+
+        buffer.close();
+        assertEquals(0, space.usedBytes());
+        assertEquals(0, spillFiles());
+    }
+
+    @Test
+    void testFailedSpillReleasesReservationAndRemovesFile() throws Exception {
+        ScratchSpace space = failingSpace(true);
+        ScratchBuffer buffer = space.newBuffer();
+        OutputStream out = buffer.outputStream();
+        out.write(new byte[512]);
+
+        assertThrows(IOException.class, () -> out.write(new byte[1024]));
+        assertEquals(0, space.usedBytes());
+        assertEquals(0, spillFiles());
+        buffer.close();
+        assertEquals(0, space.usedBytes());
+    }
+
+    // Limite de memória de 1 KB; o arquivo de transbordo falha ao abrir ou na primeira escrita
+    private ScratchSpace failingSpace(boolean failOnOpen) throws IOException {
+        ScratchSpace space = new ScratchSpace(tempDir.toString(), 1024, Long.MAX_VALUE) {
+            @Override
+            OutputStream openFile(Path file) throws IOException {
+                if (failOnOpen) {
+                    throw new IOException("No space left on device");
+                }
+                return new OutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        throw new IOException("No space left on device");
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        throw new IOException("No space left on device");
+                    }
+                };
+            }
+        };
+        space.init();
+        return space;
+    }
+
+    private long spillFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith(ScratchSpace.SPILL_PREFIX)).count();
+        }
+    }
+}
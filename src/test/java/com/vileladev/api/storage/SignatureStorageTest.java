@@ -0,0 +1,192 @@
+package com.vileladev.api.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignatureStorageTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ScratchSpace scratchSpace;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        scratchSpace = new ScratchSpace(tempDir.resolve("scratch").toString(), 1024, Long.MAX_VALUE);
+        scratchSpace.init();
+    }
+
+    @Test
+    void testSameSignatureIsStoredOnceAndSurvivesReopen() throws Exception {
+        SignatureStorage storage = storage(new MutableClock(), Duration.ZERO, 0);
+        StoredSignature first = persist(storage, "assinatura");
+        StoredSignature second = persist(storage, "assinatura");
+
+        assertEquals(first, second);
+        assertEquals(64, first.id().length());
+        assertEquals(1, countObjects());
+        assertTrue(Files.exists(storage.objectPath(first.id())));
+        storage.close();
+
+        SignatureStorage reopened = storage(new MutableClock(), Duration.ZERO, 0);
+        StoredSignature found = reopened.find(first.id()).orElseThrow();
+        assertEquals(first, found);
+        try (FileChannel channel = reopened.open(found)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            channel.transferTo(0, channel.size(), Channels.newChannel(out));
+            assertEquals("assinatura", out.toString());
+        }
+        assertTrue(reopened.find("nao-e-um-id").isEmpty());
+        reopened.close();
+    }
+
+    @Test
+    void testRetentionAndMaxBytesRemoveOldestAndCompactIndex() throws Exception {
+        MutableClock clock = new MutableClock();
+        SignatureStorage storage = storage(clock, Duration.ofDays(1), 15);
+        StoredSignature old = persist(storage, "antiga");
+        clock.advance(Duration.ofDays(2));
+        StoredSignature middle = persist(storage, "intermediaria");
+        clock.advance(Duration.ofMinutes(1));
+        StoredSignature recent = persist(storage, "recente");
+
+        storage.applyRetention();
+
+        // "antiga" sai pela idade; "intermediaria" sai para caber em max-bytes
+        assertTrue(storage.find(old.id()).isEmpty());
+        assertTrue(storage.find(middle.id()).isEmpty());
+        assertTrue(storage.find(recent.id()).isPresent());
+        assertFalse(Files.exists(storage.objectPath(old.id())));
+        assertThrows(NoSuchFileException.class, () -> storage.open(old));
+        assertEquals(1, countObjects());
+        long compacted = Files.size(tempDir.resolve("objects").resolve("index"));
+        storage.close();
+
+        SignatureStorage reopened = storage(clock, Duration.ZERO, 0);
+        assertTrue(reopened.find(old.id()).isEmpty());
+        assertTrue(reopened.find(recent.id()).isPresent());
+        assertTrue(compacted < 8 + 3 * 56, "index was not compacted");
+        reopened.close();
+    }
+
+    @Test
+    void testTruncatedTailRecordIsDiscardedOnLoad() throws Exception {
+        Path file = tempDir.resolve("index");
+        byte[] a = new byte[32];
+        byte[] b = new byte[32];
+        b[0] = 1;
+        try (SignatureIndex index = SignatureIndex.open(file)) {
+            index.put(a, 10, 1000);
+            index.put(b, 20, 2000);
+            index.force();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 10);
+        }
+
+        try (SignatureIndex index = SignatureIndex.open(file)) {
+            assertEquals(1, index.size());
+            assertNotNull(index.get(a));
+            assertNull(index.get(b));
+            index.put(b, 20, 3000);
+        }
+        try (SignatureIndex index = SignatureIndex.open(file)) {
+            assertEquals(2, index.size());
+            assertEquals(30, index.liveBytes());
+        }
+    }
+
+    @Test
+    void testGetDoesNotWaitForWritesHoldingTheIndex() throws Exception {
+        byte[] hash = new byte[32];
+        try (SignatureIndex index = SignatureIndex.open(tempDir.resolve("index"))) {
+            index.put(hash, 10, 1000);
+            CountDownLatch held = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Thread writer = new Thread(() -> {
+                // Mesmo monitor que put, remove e compact seguram durante a escrita no log
+                synchronized (index) {
+                    held.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            writer.start();
+            try {
+                assertTrue(held.await(5, TimeUnit.SECONDS));
+                StoredSignature found = CompletableFuture.supplyAsync(() -> index.get(hash)).get(5, TimeUnit.SECONDS);
+                assertEquals(10, found.size());
+            } finally {
+                release.countDown();
+                writer.join();
+            }
+        }
+    }
+
+    private SignatureStorage storage(Clock clock, Duration retention, long maxBytes) {
+        return new SignatureStorage(tempDir.toString(), true, Runnable::run, 1, retention, maxBytes, 0.5, clock);
+    }
+
+    private StoredSignature persist(SignatureStorage storage, String content) throws Exception {
+        try (ScratchBuffer buffer = scratchSpace.newBuffer()) {
+            try (OutputStream out = buffer.outputStream()) {
+                out.write(content.getBytes());
+            }
+            return storage.persistAsync(buffer).get();
+        }
+    }
+
+    private long countObjects() throws IOException {
+        try (Stream<Path> files = Files.walk(tempDir.resolve("objects"))) {
+            return files.filter(p -> p.toString().endsWith(".p7s")).count();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
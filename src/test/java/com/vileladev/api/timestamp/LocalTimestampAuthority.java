@@ -0,0 +1,91 @@
+package com.vileladev.api.timestamp;
+
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaCertStore;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoGeneratorBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.bouncycastle.tsp.TSPAlgorithms;
+import org.bouncycastle.tsp.TSPException;
+import org.bouncycastle.tsp.TimeStampRequest;
+import org.bouncycastle.tsp.TimeStampResponse;
+import org.bouncycastle.tsp.TimeStampResponseGenerator;
+import org.bouncycastle.tsp.TimeStampTokenGenerator;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// TSA local para os testes: certificado autoassinado com uso estendido timeStamping, sem rede
+public class LocalTimestampAuthority implements TimestampAuthority {
+
+    private final X509CertificateHolder certificate;
+    private final TimeStampResponseGenerator responseGenerator;
+    private final AtomicLong serial = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+
+    public LocalTimestampAuthority() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        Instant now = Instant.now();
+        X500Name name = new X500Name("CN=Local Test TSA");
+        JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(name, BigInteger.ONE,
+                Date.from(now.minus(Duration.ofDays(1))), Date.from(now.plus(Duration.ofDays(1))), name, keyPair.getPublic());
+        builder.addExtension(Extension.extendedKeyUsage, true, new ExtendedKeyUsage(KeyPurposeId.id_kp_timeStamping));
+        certificate = builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate()));
+
+        TimeStampTokenGenerator tokenGenerator = new TimeStampTokenGenerator(
+                new JcaSimpleSignerInfoGeneratorBuilder().build("SHA256withRSA", keyPair.getPrivate(), certificate),
+                new JcaDigestCalculatorProviderBuilder().build().get(new AlgorithmIdentifier(NISTObjectIdentifiers.id_sha256)),
+                new ASN1ObjectIdentifier("1.3.6.1.4.1.99999.1"));
+        tokenGenerator.addCertificates(new JcaCertStore(List.of(certificate)));
+        responseGenerator = new TimeStampResponseGenerator(tokenGenerator, TSPAlgorithms.ALLOWED);
+    }
+
+    // Grava o certificado da TSA como âncora no diretório de confiança informado
+    public Path trustIn(Path directory) throws IOException {
+        return Files.write(directory.resolve("local-tsa.cer"), certificate.getEncoded());
+    }
+
+    // As próximas n chamadas respondem com erro de transporte, como uma TSA fora do ar
+    public void failNext(int n) {
+        failuresLeft.set(n);
+    }
+
+    public int calls() {
+        return calls.get();
+    }
+
+    @Override
+    public synchronized TimeStampResponse timestamp(TimeStampRequest request) throws IOException {
+        calls.incrementAndGet();
+        if (failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            throw new IOException("Local TSA unavailable");
+        }
+        try {
+            return new TimeStampResponse(responseGenerator.generate(request,
+                    BigInteger.valueOf(serial.incrementAndGet()), new Date()).getEncoded());
+        } catch (TSPException e) {
+            throw new IOException(e);
+        }
+    }
+}
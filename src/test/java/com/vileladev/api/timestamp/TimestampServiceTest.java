@@ -0,0 +1,156 @@
+package com.vileladev.api.timestamp;
+
+import com.vileladev.api.cache.TrustStore;
+import com.vileladev.api.cache.TrustStoreCache;
+import com.vileladev.api.service.record.SignatureTimestamp;
+import org.bouncycastle.asn1.cms.Attribute;
+import org.bouncycastle.asn1.cms.AttributeTable;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.Security;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimestampServiceTest {
+
+    @TempDir
+    Path trustDir;
+
+    private LocalTimestampAuthority authority;
+    private DigestCalculatorProvider digestProvider;
+    private TrustStoreCache trustStoreCache;
+    private TrustStore trustStore;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+        authority = new LocalTimestampAuthority();
+        authority.trustIn(trustDir);
+        digestProvider = new JcaDigestCalculatorProviderBuilder().build();
+        trustStoreCache = new TrustStoreCache();
+        trustStore = trustStoreCache.get(trustDir.toString());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        trustStoreCache.close();
+    }
+
+    @Test
+    void testConcurrentSignaturesShareOneTokenWithInclusionProofs() throws Exception {
+        // Janela longa: o lote fecha por tamanho quando a oitava assinatura chega
+        TimestampService service = service(TimestampService.Mode.BATCH, Duration.ofSeconds(30), 8);
+        List<byte[]> signatures = signatures(8);
+        List<Attribute> attributes = stampConcurrently(service, signatures);
+
+        assertEquals(1, authority.calls());
+        for (int i = 0; i < signatures.size(); i++) {
+            assertEquals(TimestampService.ID_AA_ER_INTERNAL, attributes.get(i).getAttrType());
+            SignatureTimestamp timestamp = verify(signatures.get(i), attributes.get(i));
+            assertEquals(TimestampVerifier.EVIDENCE_RECORD, timestamp.type());
+            assertEquals("VALIDO", timestamp.status());
+            assertNotNull(timestamp.time());
+        }
+        // A prova de inclusão de uma folha não vale para outra assinatura
+        assertEquals("INVALIDO", verify(signatures.get(1), attributes.get(0)).status());
+    }
+
+    @Test
+    void testLoneSignatureInWindowGetsPlainSignatureTimestamp() throws Exception {
+        TimestampService service = service(TimestampService.Mode.BATCH, Duration.ofMillis(10), 8);
+        byte[] signature = "assinatura unica".getBytes(StandardCharsets.UTF_8);
+
+        SignatureTimestamp timestamp = verify(signature, service.stamp(signature));
+
+        assertEquals(1, authority.calls());
+        assertEquals(TimestampVerifier.TOKEN, timestamp.type());
+        assertEquals("VALIDO", timestamp.status());
+        assertEquals("INVALIDO", verify("outra".getBytes(StandardCharsets.UTF_8), service.stamp(signature)).status());
+    }
+
+    @Test
+    void testFailedBatchFallsBackToIndividualTokens() throws Exception {
+        TimestampService service = service(TimestampService.Mode.BATCH, Duration.ofSeconds(30), 4);
+        authority.failNext(1);
+        List<byte[]> signatures = signatures(4);
+        List<Attribute> attributes = stampConcurrently(service, signatures);
+
+        // Uma chamada do lote que falhou e uma por assinatura no fallback
+        assertEquals(5, authority.calls());
+        for (int i = 0; i < signatures.size(); i++) {
+            SignatureTimestamp timestamp = verify(signatures.get(i), attributes.get(i));
+            assertEquals(TimestampVerifier.TOKEN, timestamp.type());
+            assertEquals("VALIDO", timestamp.status());
+        }
+    }
+
+    @Test
+    void testTokenFromTsaOutsideTrustAnchorsIsNotTrusted() throws Exception {
+        // Token íntegro e bem assinado, mas de uma TSA autoassinada que não está nas âncoras
+        LocalTimestampAuthority untrusted = new LocalTimestampAuthority();
+        byte[] signature = "assinatura de tsa desconhecida".getBytes(StandardCharsets.UTF_8);
+
+        SignatureTimestamp token = verify(signature, new TimestampService(untrusted, TimestampService.Mode.INDIVIDUAL,
+                "SHA-256", "", Duration.ofMillis(10), 8).stamp(signature));
+        assertEquals(TimestampVerifier.TOKEN, token.type());
+        assertEquals("NAO_CONFIAVEL", token.status());
+        assertNotNull(token.time());
+
+        TimestampService batch = new TimestampService(untrusted, TimestampService.Mode.BATCH, "SHA-256", "",
+                Duration.ofSeconds(30), 2);
+        List<byte[]> signatures = signatures(2);
+        List<Attribute> attributes = stampConcurrently(batch, signatures);
+        SignatureTimestamp record = verify(signatures.get(0), attributes.get(0));
+        assertEquals(TimestampVerifier.EVIDENCE_RECORD, record.type());
+        assertEquals("NAO_CONFIAVEL", record.status());
+    }
+
+    private TimestampService service(TimestampService.Mode mode, Duration window, int maxBatch) {
+        return new TimestampService(authority, mode, "SHA-256", "", window, maxBatch);
+    }
+
+    private List<Attribute> stampConcurrently(TimestampService service, List<byte[]> signatures) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(signatures.size());
+        try {
+            List<Future<Attribute>> futures = new ArrayList<>();
+            for (byte[] signature : signatures) {
+                futures.add(pool.submit(() -> service.stamp(signature)));
+            }
+            List<Attribute> attributes = new ArrayList<>();
+            for (Future<Attribute> future : futures) {
+                attributes.add(future.get());
+            }
+            return attributes;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private SignatureTimestamp verify(byte[] signature, Attribute attribute) {
+        return TimestampVerifier.verify(signature, new AttributeTable(attribute), digestProvider, trustStore);
+    }
+
+    private static List<byte[]> signatures(int n) {
+        List<byte[]> signatures = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            signatures.add(("assinatura " + i).getBytes(StandardCharsets.UTF_8));
+        }
+        return signatures;
+    }
+}